@@ -34,10 +34,14 @@ package com.jme3.anim;
 import com.jme3.anim.tween.Tween;
 import com.jme3.anim.tween.Tweens;
 import com.jme3.anim.tween.action.*;
+import com.jme3.bounding.BoundingBox;
+import com.jme3.bounding.BoundingSphere;
+import com.jme3.bounding.BoundingVolume;
 import com.jme3.export.InputCapsule;
 import com.jme3.export.JmeExporter;
 import com.jme3.export.JmeImporter;
 import com.jme3.export.OutputCapsule;
+import com.jme3.renderer.Camera;
 import com.jme3.renderer.RenderManager;
 import com.jme3.renderer.ViewPort;
 import com.jme3.scene.control.AbstractControl;
@@ -62,6 +66,25 @@ public class AnimComposer extends AbstractControl {
     private Map<String, Action> actions = new HashMap<>();
     private float globalSpeed = 1f;
     private Map<String, AnimLayer> layers = new LinkedHashMap<>(4);
+    /**
+     * The system that updates this composer, or null if it updates itself.
+     */
+    private transient AnimationSystem animationSystem;
+    /**
+     * The LOD policy, or null to evaluate every frame. Runtime only, it
+     * isn't saved.
+     */
+    private transient AnimLodPolicy lodPolicy;
+    /**
+     * The largest screen size measured since the previous update, or
+     * infinity if the spatial wasn't rendered yet.
+     */
+    private transient float renderedScreenSize = Float.POSITIVE_INFINITY;
+    private transient float screenSize = Float.POSITIVE_INFINITY;
+    private transient int framesSinceEvaluation;
+    private transient float pendingTpf;
+    private transient boolean evaluationSkipped;
+    private transient long skippedEvaluations;
 
     /**
      * Instantiate a composer with a single layer, no actions, and no clips.
@@ -402,11 +425,171 @@ public class AnimComposer extends AbstractControl {
      */
     @Override
     protected void controlUpdate(float tpf) {
+        if (animationSystem == null) {
+            updateLayers(tpf);
+        }
+    }
+
+    /**
+     * Updates all layers. Invoked by controlUpdate, or by the
+     * {@link AnimationSystem} managing this composer.
+     *
+     * @param tpf the time since the previous update (in seconds, &ge;0)
+     */
+    void updateLayers(float tpf) {
+        if (lodPolicy == null) {
+            evaluationSkipped = false;
+            for (AnimLayer layer : layers.values()) {
+                layer.update(tpf, globalSpeed);
+            }
+            return;
+        }
+
+        screenSize = renderedScreenSize;
+        renderedScreenSize = 0f;
+        pendingTpf += tpf;
+        framesSinceEvaluation++;
+
+        int interval = lodPolicy.getUpdateInterval(this, screenSize);
+        if (interval <= 0 || framesSinceEvaluation < interval) {
+            evaluationSkipped = true;
+            skippedEvaluations++;
+            return;
+        }
+
+        float elapsed = pendingTpf;
+        pendingTpf = 0f;
+        framesSinceEvaluation = 0;
+        evaluationSkipped = false;
         for (AnimLayer layer : layers.values()) {
-            layer.update(tpf, globalSpeed);
+            String name = layer.getName();
+            if (DEFAULT_LAYER.equals(name) || lodPolicy.isLayerUpdated(this, name, screenSize)) {
+                layer.update(elapsed, globalSpeed);
+            }
         }
     }
 
+    /**
+     * Returns the LOD policy.
+     *
+     * @return the pre-existing instance, or null if the composer is evaluated
+     *     every frame
+     */
+    public AnimLodPolicy getLodPolicy() {
+        return lodPolicy;
+    }
+
+    /**
+     * Sets the LOD policy, which can reduce how often this composer is
+     * evaluated depending on how large its spatial is on screen. When an
+     * evaluation is skipped, a {@link SkinningControl} on the same spatial
+     * also skips its update and reuses its previous skinning matrices.
+     * <p>
+     * The policy is a runtime setting: it is shared by clones but isn't
+     * saved by {@link #write(JmeExporter) }, so it must be
+     * set again on loaded models.
+     *
+     * @param lodPolicy the policy to use (alias created), or null to
+     *     evaluate every frame (default=null)
+     * @see ScreenSizeAnimLodPolicy
+     */
+    public void setLodPolicy(AnimLodPolicy lodPolicy) {
+        this.lodPolicy = lodPolicy;
+        renderedScreenSize = Float.POSITIVE_INFINITY;
+        screenSize = Float.POSITIVE_INFINITY;
+        framesSinceEvaluation = 0;
+        pendingTpf = 0f;
+        evaluationSkipped = false;
+    }
+
+    /**
+     * Returns the screen size the LOD policy was given during the last
+     * update: the projected diameter of the spatial's world bound divided by
+     * the view height, for the view where it was the largest.
+     *
+     * @return the size (&ge;0), 0 if the spatial wasn't rendered during the
+     *     previous frame, or infinity if it wasn't rendered yet or there is
+     *     no LOD policy
+     */
+    public float getScreenSize() {
+        return screenSize;
+    }
+
+    /**
+     * Tests whether the last update skipped the evaluation of this composer
+     * because of its LOD policy.
+     *
+     * @return true if skipped, otherwise false
+     */
+    public boolean isEvaluationSkipped() {
+        return evaluationSkipped;
+    }
+
+    /**
+     * Returns how many evaluations the LOD policy skipped since this
+     * composer was created or the count was last reset.
+     *
+     * @return the count (&ge;0)
+     */
+    public long getSkippedEvaluations() {
+        return skippedEvaluations;
+    }
+
+    /**
+     * Resets the count of skipped evaluations to zero.
+     */
+    public void resetSkippedEvaluations() {
+        skippedEvaluations = 0;
+    }
+
+    /**
+     * Computes the screen size of a bounding volume: its projected diameter
+     * divided by the height of the camera's view.
+     *
+     * @param bound the world bound (may be null)
+     * @param cam the camera (not null)
+     * @return the size (&ge;0), or infinity if the bound is null, unsupported
+     *     or contains the camera
+     */
+    static float computeScreenSize(BoundingVolume bound, Camera cam) {
+        float radius;
+        if (bound instanceof BoundingSphere) {
+            radius = ((BoundingSphere) bound).getRadius();
+        } else if (bound instanceof BoundingBox) {
+            BoundingBox box = (BoundingBox) bound;
+            float x = box.getXExtent();
+            float y = box.getYExtent();
+            float z = box.getZExtent();
+            radius = (float) Math.sqrt(x * x + y * y + z * z);
+        } else {
+            return Float.POSITIVE_INFINITY;
+        }
+
+        float viewHeight = cam.getFrustumTop() - cam.getFrustumBottom();
+        if (!cam.isParallelProjection()) {
+            float distance = cam.getLocation().distance(bound.getCenter());
+            if (distance <= radius) {
+                return Float.POSITIVE_INFINITY;
+            }
+            viewHeight *= distance / cam.getFrustumNear();
+        }
+        return 2f * radius / viewHeight;
+    }
+
+    /**
+     * Returns the system that updates this composer.
+     *
+     * @return the pre-existing instance, or null if the composer updates
+     *     itself from {@link #update(float)}
+     */
+    public AnimationSystem getAnimationSystem() {
+        return animationSystem;
+    }
+
+    void setAnimationSystem(AnimationSystem animationSystem) {
+        this.animationSystem = animationSystem;
+    }
+
     /**
      * used internally
      *
@@ -415,7 +598,12 @@ public class AnimComposer extends AbstractControl {
      */
     @Override
     protected void controlRender(RenderManager rm, ViewPort vp) {
-
+        if (lodPolicy != null) {
+            float size = computeScreenSize(spatial.getWorldBound(), vp.getCamera());
+            if (!(renderedScreenSize >= size)) {
+                renderedScreenSize = size;
+            }
+        }
     }
 
     /**
@@ -522,6 +710,10 @@ public class AnimComposer extends AbstractControl {
         }
         actions = act;
         animClipMap = clips;
+        // the clone isn't registered with the original's system
+        animationSystem = null;
+        setLodPolicy(lodPolicy);
+        skippedEvaluations = 0;
 
         Map<String, AnimLayer> newLayers = new LinkedHashMap<>();
         for (String key : layers.keySet()) {
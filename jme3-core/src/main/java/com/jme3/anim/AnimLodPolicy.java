@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2009-2025 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.anim;
+
+/**
+ * Decides how often an {@link AnimComposer} is evaluated, based on how large
+ * its spatial appears on screen.
+ *
+ * <p>The screen size is the projected diameter of the spatial's world bound
+ * divided by the height of the view, as measured by
+ * {@link AnimComposer#getScreenSize()}: about 1 when the model fills the
+ * view, 0 when it wasn't rendered during the previous frame.
+ *
+ * @see AnimComposer#setLodPolicy(com.jme3.anim.AnimLodPolicy)
+ */
+public interface AnimLodPolicy {
+
+    /**
+     * Returns how many frames apart the composer is evaluated. The time of
+     * the skipped frames is added to the next evaluation, so the animation
+     * keeps its speed, and the previous pose (and skinning matrices) are
+     * reused in between.
+     *
+     * @param composer the composer being updated (not null)
+     * @param screenSize the screen size of the composer's spatial (&ge;0)
+     * @return the interval in frames: 1 to evaluate every frame, 0 or less
+     *     to freeze the composer
+     */
+    int getUpdateInterval(AnimComposer composer, float screenSize);
+
+    /**
+     * Tests whether a layer other than the default one is evaluated. Skipped
+     * layers are paused and no longer contribute to the pose.
+     *
+     * @param composer the composer being updated (not null)
+     * @param layerName the name of the layer (not null)
+     * @param screenSize the screen size of the composer's spatial (&ge;0)
+     * @return true to evaluate the layer, false to skip it
+     */
+    boolean isLayerUpdated(AnimComposer composer, String layerName, float screenSize);
+}
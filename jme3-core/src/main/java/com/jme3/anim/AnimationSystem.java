@@ -0,0 +1,301 @@
+/*
+ * Copyright (c) 2009-2025 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.anim;
+
+import com.jme3.app.Application;
+import com.jme3.app.state.BaseAppState;
+import com.jme3.scene.Spatial;
+import com.jme3.util.SafeArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * An app state that updates many animated models in parallel.
+ *
+ * <p>Each registered model is an {@link AnimComposer} and/or a
+ * {@link SkinningControl}. While the state is enabled, those controls no
+ * longer update themselves from the scene graph. Instead, during
+ * {@link #update(float)} the state evaluates the actions of every composer,
+ * then the joint model transforms and skinning matrices of its armature, with
+ * one fork-join task per model so idle workers can steal from busy ones. The
+ * call returns once every model is done, and the joints' attachments nodes
+ * are then updated on the calling thread. Code running outside the pool
+ * therefore never sees a model in the middle of an update, and the skinning
+ * controls only upload the precomputed matrices when rendered.
+ *
+ * <p>Models are evaluated during the app state update, that is before the
+ * scene graph's logical update rather than during it, and whether or not
+ * they are attached to a scene. Animation code runs on the worker threads,
+ * so a registered model must not share mutable animation state with another
+ * one: its clips should only target its own joints and spatials, a
+ * {@link com.jme3.anim.interpolator.FrameInterpolator} set on a track must
+ * not be shared with other models, and method-call tweens must be thread
+ * safe.
+ */
+public class AnimationSystem extends BaseAppState {
+
+    private final ForkJoinPool pool;
+    private final SafeArrayList<Entry> entries = new SafeArrayList<>(Entry.class);
+    // time step of the update currently running, published to the workers by
+    // ForkJoinPool.invoke()
+    private float updateTpf;
+
+    /**
+     * Creates a system that runs on the {@link ForkJoinPool#commonPool() common pool}.
+     */
+    public AnimationSystem() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a system that runs on the given pool.
+     *
+     * @param pool the pool to run the animation tasks on (not null, alias created)
+     */
+    public AnimationSystem(ForkJoinPool pool) {
+        if (pool == null) {
+            throw new IllegalArgumentException("pool cannot be null");
+        }
+        this.pool = pool;
+    }
+
+    /**
+     * Returns the pool that runs the animation tasks.
+     *
+     * @return the pre-existing instance
+     */
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Registers the AnimComposer and SkinningControl of the given spatial.
+     *
+     * @param model the spatial controlled by an AnimComposer, a
+     *     SkinningControl, or both (not null)
+     */
+    public void register(Spatial model) {
+        register(model.getControl(AnimComposer.class), model.getControl(SkinningControl.class));
+    }
+
+    /**
+     * Registers a model. The composer is always updated before the armature
+     * of the skinning control, so it should be the one animating that
+     * armature.
+     *
+     * @param composer the composer to update, or null for none
+     * @param skinningControl the skinning control to update, or null for none
+     */
+    public void register(AnimComposer composer, SkinningControl skinningControl) {
+        if (composer == null && skinningControl == null) {
+            throw new IllegalArgumentException("No control to register");
+        }
+        if (composer != null && composer.getAnimationSystem() != null
+                || skinningControl != null && skinningControl.getAnimationSystem() != null
+                || indexOf(composer, skinningControl) >= 0) {
+            throw new IllegalStateException("Control is already registered with an AnimationSystem");
+        }
+        Entry entry = new Entry(composer, skinningControl);
+        entries.add(entry);
+        if (isInitialized() && isEnabled()) {
+            entry.setManaged(this);
+        }
+    }
+
+    /**
+     * Unregisters the model of the given spatial.
+     *
+     * @param model the spatial that was registered (not null)
+     * @return true if a model was unregistered, otherwise false
+     */
+    public boolean unregister(Spatial model) {
+        return unregister(model.getControl(AnimComposer.class), model.getControl(SkinningControl.class));
+    }
+
+    /**
+     * Unregisters the model that contains either of the given controls. The
+     * controls go back to updating themselves.
+     *
+     * @param composer the registered composer, or null
+     * @param skinningControl the registered skinning control, or null
+     * @return true if a model was unregistered, otherwise false
+     */
+    public boolean unregister(AnimComposer composer, SkinningControl skinningControl) {
+        int index = indexOf(composer, skinningControl);
+        if (index < 0) {
+            return false;
+        }
+        Entry entry = entries.remove(index);
+        entry.setManaged(null);
+        return true;
+    }
+
+    /**
+     * Returns the number of registered models.
+     *
+     * @return the count (&ge;0)
+     */
+    public int getModelCount() {
+        return entries.size();
+    }
+
+    private int indexOf(AnimComposer composer, SkinningControl skinningControl) {
+        Entry[] array = entries.getArray();
+        for (int i = 0; i < array.length; i++) {
+            Entry entry = array[i];
+            if (composer != null && entry.composer == composer
+                    || skinningControl != null && entry.skinningControl == skinningControl) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    protected void initialize(Application app) {
+    }
+
+    @Override
+    protected void cleanup(Application app) {
+    }
+
+    @Override
+    protected void onEnable() {
+        for (Entry entry : entries.getArray()) {
+            entry.setManaged(this);
+        }
+    }
+
+    @Override
+    protected void onDisable() {
+        for (Entry entry : entries.getArray()) {
+            entry.setManaged(null);
+        }
+    }
+
+    @Override
+    public void update(float tpf) {
+        Entry[] array = entries.getArray();
+        if (array.length == 0) {
+            return;
+        }
+
+        if (array.length == 1) {
+            array[0].update(tpf);
+        } else {
+            updateTpf = tpf;
+            pool.invoke(new UpdateTask(array, 0, array.length));
+        }
+
+        // attachments nodes are part of the scene graph, so they are only
+        // touched from the calling thread
+        for (Entry entry : array) {
+            entry.updateAttachNodes();
+        }
+    }
+
+    /**
+     * A registered model.
+     */
+    private static final class Entry {
+
+        private final AnimComposer composer;
+        private final SkinningControl skinningControl;
+
+        Entry(AnimComposer composer, SkinningControl skinningControl) {
+            this.composer = composer;
+            this.skinningControl = skinningControl;
+        }
+
+        void setManaged(AnimationSystem system) {
+            if (composer != null) {
+                composer.setAnimationSystem(system);
+            }
+            if (skinningControl != null) {
+                skinningControl.setAnimationSystem(system);
+            }
+        }
+
+        void update(float tpf) {
+            if (composer != null && composer.isEnabled() && composer.getSpatial() != null) {
+                composer.updateLayers(tpf);
+            }
+            if (isSkinningActive() && !isEvaluationSkipped()) {
+                skinningControl.updateArmature();
+            }
+        }
+
+        void updateAttachNodes() {
+            if (isSkinningActive() && !isEvaluationSkipped()) {
+                skinningControl.getArmature().updateAttachNodes();
+            }
+        }
+
+        private boolean isEvaluationSkipped() {
+            return composer != null && composer.isEnabled() && composer.isEvaluationSkipped();
+        }
+
+        private boolean isSkinningActive() {
+            return skinningControl != null && skinningControl.isEnabled()
+                    && skinningControl.getSpatial() != null;
+        }
+    }
+
+    /**
+     * Updates a range of models, splitting it in halves until each task
+     * updates a single model.
+     */
+    private final class UpdateTask extends RecursiveAction {
+
+        static final long serialVersionUID = 1;
+
+        private final Entry[] entries;
+        private final int from;
+        private final int to;
+
+        UpdateTask(Entry[] entries, int from, int to) {
+            this.entries = entries;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new UpdateTask(entries, from, mid), new UpdateTask(entries, mid, to));
+            } else {
+                entries[from].update(updateTpf);
+            }
+        }
+    }
+}
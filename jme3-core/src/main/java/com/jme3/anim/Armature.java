@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2009-2024 jMonkeyEngine
+ * Copyright (c) 2009-2025 jMonkeyEngine
  * All rights reserved.
  *
  * Redistribution and use in source and binary forms, with or without
@@ -102,6 +102,27 @@ public class Armature implements JmeCloneable, Savable {
         }
     }
 
+    /**
+     * Updates the model transforms of all joints without touching their
+     * attachments nodes, which are scene graph nodes and must be updated
+     * separately with {@link #updateAttachNodes()}.
+     */
+    void updateWithoutAttachNodes() {
+        for (Joint rootJoint : rootJoints) {
+            rootJoint.updateWithoutAttachNodes();
+        }
+    }
+
+    /**
+     * Updates the attachments nodes of all joints from their current model
+     * transforms.
+     */
+    void updateAttachNodes() {
+        for (Joint joint : jointList) {
+            joint.updateAttachNode();
+        }
+    }
+
     private void createSkinningMatrices() {
         skinningMatrixes = new Matrix4f[jointList.length];
         for (int i = 0; i < skinningMatrixes.length; i++) {
@@ -0,0 +1,594 @@
+/*
+ * Copyright (c) 2009-2025 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.anim;
+
+import com.jme3.anim.util.HasLocalTransform;
+import com.jme3.export.InputCapsule;
+import com.jme3.export.JmeExporter;
+import com.jme3.export.JmeImporter;
+import com.jme3.export.OutputCapsule;
+import com.jme3.math.FastMath;
+import com.jme3.math.Quaternion;
+import com.jme3.math.Transform;
+import com.jme3.math.Vector3f;
+import com.jme3.util.TempVars;
+import com.jme3.util.clone.Cloner;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A compact, read-only alternative to {@link TransformTrack}.
+ *
+ * <p>Each channel (translation, rotation and scale) is compressed separately:
+ * <ul>
+ * <li>a channel whose keyframes are all within tolerance of the first one is
+ * stored as a single constant,</li>
+ * <li>keyframes that linear interpolation of their neighbours reproduces within
+ * tolerance are dropped, so each channel keeps its own subset of the
+ * keyframe times,</li>
+ * <li>rotations are quantized with the "smallest three" encoding, 15 bits per
+ * component plus 2 bits for the index of the dropped component (6 bytes per
+ * keyframe),</li>
+ * <li>translations and scales are quantized to 16 bits per component over the
+ * range of the channel (6 bytes per keyframe).</li>
+ * </ul>
+ * The track is sampled by decompressing the two keyframes around the
+ * requested time. Translations and scales are interpolated linearly and
+ * rotations with nlerp, regardless of any
+ * {@link com.jme3.anim.interpolator.FrameInterpolator}.
+ *
+ * <p>Compression is lossy: on top of the tolerances, the quantization error
+ * is below 1/65535 of the channel's range for translations and scales, and
+ * below 3e-5 per component for rotations.
+ *
+ * @see com.jme3.anim.util.AnimCompressor
+ */
+public class CompressedTransformTrack implements AnimTrack<Transform> {
+
+    /**
+     * The maximum number of keyframes of a compressed track, since channels
+     * index the keyframe times with 16 bits.
+     */
+    public static final int MAX_KEYFRAMES = 65536;
+
+    private static final float SQRT_HALF = FastMath.sqrt(0.5f);
+
+    private double length;
+    private HasLocalTransform target;
+    private float[] times;
+    private Channel translations;
+    private Channel rotations;
+    private Channel scales;
+
+    /**
+     * Serialization-only. Do not use.
+     */
+    protected CompressedTransformTrack() {
+    }
+
+    /**
+     * Compresses a transform track. The source track is unaffected.
+     *
+     * @param source the track to compress (not null, at most
+     *     {@link #MAX_KEYFRAMES} keyframes)
+     * @param translationTolerance the maximum error allowed for each
+     *     translation component when reducing keyframes (&ge;0)
+     * @param rotationTolerance the maximum error allowed for each quaternion
+     *     component when reducing keyframes (&ge;0)
+     * @param scaleTolerance the maximum error allowed for each scale component
+     *     when reducing keyframes (&ge;0)
+     */
+    public CompressedTransformTrack(TransformTrack source, float translationTolerance,
+            float rotationTolerance, float scaleTolerance) {
+        float[] sourceTimes = source.getTimes();
+        if (sourceTimes.length > MAX_KEYFRAMES) {
+            throw new IllegalArgumentException("Too many keyframes: " + sourceTimes.length);
+        }
+        this.target = source.getTarget();
+        this.times = sourceTimes.clone();
+        this.length = source.getLength();
+
+        Vector3f[] translationArray = source.getTranslations();
+        if (translationArray != null) {
+            translations = Channel.compressVectors(times, toFloats(translationArray), translationTolerance);
+        }
+        Quaternion[] rotationArray = source.getRotations();
+        if (rotationArray != null) {
+            rotations = Channel.compressRotations(times, toFloats(rotationArray), rotationTolerance);
+        }
+        Vector3f[] scaleArray = source.getScales();
+        if (scaleArray != null) {
+            scales = Channel.compressVectors(times, toFloats(scaleArray), scaleTolerance);
+        }
+    }
+
+    private static float[] toFloats(Vector3f[] vectors) {
+        float[] result = new float[vectors.length * 3];
+        for (int i = 0; i < vectors.length; i++) {
+            result[i * 3] = vectors[i].x;
+            result[i * 3 + 1] = vectors[i].y;
+            result[i * 3 + 2] = vectors[i].z;
+        }
+        return result;
+    }
+
+    private static float[] toFloats(Quaternion[] rotations) {
+        float[] result = new float[rotations.length * 4];
+        for (int i = 0; i < rotations.length; i++) {
+            Quaternion q = rotations[i];
+            float norm = q.norm();
+            float inv = norm > 0f ? FastMath.invSqrt(norm) : 1f;
+            result[i * 4] = q.getX() * inv;
+            result[i * 4 + 1] = q.getY() * inv;
+            result[i * 4 + 2] = q.getZ() * inv;
+            result[i * 4 + 3] = q.getW() * inv;
+            // keep successive keyframes in the same hemisphere, as nlerp does
+            if (i > 0) {
+                int a = (i - 1) * 4;
+                int b = i * 4;
+                float dot = result[a] * result[b] + result[a + 1] * result[b + 1]
+                        + result[a + 2] * result[b + 2] + result[a + 3] * result[b + 3];
+                if (dot < 0f) {
+                    for (int j = 0; j < 4; j++) {
+                        result[b + j] = -result[b + j];
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gives access to the keyframe times of the source track. Each channel
+     * only uses a subset of them.
+     *
+     * @return the pre-existing array
+     */
+    public float[] getTimes() {
+        return times;
+    }
+
+    /**
+     * Returns the number of keyframes stored for the translations.
+     *
+     * @return the count: 0 if there are no translations, 1 if they are
+     *     constant
+     */
+    public int getTranslationKeyCount() {
+        return translations == null ? 0 : translations.getKeyCount();
+    }
+
+    /**
+     * Returns the number of keyframes stored for the rotations.
+     *
+     * @return the count: 0 if there are no rotations, 1 if they are constant
+     */
+    public int getRotationKeyCount() {
+        return rotations == null ? 0 : rotations.getKeyCount();
+    }
+
+    /**
+     * Returns the number of keyframes stored for the scales.
+     *
+     * @return the count: 0 if there are no scales, 1 if they are constant
+     */
+    public int getScaleKeyCount() {
+        return scales == null ? 0 : scales.getKeyCount();
+    }
+
+    /**
+     * Gives access to the target, which might be a Joint or a Spatial.
+     *
+     * @return the pre-existing instance
+     */
+    public HasLocalTransform getTarget() {
+        return target;
+    }
+
+    /**
+     * Replaces the target, which might be a Joint or a Spatial.
+     *
+     * @param target the target to use (alias created)
+     */
+    public void setTarget(HasLocalTransform target) {
+        this.target = target;
+    }
+
+    @Override
+    public double getLength() {
+        return length;
+    }
+
+    @Override
+    public void getDataAtTime(double t, Transform transform) {
+        float time = (float) t;
+        if (translations != null) {
+            translations.sampleVector(times, time, transform.getTranslation());
+        }
+        if (rotations != null) {
+            rotations.sampleRotation(times, time, transform.getRotation());
+        }
+        if (scales != null) {
+            scales.sampleVector(times, time, transform.getScale());
+        }
+    }
+
+    @Override
+    public void write(JmeExporter ex) throws IOException {
+        OutputCapsule oc = ex.getCapsule(this);
+        oc.write(times, "times", null);
+        oc.write(target, "target", null);
+        Channel.write(translations, oc, "translation");
+        Channel.write(rotations, oc, "rotation");
+        Channel.write(scales, oc, "scale");
+    }
+
+    @Override
+    public void read(JmeImporter im) throws IOException {
+        InputCapsule ic = im.getCapsule(this);
+        times = ic.readFloatArray("times", null);
+        target = (HasLocalTransform) ic.readSavable("target", null);
+        translations = Channel.read(ic, "translation");
+        rotations = Channel.read(ic, "rotation");
+        scales = Channel.read(ic, "scale");
+        length = times[times.length - 1] - times[0];
+    }
+
+    @Override
+    public CompressedTransformTrack jmeClone() {
+        try {
+            return (CompressedTransformTrack) super.clone();
+        } catch (CloneNotSupportedException ex) {
+            throw new AssertionError();
+        }
+    }
+
+    @Override
+    public void cloneFields(Cloner cloner, Object original) {
+        this.target = cloner.clone(target);
+    }
+
+    /**
+     * One compressed channel. Immutable apart from the lookup cursor, which
+     * is only a hint, so channels are shared between clones.
+     */
+    private static final class Channel {
+
+        /**
+         * The value of a constant channel, or null if animated.
+         */
+        private final float[] constant;
+        /**
+         * Index of the keyframe time of each key (unsigned 16 bits).
+         */
+        private final short[] frames;
+        /**
+         * The quantized values, 3 per key.
+         */
+        private final short[] data;
+        /**
+         * For vectors, the minimum and extent of each component.
+         */
+        private final float[] min;
+        private final float[] extent;
+        private int cursor;
+
+        private Channel(float[] constant, short[] frames, short[] data,
+                float[] min, float[] extent) {
+            this.constant = constant;
+            this.frames = frames;
+            this.data = data;
+            this.min = min;
+            this.extent = extent;
+        }
+
+        int getKeyCount() {
+            return constant != null ? 1 : frames.length;
+        }
+
+        static Channel compressVectors(float[] times, float[] values, float tolerance) {
+            int count = values.length / 3;
+            if (isConstant(values, 3, tolerance)) {
+                return new Channel(Arrays.copyOf(values, 3), null, null, null, null);
+            }
+            int[] keys = reduce(times, values, count, 3, tolerance, false);
+
+            float[] min = {Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY};
+            float[] max = {Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY};
+            for (int key : keys) {
+                for (int c = 0; c < 3; c++) {
+                    min[c] = Math.min(min[c], values[key * 3 + c]);
+                    max[c] = Math.max(max[c], values[key * 3 + c]);
+                }
+            }
+            float[] extent = new float[3];
+            for (int c = 0; c < 3; c++) {
+                extent[c] = max[c] - min[c];
+            }
+
+            short[] frames = new short[keys.length];
+            short[] data = new short[keys.length * 3];
+            for (int i = 0; i < keys.length; i++) {
+                frames[i] = (short) keys[i];
+                for (int c = 0; c < 3; c++) {
+                    float normalized = extent[c] > 0f
+                            ? (values[keys[i] * 3 + c] - min[c]) / extent[c] : 0f;
+                    data[i * 3 + c] = (short) Math.round(FastMath.clamp(normalized, 0f, 1f) * 65535f);
+                }
+            }
+            return new Channel(null, frames, data, min, extent);
+        }
+
+        static Channel compressRotations(float[] times, float[] values, float tolerance) {
+            int count = values.length / 4;
+            if (isConstant(values, 4, tolerance)) {
+                return new Channel(Arrays.copyOf(values, 4), null, null, null, null);
+            }
+            int[] keys = reduce(times, values, count, 4, tolerance, true);
+            short[] frames = new short[keys.length];
+            short[] data = new short[keys.length * 3];
+            for (int i = 0; i < keys.length; i++) {
+                frames[i] = (short) keys[i];
+                encodeRotation(values, keys[i] * 4, data, i * 3);
+            }
+            return new Channel(null, frames, data, null, null);
+        }
+
+        private static boolean isConstant(float[] values, int size, float tolerance) {
+            for (int i = size; i < values.length; i++) {
+                if (Math.abs(values[i] - values[i % size]) > tolerance) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Greedily extends each segment as long as interpolating between its
+         * end keys reproduces every skipped keyframe within tolerance.
+         *
+         * @return the indices of the keyframes to keep, in ascending order
+         */
+        private static int[] reduce(float[] times, float[] values, int count, int size,
+                float tolerance, boolean nlerp) {
+            int[] keys = new int[count];
+            int keyCount = 0;
+            keys[keyCount++] = 0;
+            int start = 0;
+            float[] tmp = new float[size];
+            while (start < count - 1) {
+                int end = start + 1;
+                while (end + 1 < count
+                        && fits(times, values, start, end + 1, size, tolerance, nlerp, tmp)) {
+                    end++;
+                }
+                keys[keyCount++] = end;
+                start = end;
+            }
+            return Arrays.copyOf(keys, keyCount);
+        }
+
+        private static boolean fits(float[] times, float[] values, int start, int end, int size,
+                float tolerance, boolean nlerp, float[] tmp) {
+            float span = times[end] - times[start];
+            for (int i = start + 1; i < end; i++) {
+                float blend = span > 0f ? (times[i] - times[start]) / span : 0f;
+                interpolate(values, start * size, values, end * size, blend, size, nlerp, tmp);
+                for (int c = 0; c < size; c++) {
+                    if (Math.abs(tmp[c] - values[i * size + c]) > tolerance) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        private static void interpolate(float[] a, int offsetA, float[] b, int offsetB,
+                float blend, int size, boolean nlerp, float[] store) {
+            float blendI = 1f - blend;
+            float norm = 0f;
+            for (int c = 0; c < size; c++) {
+                store[c] = blendI * a[offsetA + c] + blend * b[offsetB + c];
+                norm += store[c] * store[c];
+            }
+            if (nlerp && norm > 0f) {
+                float inv = FastMath.invSqrt(norm);
+                for (int c = 0; c < size; c++) {
+                    store[c] *= inv;
+                }
+            }
+        }
+
+        private static void encodeRotation(float[] values, int offset, short[] data, int dataOffset) {
+            int largest = 0;
+            for (int c = 1; c < 4; c++) {
+                if (Math.abs(values[offset + c]) > Math.abs(values[offset + largest])) {
+                    largest = c;
+                }
+            }
+            // q and -q are the same rotation, so make the dropped component positive
+            float sign = values[offset + largest] < 0f ? -1f : 1f;
+            int j = 0;
+            for (int c = 0; c < 4; c++) {
+                if (c == largest) {
+                    continue;
+                }
+                float normalized = (values[offset + c] * sign + SQRT_HALF) / (2f * SQRT_HALF);
+                data[dataOffset + j++] = (short) Math.round(FastMath.clamp(normalized, 0f, 1f) * 32767f);
+            }
+            data[dataOffset] |= (short) ((largest >> 1) << 15);
+            data[dataOffset + 1] |= (short) ((largest & 1) << 15);
+        }
+
+        private void decodeRotation(int key, Quaternion store) {
+            int s0 = data[key * 3] & 0xFFFF;
+            int s1 = data[key * 3 + 1] & 0xFFFF;
+            int s2 = data[key * 3 + 2] & 0xFFFF;
+            int largest = ((s0 >> 15) << 1) | (s1 >> 15);
+            float a = (s0 & 0x7FFF) / 32767f * (2f * SQRT_HALF) - SQRT_HALF;
+            float b = (s1 & 0x7FFF) / 32767f * (2f * SQRT_HALF) - SQRT_HALF;
+            float c = s2 / 32767f * (2f * SQRT_HALF) - SQRT_HALF;
+            float d = FastMath.sqrt(Math.max(0f, 1f - a * a - b * b - c * c));
+            switch (largest) {
+                case 0:
+                    store.set(d, a, b, c);
+                    break;
+                case 1:
+                    store.set(a, d, b, c);
+                    break;
+                case 2:
+                    store.set(a, b, d, c);
+                    break;
+                default:
+                    store.set(a, b, c, d);
+                    break;
+            }
+        }
+
+        private float decodeComponent(int key, int c) {
+            return min[c] + (data[key * 3 + c] & 0xFFFF) / 65535f * extent[c];
+        }
+
+        /**
+         * Finds the key that starts the segment containing the given time,
+         * trying the previous segment and its successor before a binary
+         * search.
+         *
+         * @return the index of the start key (&ge;0, &lt;last key)
+         */
+        private int findStartKey(float[] times, float time, int lastKey) {
+            int hint = cursor;
+            if (hint < lastKey && (hint == 0 || times[frames[hint] & 0xFFFF] < time)) {
+                if (time <= times[frames[hint + 1] & 0xFFFF]) {
+                    return hint;
+                }
+                if (hint + 1 < lastKey && time <= times[frames[hint + 2] & 0xFFFF]) {
+                    cursor = hint + 1;
+                    return hint + 1;
+                }
+            }
+            int low = 1;
+            int high = lastKey;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (times[frames[mid] & 0xFFFF] < time) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            cursor = low - 1;
+            return low - 1;
+        }
+
+        private float keyTime(float[] times, int key) {
+            return times[frames[key] & 0xFFFF];
+        }
+
+        /**
+         * Finds the key that starts the segment containing the given time,
+         * or the first or last key if the time is outside the channel.
+         */
+        private int locate(float[] times, float time) {
+            int lastKey = frames.length - 1;
+            if (time <= keyTime(times, 0)) {
+                return 0;
+            } else if (time >= keyTime(times, lastKey)) {
+                return lastKey;
+            }
+            return findStartKey(times, time, lastKey);
+        }
+
+        private float blend(float[] times, float time, int start, int end) {
+            if (start == end) {
+                return 0f;
+            }
+            float startTime = keyTime(times, start);
+            float span = keyTime(times, end) - startTime;
+            return span > 0f ? FastMath.clamp((time - startTime) / span, 0f, 1f) : 0f;
+        }
+
+        void sampleVector(float[] times, float time, Vector3f store) {
+            if (constant != null) {
+                store.set(constant[0], constant[1], constant[2]);
+                return;
+            }
+            int start = locate(times, time);
+            int end = Math.min(start + 1, frames.length - 1);
+            float blend = blend(times, time, start, end);
+            float blendI = 1f - blend;
+            store.set(blendI * decodeComponent(start, 0) + blend * decodeComponent(end, 0),
+                    blendI * decodeComponent(start, 1) + blend * decodeComponent(end, 1),
+                    blendI * decodeComponent(start, 2) + blend * decodeComponent(end, 2));
+        }
+
+        void sampleRotation(float[] times, float time, Quaternion store) {
+            if (constant != null) {
+                store.set(constant[0], constant[1], constant[2], constant[3]);
+                return;
+            }
+            int start = locate(times, time);
+            int end = Math.min(start + 1, frames.length - 1);
+            decodeRotation(start, store);
+            if (start != end) {
+                TempVars vars = TempVars.get();
+                Quaternion next = vars.quat1;
+                decodeRotation(end, next);
+                store.nlerp(next, blend(times, time, start, end));
+                vars.release();
+            }
+        }
+
+        static void write(Channel channel, OutputCapsule oc, String prefix) throws IOException {
+            if (channel == null) {
+                return;
+            }
+            oc.write(channel.constant, prefix + "Constant", null);
+            oc.write(channel.frames, prefix + "Frames", null);
+            oc.write(channel.data, prefix + "Data", null);
+            oc.write(channel.min, prefix + "Min", null);
+            oc.write(channel.extent, prefix + "Extent", null);
+        }
+
+        static Channel read(InputCapsule ic, String prefix) throws IOException {
+            float[] constant = ic.readFloatArray(prefix + "Constant", null);
+            short[] frames = ic.readShortArray(prefix + "Frames", null);
+            if (constant == null && frames == null) {
+                return null;
+            }
+            short[] data = ic.readShortArray(prefix + "Data", null);
+            float[] min = ic.readFloatArray(prefix + "Min", null);
+            float[] extent = ic.readFloatArray(prefix + "Extent", null);
+            return new Channel(constant, frames, data, min, extent);
+        }
+    }
+}
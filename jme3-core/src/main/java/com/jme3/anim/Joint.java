@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2009-2021 jMonkeyEngine
+ * Copyright (c) 2009-2025 jMonkeyEngine
  * All rights reserved.
  *
  * Redistribution and use in source and binary forms, with or without
@@ -114,6 +114,19 @@ public class Joint implements Savable, JmeCloneable, HasLocalTransform {
         }
     }
 
+    /**
+     * Updates the model transforms for this bone and its children, leaving
+     * their attachments nodes untouched. Used by the {@link AnimationSystem},
+     * which updates the attachments nodes on the main thread.
+     */
+    final void updateWithoutAttachNodes() {
+        jointModelTransform.updateModelTransform(localTransform, parent);
+
+        for (Joint child : children.getArray()) {
+            child.updateWithoutAttachNodes();
+        }
+    }
+
     /**
      * Updates the model transforms for this bone and for the attachments node
      * if not null.
@@ -129,7 +142,7 @@ public class Joint implements Savable, JmeCloneable, HasLocalTransform {
     /**
      * Update the local transform of the attachments node.
      */
-    private void updateAttachNode() {
+    void updateAttachNode() {
         if (attachedNode == null) {
             return;
         }
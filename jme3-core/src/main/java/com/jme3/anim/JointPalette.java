@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2009-2025 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.anim;
+
+import com.jme3.math.Matrix4f;
+import com.jme3.texture.Image;
+import com.jme3.texture.Texture;
+import com.jme3.texture.Texture2D;
+import com.jme3.texture.image.ColorSpace;
+import com.jme3.util.BufferUtils;
+import com.jme3.util.RangeAllocator;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+/**
+ * A float texture holding the skinning matrices of several armatures, shared
+ * by {@link SkinningControl}s through
+ * {@link SkinningControl#setJointPalette(com.jme3.anim.JointPalette) }.
+ * <p>
+ * Each control owns a range of the palette and writes its matrices there
+ * every frame, so the whole palette is sent to the GPU once per frame and
+ * each skinned geometry only sets the offset of its range, instead of
+ * uploading a uniform array per draw.
+ * <p>
+ * A matrix takes 4 RGBA texels, one per column, and a row of the texture
+ * holds {@link #MATRICES_PER_ROW} matrices. The texture grows by rows when
+ * ranges are allocated, its object stays the same.
+ * Requires GLSL 1.30 (texelFetch) on the materials that use it.
+ */
+public class JointPalette {
+
+    /**
+     * The number of matrices in a row of the texture.
+     */
+    public static final int MATRICES_PER_ROW = 256;
+
+    private static final int TEXELS_PER_MATRIX = 4;
+    private static final int FLOATS_PER_MATRIX = TEXELS_PER_MATRIX * 4;
+
+    private final RangeAllocator ranges;
+    private final Texture2D texture;
+    private final Image image;
+    private FloatBuffer data;
+
+    /**
+     * Creates a palette with room for {@link #MATRICES_PER_ROW} matrices.
+     */
+    public JointPalette() {
+        this(MATRICES_PER_ROW);
+    }
+
+    /**
+     * Creates a palette.
+     *
+     * @param capacity the initial number of matrices, rounded up to
+     * whole rows
+     */
+    public JointPalette(int capacity) {
+        int rows = Math.max(1, (capacity + MATRICES_PER_ROW - 1) / MATRICES_PER_ROW);
+        ByteBuffer buffer = BufferUtils.createByteBuffer(rows * MATRICES_PER_ROW * FLOATS_PER_MATRIX * 4);
+        data = buffer.asFloatBuffer();
+        image = new Image(Image.Format.RGBA32F, MATRICES_PER_ROW * TEXELS_PER_MATRIX, rows,
+                buffer, ColorSpace.Linear);
+        texture = new Texture2D(image);
+        texture.setMinFilter(Texture.MinFilter.NearestNoMipMaps);
+        texture.setMagFilter(Texture.MagFilter.Nearest);
+        texture.setWrap(Texture.WrapMode.EdgeClamp);
+        ranges = new RangeAllocator(0);
+        ranges.grow(rows * MATRICES_PER_ROW);
+    }
+
+    /**
+     * Reserves a range of matrices.
+     *
+     * @param count the number of matrices
+     * @return the index of the first matrix of the range
+     */
+    public int allocate(int count) {
+        int offset = ranges.allocate(count);
+        if (offset == -1) {
+            grow(count);
+            offset = ranges.allocate(count);
+        }
+        return offset;
+    }
+
+    /**
+     * Releases a range returned by {@link #allocate(int) }.
+     *
+     * @param offset the index of the first matrix of the range
+     * @param count the number of matrices
+     */
+    public void release(int offset, int count) {
+        ranges.release(offset, count);
+    }
+
+    /**
+     * Writes matrices in the palette, they are sent to the GPU the next time
+     * the texture is used.
+     *
+     * @param offset the index of the first matrix to write
+     * @param matrices the matrices to write
+     */
+    public void setMatrices(int offset, Matrix4f[] matrices) {
+        FloatBuffer fb = data;
+        int index = offset * FLOATS_PER_MATRIX;
+        for (Matrix4f m : matrices) {
+            fb.put(index, m.m00).put(index + 1, m.m10).put(index + 2, m.m20).put(index + 3, m.m30);
+            fb.put(index + 4, m.m01).put(index + 5, m.m11).put(index + 6, m.m21).put(index + 7, m.m31);
+            fb.put(index + 8, m.m02).put(index + 9, m.m12).put(index + 10, m.m22).put(index + 11, m.m32);
+            fb.put(index + 12, m.m03).put(index + 13, m.m13).put(index + 14, m.m23).put(index + 15, m.m33);
+            index += FLOATS_PER_MATRIX;
+        }
+        image.setUpdateNeeded();
+    }
+
+    /**
+     * @return the texture to bind as the JointPalette material parameter
+     */
+    public Texture2D getTexture() {
+        return texture;
+    }
+
+    /**
+     * @return the number of matrices the texture can hold
+     */
+    public int getCapacity() {
+        return ranges.getCapacity();
+    }
+
+    private void grow(int needed) {
+        int rows = image.getHeight();
+        int neededRows = (ranges.getCapacity() + needed + MATRICES_PER_ROW - 1) / MATRICES_PER_ROW;
+        int newRows = Math.max(rows * 2, neededRows);
+
+        ByteBuffer buffer = BufferUtils.createByteBuffer(newRows * MATRICES_PER_ROW * FLOATS_PER_MATRIX * 4);
+        ByteBuffer old = image.getData(0);
+        old.clear();
+        buffer.put(old);
+        buffer.clear();
+        data = buffer.asFloatBuffer();
+
+        image.setHeight(newRows);
+        image.setData(0, buffer);
+        BufferUtils.destroyDirectBuffer(old);
+        ranges.grow(newRows * MATRICES_PER_ROW);
+    }
+}
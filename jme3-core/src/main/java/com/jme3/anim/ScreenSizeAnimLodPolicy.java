@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2009-2025 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.anim;
+
+/**
+ * An {@link AnimLodPolicy} with three levels chosen by screen size:
+ * <ul>
+ * <li>at or above the full rate size, every layer is evaluated each frame,</li>
+ * <li>between the freeze size and the full rate size, the composer is evaluated
+ * every few frames and only the default layer is kept,</li>
+ * <li>below the freeze size, the composer is frozen.</li>
+ * </ul>
+ */
+public class ScreenSizeAnimLodPolicy implements AnimLodPolicy {
+
+    private float fullRateSize = 0.2f;
+    private float freezeSize = 0.01f;
+    private int reducedInterval = 3;
+
+    /**
+     * Creates a policy with the default thresholds.
+     */
+    public ScreenSizeAnimLodPolicy() {
+    }
+
+    /**
+     * Creates a policy with the given thresholds.
+     *
+     * @param fullRateSize the screen size from which the composer is fully
+     *     evaluated each frame (&ge;freezeSize, default=0.2)
+     * @param freezeSize the screen size below which the composer is frozen
+     *     (&ge;0, default=0.01)
+     * @param reducedInterval the number of frames between evaluations in
+     *     between (&ge;1, default=3)
+     */
+    public ScreenSizeAnimLodPolicy(float fullRateSize, float freezeSize, int reducedInterval) {
+        setFreezeSize(freezeSize);
+        setFullRateSize(fullRateSize);
+        setReducedInterval(reducedInterval);
+    }
+
+    /**
+     * Returns the screen size from which the composer is fully evaluated
+     * each frame.
+     *
+     * @return the size (&ge;0)
+     */
+    public float getFullRateSize() {
+        return fullRateSize;
+    }
+
+    /**
+     * Sets the screen size from which the composer is fully evaluated each
+     * frame.
+     *
+     * @param fullRateSize the size (&ge;0, default=0.2)
+     */
+    public void setFullRateSize(float fullRateSize) {
+        if (fullRateSize < 0f) {
+            throw new IllegalArgumentException("fullRateSize must be positive");
+        }
+        this.fullRateSize = fullRateSize;
+    }
+
+    /**
+     * Returns the screen size below which the composer is frozen.
+     *
+     * @return the size (&ge;0)
+     */
+    public float getFreezeSize() {
+        return freezeSize;
+    }
+
+    /**
+     * Sets the screen size below which the composer is frozen. Use 0 to never
+     * freeze it, even when it isn't rendered.
+     *
+     * @param freezeSize the size (&ge;0, default=0.01)
+     */
+    public void setFreezeSize(float freezeSize) {
+        if (freezeSize < 0f) {
+            throw new IllegalArgumentException("freezeSize must be positive");
+        }
+        this.freezeSize = freezeSize;
+    }
+
+    /**
+     * Returns the number of frames between evaluations for composers between
+     * the freeze size and the full rate size.
+     *
+     * @return the interval (&ge;1)
+     */
+    public int getReducedInterval() {
+        return reducedInterval;
+    }
+
+    /**
+     * Sets the number of frames between evaluations for composers between
+     * the freeze size and the full rate size.
+     *
+     * @param reducedInterval the interval (&ge;1, default=3)
+     */
+    public void setReducedInterval(int reducedInterval) {
+        if (reducedInterval < 1) {
+            throw new IllegalArgumentException("reducedInterval must be at least 1");
+        }
+        this.reducedInterval = reducedInterval;
+    }
+
+    @Override
+    public int getUpdateInterval(AnimComposer composer, float screenSize) {
+        if (screenSize >= fullRateSize) {
+            return 1;
+        } else if (screenSize < freezeSize) {
+            return 0;
+        }
+        return reducedInterval;
+    }
+
+    @Override
+    public boolean isLayerUpdated(AnimComposer composer, String layerName, float screenSize) {
+        return screenSize >= fullRateSize;
+    }
+}
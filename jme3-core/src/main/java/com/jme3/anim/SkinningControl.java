@@ -57,7 +57,9 @@ import java.util.logging.Logger;
  * computation of the deformation matrices and performs the transformations on
  * the mesh
  * <p>
- * It can perform software skinning or Hardware skinning
+ * It can perform software skinning or Hardware skinning. Hardware skinning
+ * uploads the joint matrices as a uniform array per geometry, or writes them
+ * in a {@link JointPalette} shared with other controls when one is set.
  *
  * @author Rémy Bouquet Based on SkeletonControl by Kirill Vainer
  */
@@ -108,10 +110,26 @@ public class SkinningControl extends AbstractControl implements Cloneable, JmeCl
      */
     private transient Matrix4f[] offsetMatrices;
 
+    /**
+     * The system that updates the armature of this control, or null if the
+     * control updates it itself.
+     */
+    private transient AnimationSystem animationSystem;
+
 
     private MatParamOverride numberOfJointsParam;
     private MatParamOverride jointMatricesParam;
 
+    /**
+     * The shared palette the joint matrices are written to, or null to use
+     * the BoneMatrices uniform array.
+     */
+    private transient JointPalette jointPalette;
+    private transient MatParamOverride jointPaletteParam;
+    private transient MatParamOverride jointPaletteOffsetParam;
+    private transient int jointPaletteOffset = -1;
+    private transient boolean jointPaletteUsed = false;
+
     /**
      * Serialization only. Do not use.
      */
@@ -136,7 +154,18 @@ public class SkinningControl extends AbstractControl implements Cloneable, JmeCl
 
     private void switchToHardware() {
         numberOfJointsParam.setEnabled(true);
-        jointMatricesParam.setEnabled(true);
+        jointMatricesParam.setEnabled(!jointPaletteUsed);
+        if (jointPaletteParam != null) {
+            jointPaletteParam.setEnabled(jointPaletteUsed);
+            jointPaletteOffsetParam.setEnabled(jointPaletteUsed);
+        }
+        if (jointPaletteUsed) {
+            if (jointPaletteOffset == -1) {
+                jointPaletteOffset = jointPalette.allocate(armature.getJointCount());
+            }
+            jointPaletteParam.setValue(jointPalette.getTexture());
+            jointPaletteOffsetParam.setValue(jointPaletteOffset);
+        }
 
         // Next full 10 bones (e.g. 30 on 24 bones)
         int numBones = ((armature.getJointCount() / 10) + 1) * 10;
@@ -153,6 +182,10 @@ public class SkinningControl extends AbstractControl implements Cloneable, JmeCl
     private void switchToSoftware() {
         numberOfJointsParam.setEnabled(false);
         jointMatricesParam.setEnabled(false);
+        if (jointPaletteParam != null) {
+            jointPaletteParam.setEnabled(false);
+            jointPaletteOffsetParam.setEnabled(false);
+        }
 
         for (Geometry geometry : targets) {
             Mesh mesh = geometry.getMesh();
@@ -169,8 +202,24 @@ public class SkinningControl extends AbstractControl implements Cloneable, JmeCl
             return false;
         }
 
+        jointPaletteUsed = jointPalette != null
+                && rm.getRenderer().getCaps().contains(Caps.GLSL130)
+                && targetsSupportJointPalette();
         switchToHardware();
 
+        try {
+            rm.preloadScene(spatial);
+            return true;
+        } catch (RendererException e) {
+            if (!jointPaletteUsed) {
+                logger.log(Level.WARNING, "Could not enable HW skinning due to shader compile error:", e);
+                return false;
+            }
+        }
+
+        logger.log(Level.WARNING, "Could not use the joint palette, falling back to joint uniforms");
+        releaseJointPalette();
+        switchToHardware();
         try {
             rm.preloadScene(spatial);
             return true;
@@ -180,6 +229,78 @@ public class SkinningControl extends AbstractControl implements Cloneable, JmeCl
         }
     }
 
+    private boolean targetsSupportJointPalette() {
+        for (Geometry geometry : targets) {
+            if (geometry.getMaterial() == null
+                    || geometry.getMaterial().getMaterialDef().getMaterialParam("JointPalette") == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sets the palette the joint matrices are written to when hardware
+     * skinning is used. Controls sharing a palette send all their matrices
+     * to the GPU in one texture upload per frame, and their geometries only
+     * set the offset of their matrices in it.
+     * <p>
+     * The palette is only used if the renderer supports GLSL 1.30 and the
+     * materials of all the targets declare a JointPalette parameter,
+     * otherwise the matrices are uploaded as uniforms.
+     *
+     * @param jointPalette the palette to use, or null to upload uniforms
+     */
+    public void setJointPalette(JointPalette jointPalette) {
+        if (this.jointPalette == jointPalette) {
+            return;
+        }
+        releaseJointPalette();
+        this.jointPalette = jointPalette;
+
+        if (jointPalette != null && jointPaletteParam == null) {
+            jointPaletteParam = new MatParamOverride(VarType.Texture2D, "JointPalette", null);
+            jointPaletteOffsetParam = new MatParamOverride(VarType.Int, "JointPaletteOffset", null);
+            jointPaletteParam.setEnabled(false);
+            jointPaletteOffsetParam.setEnabled(false);
+            if (spatial != null) {
+                spatial.addMatParamOverride(jointPaletteParam);
+                spatial.addMatParamOverride(jointPaletteOffsetParam);
+            }
+        }
+
+        // test the hardware support again with or without the palette
+        if (hwSkinningEnabled) {
+            switchToSoftware();
+        }
+        hwSkinningTested = false;
+        hwSkinningSupported = false;
+        hwSkinningEnabled = false;
+    }
+
+    /**
+     * @return the palette the joint matrices are written to, or null
+     * @see #setJointPalette(com.jme3.anim.JointPalette)
+     */
+    public JointPalette getJointPalette() {
+        return jointPalette;
+    }
+
+    /**
+     * @return true if hardware skinning currently writes to the joint palette
+     */
+    public boolean isJointPaletteUsed() {
+        return hwSkinningEnabled && jointPaletteUsed;
+    }
+
+    private void releaseJointPalette() {
+        if (jointPaletteOffset != -1) {
+            jointPalette.release(jointPaletteOffset, armature.getJointCount());
+            jointPaletteOffset = -1;
+        }
+        jointPaletteUsed = false;
+    }
+
     /**
      * Specifies if hardware skinning is preferred. If it is preferred and
      * supported by GPU, it shall be enabled.  If it's not preferred, or not
@@ -241,6 +362,10 @@ public class SkinningControl extends AbstractControl implements Cloneable, JmeCl
         if (oldSpatial != null) {
             oldSpatial.removeMatParamOverride(numberOfJointsParam);
             oldSpatial.removeMatParamOverride(jointMatricesParam);
+            if (jointPaletteParam != null) {
+                oldSpatial.removeMatParamOverride(jointPaletteParam);
+                oldSpatial.removeMatParamOverride(jointPaletteOffsetParam);
+            }
         }
 
         if (spatial != null) {
@@ -248,13 +373,27 @@ public class SkinningControl extends AbstractControl implements Cloneable, JmeCl
             spatial.removeMatParamOverride(jointMatricesParam);
             spatial.addMatParamOverride(numberOfJointsParam);
             spatial.addMatParamOverride(jointMatricesParam);
+            if (jointPaletteParam != null) {
+                spatial.removeMatParamOverride(jointPaletteParam);
+                spatial.removeMatParamOverride(jointPaletteOffsetParam);
+                spatial.addMatParamOverride(jointPaletteParam);
+                spatial.addMatParamOverride(jointPaletteOffsetParam);
+            }
+        } else if (jointPalette != null) {
+            // give the matrices back, they are allocated again when needed
+            releaseJointPalette();
+            hwSkinningTested = false;
+            hwSkinningSupported = false;
+            hwSkinningEnabled = false;
         }
     }
 
     private void controlRenderSoftware() {
         resetToBind(); // reset morph meshes to bind pose
 
-        offsetMatrices = armature.computeSkinningMatrices();
+        if (animationSystem == null || offsetMatrices == null) {
+            offsetMatrices = armature.computeSkinningMatrices();
+        }
 
         for (Geometry geometry : targets) {
             Mesh mesh = geometry.getMesh();
@@ -266,8 +405,14 @@ public class SkinningControl extends AbstractControl implements Cloneable, JmeCl
     }
 
     private void controlRenderHardware() {
-        offsetMatrices = armature.computeSkinningMatrices();
-        jointMatricesParam.setValue(offsetMatrices);
+        if (animationSystem == null || offsetMatrices == null) {
+            offsetMatrices = armature.computeSkinningMatrices();
+        }
+        if (jointPaletteUsed) {
+            jointPalette.setMatrices(jointPaletteOffset, offsetMatrices);
+        } else {
+            jointMatricesParam.setValue(offsetMatrices);
+        }
     }
 
     @Override
@@ -310,10 +455,46 @@ public class SkinningControl extends AbstractControl implements Cloneable, JmeCl
 
     @Override
     protected void controlUpdate(float tpf) {
+        if (animationSystem != null) {
+            return;
+        }
+        AnimComposer composer = spatial.getControl(AnimComposer.class);
+        if (composer != null && composer.isEnabled() && composer.isEvaluationSkipped()) {
+            // the pose didn't change, so keep the previous skinning
+            return;
+        }
         wasMeshUpdated = false;
         armature.update();
     }
 
+    /**
+     * Updates the joint model transforms and skinning matrices. Invoked by
+     * the {@link AnimationSystem} managing this control, possibly on a worker
+     * thread, so it leaves the attachments nodes alone.
+     */
+    void updateArmature() {
+        wasMeshUpdated = false;
+        armature.updateWithoutAttachNodes();
+        offsetMatrices = armature.computeSkinningMatrices();
+    }
+
+    /**
+     * Returns the system that updates this control.
+     *
+     * @return the pre-existing instance, or null if the control updates
+     *     itself from {@link #update(float)}
+     */
+    public AnimationSystem getAnimationSystem() {
+        return animationSystem;
+    }
+
+    void setAnimationSystem(AnimationSystem animationSystem) {
+        this.animationSystem = animationSystem;
+        if (animationSystem == null) {
+            offsetMatrices = null;
+        }
+    }
+
     //only do this for software updates
     void resetToBind() {
         for (Geometry geometry : targets) {
@@ -375,6 +556,19 @@ public class SkinningControl extends AbstractControl implements Cloneable, JmeCl
 
         this.numberOfJointsParam = cloner.clone(numberOfJointsParam);
         this.jointMatricesParam = cloner.clone(jointMatricesParam);
+        this.animationSystem = null;
+        this.offsetMatrices = null;
+
+        // the palette is shared, but the clone needs its own range
+        this.jointPaletteParam = cloner.clone(jointPaletteParam);
+        this.jointPaletteOffsetParam = cloner.clone(jointPaletteOffsetParam);
+        this.jointPaletteOffset = -1;
+        this.jointPaletteUsed = false;
+        if (jointPalette != null) {
+            hwSkinningTested = false;
+            hwSkinningSupported = false;
+            hwSkinningEnabled = false;
+        }
     }
 
     /**
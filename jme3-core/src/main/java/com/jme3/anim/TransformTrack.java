@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2009-2023 jMonkeyEngine
+ * Copyright (c) 2009-2025 jMonkeyEngine
  * All rights reserved.
  *
  * Redistribution and use in source and binary forms, with or without
@@ -64,6 +64,19 @@ public class TransformTrack implements AnimTrack<Transform> {
     private CompactQuaternionArray rotations;
     private CompactVector3Array scales;
     private float[] times;
+    /**
+     * True to also keep the keyframes unpacked in flat arrays (3 or 4 floats
+     * per keyframe). Each array is null if the channel is absent.
+     */
+    private boolean flatKeyframes = false;
+    private transient float[] flatTranslations;
+    private transient float[] flatRotations;
+    private transient float[] flatScales;
+    /**
+     * The start frame found by the previous evaluation, used as a hint for
+     * the next one. Only ever a hint, so sharing it between threads is safe.
+     */
+    private transient int cursor;
 
     /**
      * Serialization-only. Do not use.
@@ -137,6 +150,7 @@ public class TransformTrack implements AnimTrack<Transform> {
         }
         this.times = times;
         length = times[times.length - 1] - times[0];
+        cursor = 0;
     }
 
     /**
@@ -158,6 +172,7 @@ public class TransformTrack implements AnimTrack<Transform> {
         this.translations = new CompactVector3Array();
         this.translations.add(translations);
         this.translations.freeze();
+        updateFlatKeyframes();
 
         assert times != null && times.length == translations.length;
     }
@@ -181,6 +196,7 @@ public class TransformTrack implements AnimTrack<Transform> {
         this.scales = new CompactVector3Array();
         this.scales.add(scales);
         this.scales.freeze();
+        updateFlatKeyframes();
 
         assert times != null && times.length == scales.length;
     }
@@ -204,6 +220,7 @@ public class TransformTrack implements AnimTrack<Transform> {
         this.rotations = new CompactQuaternionArray();
         this.rotations.add(rotations);
         this.rotations.freeze();
+        updateFlatKeyframes();
 
         assert times != null && times.length == rotations.length;
     }
@@ -239,6 +256,74 @@ public class TransformTrack implements AnimTrack<Transform> {
         }
     }
 
+    /**
+     * Enables or disables flat keyframe storage. When enabled, the keyframes
+     * are also kept unpacked in plain float arrays, which lets the default
+     * linear interpolation read them directly instead of going through the
+     * compact arrays. This trades memory (keyframes are no longer shared
+     * between equal values) for evaluation speed on long clips.
+     *
+     * @param flatKeyframes true to keep flat copies of the keyframes, false
+     *     to use the compact arrays only (default=false)
+     */
+    public void setFlatKeyframes(boolean flatKeyframes) {
+        this.flatKeyframes = flatKeyframes;
+        updateFlatKeyframes();
+    }
+
+    /**
+     * Tests whether flat keyframe storage is enabled.
+     *
+     * @return true if enabled, otherwise false
+     * @see #setFlatKeyframes(boolean)
+     */
+    public boolean isFlatKeyframes() {
+        return flatKeyframes;
+    }
+
+    private void updateFlatKeyframes() {
+        if (!flatKeyframes) {
+            flatTranslations = null;
+            flatRotations = null;
+            flatScales = null;
+            return;
+        }
+        flatTranslations = unpack(translations);
+        flatScales = unpack(scales);
+
+        if (rotations == null) {
+            flatRotations = null;
+        } else {
+            int count = rotations.getTotalObjectSize();
+            float[] data = new float[count * 4];
+            Quaternion tmp = new Quaternion();
+            for (int i = 0; i < count; i++) {
+                rotations.get(i, tmp);
+                data[i * 4] = tmp.getX();
+                data[i * 4 + 1] = tmp.getY();
+                data[i * 4 + 2] = tmp.getZ();
+                data[i * 4 + 3] = tmp.getW();
+            }
+            flatRotations = data;
+        }
+    }
+
+    private static float[] unpack(CompactVector3Array array) {
+        if (array == null) {
+            return null;
+        }
+        int count = array.getTotalObjectSize();
+        float[] data = new float[count * 3];
+        Vector3f tmp = new Vector3f();
+        for (int i = 0; i < count; i++) {
+            array.get(i, tmp);
+            data[i * 3] = tmp.x;
+            data[i * 3 + 1] = tmp.y;
+            data[i * 3 + 2] = tmp.z;
+        }
+        return data;
+    }
+
     @Override
     public double getLength() {
         return length;
@@ -275,18 +360,18 @@ public class TransformTrack implements AnimTrack<Transform> {
             }
 
         } else {
-            // use lastFrame so we never overflow the array
-            int i;
-            for (i = 0; i < lastFrame && times[i] < time; i++) {
-                startFrame = i;
-                endFrame = i + 1;
-            }
+            startFrame = findStartFrame(time, lastFrame);
+            endFrame = startFrame + 1;
             blend = (time - times[startFrame])
                     / (times[endFrame] - times[startFrame]);
         }
 
         FrameInterpolator fi = (interpolator == null)
                 ? FrameInterpolator.getThreadDefault() : interpolator;
+        if (flatKeyframes && fi.isLinear()) {
+            interpolateFlat(blend, startFrame, Math.min(startFrame + 1, lastFrame), transform);
+            return;
+        }
         Transform interpolated = fi.interpolate(
                 blend, startFrame, translations, rotations, scales, times);
 
@@ -301,6 +386,85 @@ public class TransformTrack implements AnimTrack<Transform> {
         }
     }
 
+    /**
+     * Finds the keyframe that starts the interval containing the specified
+     * time, that is the last frame before it. The frame found by the previous
+     * call is tried first, along with its successor, so playing a clip
+     * forward costs O(1) per evaluation. Otherwise a binary search is used.
+     *
+     * @param time the track time (&ge;0, &lt;the time of the last keyframe)
+     * @param lastFrame the index of the last keyframe (&gt;0)
+     * @return the index of the start frame (&ge;0, &lt;lastFrame)
+     */
+    private int findStartFrame(float time, int lastFrame) {
+        int hint = cursor;
+        if (hint < lastFrame && (hint == 0 || times[hint] < time)) {
+            if (time <= times[hint + 1]) {
+                return hint;
+            }
+            if (hint + 1 < lastFrame && time <= times[hint + 2]) {
+                cursor = hint + 1;
+                return hint + 1;
+            }
+        }
+
+        // first frame in [1, lastFrame] whose time is >= the given time
+        int low = 1;
+        int high = lastFrame;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (times[mid] < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        int startFrame = low - 1;
+        cursor = startFrame;
+        return startFrame;
+    }
+
+    /**
+     * Blends the flat keyframe data linearly, matching what the default
+     * FrameInterpolator does with the compact arrays.
+     */
+    private void interpolateFlat(float blend, int startFrame, int endFrame, Transform transform) {
+        float blendI = 1f - blend;
+        if (flatTranslations != null) {
+            int a = startFrame * 3;
+            int b = endFrame * 3;
+            float[] data = flatTranslations;
+            transform.getTranslation().set(
+                    blendI * data[a] + blend * data[b],
+                    blendI * data[a + 1] + blend * data[b + 1],
+                    blendI * data[a + 2] + blend * data[b + 2]);
+        }
+        if (flatRotations != null) {
+            int a = startFrame * 4;
+            int b = endFrame * 4;
+            float[] data = flatRotations;
+            float dot = data[a] * data[b] + data[a + 1] * data[b + 1]
+                    + data[a + 2] * data[b + 2] + data[a + 3] * data[b + 3];
+            float blendB = dot < 0f ? -blend : blend;
+            Quaternion rotation = transform.getRotation();
+            rotation.set(
+                    blendI * data[a] + blendB * data[b],
+                    blendI * data[a + 1] + blendB * data[b + 1],
+                    blendI * data[a + 2] + blendB * data[b + 2],
+                    blendI * data[a + 3] + blendB * data[b + 3]);
+            rotation.normalizeLocal();
+        }
+        if (flatScales != null) {
+            int a = startFrame * 3;
+            int b = endFrame * 3;
+            float[] data = flatScales;
+            transform.getScale().set(
+                    blendI * data[a] + blend * data[b],
+                    blendI * data[a + 1] + blend * data[b + 1],
+                    blendI * data[a + 2] + blend * data[b + 2]);
+        }
+    }
+
     /**
      * Access the FrameInterpolator.
      *
@@ -352,6 +516,7 @@ public class TransformTrack implements AnimTrack<Transform> {
         oc.write(times, "times", null);
         oc.write(scales, "scales", null);
         oc.write(target, "target", null);
+        oc.write(flatKeyframes, "flatKeyframes", false);
     }
 
     /**
@@ -370,6 +535,8 @@ public class TransformTrack implements AnimTrack<Transform> {
         scales = (CompactVector3Array) ic.readSavable("scales", null);
         target = (HasLocalTransform) ic.readSavable("target", null);
         setTimes(times);
+        flatKeyframes = ic.readBoolean("flatKeyframes", false);
+        updateFlatKeyframes();
     }
 
     @Override
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2009-2021 jMonkeyEngine
+ * Copyright (c) 2009-2025 jMonkeyEngine
  * All rights reserved.
  *
  * Redistribution and use in source and binary forms, with or without
@@ -32,6 +32,7 @@
 package com.jme3.anim.interpolator;
 
 import com.jme3.math.*;
+import com.jme3.util.TempVars;
 
 import static com.jme3.anim.interpolator.FrameInterpolator.TrackDataReader;
 import static com.jme3.anim.interpolator.FrameInterpolator.TrackTimeReader;
@@ -44,59 +45,67 @@ public class AnimInterpolators {
     //Rotation interpolators
 
     public static final AnimInterpolator<Quaternion> NLerp = new AnimInterpolator<Quaternion>() {
-        private Quaternion next = new Quaternion();
-
         @Override
         public Quaternion interpolate(float t, int currentIndex, TrackDataReader<Quaternion> data, TrackTimeReader times, Quaternion store) {
+            TempVars vars = TempVars.get();
+            Quaternion next = vars.quat1;
             data.getEntryClamp(currentIndex, store);
             data.getEntryClamp(currentIndex + 1, next);
             store.nlerp(next, t);
+            vars.release();
             return store;
         }
     };
 
     public static final AnimInterpolator<Quaternion> SLerp = new AnimInterpolator<Quaternion>() {
-        private Quaternion next = new Quaternion();
-
         @Override
         public Quaternion interpolate(float t, int currentIndex, TrackDataReader<Quaternion> data, TrackTimeReader times, Quaternion store) {
+            TempVars vars = TempVars.get();
+            Quaternion next = vars.quat1;
             data.getEntryClamp(currentIndex, store);
             data.getEntryClamp(currentIndex + 1, next);
             //MathUtils.slerpNoInvert(store, next, t, store);
             MathUtils.slerp(store, next, t, store);
+            vars.release();
             return store;
         }
     };
 
     public static final AnimInterpolator<Quaternion> SQuad = new AnimInterpolator<Quaternion>() {
-        private Quaternion a = new Quaternion();
-        private Quaternion b = new Quaternion();
-
-        private Quaternion q0 = new Quaternion();
-        private Quaternion q1 = new Quaternion();
-        private Quaternion q2 = new Quaternion();
-        private Quaternion q3 = new Quaternion();
+        // per-thread temporaries, since tracks may be evaluated in parallel
+        private final ThreadLocal<Quaternion[]> temps = ThreadLocal.withInitial(() -> new Quaternion[]{
+            new Quaternion(), new Quaternion(), new Quaternion(), new Quaternion()});
 
         @Override
         public Quaternion interpolate(float t, int currentIndex, TrackDataReader<Quaternion> data, TrackTimeReader times, Quaternion store) {
+            Quaternion[] q = temps.get();
+            Quaternion q0 = q[0];
+            Quaternion q1 = q[1];
+            Quaternion q2 = q[2];
+            Quaternion q3 = q[3];
+            TempVars vars = TempVars.get();
+            Quaternion a = vars.quat1;
+            Quaternion b = vars.quat2;
             data.getEntryModSkip(currentIndex - 1, q0);
             data.getEntryModSkip(currentIndex, q1);
             data.getEntryModSkip(currentIndex + 1, q2);
             data.getEntryModSkip(currentIndex + 2, q3);
             MathUtils.squad(q0, q1, q2, q3, a, b, t, store);
+            vars.release();
             return store;
         }
     };
 
     //Position / Scale interpolators
     public static final AnimInterpolator<Vector3f> LinearVec3f = new AnimInterpolator<Vector3f>() {
-        private Vector3f next = new Vector3f();
-
         @Override
         public Vector3f interpolate(float t, int currentIndex, TrackDataReader<Vector3f> data, TrackTimeReader times, Vector3f store) {
+            TempVars vars = TempVars.get();
+            Vector3f next = vars.vect1;
             data.getEntryClamp(currentIndex, store);
             data.getEntryClamp(currentIndex + 1, next);
             store.interpolateLocal(next, t);
+            vars.release();
             return store;
         }
     };
@@ -106,10 +115,6 @@ public class AnimInterpolators {
     public static final CatmullRomInterpolator CatmullRom = new CatmullRomInterpolator();
 
     public static class CatmullRomInterpolator extends AnimInterpolator<Vector3f> {
-        final private Vector3f p0 = new Vector3f();
-        final private Vector3f p1 = new Vector3f();
-        final private Vector3f p2 = new Vector3f();
-        final private Vector3f p3 = new Vector3f();
         private float tension = 0.7f;
 
         public CatmullRomInterpolator(float tension) {
@@ -121,12 +126,18 @@ public class AnimInterpolators {
 
         @Override
         public Vector3f interpolate(float t, int currentIndex, TrackDataReader<Vector3f> data, TrackTimeReader times, Vector3f store) {
+            TempVars vars = TempVars.get();
+            Vector3f p0 = vars.vect1;
+            Vector3f p1 = vars.vect2;
+            Vector3f p2 = vars.vect3;
+            Vector3f p3 = vars.vect4;
             data.getEntryModSkip(currentIndex - 1, p0);
             data.getEntryModSkip(currentIndex, p1);
             data.getEntryModSkip(currentIndex + 1, p2);
             data.getEntryModSkip(currentIndex + 2, p3);
 
             FastMath.interpolateCatmullRom(t, tension, p0, p1, p2, p3, store);
+            vars.release();
             return store;
         }
     }
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2009-2023 jMonkeyEngine
+ * Copyright (c) 2009-2025 jMonkeyEngine
  * All rights reserved.
  *
  * Redistribution and use in source and binary forms, with or without
@@ -125,6 +125,20 @@ public class FrameInterpolator {
         this.scaleInterpolator = scaleInterpolator;
     }
 
+    /**
+     * Tests whether this interpolator blends every channel linearly (the
+     * default), with no time interpolator. Tracks may then use their own
+     * equivalent linear blend instead of calling {@link #interpolate}.
+     *
+     * @return true if all the interpolators are the defaults, otherwise false
+     */
+    public boolean isLinear() {
+        return timeInterpolator == null
+                && translationInterpolator == AnimInterpolators.LinearVec3f
+                && rotationInterpolator == AnimInterpolators.NLerp
+                && scaleInterpolator == AnimInterpolators.LinearVec3f;
+    }
+
     public static class TrackTimeReader {
         private float[] data;
 
@@ -37,6 +37,7 @@ import java.util.List;
 
 import com.jme3.anim.AnimClip;
 import com.jme3.anim.AnimTrack;
+import com.jme3.anim.CompressedTransformTrack;
 import com.jme3.anim.MorphTrack;
 import com.jme3.anim.TransformTrack;
 import com.jme3.anim.tween.action.BlendableAction;
@@ -64,15 +65,20 @@ public class ClipAction extends BlendableAction {
                 if (getMask() != null && !getMask().contains(tt.getTarget())) {
                     continue;
                 }
-                interpolateTransformTrack(t, tt);
+                interpolateTransformTrack(t, tt, tt.getTarget());
+            } else if (track instanceof CompressedTransformTrack) {
+                CompressedTransformTrack ct = (CompressedTransformTrack) track;
+                if (getMask() != null && !getMask().contains(ct.getTarget())) {
+                    continue;
+                }
+                interpolateTransformTrack(t, ct, ct.getTarget());
             } else if (track instanceof MorphTrack) {
                 interpolateMorphTrack(t, (MorphTrack) track);
             }
         }
     }
 
-    private void interpolateTransformTrack(double t, TransformTrack track) {
-        HasLocalTransform target = track.getTarget();
+    private void interpolateTransformTrack(double t, AnimTrack<Transform> track, HasLocalTransform target) {
         transform.set(target.getLocalTransform());
         track.getDataAtTime(t, transform);
 
@@ -116,6 +122,8 @@ public class ClipAction extends BlendableAction {
         for (AnimTrack track : clip.getTracks()) {
             if (track instanceof TransformTrack) {
                 targets.add(((TransformTrack) track).getTarget());
+            } else if (track instanceof CompressedTransformTrack) {
+                targets.add(((CompressedTransformTrack) track).getTarget());
             }
         }
         return targets;
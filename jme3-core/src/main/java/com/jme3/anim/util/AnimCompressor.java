@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2009-2025 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.anim.util;
+
+import com.jme3.anim.AnimClip;
+import com.jme3.anim.AnimTrack;
+import com.jme3.anim.CompressedTransformTrack;
+import com.jme3.anim.TransformTrack;
+
+/**
+ * Converts animation clips to their compressed form.
+ *
+ * @see CompressedTransformTrack
+ */
+public class AnimCompressor {
+
+    /**
+     * The default translation tolerance (in world units).
+     */
+    public static final float DEFAULT_TRANSLATION_TOLERANCE = 1e-4f;
+    /**
+     * The default tolerance for each quaternion component.
+     */
+    public static final float DEFAULT_ROTATION_TOLERANCE = 1e-4f;
+    /**
+     * The default scale tolerance.
+     */
+    public static final float DEFAULT_SCALE_TOLERANCE = 1e-4f;
+
+    /**
+     * A private constructor to inhibit instantiation of this class.
+     */
+    private AnimCompressor() {
+    }
+
+    /**
+     * Compresses a clip with the default tolerances.
+     *
+     * @param clip the clip to compress (not null, unaffected)
+     * @return a new clip with the same name
+     */
+    public static AnimClip compress(AnimClip clip) {
+        return compress(clip, DEFAULT_TRANSLATION_TOLERANCE, DEFAULT_ROTATION_TOLERANCE,
+                DEFAULT_SCALE_TOLERANCE);
+    }
+
+    /**
+     * Compresses a clip. Its transform tracks are replaced with compressed
+     * tracks, except those with more than
+     * {@link CompressedTransformTrack#MAX_KEYFRAMES} keyframes. Other tracks
+     * are shared with the original clip.
+     *
+     * @param clip the clip to compress (not null, unaffected)
+     * @param translationTolerance the maximum error for each translation
+     *     component (&ge;0)
+     * @param rotationTolerance the maximum error for each quaternion
+     *     component (&ge;0)
+     * @param scaleTolerance the maximum error for each scale component (&ge;0)
+     * @return a new clip with the same name
+     */
+    public static AnimClip compress(AnimClip clip, float translationTolerance,
+            float rotationTolerance, float scaleTolerance) {
+        AnimTrack<?>[] tracks = clip.getTracks();
+        AnimTrack<?>[] result = new AnimTrack<?>[tracks.length];
+        for (int i = 0; i < tracks.length; i++) {
+            AnimTrack<?> track = tracks[i];
+            if (track instanceof TransformTrack
+                    && ((TransformTrack) track).getTimes().length <= CompressedTransformTrack.MAX_KEYFRAMES) {
+                result[i] = new CompressedTransformTrack((TransformTrack) track,
+                        translationTolerance, rotationTolerance, scaleTolerance);
+            } else {
+                result[i] = track;
+            }
+        }
+        AnimClip compressed = new AnimClip(clip.getName());
+        compressed.setTracks(result);
+        return compressed;
+    }
+}
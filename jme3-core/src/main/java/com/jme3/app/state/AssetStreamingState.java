@@ -0,0 +1,592 @@
+/*
+ * Copyright (c) 2009-2025 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.app.state;
+
+import com.jme3.app.Application;
+import com.jme3.asset.AssetKey;
+import com.jme3.asset.AssetManager;
+import com.jme3.material.MatParam;
+import com.jme3.material.MatParamTexture;
+import com.jme3.material.Material;
+import com.jme3.renderer.RenderManager;
+import com.jme3.renderer.TextureUnitException;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.SceneGraphVisitorAdapter;
+import com.jme3.scene.Spatial;
+import com.jme3.scene.VertexBuffer;
+import com.jme3.texture.Image;
+import com.jme3.texture.Texture;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ *  Streams assets in the background for large or open worlds.
+ *
+ *  <p>Each {@link #request(AssetKey, float, long, Listener) request} is
+ *  loaded through the application's <code>AssetManager</code> on a pool of
+ *  loading threads, highest priority first.  The priority of a request can
+ *  be updated while it is waiting, for example from the distance to the
+ *  camera, and a request can be cancelled until its listener is notified.</p>
+ *
+ *  <p>The bytes of the requests being loaded or waiting for upload are
+ *  counted against a global budget: no new load is started while the
+ *  budget is used up.  A request is charged its estimated size while it
+ *  loads and the measured size of its meshes and textures afterwards.</p>
+ *
+ *  <p>Loaded models and textures are sent to the GPU on the render thread,
+ *  a few buffers and textures at a time, without exceeding the
+ *  {@link #setUploadTimeSlice(float) upload time slice} in a frame.  The
+ *  listener is then notified on the render thread through
+ *  {@link Application#enqueue(Runnable)}.  Assets of other types are
+ *  delivered as soon as they are loaded.</p>
+ */
+public class AssetStreamingState extends BaseAppState {
+
+    private static final Logger logger = Logger.getLogger(AssetStreamingState.class.getName());
+
+    /**
+     *  Receives the result of a request on the render thread.
+     */
+    public interface Listener<T> {
+
+        /**
+         *  Called when the asset is loaded and uploaded.
+         *
+         * @param request the completed request
+         * @param asset the loaded asset
+         */
+        public void assetLoaded(Request<T> request, T asset);
+
+        /**
+         *  Called when the asset could not be loaded.  The default
+         *  implementation logs the error.
+         *
+         * @param request the failed request
+         * @param cause the exception or error thrown by the asset manager
+         */
+        public default void assetFailed(Request<T> request, Throwable cause) {
+            logger.log(Level.WARNING, "Failed to stream " + request.getKey(), cause);
+        }
+    }
+
+    /**
+     *  A request for an asset, which is also its cancellation token.
+     */
+    public static final class Request<T> {
+
+        private final AssetStreamingState owner;
+        private final AssetKey<T> key;
+        private final Listener<T> listener;
+        private final long estimatedBytes;
+        private final long sequence;
+        private volatile float priority;
+        private volatile boolean cancelled;
+        private volatile boolean done;
+
+        // Guarded by the owner
+        private boolean notified;
+        private long reservedBytes;
+
+        // Only used by the loading thread and then by the render thread
+        private T asset;
+        private final ArrayDeque<Object> uploads = new ArrayDeque<>();
+
+        private Request(AssetStreamingState owner, AssetKey<T> key, float priority,
+                        long estimatedBytes, Listener<T> listener, long sequence) {
+            this.owner = owner;
+            this.key = key;
+            this.priority = priority;
+            this.estimatedBytes = estimatedBytes;
+            this.listener = listener;
+            this.sequence = sequence;
+        }
+
+        public AssetKey<T> getKey() {
+            return key;
+        }
+
+        public float getPriority() {
+            return priority;
+        }
+
+        /**
+         *  Changes the priority of this request.  It only reorders the
+         *  request if it is still waiting to be loaded.
+         *
+         * @param priority the new priority, higher values load first
+         */
+        public void setPriority(float priority) {
+            owner.setPriority(this, priority);
+        }
+
+        /**
+         *  Cancels this request.  The listener is not notified of a
+         *  cancelled request, and its bytes are released from the budget.
+         *
+         * @return false if the listener was already notified or the
+         * request was already cancelled
+         */
+        public boolean cancel() {
+            return owner.cancel(this);
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * @return true once the request is loaded, uploaded and its
+         * notification is enqueued, or has failed
+         */
+        public boolean isDone() {
+            return done;
+        }
+
+        @Override
+        public String toString() {
+            return "Request[" + key + ", priority=" + priority + "]";
+        }
+    }
+
+    private static final Comparator<Request<?>> PRIORITY_ORDER = (a, b) -> {
+        int result = Float.compare(b.priority, a.priority);
+        return result != 0 ? result : Long.compare(a.sequence, b.sequence);
+    };
+
+    private final int threadCount;
+    private final PriorityQueue<Request<?>> queue = new PriorityQueue<>(PRIORITY_ORDER);
+    private final ConcurrentLinkedQueue<Request<?>> loaded = new ConcurrentLinkedQueue<>();
+    private ExecutorService executor;
+    private AssetManager assetManager;
+    private long byteBudget;
+    private long inFlightBytes;
+    private int loading;
+    private long nextSequence;
+    private boolean paused = true;
+    private boolean closed;
+
+    // Render thread only
+    private Request<?> uploading;
+    private long uploadTimeSlice = 2000000L;
+
+    /**
+     *  Creates a streaming state with one loading thread per processor
+     *  and a budget of 64 MiB.
+     */
+    public AssetStreamingState() {
+        this(Runtime.getRuntime().availableProcessors(), 64L * 1024 * 1024);
+    }
+
+    /**
+     *  Creates a streaming state.
+     *
+     * @param threadCount the number of loading threads (&ge;1)
+     * @param byteBudget the maximum number of bytes loading or waiting
+     * for upload (&ge;0)
+     */
+    public AssetStreamingState(int threadCount, long byteBudget) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("threadCount must be at least 1");
+        }
+        this.threadCount = threadCount;
+        setByteBudget(byteBudget);
+    }
+
+    /**
+     *  Sets the maximum number of bytes loading or waiting for upload.
+     *  A single request larger than the budget is still loaded once
+     *  nothing else is in flight.
+     *
+     * @param byteBudget the budget in bytes (&ge;0)
+     */
+    public void setByteBudget(long byteBudget) {
+        if (byteBudget < 0) {
+            throw new IllegalArgumentException("byteBudget cannot be negative");
+        }
+        synchronized (this) {
+            this.byteBudget = byteBudget;
+            dispatch();
+        }
+    }
+
+    public synchronized long getByteBudget() {
+        return byteBudget;
+    }
+
+    /**
+     * @return the number of bytes currently loading or waiting for upload
+     */
+    public synchronized long getInFlightBytes() {
+        return inFlightBytes;
+    }
+
+    /**
+     * @return the number of requests waiting to be loaded
+     */
+    public synchronized int getQueuedCount() {
+        return queue.size();
+    }
+
+    /**
+     *  Sets the time spent uploading streamed assets to the GPU in each
+     *  frame.  At least one buffer or texture is uploaded per frame when
+     *  uploads are pending.
+     *
+     * @param seconds the time slice in seconds (default 0.002)
+     */
+    public void setUploadTimeSlice(float seconds) {
+        uploadTimeSlice = (long) (seconds * 1e9);
+    }
+
+    public float getUploadTimeSlice() {
+        return uploadTimeSlice / 1e9f;
+    }
+
+    /**
+     *  Requests an asset whose size is not known in advance.
+     *
+     * @see #request(AssetKey, float, long, Listener)
+     */
+    public <T> Request<T> request(AssetKey<T> key, float priority, Listener<T> listener) {
+        return request(key, priority, 0, listener);
+    }
+
+    /**
+     *  Requests an asset.  The request can be made before this state is
+     *  attached; loading starts once it is initialized and enabled.
+     *
+     * @param key the asset to load
+     * @param priority the priority of the request, higher values load first
+     * @param estimatedBytes the bytes charged to the budget while loading
+     * @param listener notified on the render thread when the request
+     * completes or fails
+     * @return the request, used to update its priority or cancel it
+     */
+    public <T> Request<T> request(AssetKey<T> key, float priority, long estimatedBytes,
+                                  Listener<T> listener) {
+        if (key == null || listener == null) {
+            throw new IllegalArgumentException("key and listener cannot be null");
+        }
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("The streaming state has been cleaned up");
+            }
+            Request<T> request = new Request<>(this, key, priority,
+                    Math.max(0, estimatedBytes), listener, nextSequence++);
+            queue.add(request);
+            dispatch();
+            return request;
+        }
+    }
+
+    private synchronized void setPriority(Request<?> request, float priority) {
+        if (queue.remove(request)) {
+            request.priority = priority;
+            queue.add(request);
+            dispatch();
+        } else {
+            request.priority = priority;
+        }
+    }
+
+    private synchronized boolean cancel(Request<?> request) {
+        if (request.notified || request.cancelled) {
+            return false;
+        }
+        request.cancelled = true;
+        // Requests that are loading or uploading are released when
+        // their current step ends
+        queue.remove(request);
+        return true;
+    }
+
+    /**
+     *  Starts loading the highest priority requests while loading threads
+     *  and budget are available.
+     */
+    private void dispatch() {
+        while (!paused && !closed && loading < threadCount && !queue.isEmpty()) {
+            Request<?> request = queue.peek();
+            if (inFlightBytes > 0 && inFlightBytes + request.estimatedBytes > byteBudget) {
+                return;
+            }
+            queue.poll();
+            loading++;
+            request.reservedBytes = request.estimatedBytes;
+            inFlightBytes += request.reservedBytes;
+            executor.execute(() -> load(request));
+        }
+    }
+
+    private <T> void load(Request<T> request) {
+        Throwable error = null;
+        long bytes = 0;
+        if (!request.cancelled) {
+            try {
+                request.asset = assetManager.loadAsset(request.key);
+                bytes = collectUploads(request.asset, request.uploads);
+            } catch (Throwable ex) {
+                // Errors too, the loader slot and the reserved bytes must
+                // be given back whatever the loader threw
+                error = ex;
+            }
+        }
+
+        synchronized (this) {
+            loading--;
+            if (request.cancelled || closed) {
+                discard(request);
+            } else if (error != null) {
+                discard(request);
+                complete(request, error);
+            } else {
+                inFlightBytes += bytes - request.reservedBytes;
+                request.reservedBytes = bytes;
+                if (request.uploads.isEmpty()) {
+                    release(request);
+                    complete(request, null);
+                } else {
+                    loaded.add(request);
+                }
+            }
+            dispatch();
+        }
+    }
+
+    private void release(Request<?> request) {
+        inFlightBytes -= request.reservedBytes;
+        request.reservedBytes = 0;
+    }
+
+    private void discard(Request<?> request) {
+        release(request);
+        request.asset = null;
+        request.uploads.clear();
+    }
+
+    private <T> void complete(Request<T> request, Throwable error) {
+        T asset = request.asset;
+        request.done = true;
+        request.asset = null;
+        getApplication().enqueue(() -> {
+            synchronized (this) {
+                // The request can still be cancelled while the notification
+                // waits in the application's queue
+                if (request.cancelled) {
+                    return;
+                }
+                request.notified = true;
+            }
+            if (error != null) {
+                request.listener.assetFailed(request, error);
+            } else {
+                request.listener.assetLoaded(request, asset);
+            }
+        });
+    }
+
+    /**
+     *  Queues the GPU uploads of a loaded asset, in the order used by
+     *  {@link RenderManager#preloadScene(Spatial)}, and measures its size.
+     */
+    private static long collectUploads(Object asset, ArrayDeque<Object> uploads) {
+        Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        long[] bytes = new long[1];
+        if (asset instanceof Spatial) {
+            ((Spatial) asset).depthFirstTraversal(new SceneGraphVisitorAdapter() {
+                @Override
+                public void visit(Geometry geom) {
+                    Material material = geom.getMaterial();
+                    if (material != null) {
+                        uploads.add(geom);
+                        for (MatParam param : material.getParams()) {
+                            if (param instanceof MatParamTexture) {
+                                Texture texture = ((MatParamTexture) param).getTextureValue();
+                                bytes[0] += sizeOf(texture, seen);
+                            }
+                        }
+                    }
+                    Mesh mesh = geom.getMesh();
+                    if (mesh != null
+                            && mesh.getVertexCount() != 0
+                            && mesh.getTriangleCount() != 0) {
+                        for (VertexBuffer vb : mesh.getBufferList().getArray()) {
+                            Buffer data = vb.getData();
+                            if (data != null && vb.getUsage() != VertexBuffer.Usage.CpuOnly
+                                    && seen.add(vb)) {
+                                uploads.add(vb);
+                                bytes[0] += (long) data.limit() * vb.getFormat().getComponentSize();
+                            }
+                        }
+                    }
+                }
+            });
+        } else if (asset instanceof Texture) {
+            uploads.add(asset);
+            bytes[0] += sizeOf((Texture) asset, seen);
+        }
+        return bytes[0];
+    }
+
+    private static long sizeOf(Texture texture, Set<Object> seen) {
+        long size = 0;
+        Image image = texture != null ? texture.getImage() : null;
+        if (image != null && seen.add(image)) {
+            for (ByteBuffer data : image.getData()) {
+                if (data != null) {
+                    size += data.limit();
+                }
+            }
+        }
+        return size;
+    }
+
+    private void upload(RenderManager rm, Object item) {
+        if (item instanceof Geometry) {
+            Geometry geom = (Geometry) item;
+            geom.getMaterial().preload(rm, geom);
+        } else if (item instanceof VertexBuffer) {
+            rm.getRenderer().updateBufferData((VertexBuffer) item);
+        } else {
+            try {
+                rm.getRenderer().setTexture(0, (Texture) item);
+            } catch (TextureUnitException ex) {
+                // Every renderer has texture unit 0
+                throw new IllegalStateException(ex);
+            }
+        }
+    }
+
+    /**
+     *  Uploads loaded assets to the GPU within the upload time slice.
+     */
+    @Override
+    public void render(RenderManager rm) {
+        long end = System.nanoTime() + uploadTimeSlice;
+        do {
+            if (uploading == null) {
+                uploading = loaded.poll();
+                if (uploading == null) {
+                    return;
+                }
+            }
+            if (!uploading.cancelled) {
+                Object item = uploading.uploads.poll();
+                if (item != null) {
+                    upload(rm, item);
+                }
+            }
+            if (uploading.cancelled || uploading.uploads.isEmpty()) {
+                synchronized (this) {
+                    if (!uploading.cancelled) {
+                        release(uploading);
+                        complete(uploading, null);
+                    } else {
+                        discard(uploading);
+                    }
+                    dispatch();
+                }
+                uploading = null;
+            }
+        } while (System.nanoTime() < end);
+    }
+
+    @Override
+    protected void initialize(Application app) {
+        assetManager = app.getAssetManager();
+        executor = Executors.newFixedThreadPool(threadCount, new StreamingThreadFactory());
+    }
+
+    @Override
+    protected void cleanup(Application app) {
+        synchronized (this) {
+            closed = true;
+            for (Request<?> request : queue) {
+                request.cancelled = true;
+            }
+            queue.clear();
+            for (Request<?> request = loaded.poll(); request != null; request = loaded.poll()) {
+                request.cancelled = true;
+                discard(request);
+            }
+            if (uploading != null) {
+                uploading.cancelled = true;
+                discard(uploading);
+                uploading = null;
+            }
+        }
+        executor.shutdown();
+    }
+
+    @Override
+    protected void onEnable() {
+        synchronized (this) {
+            paused = false;
+            dispatch();
+        }
+    }
+
+    @Override
+    protected void onDisable() {
+        synchronized (this) {
+            // Loads in progress complete, but no new load starts
+            paused = true;
+        }
+    }
+
+    private static class StreamingThreadFactory implements ThreadFactory {
+
+        private static final AtomicInteger nextThreadId = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "jME3-streaming-" + nextThreadId.getAndIncrement());
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        }
+    }
+}
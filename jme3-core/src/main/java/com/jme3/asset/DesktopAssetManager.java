@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2009-2021 jMonkeyEngine
+ * Copyright (c) 2009-2025 jMonkeyEngine
  * All rights reserved.
  *
  * Redistribution and use in source and binary forms, with or without
@@ -52,8 +52,11 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -76,6 +79,25 @@ public class DesktopAssetManager implements AssetManager {
     @Deprecated
     final private List<ClassLoader> classLoaders = Collections.synchronizedList(new ArrayList<>());
 
+    // Key - the asset being loaded, value - signals the end of its load
+    final private ConcurrentHashMap<AssetKey<?>, PendingLoad> pendingLoads =
+            new ConcurrentHashMap<>();
+
+    // Key - a thread waiting for another thread's load, value - that load.
+    // Guarded by itself, so that two threads cannot start waiting for
+    // each other at the same time.
+    final private HashMap<Thread, PendingLoad> waitingThreads = new HashMap<>();
+
+    /**
+     * A cached asset load in progress, which other threads requesting the
+     * same key wait for instead of loading the asset again.
+     */
+    private static final class PendingLoad {
+
+        final Thread loader = Thread.currentThread();
+        final CountDownLatch done = new CountDownLatch(1);
+    }
+
     public DesktopAssetManager() {
         this(null);
     }
@@ -372,22 +394,11 @@ public class DesktopAssetManager implements AssetManager {
 
         Object obj = cache != null ? cache.getFromCache(key) : null;
         if (obj == null) {
-            // Asset not in cache, load it from file system.
-            AssetInfo info = handler.tryLocate(key);
-            if (info == null) {
-                if (handler.getParentKey() != null) {
-                    // Inform event listener that an asset has failed to load.
-                    // If the parent AssetLoader chooses not to propagate
-                    // the exception, this is the only means of finding
-                    // that something went wrong.
-                    for (AssetEventListener listener : eventListeners) {
-                        listener.assetDependencyNotFound(handler.getParentKey(), key);
-                    }
-                }
-                throw new AssetNotFoundException(key.toString());
+            if (cache != null) {
+                obj = loadCachedAsset(key, proc, cache);
+            } else {
+                obj = locateAndLoadAsset(key, proc, null);
             }
-
-            obj = loadLocatedAsset(key, info, proc, cache);
         }
 
         T clone = (T) obj;
@@ -399,6 +410,95 @@ public class DesktopAssetManager implements AssetManager {
         return clone;
     }
 
+    /**
+     * Loads an asset that is missing from its cache. Concurrent requests for
+     * the same key are collapsed into a single load: while one thread loads
+     * the asset, the others wait for it and then take the asset from the
+     * cache. This also applies to the dependencies loaded by asset loaders,
+     * e.g. the textures shared by several materials.
+     *
+     * <p>If the load fails, or the cache does not keep the asset, the waiting
+     * threads load it themselves so that they see the same exceptions and
+     * events as without deduplication. A thread also loads the asset itself
+     * when waiting would close a cycle, e.g. when it loads an asset that
+     * depends on the asset being loaded by the other thread, which in turn
+     * depends on this one.
+     *
+     * @throws AssetLoadException if the thread is interrupted while waiting
+     */
+    private <T> Object loadCachedAsset(AssetKey<T> key, AssetProcessor proc, AssetCache cache) {
+        PendingLoad pending = new PendingLoad();
+        PendingLoad other = pendingLoads.putIfAbsent(key, pending);
+        if (other != null) {
+            // A thread that requests an asset it is loading itself
+            // cannot wait for it
+            if (other.loader != Thread.currentThread() && awaitLoad(key, other)) {
+                Object obj = cache.getFromCache(key);
+                if (obj != null) {
+                    return obj;
+                }
+            }
+            return locateAndLoadAsset(key, proc, cache);
+        }
+
+        try {
+            // The asset may have been loaded since the cache was checked
+            Object obj = cache.getFromCache(key);
+            return obj != null ? obj : locateAndLoadAsset(key, proc, cache);
+        } finally {
+            pendingLoads.remove(key, pending);
+            pending.done.countDown();
+        }
+    }
+
+    /**
+     * Waits for another thread's load to end.
+     *
+     * @return false if the wait would deadlock
+     */
+    private boolean awaitLoad(AssetKey<?> key, PendingLoad pending) {
+        Thread current = Thread.currentThread();
+        synchronized (waitingThreads) {
+            // Follow the chain of threads waiting for each other
+            for (PendingLoad p = pending; p != null; p = waitingThreads.get(p.loader)) {
+                if (p.loader == current) {
+                    return false;
+                }
+            }
+            waitingThreads.put(current, pending);
+        }
+        try {
+            pending.done.await();
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new AssetLoadException("Interrupted while waiting for " + key + " to load", ex);
+        } finally {
+            synchronized (waitingThreads) {
+                waitingThreads.remove(current);
+            }
+        }
+    }
+
+    private <T> Object locateAndLoadAsset(AssetKey<T> key, AssetProcessor proc, AssetCache cache) {
+        // Asset not in cache, load it from file system.
+        AssetInfo info = handler.tryLocate(key);
+        if (info == null) {
+            if (handler.getParentKey() != null) {
+                // Inform event listener that an asset has failed to load.
+                // If the parent AssetLoader chooses not to propagate
+                // the exception, this is the only means of finding
+                // that something went wrong.
+                for (AssetEventListener listener : eventListeners) {
+                    listener.assetDependencyNotFound(handler.getParentKey(), key);
+                }
+            }
+            throw new AssetNotFoundException(key.toString());
+        }
+
+        return loadLocatedAsset(key, info, proc, cache);
+    }
+
     @Override
     public Object loadAsset(String name) {
         return loadAsset(new AssetKey<>(name));
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2009-2020 jMonkeyEngine
+ * Copyright (c) 2009-2025 jMonkeyEngine
  * All rights reserved.
  *
  * Redistribution and use in source and binary forms, with or without
@@ -66,6 +66,25 @@ public class CollisionResult implements Comparable<CollisionResult> {
     public CollisionResult() {
     }
 
+    /**
+     * Prepares a recycled result for reuse, keeping its vectors.
+     */
+    void reset() {
+        geometry = null;
+        distance = 0f;
+        triangleIndex = 0;
+        if (contactPoint == null) {
+            contactPoint = new Vector3f();
+        } else {
+            contactPoint.zero();
+        }
+        if (contactNormal == null) {
+            contactNormal = new Vector3f();
+        } else {
+            contactNormal.zero();
+        }
+    }
+
     public void setGeometry(Geometry geom) {
         this.geometry = geom;
     }
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2009-2021 jMonkeyEngine
+ * Copyright (c) 2009-2025 jMonkeyEngine
  * All rights reserved.
  *
  * Redistribution and use in source and binary forms, with or without
@@ -31,6 +31,7 @@
  */
 package com.jme3.collision;
 
+import com.jme3.math.Vector3f;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
@@ -39,6 +40,19 @@ import java.util.List;
 /**
  * <code>CollisionResults</code> is a collection returned as a result of a
  * collision detection operation done by {@link Collidable}.
+ * <p>
+ * Two options help when the same instance is used for many queries, like
+ * picking every frame:
+ * <ul>
+ * <li>A {@link #setLimit(int) limit} keeps only the nearest results. Once
+ * the limit is reached, results further away than the current ones are
+ * discarded as they are added, the collision code skips the parts of meshes
+ * that can't produce nearer results, and nothing needs a full sort.</li>
+ * <li>{@link #setRecycling(boolean) Recycling} keeps the results removed by
+ * {@link #clear()} and hands them out again to the collision code, so
+ * repeated queries stop allocating results and their vectors. Results
+ * must then not be held on to across a <code>clear()</code>.</li>
+ * </ul>
  *
  * @author Kirill Vainer
  */
@@ -46,14 +60,127 @@ public class CollisionResults implements Iterable<CollisionResult> {
 
     private ArrayList<CollisionResult> results = null;
     private boolean sorted = true;
+    private int limit = Integer.MAX_VALUE;
+    // the smallest distances added since the last clear, in ascending order
+    private float[] nearest = null;
+    private int nearestCount = 0;
+    private boolean recycling = false;
+    private ArrayList<CollisionResult> free = null;
+
+    /**
+     * Creates an empty list without a limit.
+     */
+    public CollisionResults() {
+    }
+
+    /**
+     * Creates an empty list that keeps only the nearest results.
+     *
+     * @param limit the maximum number of results to keep (&gt;0)
+     * @see #setLimit(int)
+     */
+    public CollisionResults(int limit) {
+        setLimit(limit);
+    }
 
     /**
      * Clears all collision results added to this list
      */
     public void clear() {
         if (results != null) {
+            if (recycling) {
+                if (free == null) {
+                    free = new ArrayList<>(results.size());
+                }
+                free.addAll(results);
+            }
             results.clear();
         }
+        sorted = true;
+        nearestCount = 0;
+    }
+
+    /**
+     * Limits the list to the given number of nearest results, or removes
+     * the limit. Use 1 to only find the closest collision. Changing the
+     * limit clears the list.
+     *
+     * @param limit the maximum number of results to keep (&gt;0), or
+     *     Integer.MAX_VALUE for no limit (default)
+     */
+    public void setLimit(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive: " + limit);
+        }
+        clear();
+        this.limit = limit;
+        nearest = limit == Integer.MAX_VALUE ? null : new float[limit];
+    }
+
+    /**
+     * Returns the maximum number of results kept.
+     *
+     * @return the limit, or Integer.MAX_VALUE if unlimited
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Enables or disables recycling of the results removed by
+     * {@link #clear()}.
+     *
+     * @param recycling true to reuse cleared results, false to let them be
+     *     garbage collected (default false)
+     */
+    public void setRecycling(boolean recycling) {
+        this.recycling = recycling;
+        if (!recycling) {
+            free = null;
+        }
+    }
+
+    /**
+     * Tests whether cleared results are reused.
+     *
+     * @return true if recycling
+     */
+    public boolean isRecycling() {
+        return recycling;
+    }
+
+    /**
+     * Returns a blank result for the collision code to fill in and
+     * {@link #addCollision(CollisionResult) add}. Its contact point and
+     * contact normal are set to vectors the caller should write into. When
+     * recycling, a result freed by {@link #clear()} is reused.
+     *
+     * @return a result that isn't in the list yet (not null)
+     */
+    public CollisionResult createCollision() {
+        if (free != null && !free.isEmpty()) {
+            CollisionResult result = free.remove(free.size() - 1);
+            result.reset();
+            return result;
+        }
+        CollisionResult result = new CollisionResult();
+        result.setContactPoint(new Vector3f());
+        result.setContactNormal(new Vector3f());
+        return result;
+    }
+
+    /**
+     * Returns the distance beyond which added results won't be kept, which
+     * lets the collision code skip work. This is the distance of the
+     * farthest of the nearest results once the limit is reached.
+     *
+     * @return the distance, or positive infinity while the list isn't full
+     */
+    public float getCutoffDistance() {
+        if (nearestCount < limit) {
+            return Float.POSITIVE_INFINITY;
+        }
+        return nearest[limit - 1];
     }
 
     /**
@@ -68,11 +195,7 @@ public class CollisionResults implements Iterable<CollisionResult> {
             return dumbCompiler.iterator();
         }
 
-        if (!sorted) {
-            Collections.sort(results);
-            sorted = true;
-        }
-
+        sort();
         return results.iterator();
     }
 
@@ -82,6 +205,69 @@ public class CollisionResults implements Iterable<CollisionResult> {
         }
         results.add(result);
         sorted = false;
+
+        if (nearest != null) {
+            float distance = result.getDistance();
+            if (nearestCount < limit || distance < nearest[nearestCount - 1]) {
+                int i = nearestCount < limit ? nearestCount++ : nearestCount - 1;
+                while (i > 0 && nearest[i - 1] > distance) {
+                    nearest[i] = nearest[i - 1];
+                    i--;
+                }
+                nearest[i] = distance;
+            }
+        }
+    }
+
+    /**
+     * Internal use only. Removes the results beyond the limit. Until then,
+     * {@link #size()} and {@link #getCollisionDirect(int)} may include
+     * results that will be discarded. This is called by the sorted
+     * accessors and by {@link com.jme3.scene.Geometry} once it has tagged
+     * its results, since the collision code refers to the results it just
+     * added by their position at the end of the list.
+     */
+    public void trim() {
+        if (results == null || results.size() <= limit) {
+            return;
+        }
+
+        float cutoff = nearest[limit - 1];
+        int ties = 0;
+        for (int i = 0; i < limit; i++) {
+            if (nearest[i] == cutoff) {
+                ties++;
+            }
+        }
+
+        int kept = 0;
+        for (int i = 0; i < results.size(); i++) {
+            CollisionResult result = results.get(i);
+            float distance = result.getDistance();
+            boolean keep = distance < cutoff;
+            if (!keep && distance == cutoff && ties > 0) {
+                keep = true;
+                ties--;
+            }
+            if (keep) {
+                results.set(kept++, result);
+            } else if (recycling) {
+                if (free == null) {
+                    free = new ArrayList<>();
+                }
+                free.add(result);
+            }
+        }
+        results.subList(kept, results.size()).clear();
+        sorted = false;
+    }
+
+    private void sort() {
+        trim();
+        if (!sorted) {
+            Collections.sort(results);
+            sorted = true;
+        }
     }
 
     public int size() {
@@ -95,11 +281,7 @@ public class CollisionResults implements Iterable<CollisionResult> {
         if (results == null || size() == 0)
             return null;
 
-        if (!sorted) {
-            Collections.sort(results);
-            sorted = true;
-        }
-
+        sort();
         return results.get(0);
     }
 
@@ -107,11 +289,7 @@ public class CollisionResults implements Iterable<CollisionResult> {
         if (results == null || size() == 0)
             return null;
 
-        if (!sorted) {
-            Collections.sort(results);
-            sorted = true;
-        }
-
+        sort();
         return results.get(size() - 1);
     }
 
@@ -120,11 +298,7 @@ public class CollisionResults implements Iterable<CollisionResult> {
             throw new IndexOutOfBoundsException("Index: " + index + ", Size: 0");
         }
 
-        if (!sorted) {
-            Collections.sort(results);
-            sorted = true;
-        }
-
+        sort();
         return results.get(index);
     }
 
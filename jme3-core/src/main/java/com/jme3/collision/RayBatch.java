@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2009-2025 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.collision;
+
+import com.jme3.math.Ray;
+import com.jme3.scene.Geometry;
+import java.util.Arrays;
+
+/**
+ * <code>RayBatch</code> describes many rays that are tested against a scene
+ * in one call, see {@link com.jme3.scene.Spatial#collideWithRays(RayBatch)}.
+ * <p>
+ * The rays and the results live in caller supplied arrays, which are used
+ * directly and never copied, so a batch can be refilled and cast again every
+ * frame without allocating. Only the nearest hit of each ray is kept: its
+ * distance, the index of the triangle that was hit and optionally the
+ * geometry it belongs to.
+ * <p>
+ * The distance of each ray also serves as its limit: hits further away than
+ * the value in the distances array are ignored. Call {@link #reset()} before
+ * casting to search without a limit.
+ */
+public class RayBatch {
+
+    private final float[] origins;
+    private final float[] directions;
+    private final float[] distances;
+    private final int[] triangleIndices;
+    private final Geometry[] geometries;
+    private final int size;
+
+    /**
+     * Creates a batch that reads its rays from and writes its results to the
+     * given arrays.
+     *
+     * @param origins the ray origins in world space, 3 floats per ray
+     *     (not null, alias created)
+     * @param directions the ray directions in world space, 3 floats per ray,
+     *     each of unit length (not null, alias created)
+     * @param distances receives the distance to the nearest hit of each ray,
+     *     1 per ray (not null, alias created)
+     * @param triangleIndices receives the index of the triangle hit by each
+     *     ray, or -1 after {@link #reset()} if nothing was hit (not null,
+     *     alias created)
+     * @param geometries receives the geometry hit by each ray, or null to
+     *     not record the geometries (alias created)
+     */
+    public RayBatch(float[] origins, float[] directions, float[] distances,
+            int[] triangleIndices, Geometry[] geometries) {
+        if (origins.length % 3 != 0) {
+            throw new IllegalArgumentException("origins must hold 3 floats per ray");
+        }
+        size = origins.length / 3;
+        if (directions.length != origins.length) {
+            throw new IllegalArgumentException("directions must hold 3 floats per ray");
+        }
+        if (distances.length < size || triangleIndices.length < size
+                || (geometries != null && geometries.length < size)) {
+            throw new IllegalArgumentException("result arrays must hold 1 entry per ray");
+        }
+        this.origins = origins;
+        this.directions = directions;
+        this.distances = distances;
+        this.triangleIndices = triangleIndices;
+        this.geometries = geometries;
+    }
+
+    /**
+     * Creates a batch of the given size with its own arrays.
+     *
+     * @param size the number of rays (&ge;0)
+     * @param recordGeometries true to record the geometry hit by each ray
+     */
+    public RayBatch(int size, boolean recordGeometries) {
+        this(new float[size * 3], new float[size * 3], new float[size], new int[size],
+                recordGeometries ? new Geometry[size] : null);
+        reset();
+    }
+
+    /**
+     * Returns the number of rays in the batch.
+     *
+     * @return the ray count (&ge;0)
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes all results and the distance limit of every ray.
+     */
+    public void reset() {
+        reset(Float.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Removes all results and limits every ray to the given distance.
+     *
+     * @param maxDistance the distance beyond which hits are ignored (&gt;0)
+     */
+    public void reset(float maxDistance) {
+        Arrays.fill(distances, 0, size, maxDistance);
+        Arrays.fill(triangleIndices, 0, size, -1);
+        if (geometries != null) {
+            Arrays.fill(geometries, 0, size, null);
+        }
+    }
+
+    /**
+     * Sets the origin and direction of a ray.
+     *
+     * @param index the index of the ray (&ge;0, &lt;size)
+     * @param ray the ray to copy (not null, unaffected, direction of unit
+     *     length)
+     */
+    public void setRay(int index, Ray ray) {
+        int i = index * 3;
+        origins[i] = ray.origin.x;
+        origins[i + 1] = ray.origin.y;
+        origins[i + 2] = ray.origin.z;
+        directions[i] = ray.direction.x;
+        directions[i + 1] = ray.direction.y;
+        directions[i + 2] = ray.direction.z;
+    }
+
+    /**
+     * Copies a ray of the batch into the given ray. The distance of the ray
+     * becomes its limit.
+     *
+     * @param index the index of the ray (&ge;0, &lt;size)
+     * @param store storage for the result (not null, modified)
+     * @return the store
+     */
+    public Ray getRay(int index, Ray store) {
+        int i = index * 3;
+        store.origin.set(origins[i], origins[i + 1], origins[i + 2]);
+        store.direction.set(directions[i], directions[i + 1], directions[i + 2]);
+        store.limit = distances[index];
+        return store;
+    }
+
+    /**
+     * Returns the distance to the nearest hit of a ray, or its limit if
+     * nothing was hit.
+     *
+     * @param index the index of the ray (&ge;0, &lt;size)
+     * @return the distance
+     */
+    public float getDistance(int index) {
+        return distances[index];
+    }
+
+    /**
+     * Returns the index of the triangle hit by a ray.
+     *
+     * @param index the index of the ray (&ge;0, &lt;size)
+     * @return the triangle index, or -1 if nothing was hit
+     */
+    public int getTriangleIndex(int index) {
+        return triangleIndices[index];
+    }
+
+    /**
+     * Returns the geometry hit by a ray.
+     *
+     * @param index the index of the ray (&ge;0, &lt;size)
+     * @return the geometry, or null if nothing was hit or geometries aren't
+     *     recorded
+     */
+    public Geometry getGeometry(int index) {
+        return geometries == null ? null : geometries[index];
+    }
+
+    /**
+     * Tests whether the batch records the geometry hit by each ray.
+     *
+     * @return true if geometries are recorded
+     */
+    public boolean isRecordingGeometries() {
+        return geometries != null;
+    }
+
+    /**
+     * Records a hit if it is nearer than the current one. Each ray is only
+     * ever updated by the thread that owns its index range, so no locking is
+     * needed.
+     *
+     * @param index the index of the ray (&ge;0, &lt;size)
+     * @param distance the distance to the hit
+     * @param triangleIndex the index of the triangle that was hit
+     * @param geometry the geometry that was hit
+     * @return true if the hit was recorded
+     */
+    public boolean offerHit(int index, float distance, int triangleIndex, Geometry geometry) {
+        if (distance >= distances[index]) {
+            return false;
+        }
+        distances[index] = distance;
+        triangleIndices[index] = triangleIndex;
+        if (geometries != null) {
+            geometries[index] = geometry;
+        }
+        return true;
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2009-2020 jMonkeyEngine
+ * Copyright (c) 2009-2025 jMonkeyEngine
  * All rights reserved.
  *
  * Redistribution and use in source and binary forms, with or without
@@ -79,6 +79,18 @@ public final class BIHNode implements Savable {
     public BIHNode() {
     }
 
+    int getAxis() {
+        return axis;
+    }
+
+    int getLeftIndex() {
+        return leftIndex;
+    }
+
+    int getRightIndex() {
+        return rightIndex;
+    }
+
     public BIHNode getLeftChild() {
         return left;
     }
@@ -332,6 +344,7 @@ public final class BIHNode implements Savable {
         Vector3f v1 = vars.vect3,
                 v2 = vars.vect4,
                 v3 = vars.vect5;
+        Ray worldRay = null;
         int cols = 0;
 
         stack.add(new BIHStackData(this, sceneMin, sceneMax));
@@ -341,7 +354,7 @@ public final class BIHNode implements Savable {
             BIHStackData data = stack.remove(stack.size() - 1);
             BIHNode node = data.node;
             float tMin = data.min,
-                    tMax = data.max;
+                    tMax = min(data.max, results.getCutoffDistance());
 
             if (tMax < tMin) {
                 continue;
@@ -407,7 +420,10 @@ public final class BIHNode implements Savable {
                         worldMatrix.mult(v1, v1);
                         worldMatrix.mult(v2, v2);
                         worldMatrix.mult(v3, v3);
-                        float t_world = new Ray(o, d).intersects(v1, v2, v3);
+                        if (worldRay == null) {
+                            worldRay = new Ray(o, d);
+                        }
+                        float t_world = worldRay.intersects(v1, v2, v3);
                         t = t_world;
                     }
 
@@ -415,12 +431,17 @@ public final class BIHNode implements Savable {
                     // be the case that in local coordinates it just hits and in world coordinates it just misses
                     // this filters those cases out (treating them as misses).
                     if (!Float.isInfinite(t)){
-                        Vector3f contactNormal = Triangle.computeTriangleNormal(v1, v2, v3, null);
-                        Vector3f contactPoint = new Vector3f(d).multLocal(t).addLocal(o);
+                        Vector3f contactPoint = vars.vect6.set(d).multLocal(t).addLocal(o);
                         float worldSpaceDist = o.distance(contactPoint);
-
-                        CollisionResult cr = new CollisionResult(contactPoint, worldSpaceDist);
-                        cr.setContactNormal(contactNormal);
+                        if (worldSpaceDist >= results.getCutoffDistance()) {
+                            // would be discarded by the results limit
+                            continue;
+                        }
+
+                        CollisionResult cr = results.createCollision();
+                        cr.getContactPoint().set(contactPoint);
+                        Triangle.computeTriangleNormal(v1, v2, v3, cr.getContactNormal());
+                        cr.setDistance(worldSpaceDist);
                         cr.setTriangleIndex(tree.getTriangleIndex(i));
                         results.addCollision(cr);
                         cols++;
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2009-2021 jMonkeyEngine
+ * Copyright (c) 2009-2025 jMonkeyEngine
  * All rights reserved.
  *
  * Redistribution and use in source and binary forms, with or without
@@ -35,7 +35,9 @@ import com.jme3.bounding.BoundingBox;
 import com.jme3.bounding.BoundingSphere;
 import com.jme3.bounding.BoundingVolume;
 import com.jme3.collision.Collidable;
+import com.jme3.collision.CollisionResult;
 import com.jme3.collision.CollisionResults;
+import com.jme3.collision.RayBatch;
 import com.jme3.collision.UnsupportedCollisionException;
 import com.jme3.export.InputCapsule;
 import com.jme3.export.JmeExporter;
@@ -44,8 +46,10 @@ import com.jme3.export.OutputCapsule;
 import com.jme3.math.FastMath;
 import com.jme3.math.Matrix4f;
 import com.jme3.math.Ray;
+import com.jme3.math.Triangle;
 import com.jme3.math.Vector3f;
 import com.jme3.scene.CollisionData;
+import com.jme3.scene.Geometry;
 import com.jme3.scene.Mesh;
 import com.jme3.scene.Mesh.Mode;
 import com.jme3.scene.VertexBuffer;
@@ -56,7 +60,10 @@ import com.jme3.scene.mesh.WrappedIndexBuffer;
 import com.jme3.util.TempVars;
 import java.io.IOException;
 import static java.lang.Math.max;
+import static java.lang.Math.min;
 import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
 
 public class BIHTree implements CollisionData {
 
@@ -68,6 +75,12 @@ public class BIHTree implements CollisionData {
     private int numTris;
     private float[] pointData;
     private int[] triIndices;
+    /**
+     * The nodes in the flat layout built by {@link #construct(ForkJoinPool)},
+     * or null if the tree uses BIHNode objects.
+     */
+    private int[] flatNodes;
+    private float[] flatPlanes;
 
     // private transient CollisionResults boundResults = new CollisionResults();
     private transient float[] bihSwapTmp;
@@ -138,6 +151,81 @@ public class BIHTree implements CollisionData {
     public void construct() {
         BoundingBox sceneBbox = createBox(0, numTris - 1);
         root = createNode(0, numTris - 1, sceneBbox, 0);
+        flatNodes = null;
+        flatPlanes = null;
+    }
+
+    /**
+     * Builds the tree with binned surface area heuristic splits, which
+     * usually give faster queries than the median-style splits of
+     * {@link #construct()}, and stores the nodes in flat primitive arrays
+     * rather than {@link BIHNode} objects. Large subtrees are built in
+     * parallel on the given pool.
+     *
+     * @param pool the pool to build on, or null to build on the calling
+     *     thread only
+     */
+    public void construct(ForkJoinPool pool) {
+        SahBIHBuilder builder = new SahBIHBuilder(pointData, triIndices, maxTrisPerNode);
+        builder.build(pool, numTris);
+        flatNodes = builder.getNodes();
+        flatPlanes = builder.getPlanes();
+        root = null;
+    }
+
+    /**
+     * Tests whether the nodes are stored in the flat layout built by
+     * {@link #construct(ForkJoinPool)}.
+     *
+     * @return true if flat, false if the tree uses BIHNode objects
+     */
+    public boolean isFlat() {
+        return flatNodes != null;
+    }
+
+    /**
+     * Converts a tree built by {@link #construct()} to the flat layout, as
+     * needed by {@link #collideWithRays(RayBatch, int, int, Matrix4f, BoundingVolume, Geometry)}.
+     * The splits are kept, so queries give the same results as before. Does
+     * nothing if the tree is flat already.
+     */
+    public synchronized void flatten() {
+        if (flatNodes != null) {
+            return;
+        }
+        int count = countNodes(root);
+        int[] nodes = new int[count * SahBIHBuilder.NODE_INTS];
+        float[] planes = new float[count * SahBIHBuilder.NODE_FLOATS];
+        flatten(root, nodes, planes, 0);
+        flatPlanes = planes;
+        flatNodes = nodes;
+    }
+
+    private static int countNodes(BIHNode node) {
+        if (node.getAxis() == SahBIHBuilder.LEAF) {
+            return 1;
+        }
+        return 1 + countNodes(node.getLeftChild()) + countNodes(node.getRightChild());
+    }
+
+    /**
+     * Writes the subtree depth first, the left child right after its parent.
+     *
+     * @return the index after the last node of the subtree
+     */
+    private static int flatten(BIHNode node, int[] nodes, float[] planes, int index) {
+        int i = index * SahBIHBuilder.NODE_INTS;
+        nodes[i] = node.getAxis();
+        if (node.getAxis() == SahBIHBuilder.LEAF) {
+            nodes[i + 1] = node.getLeftIndex();
+            nodes[i + 2] = node.getRightIndex();
+            return index + 1;
+        }
+        planes[index * SahBIHBuilder.NODE_FLOATS] = node.getLeftPlane();
+        planes[index * SahBIHBuilder.NODE_FLOATS + 1] = node.getRightPlane();
+        int right = flatten(node.getLeftChild(), nodes, planes, index + 1);
+        nodes[i + 2] = right;
+        return flatten(node.getRightChild(), nodes, planes, right);
     }
 
     private BoundingBox createBox(int l, int r) {
@@ -427,6 +515,9 @@ public class BIHTree implements CollisionData {
                 }
 
     //            return root.intersectBrute(r, worldMatrix, this, tMin, tMax, results);
+                if (flatNodes != null) {
+                    return intersectFlat(r, worldMatrix, tMin, tMax, results);
+                }
                 return root.intersectWhere(r, worldMatrix, this, tMin, tMax, results);
             }
             return 0;
@@ -451,9 +542,358 @@ public class BIHTree implements CollisionData {
         }
 
         bbox.transform(worldMatrix.invert(), bbox);
+        if (flatNodes != null) {
+            return intersectFlat(bv, bbox, worldMatrix, results);
+        }
         return root.intersectWhere(bv, bbox, worldMatrix, this, results);
     }
 
+    /**
+     * The flat layout counterpart of
+     * {@link BIHNode#intersectWhere(Ray, Matrix4f, BIHTree, float, float, CollisionResults)}.
+     */
+    private int intersectFlat(Ray r, Matrix4f worldMatrix, float sceneMin, float sceneMax,
+            CollisionResults results) {
+        TempVars vars = TempVars.get();
+
+        Vector3f o = vars.vect1.set(r.getOrigin());
+        Vector3f d = vars.vect2.set(r.getDirection());
+
+        Matrix4f inv = vars.tempMat4.set(worldMatrix).invertLocal();
+        inv.mult(r.getOrigin(), r.getOrigin());
+        inv.multNormal(r.getDirection(), r.getDirection());
+
+        float[] origins = vars.fWdU;
+        origins[0] = r.getOrigin().x;
+        origins[1] = r.getOrigin().y;
+        origins[2] = r.getOrigin().z;
+        float[] invDirections = vars.fAWdU;
+        invDirections[0] = 1f / r.getDirection().x;
+        invDirections[1] = 1f / r.getDirection().y;
+        invDirections[2] = 1f / r.getDirection().z;
+
+        r.getDirection().normalizeLocal();
+
+        Vector3f v1 = vars.vect3,
+                v2 = vars.vect4,
+                v3 = vars.vect5;
+        Ray worldRay = null;
+        int cols = 0;
+
+        int[] stackNodes = new int[64];
+        float[] stackRanges = new float[128];
+        int stackSize = 0;
+        stackNodes[0] = 0;
+        stackRanges[0] = sceneMin;
+        stackRanges[1] = sceneMax;
+        stackSize++;
+
+        stackloop:
+        while (stackSize > 0) {
+            stackSize--;
+            int node = stackNodes[stackSize];
+            float tMin = stackRanges[stackSize * 2];
+            float tMax = min(stackRanges[stackSize * 2 + 1], results.getCutoffDistance());
+
+            if (tMax < tMin) {
+                continue;
+            }
+
+            int n = node * SahBIHBuilder.NODE_INTS;
+            while (flatNodes[n] != SahBIHBuilder.LEAF) {
+                int a = flatNodes[n];
+                float origin = origins[a];
+                float invDirection = invDirections[a];
+
+                float tNearSplit = (flatPlanes[node * 2] - origin) * invDirection;
+                float tFarSplit = (flatPlanes[node * 2 + 1] - origin) * invDirection;
+                int nearNode = node + 1;
+                int farNode = flatNodes[n + 2];
+
+                if (invDirection < 0) {
+                    float tmpSplit = tNearSplit;
+                    tNearSplit = tFarSplit;
+                    tFarSplit = tmpSplit;
+
+                    int tmpNode = nearNode;
+                    nearNode = farNode;
+                    farNode = tmpNode;
+                }
+
+                if (tMin > tNearSplit && tMax < tFarSplit) {
+                    continue stackloop;
+                }
+
+                if (tMin > tNearSplit) {
+                    tMin = max(tMin, tFarSplit);
+                    node = farNode;
+                } else if (tMax < tFarSplit) {
+                    tMax = min(tMax, tNearSplit);
+                    node = nearNode;
+                } else {
+                    if (stackSize == stackNodes.length) {
+                        stackNodes = Arrays.copyOf(stackNodes, stackSize * 2);
+                        stackRanges = Arrays.copyOf(stackRanges, stackSize * 4);
+                    }
+                    stackNodes[stackSize] = farNode;
+                    stackRanges[stackSize * 2] = max(tMin, tFarSplit);
+                    stackRanges[stackSize * 2 + 1] = tMax;
+                    stackSize++;
+                    tMax = min(tMax, tNearSplit);
+                    node = nearNode;
+                }
+                n = node * SahBIHBuilder.NODE_INTS;
+            }
+
+            for (int i = flatNodes[n + 1]; i <= flatNodes[n + 2]; i++) {
+                getTriangle(i, v1, v2, v3);
+
+                float t = r.intersects(v1, v2, v3);
+                if (!Float.isInfinite(t)) {
+                    if (worldMatrix != null) {
+                        worldMatrix.mult(v1, v1);
+                        worldMatrix.mult(v2, v2);
+                        worldMatrix.mult(v3, v3);
+                        if (worldRay == null) {
+                            worldRay = new Ray(o, d);
+                        }
+                        t = worldRay.intersects(v1, v2, v3);
+                    }
+
+                    // see BIHNode: the world space test can miss by a hair
+                    if (!Float.isInfinite(t)) {
+                        Vector3f contactPoint = vars.vect6.set(d).multLocal(t).addLocal(o);
+                        float worldSpaceDist = o.distance(contactPoint);
+                        if (worldSpaceDist >= results.getCutoffDistance()) {
+                            continue;
+                        }
+
+                        CollisionResult cr = results.createCollision();
+                        cr.getContactPoint().set(contactPoint);
+                        Triangle.computeTriangleNormal(v1, v2, v3, cr.getContactNormal());
+                        cr.setDistance(worldSpaceDist);
+                        cr.setTriangleIndex(getTriangleIndex(i));
+                        results.addCollision(cr);
+                        cols++;
+                    }
+                }
+            }
+        }
+        vars.release();
+        r.setOrigin(o);
+        r.setDirection(d);
+
+        return cols;
+    }
+
+    /**
+     * The flat layout counterpart of
+     * {@link BIHNode#intersectWhere(Collidable, BoundingBox, Matrix4f, BIHTree, CollisionResults)}.
+     */
+    private int intersectFlat(Collidable col, BoundingBox box, Matrix4f worldMatrix,
+            CollisionResults results) {
+        Vector3f center = box.getCenter();
+        float[] minExts = {center.x - box.getXExtent(),
+            center.y - box.getYExtent(),
+            center.z - box.getZExtent()};
+        float[] maxExts = {center.x + box.getXExtent(),
+            center.y + box.getYExtent(),
+            center.z + box.getZExtent()};
+
+        int[] stack = new int[64];
+        int stackSize = 1;
+        Triangle t = new Triangle();
+        int cols = 0;
+
+        stackloop:
+        while (stackSize > 0) {
+            int node = stack[--stackSize];
+            int n = node * SahBIHBuilder.NODE_INTS;
+
+            while (flatNodes[n] != SahBIHBuilder.LEAF) {
+                int a = flatNodes[n];
+                float leftPlane = flatPlanes[node * 2];
+                float rightPlane = flatPlanes[node * 2 + 1];
+
+                // a box in the gap between the children touches neither
+                if (leftPlane < rightPlane
+                        && minExts[a] > leftPlane && maxExts[a] < rightPlane) {
+                    continue stackloop;
+                }
+
+                if (maxExts[a] < rightPlane) {
+                    node = node + 1;
+                } else if (minExts[a] > leftPlane) {
+                    node = flatNodes[n + 2];
+                } else {
+                    if (stackSize == stack.length) {
+                        stack = Arrays.copyOf(stack, stackSize * 2);
+                    }
+                    stack[stackSize++] = flatNodes[n + 2];
+                    node = node + 1;
+                }
+                n = node * SahBIHBuilder.NODE_INTS;
+            }
+
+            for (int i = flatNodes[n + 1]; i <= flatNodes[n + 2]; i++) {
+                getTriangle(i, t.get1(), t.get2(), t.get3());
+                if (worldMatrix != null) {
+                    worldMatrix.mult(t.get1(), t.get1());
+                    worldMatrix.mult(t.get2(), t.get2());
+                    worldMatrix.mult(t.get3(), t.get3());
+                }
+
+                int added = col.collideWith(t, results);
+                if (added > 0) {
+                    int index = getTriangleIndex(i);
+                    for (int j = results.size() - added; j < results.size(); j++) {
+                        results.getCollisionDirect(j).setTriangleIndex(index);
+                    }
+                    cols += added;
+                }
+            }
+        }
+        return cols;
+    }
+
+    /**
+     * Finds the nearest hit of each ray in a range of the batch and records
+     * it if it is nearer than the hit already stored for that ray. Unlike
+     * {@link #collideWith(Collidable, Matrix4f, BoundingVolume, CollisionResults)}
+     * no collision results are allocated; the traversal stops descending into
+     * nodes that lie beyond the nearest hit found so far.
+     * <p>
+     * Rays in disjoint ranges may be tested concurrently, once the tree is
+     * flat, see {@link #flatten()}.
+     *
+     * @param batch the rays and results (not null)
+     * @param start the index of the first ray to test (&ge;0)
+     * @param end the index after the last ray to test (&le;batch size)
+     * @param worldMatrix the world matrix of the mesh (not null, unaffected)
+     * @param worldBound the world bound of the mesh (not null, unaffected)
+     * @param geometry the geometry to record for each hit
+     * @return the number of rays whose nearest hit was updated
+     */
+    public int collideWithRays(RayBatch batch, int start, int end,
+            Matrix4f worldMatrix, BoundingVolume worldBound, Geometry geometry) {
+        flatten();
+
+        TempVars vars = TempVars.get();
+        Matrix4f inv = vars.tempMat4.set(worldMatrix).invertLocal();
+        Ray ray = new Ray();
+        Ray local = new Ray();
+        float[] origins = vars.fWdU;
+        float[] invDirections = vars.fAWdU;
+        Vector3f v1 = vars.vect3,
+                v2 = vars.vect4,
+                v3 = vars.vect5;
+
+        int[] stackNodes = new int[64];
+        float[] stackRanges = new float[128];
+        int updated = 0;
+
+        for (int r = start; r < end; r++) {
+            batch.getRay(r, ray);
+            if (!worldBound.intersects(ray)) {
+                continue;
+            }
+
+            // The direction is left unnormalized, so distances along the
+            // local ray are world space distances.
+            inv.mult(ray.getOrigin(), local.getOrigin());
+            inv.multNormal(ray.getDirection(), local.getDirection());
+            origins[0] = local.getOrigin().x;
+            origins[1] = local.getOrigin().y;
+            origins[2] = local.getOrigin().z;
+            invDirections[0] = 1f / local.getDirection().x;
+            invDirections[1] = 1f / local.getDirection().y;
+            invDirections[2] = 1f / local.getDirection().z;
+
+            float nearest = ray.getLimit();
+            int nearestTriangle = -1;
+
+            int stackSize = 1;
+            stackNodes[0] = 0;
+            stackRanges[0] = 0;
+            stackRanges[1] = nearest;
+
+            stackloop:
+            while (stackSize > 0) {
+                stackSize--;
+                int node = stackNodes[stackSize];
+                float tMin = stackRanges[stackSize * 2];
+                float tMax = min(stackRanges[stackSize * 2 + 1], nearest);
+
+                if (tMax < tMin) {
+                    continue;
+                }
+
+                int n = node * SahBIHBuilder.NODE_INTS;
+                while (flatNodes[n] != SahBIHBuilder.LEAF) {
+                    int a = flatNodes[n];
+                    float origin = origins[a];
+                    float invDirection = invDirections[a];
+
+                    float tNearSplit = (flatPlanes[node * 2] - origin) * invDirection;
+                    float tFarSplit = (flatPlanes[node * 2 + 1] - origin) * invDirection;
+                    int nearNode = node + 1;
+                    int farNode = flatNodes[n + 2];
+
+                    if (invDirection < 0) {
+                        float tmpSplit = tNearSplit;
+                        tNearSplit = tFarSplit;
+                        tFarSplit = tmpSplit;
+
+                        int tmpNode = nearNode;
+                        nearNode = farNode;
+                        farNode = tmpNode;
+                    }
+
+                    if (tMin > tNearSplit && tMax < tFarSplit) {
+                        continue stackloop;
+                    }
+
+                    if (tMin > tNearSplit) {
+                        tMin = max(tMin, tFarSplit);
+                        node = farNode;
+                    } else if (tMax < tFarSplit) {
+                        tMax = min(tMax, tNearSplit);
+                        node = nearNode;
+                    } else {
+                        if (stackSize == stackNodes.length) {
+                            stackNodes = Arrays.copyOf(stackNodes, stackSize * 2);
+                            stackRanges = Arrays.copyOf(stackRanges, stackSize * 4);
+                        }
+                        stackNodes[stackSize] = farNode;
+                        stackRanges[stackSize * 2] = max(tMin, tFarSplit);
+                        stackRanges[stackSize * 2 + 1] = tMax;
+                        stackSize++;
+                        tMax = min(tMax, tNearSplit);
+                        node = nearNode;
+                    }
+                    n = node * SahBIHBuilder.NODE_INTS;
+                }
+
+                for (int i = flatNodes[n + 1]; i <= flatNodes[n + 2]; i++) {
+                    getTriangle(i, v1, v2, v3);
+                    float t = local.intersects(v1, v2, v3);
+                    if (t < nearest) {
+                        nearest = t;
+                        nearestTriangle = i;
+                    }
+                }
+            }
+
+            if (nearestTriangle != -1
+                    && batch.offerHit(r, nearest, getTriangleIndex(nearestTriangle), geometry)) {
+                updated++;
+            }
+        }
+        vars.release();
+
+        return updated;
+    }
+
     @Override
     public int collideWith(Collidable other,
             Matrix4f worldMatrix,
@@ -479,6 +919,8 @@ public class BIHTree implements CollisionData {
         oc.write(maxTrisPerNode, "tris_per_node", 0);
         oc.write(pointData, "points", null);
         oc.write(triIndices, "indices", null);
+        oc.write(flatNodes, "flat_nodes", null);
+        oc.write(flatPlanes, "flat_planes", null);
     }
 
     @Override
@@ -489,5 +931,7 @@ public class BIHTree implements CollisionData {
         maxTrisPerNode = ic.readInt("tris_per_node", 0);
         pointData = ic.readFloatArray("points", null);
         triIndices = ic.readIntArray("indices", null);
+        flatNodes = ic.readIntArray("flat_nodes", null);
+        flatPlanes = ic.readFloatArray("flat_planes", null);
     }
 }
@@ -0,0 +1,361 @@
+/*
+ * Copyright (c) 2009-2025 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.collision.bih;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Builds the flat node layout of a {@link BIHTree} with binned surface area
+ * heuristic (SAH) splits. Subtrees above a size threshold are built in
+ * parallel on a fork-join pool: they partition disjoint ranges of the
+ * triangle arrays, so no locking is needed.
+ *
+ * <p>The flat layout uses 3 ints and 2 floats per node, in depth-first order
+ * so the left child of an interior node always follows it:
+ * <ul>
+ * <li>interior node: axis (0-2), unused, index of the right child; the
+ * planes are the maximum extent of the left child and the minimum extent of
+ * the right child along the axis,</li>
+ * <li>leaf: 3, index of the first triangle, index of the last triangle.</li>
+ * </ul>
+ */
+final class SahBIHBuilder {
+
+    /**
+     * The number of ints per node in the flat layout.
+     */
+    static final int NODE_INTS = 3;
+    /**
+     * The number of floats per node in the flat layout.
+     */
+    static final int NODE_FLOATS = 2;
+    static final int LEAF = 3;
+
+    private static final int BIN_COUNT = 16;
+    private static final int PARALLEL_THRESHOLD = 4096;
+
+    private final float[] pointData;
+    private final int[] triIndices;
+    private final int maxTrisPerNode;
+    private boolean parallel;
+
+    private int[] nodes;
+    private float[] planes;
+    private int nodeCount;
+
+    SahBIHBuilder(float[] pointData, int[] triIndices, int maxTrisPerNode) {
+        this.pointData = pointData;
+        this.triIndices = triIndices;
+        this.maxTrisPerNode = maxTrisPerNode;
+    }
+
+    /**
+     * Builds the tree, reordering the triangles.
+     *
+     * @param pool the pool to build large subtrees on, or null to build on
+     *     the calling thread only
+     * @param numTris the number of triangles (&ge;0)
+     */
+    void build(ForkJoinPool pool, int numTris) {
+        BuildTask task = new BuildTask(0, numTris - 1, 0);
+        parallel = pool != null;
+        Node root = parallel ? pool.invoke(task) : task.compute();
+
+        int count = countNodes(root);
+        nodes = new int[count * NODE_INTS];
+        planes = new float[count * NODE_FLOATS];
+        nodeCount = 0;
+        flatten(root);
+    }
+
+    int[] getNodes() {
+        return nodes;
+    }
+
+    float[] getPlanes() {
+        return planes;
+    }
+
+    private static int countNodes(Node node) {
+        if (node.axis == LEAF) {
+            return 1;
+        }
+        return 1 + countNodes(node.left) + countNodes(node.right);
+    }
+
+    private int flatten(Node node) {
+        int index = nodeCount++;
+        int i = index * NODE_INTS;
+        nodes[i] = node.axis;
+        if (node.axis == LEAF) {
+            nodes[i + 1] = node.l;
+            nodes[i + 2] = node.r;
+        } else {
+            planes[index * NODE_FLOATS] = node.leftPlane;
+            planes[index * NODE_FLOATS + 1] = node.rightPlane;
+            flatten(node.left);
+            nodes[i + 2] = flatten(node.right);
+        }
+        return index;
+    }
+
+    /**
+     * A node of the tree being built, before flattening.
+     */
+    private static final class Node {
+
+        int axis = LEAF;
+        int l;
+        int r;
+        float leftPlane;
+        float rightPlane;
+        Node left;
+        Node right;
+    }
+
+    private final class BuildTask extends RecursiveTask<Node> {
+
+        static final long serialVersionUID = 1;
+
+        private final int l;
+        private final int r;
+        private final int depth;
+
+        BuildTask(int l, int r, int depth) {
+            this.l = l;
+            this.r = r;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Node compute() {
+            Node node = new Node();
+            node.l = l;
+            node.r = r;
+            if (r - l < maxTrisPerNode || depth > BIHTree.MAX_TREE_DEPTH) {
+                return node;
+            }
+
+            int axis = 0;
+            int mid = split(l, r, node);
+            if (mid < 0) {
+                // all centroids coincide, split the range in two halves
+                mid = (l + r + 1) >>> 1;
+            } else {
+                axis = node.axis;
+            }
+            node.axis = axis;
+            node.leftPlane = maxExtent(l, mid - 1, axis);
+            node.rightPlane = minExtent(mid, r, axis);
+
+            BuildTask leftTask = new BuildTask(l, mid - 1, depth + 1);
+            BuildTask rightTask = new BuildTask(mid, r, depth + 1);
+            if (parallel && r - l > PARALLEL_THRESHOLD) {
+                leftTask.fork();
+                node.right = rightTask.compute();
+                node.left = leftTask.join();
+            } else {
+                node.left = leftTask.compute();
+                node.right = rightTask.compute();
+            }
+            return node;
+        }
+    }
+
+    /**
+     * Finds the cheapest binned SAH split of a range and partitions it.
+     *
+     * @param node storage for the chosen axis
+     * @return the index of the first triangle of the right side, or -1 if
+     *     the range can't be split by centroid
+     */
+    private int split(int l, int r, Node node) {
+        float[] cMin = {Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY};
+        float[] cMax = {Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY};
+        for (int i = l; i <= r; i++) {
+            for (int a = 0; a < 3; a++) {
+                float c = centroid(i, a);
+                cMin[a] = Math.min(cMin[a], c);
+                cMax[a] = Math.max(cMax[a], c);
+            }
+        }
+
+        int[] counts = new int[BIN_COUNT];
+        float[] bounds = new float[BIN_COUNT * 6];
+        float[] rightArea = new float[BIN_COUNT];
+        float[] box = new float[6];
+        float bestCost = Float.POSITIVE_INFINITY;
+        int bestAxis = -1;
+        int bestBin = -1;
+
+        for (int a = 0; a < 3; a++) {
+            float extent = cMax[a] - cMin[a];
+            if (!(extent > 0f)) {
+                continue;
+            }
+            float scale = BIN_COUNT / extent;
+            Arrays.fill(counts, 0);
+            for (int b = 0; b < BIN_COUNT; b++) {
+                resetBox(bounds, b * 6);
+            }
+            for (int i = l; i <= r; i++) {
+                int b = bin(centroid(i, a), cMin[a], scale);
+                counts[b]++;
+                growBox(bounds, b * 6, i);
+            }
+
+            // sweep from the right to get the area of each right side
+            resetBox(box, 0);
+            for (int b = BIN_COUNT - 1; b > 0; b--) {
+                mergeBox(box, bounds, b * 6);
+                rightArea[b] = halfArea(box);
+            }
+            resetBox(box, 0);
+            int leftCount = 0;
+            for (int b = 0; b < BIN_COUNT - 1; b++) {
+                mergeBox(box, bounds, b * 6);
+                leftCount += counts[b];
+                int rightCount = (r - l + 1) - leftCount;
+                if (leftCount == 0 || rightCount == 0) {
+                    continue;
+                }
+                float cost = leftCount * halfArea(box) + rightCount * rightArea[b + 1];
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestAxis = a;
+                    bestBin = b;
+                }
+            }
+        }
+
+        if (bestAxis < 0) {
+            return -1;
+        }
+
+        node.axis = bestAxis;
+        float min = cMin[bestAxis];
+        float scale = BIN_COUNT / (cMax[bestAxis] - cMin[bestAxis]);
+        int i = l;
+        int j = r;
+        while (i <= j) {
+            if (bin(centroid(i, bestAxis), min, scale) <= bestBin) {
+                i++;
+            } else {
+                swap(i, j);
+                j--;
+            }
+        }
+        return i;
+    }
+
+    private static int bin(float value, float min, float scale) {
+        int b = (int) ((value - min) * scale);
+        return Math.min(Math.max(b, 0), BIN_COUNT - 1);
+    }
+
+    private float centroid(int tri, int axis) {
+        int p = tri * 9 + axis;
+        return (pointData[p] + pointData[p + 3] + pointData[p + 6]) * (1f / 3f);
+    }
+
+    private float maxExtent(int l, int r, int axis) {
+        float result = Float.NEGATIVE_INFINITY;
+        for (int i = l; i <= r; i++) {
+            int p = i * 9 + axis;
+            result = Math.max(result, Math.max(pointData[p], Math.max(pointData[p + 3], pointData[p + 6])));
+        }
+        return result;
+    }
+
+    private float minExtent(int l, int r, int axis) {
+        float result = Float.POSITIVE_INFINITY;
+        for (int i = l; i <= r; i++) {
+            int p = i * 9 + axis;
+            result = Math.min(result, Math.min(pointData[p], Math.min(pointData[p + 3], pointData[p + 6])));
+        }
+        return result;
+    }
+
+    private static void resetBox(float[] box, int offset) {
+        for (int a = 0; a < 3; a++) {
+            box[offset + a] = Float.POSITIVE_INFINITY;
+            box[offset + 3 + a] = Float.NEGATIVE_INFINITY;
+        }
+    }
+
+    private void growBox(float[] box, int offset, int tri) {
+        int p = tri * 9;
+        for (int v = 0; v < 3; v++) {
+            for (int a = 0; a < 3; a++) {
+                float value = pointData[p + v * 3 + a];
+                box[offset + a] = Math.min(box[offset + a], value);
+                box[offset + 3 + a] = Math.max(box[offset + 3 + a], value);
+            }
+        }
+    }
+
+    private static void mergeBox(float[] box, float[] other, int offset) {
+        for (int a = 0; a < 3; a++) {
+            box[a] = Math.min(box[a], other[offset + a]);
+            box[3 + a] = Math.max(box[3 + a], other[offset + 3 + a]);
+        }
+    }
+
+    private static float halfArea(float[] box) {
+        float x = box[3] - box[0];
+        float y = box[4] - box[1];
+        float z = box[5] - box[2];
+        if (!(x >= 0f)) {
+            return 0f;
+        }
+        return x * y + y * z + z * x;
+    }
+
+    /**
+     * Swaps two triangles. Unlike {@link BIHTree#swapTriangles(int, int)},
+     * this is safe to call from several threads on disjoint ranges.
+     */
+    private void swap(int index1, int index2) {
+        int p1 = index1 * 9;
+        int p2 = index2 * 9;
+        for (int k = 0; k < 9; k++) {
+            float tmp = pointData[p1 + k];
+            pointData[p1 + k] = pointData[p2 + k];
+            pointData[p2 + k] = tmp;
+        }
+        int tmp = triIndices[index1];
+        triIndices[index1] = triIndices[index2];
+        triIndices[index2] = tmp;
+    }
+}
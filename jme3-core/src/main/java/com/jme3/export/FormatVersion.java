@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2009-2012 jMonkeyEngine
+ * Copyright (c) 2009-2025 jMonkeyEngine
  * All rights reserved.
  *
  * Redistribution and use in source and binary forms, with or without
@@ -46,9 +46,11 @@ public final class FormatVersion {
      *   <li>Undocumented
      *   <li>Undocumented
      *   <li>XML prefixes "jme-" to all key names
+     *   <li>Binary: data blocks with optional compression, a name index and
+     *   an aligned buffer section
      * </ol>
      */
-    public static final int VERSION = 3;
+    public static final int VERSION = 4;
 
     /**
      * Signature of the format: currently, "JME3" as ASCII.
@@ -99,6 +99,13 @@ public class Material implements CloneableSmartAsset, Cloneable, Savable {
     }
     private BindUnits bindUnits = new BindUnits();
 
+    /**
+     * Packed parameter blocks, one per shader block layout.
+     */
+    private IdentityHashMap<UniformBlockLayout, BufferObject> parameterBlocks;
+    private UniformBlockLayout lastBlockLayout;
+    private BufferObject lastParameterBlock;
+
     public Material(MaterialDef def) {
         if (def == null) {
             throw new IllegalArgumentException("Material definition cannot be null");
@@ -220,6 +227,10 @@ public class Material implements CloneableSmartAsset, Cloneable, Savable {
             }
 
             mat.sortingId = -1;
+            mat.bindUnits = new BindUnits();
+            mat.parameterBlocks = null;
+            mat.lastBlockLayout = null;
+            mat.lastParameterBlock = null;
             
             return mat;
         } catch (CloneNotSupportedException ex) {
@@ -832,6 +843,9 @@ public class Material implements CloneableSmartAsset, Cloneable, Savable {
             if (paramDef == null || paramDef.getVarType() != type || !override.isEnabled()) {
                 continue;
             }
+            if (isPacked(shader, override)) {
+                continue;
+            }
 
             Uniform uniform = shader.getUniform(override.getPrefixedName());
 
@@ -893,6 +907,14 @@ public class Material implements CloneableSmartAsset, Cloneable, Savable {
         bindUnits.textureUnit = 0;
         bindUnits.bufferUnit = 0;
 
+        UniformBlockLayout blockLayout = shader.getMaterialBlockLayout();
+        if (blockLayout != null || shader.hasFrameBlock()) {
+            bindUnits.bufferUnit = UniformBlockPacker.RESERVED_BINDINGS;
+        }
+        if (blockLayout != null) {
+            updateParameterBlock(shader, blockLayout, worldOverrides, forcedOverrides);
+        }
+
         if (worldOverrides != null) {
             applyOverrides(renderer, shader, worldOverrides, bindUnits);
         }
@@ -905,6 +927,9 @@ public class Material implements CloneableSmartAsset, Cloneable, Savable {
             MatParam param = paramValues.getValue(i);
             VarType type = param.getVarType();
 
+            if (isPacked(shader, param)) {
+                continue;
+            }
             updateShaderMaterialParameter(renderer, type, shader, param, bindUnits, false);
         }
 
@@ -915,6 +940,76 @@ public class Material implements CloneableSmartAsset, Cloneable, Savable {
 
 
 
+    private static boolean isPacked(Shader shader, MatParam param) {
+        UniformBlockLayout blockLayout = shader.getMaterialBlockLayout();
+        return blockLayout != null && blockLayout.indexOf(param.getPrefixedName()) >= 0;
+    }
+
+    /**
+     * Writes the parameters packed in the material block of the shader into
+     * this material's buffer object for that block, and binds it.
+     */
+    private void updateParameterBlock(Shader shader, UniformBlockLayout blockLayout,
+            SafeArrayList<MatParamOverride> worldOverrides, SafeArrayList<MatParamOverride> forcedOverrides) {
+        BufferObject block;
+        if (blockLayout == lastBlockLayout) {
+            block = lastParameterBlock;
+        } else {
+            if (parameterBlocks == null) {
+                parameterBlocks = new IdentityHashMap<>();
+            }
+            block = parameterBlocks.get(blockLayout);
+            if (block == null) {
+                block = blockLayout.createBufferObject();
+                block.setBinding(UniformBlockPacker.MATERIAL_BLOCK_BINDING);
+                parameterBlocks.put(blockLayout, block);
+            }
+            lastBlockLayout = blockLayout;
+            lastParameterBlock = block;
+        }
+
+        boolean changed = false;
+        for (int i = 0; i < blockLayout.getFieldCount(); i++) {
+            String name = blockLayout.getParameterName(i);
+            VarType type = blockLayout.getFieldType(i);
+            Object value = getOverrideValue(forcedOverrides, name, type);
+            if (value == null) {
+                value = getOverrideValue(worldOverrides, name, type);
+            }
+            if (value == null) {
+                MatParam param = paramValues.get(name);
+                if (param != null && param.getVarType() == type) {
+                    value = param.getValue();
+                }
+            }
+            changed |= blockLayout.setField(block, i, value);
+        }
+        if (changed) {
+            block.setUpdateNeeded(false);
+        }
+
+        shader.getBufferBlock(UniformBlockPacker.MATERIAL_BLOCK)
+                .setBufferObject(ShaderBufferBlock.BufferType.UniformBufferObject, block);
+    }
+
+    private Object getOverrideValue(SafeArrayList<MatParamOverride> overrides, String name, VarType type) {
+        if (overrides == null) {
+            return null;
+        }
+        MatParamOverride[] array = overrides.getArray();
+        // later overrides win, as in applyOverrides()
+        for (int i = array.length - 1; i >= 0; i--) {
+            MatParamOverride override = array[i];
+            if (override.isEnabled() && override.getVarType() == type && override.getName().equals(name)) {
+                MatParam paramDef = def.getMaterialParam(name);
+                if (paramDef != null && paramDef.getVarType() == type) {
+                    return override.getValue();
+                }
+            }
+        }
+        return null;
+    }
+
     private void updateRenderState(Geometry geometry, RenderManager renderManager, Renderer renderer, TechniqueDef techniqueDef) {
         RenderState finalRenderState;
         if (renderManager.getForcedRenderState() != null) {
@@ -972,9 +1067,13 @@ public class Material implements CloneableSmartAsset, Cloneable, Savable {
         }
         // Get world overrides
         SafeArrayList<MatParamOverride> overrides = geometry.getWorldMatParamOverrides();
+        SafeArrayList<MatParamOverride> forcedOverrides = renderManager.getForcedMatParams();
 
-        Shader shader = technique.makeCurrent(renderManager, overrides, null, null, rendererCaps);
-        updateShaderMaterialParameters(renderer, shader, overrides, null);
+        // use the same overrides and lights as render(), so that the shader
+        // compiled here is the permutation that will actually be used
+        Shader shader = technique.makeCurrent(renderManager, overrides, forcedOverrides,
+                geometry.getWorldLightList(), rendererCaps);
+        updateShaderMaterialParameters(renderer, shader, overrides, forcedOverrides);
         renderManager.getRenderer().setShader(shader);
     }
 
@@ -1082,6 +1181,11 @@ public class Material implements CloneableSmartAsset, Cloneable, Savable {
 
         // Select shader to use
         Shader shader = technique.makeCurrent(renderManager, overrides, renderManager.getForcedMatParams(), lights, rendererCaps);
+
+        if (renderManager.isAsyncShaderCompile() && !renderer.compileShaderAsync(shader)) {
+            renderFallback(geometry, lights, renderManager);
+            return;
+        }
         
         // Begin tracking which uniforms were changed by material.
         clearUniformsSetByCurrent(shader);
@@ -1099,6 +1203,31 @@ public class Material implements CloneableSmartAsset, Cloneable, Savable {
         technique.render(renderManager, shader, geometry, lights, units);
     }
 
+    /**
+     * Draws a geometry whose shader is still being compiled with the
+     * fallback technique of the render manager, if this material has it.
+     */
+    private void renderFallback(Geometry geometry, LightList lights, RenderManager renderManager) {
+        String fallback = renderManager.getShaderCompileFallbackTechnique();
+        String current = technique.getDef().getName();
+        if (current.equals(fallback)) {
+            // the fallback itself is not ready, already counted by the caller
+            return;
+        }
+        renderManager.onShaderCompileDeferred();
+        if (fallback == null || renderManager.getForcedTechnique() != null
+                || def.getTechniqueDefs(fallback) == null) {
+            return;
+        }
+
+        selectTechnique(fallback, renderManager);
+        try {
+            render(geometry, lights, renderManager);
+        } finally {
+            selectTechnique(current, renderManager);
+        }
+    }
+
     /**
      * Called by {@link RenderManager} to render the geometry by
      * using this material.
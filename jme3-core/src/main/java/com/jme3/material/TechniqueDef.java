@@ -145,6 +145,7 @@ public class TechniqueDef implements Savable, Cloneable {
     private ArrayList<VarType> defineTypes;
     private HashMap<String, Integer> paramToDefineId;
     private final HashMap<DefineList, Shader> definesToShaderMap;
+    private final HashMap<DefineList, Shader> definesToBlockShaderMap;
 
     private boolean usesNodes = false;
     private List<ShaderNode> shaderNodes;
@@ -189,6 +190,7 @@ public class TechniqueDef implements Savable, Cloneable {
         defineTypes = new ArrayList<VarType>();
         paramToDefineId = new HashMap<String, Integer>();
         definesToShaderMap = new HashMap<DefineList, Shader>();
+        definesToBlockShaderMap = new HashMap<DefineList, Shader>();
         worldBinds = new ArrayList<>();
     }
 
@@ -478,7 +480,8 @@ public class TechniqueDef implements Savable, Cloneable {
         return new DefineList(defineNames.size());
     }
 
-    private Shader loadShader(AssetManager assetManager, EnumSet<Caps> rendererCaps, DefineList defines) {
+    private Shader loadShader(AssetManager assetManager, EnumSet<Caps> rendererCaps, DefineList defines,
+            boolean uniformBlocks) {
         StringBuilder sb = new StringBuilder();
         sb.append(shaderPrologue);
         defines.generateSource(sb, defineNames, defineTypes);
@@ -494,33 +497,82 @@ public class TechniqueDef implements Savable, Cloneable {
             shaderGenerator.initialize(this);
             shader = shaderGenerator.generateShader(definesSourceCode);
         } else {
-            shader = new Shader();
+            EnumMap<ShaderType, String> sources = new EnumMap<>(ShaderType.class);
             for (ShaderType type : ShaderType.values()) {
                 String language = shaderLanguages.get(type);
                 String shaderSourceAssetName = shaderNames.get(type);
                 if (language == null || shaderSourceAssetName == null) {
                     continue;
                 }
-                String shaderSourceCode = (String) assetManager.loadAsset(shaderSourceAssetName);
-                shader.addSource(type, shaderSourceAssetName, shaderSourceCode, definesSourceCode, language);
+                sources.put(type, (String) assetManager.loadAsset(shaderSourceAssetName));
+            }
+
+            shader = new Shader();
+            if (uniformBlocks && canPackUniformBlocks(rendererCaps)) {
+                UniformBlockPacker packer = new UniformBlockPacker();
+                packer.pack(sources);
+                shader.setMaterialBlockLayout(packer.getMaterialLayout());
+                shader.setFrameBlock(packer.hasFrameBlock());
+            }
+            for (Map.Entry<ShaderType, String> entry : sources.entrySet()) {
+                ShaderType type = entry.getKey();
+                shader.addSource(type, shaderNames.get(type), entry.getValue(), definesSourceCode,
+                        shaderLanguages.get(type));
             }
         }
 
         for (final UniformBinding binding : getWorldBindings()) {
+            if (shader.hasFrameBlock() && UniformBlockPacker.isFrameBinding(binding)) {
+                // provided by the frame block
+                continue;
+            }
             shader.addUniformBinding(binding);
         }
 
         return shader;
     }
 
+    private boolean canPackUniformBlocks(EnumSet<Caps> rendererCaps) {
+        if (!rendererCaps.contains(Caps.UniformBufferObject)) {
+            return false;
+        }
+        for (ShaderType type : shaderNames.keySet()) {
+            String language = shaderLanguages.get(type);
+            if (language != null && !UniformBlockPacker.isSupported(language)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public Shader getShader(AssetManager assetManager, EnumSet<Caps> rendererCaps, DefineList defines) {
-          Shader shader = definesToShaderMap.get(defines);
-          if (shader == null) {
-              shader = loadShader(assetManager, rendererCaps, defines);
-              definesToShaderMap.put(defines.deepClone(), shader);
-          }
-          return shader;
-     }
+        return getShader(assetManager, rendererCaps, defines, false);
+    }
+
+    /**
+     * Returns the shader for the given defines, loading it if needed.
+     * <p>
+     * With <code>uniformBlocks</code> set, and when the renderer and the
+     * shader languages allow it, material parameters and per-frame world
+     * parameters are moved from plain uniforms into uniform blocks by
+     * {@link UniformBlockPacker}. Both variants are cached separately.
+     *
+     * @param assetManager the asset manager to load sources with
+     * @param rendererCaps the renderer capabilities
+     * @param defines the defines to compile with
+     * @param uniformBlocks true to pack parameters into uniform blocks
+     * @return the shader
+     */
+    public Shader getShader(AssetManager assetManager, EnumSet<Caps> rendererCaps, DefineList defines,
+            boolean uniformBlocks) {
+        HashMap<DefineList, Shader> cache = uniformBlocks ? definesToBlockShaderMap : definesToShaderMap;
+        Shader shader = cache.get(defines);
+        if (shader == null) {
+            shader = loadShader(assetManager, rendererCaps, defines, uniformBlocks);
+            cache.put(defines.deepClone(), shader);
+        }
+        return shader;
+    }
 
     /**
      * Sets the shaders that this technique definition will use.
@@ -41,6 +41,7 @@ import com.jme3.renderer.RenderManager;
 import com.jme3.renderer.Renderer;
 import com.jme3.scene.Geometry;
 import com.jme3.scene.Mesh;
+import com.jme3.scene.instancing.IndirectGeometry;
 import com.jme3.scene.instancing.InstancedGeometry;
 import com.jme3.shader.DefineList;
 import com.jme3.shader.Shader;
@@ -57,7 +58,8 @@ public class DefaultTechniqueDefLogic implements TechniqueDefLogic {
     @Override
     public Shader makeCurrent(AssetManager assetManager, RenderManager renderManager,
             EnumSet<Caps> rendererCaps, LightList lights, DefineList defines) {
-        return techniqueDef.getShader(assetManager, rendererCaps, defines);
+        return techniqueDef.getShader(assetManager, rendererCaps, defines,
+                renderManager.isUniformBlocksEnabled());
     }
 
     public static void renderMeshFromGeometry(Renderer renderer, Geometry geom) {
@@ -67,8 +69,17 @@ public class DefaultTechniqueDefLogic implements TechniqueDefLogic {
             InstancedGeometry instGeom = (InstancedGeometry) geom;
             int numVisibleInstances = instGeom.getNumVisibleInstances();
             if (numVisibleInstances > 0) {
-                renderer.renderMesh(mesh, lodLevel, numVisibleInstances, instGeom.getAllInstanceData());
+                if (instGeom.isDrawnIndirect()) {
+                    renderer.renderMeshIndirect(mesh, instGeom.getCommands(), instGeom.getDrawCount(),
+                            instGeom.getAllInstanceData());
+                } else {
+                    renderer.renderMesh(mesh, lodLevel, numVisibleInstances, instGeom.getAllInstanceData());
+                }
             }
+        } else if (geom instanceof IndirectGeometry) {
+            IndirectGeometry indirectGeom = (IndirectGeometry) geom;
+            renderer.renderMeshIndirect(mesh, indirectGeom.getCommands(), indirectGeom.getDrawCount(),
+                    indirectGeom.getAllInstanceData());
         } else {
             renderer.renderMesh(mesh, lodLevel, 1, null);
         }
@@ -113,7 +113,8 @@ public final class StaticPassLightingLogic extends DefaultTechniqueDefLogic {
         defines.set(numPointLightsDefineId, tempPointLights.size());
         defines.set(numSpotLightsDefineId, tempSpotLights.size());
 
-        return techniqueDef.getShader(assetManager, rendererCaps, defines);
+        return techniqueDef.getShader(assetManager, rendererCaps, defines,
+                renderManager.isUniformBlocksEnabled());
     }
 
     private void transformDirection(Matrix4f viewMatrix, Vector3f direction) {
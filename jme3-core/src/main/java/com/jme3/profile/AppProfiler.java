@@ -79,6 +79,19 @@ public interface AppProfiler {
      * @param additionalInfo information about the SceneProcessor step
      */
     public void spStep(SpStep step, String... additionalInfo);
+
+    /**
+     * Called once per rendered frame while asynchronous shader compilation is
+     * enabled on the RenderManager.
+     *
+     * @param pendingShaders the number of shaders still being compiled
+     * @param deferredGeometries the number of geometries drawn with the
+     * fallback technique, or skipped, during the frame because their shader
+     * was not ready
+     * @see com.jme3.renderer.RenderManager#setAsyncShaderCompile(boolean)
+     */
+    public default void shaderCompileStep(int pendingShaders, int deferredGeometries) {
+    }
 }
 
 
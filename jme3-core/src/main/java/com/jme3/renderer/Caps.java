@@ -459,7 +459,25 @@ public enum Caps {
     /**
      * Supports debugging capabilities
      */
-    GLDebug
+    GLDebug,
+
+    /**
+     * Supports multi-draw indirect rendering with a base instance
+     * (OpenGL 4.3, or ARB_multi_draw_indirect and ARB_base_instance).
+     */
+    MultiDrawIndirect,
+
+    /**
+     * Supports retrieving and loading linked program binaries
+     * (OpenGL 4.1, or ARB_get_program_binary).
+     */
+    ProgramBinary,
+
+    /**
+     * Supports polling whether shader compilation and program linking have
+     * completed (KHR_parallel_shader_compile or ARB_parallel_shader_compile).
+     */
+    ParallelShaderCompile
     ;
 
     /**
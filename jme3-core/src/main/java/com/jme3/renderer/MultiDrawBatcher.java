@@ -0,0 +1,419 @@
+/*
+ * Copyright (c) 2009-2025 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.renderer;
+
+import com.jme3.light.LightList;
+import com.jme3.material.MatParamOverride;
+import com.jme3.material.Material;
+import com.jme3.renderer.queue.GeometryList;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.VertexBuffer;
+import com.jme3.scene.VertexBuffer.Format;
+import com.jme3.scene.VertexBuffer.Type;
+import com.jme3.scene.VertexBuffer.Usage;
+import com.jme3.scene.instancing.IndirectGeometry;
+import com.jme3.scene.mesh.IndexBuffer;
+import com.jme3.shader.VarType;
+import com.jme3.util.BufferUtils;
+import java.nio.Buffer;
+import java.nio.IntBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Draws runs of opaque geometries that share a material with a single
+ * multi-draw indirect call.
+ * <p>
+ * Eligible meshes are copied into shared arena buffers, one arena per vertex
+ * format, the first time they are drawn. Consecutive geometries of a sorted
+ * queue that use the same material instance, the same world lights and the
+ * same arena are then submitted together: every geometry becomes one draw
+ * command and its world transform is read through the material's instancing
+ * path, with the <code>UseInstancing</code> parameter forced on for the
+ * batch. Materials without that parameter, animated, morphed or LOD meshes,
+ * and geometries with material parameter overrides are drawn individually.
+ * <p>
+ * When the renderer does not report {@link Caps#MultiDrawIndirect}, or while
+ * a forced material, forced technique or render filter is active, every
+ * geometry is drawn individually, exactly as without a batcher.
+ * <p>
+ * Arena space is only reclaimed by {@link #clear()}. A mesh whose buffers
+ * are replaced is packed again automatically, but a mesh whose buffer
+ * contents are modified in place must be passed to {@link #invalidate(Mesh)}.
+ *
+ * @see RenderManager#setMultiDrawBatcher(MultiDrawBatcher)
+ */
+public class MultiDrawBatcher {
+
+    /**
+     * The default minimum number of geometries drawn with one call.
+     */
+    public static final int DEFAULT_MIN_BATCH_SIZE = 4;
+
+    private static final int INITIAL_VERTICES = 4096;
+    private static final int INITIAL_INDICES = 3 * 4096;
+
+    private final Map<String, MeshArena> arenas = new HashMap<>();
+    private final Map<Mesh, Slot> slots = new WeakHashMap<>();
+    private final MatParamOverride instancingOverride
+            = new MatParamOverride(VarType.Boolean, "UseInstancing", true);
+    private final IndirectGeometry batch = new IndirectGeometry("MultiDrawBatch");
+    private final StringBuilder signature = new StringBuilder();
+    private int minBatchSize = DEFAULT_MIN_BATCH_SIZE;
+
+    /**
+     * Sets the minimum number of consecutive compatible geometries that are
+     * drawn with one call. Shorter runs are drawn individually.
+     *
+     * @param minBatchSize the minimum run length (&ge;2, default 4)
+     */
+    public void setMinBatchSize(int minBatchSize) {
+        if (minBatchSize < 2) {
+            throw new IllegalArgumentException("minBatchSize must be 2 or higher");
+        }
+        this.minBatchSize = minBatchSize;
+    }
+
+    /**
+     * Returns the minimum number of geometries drawn with one call.
+     *
+     * @return the minimum run length
+     */
+    public int getMinBatchSize() {
+        return minBatchSize;
+    }
+
+    /**
+     * Tests whether the renderer used by the given render manager can draw
+     * batches.
+     *
+     * @param rm the render manager
+     * @return true if multi-draw indirect is supported
+     */
+    public boolean isSupported(RenderManager rm) {
+        return rm.getRenderer().getCaps().contains(Caps.MultiDrawIndirect);
+    }
+
+    /**
+     * Renders an already sorted list, batching consecutive compatible
+     * geometries.
+     *
+     * @param list the sorted list to render
+     * @param rm the render manager
+     */
+    public void render(GeometryList list, RenderManager rm) {
+        boolean batching = isSupported(rm)
+                && rm.getForcedMaterial() == null
+                && rm.getForcedTechnique() == null
+                && rm.getRenderFilter() == null;
+
+        int size = list.size();
+        int start = 0;
+        while (start < size) {
+            Geometry first = list.get(start);
+            Slot slot = batching ? getSlot(first) : null;
+            int end = start + 1;
+            if (slot != null) {
+                while (end < size && canBatch(first, slot, list.get(end))) {
+                    end++;
+                }
+            }
+
+            if (end - start >= minBatchSize) {
+                renderBatch(list, start, end, slot.arena, rm);
+            } else {
+                for (int i = start; i < end; i++) {
+                    rm.renderGeometry(list.get(i));
+                }
+            }
+            for (int i = start; i < end; i++) {
+                list.get(i).queueDistance = Float.NEGATIVE_INFINITY;
+            }
+            start = end;
+        }
+    }
+
+    /**
+     * Forgets the packed copy of a mesh, so that it is packed again the next
+     * time it is drawn. Call this after modifying the contents of a mesh's
+     * buffers in place.
+     *
+     * @param mesh the modified mesh
+     */
+    public void invalidate(Mesh mesh) {
+        slots.remove(mesh);
+    }
+
+    /**
+     * Releases all arenas. Meshes are packed again when they are next drawn.
+     */
+    public void clear() {
+        slots.clear();
+        arenas.clear();
+    }
+
+    private boolean canBatch(Geometry first, Slot slot, Geometry geom) {
+        if (geom.getMaterial() != first.getMaterial()) {
+            return false;
+        }
+        Slot other = getSlot(geom);
+        return other != null
+                && other.arena == slot.arena
+                && sameLights(first.getWorldLightList(), geom.getWorldLightList());
+    }
+
+    private static boolean sameLights(LightList a, LightList b) {
+        if (a == b) {
+            return true;
+        }
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            if (a.get(i) != b.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void renderBatch(GeometryList list, int start, int end, MeshArena arena, RenderManager rm) {
+        Geometry first = list.get(start);
+        batch.beginDraws(arena.mesh, first.getMaterial(), first.getWorldLightList());
+        for (int i = start; i < end; i++) {
+            Geometry geom = list.get(i);
+            Slot slot = slots.get(geom.getMesh());
+            batch.addDraw(slot.indexCount, slot.firstIndex, slot.baseVertex,
+                    geom.getWorldMatrix(), geom.getWorldBound());
+        }
+        batch.endDraws();
+
+        rm.addForcedMatParam(instancingOverride);
+        try {
+            rm.renderGeometry(batch);
+        } finally {
+            rm.removeForcedMatParam(instancingOverride);
+        }
+    }
+
+    /**
+     * Returns the arena slot of a geometry's mesh, packing the mesh if
+     * needed, or null if the geometry cannot be batched.
+     */
+    private Slot getSlot(Geometry geom) {
+        if (geom.getClass() != Geometry.class
+                || geom.isIgnoreTransform()
+                || geom.getLodLevel() != 0
+                || !geom.getWorldMatParamOverrides().isEmpty()) {
+            return null;
+        }
+        Material material = geom.getMaterial();
+        if (material.getMaterialDef().getMaterialParam("UseInstancing") == null) {
+            return null;
+        }
+
+        Mesh mesh = geom.getMesh();
+        Slot slot = slots.get(mesh);
+        if (slot == null || !slot.isCurrent(mesh)) {
+            slot = pack(mesh);
+            slots.put(mesh, slot);
+        }
+        return slot.arena != null ? slot : null;
+    }
+
+    private Slot pack(Mesh mesh) {
+        if (mesh.getMode() != Mesh.Mode.Triangles
+                || mesh.getNumLodLevels() > 0
+                || mesh.getInstanceCount() > 1
+                || mesh.getVertexCount() <= 0
+                || mesh.isAnimated()
+                || mesh.hasMorphTargets()) {
+            return new Slot(mesh, null);
+        }
+
+        signature.setLength(0);
+        for (Type type : Type.values()) {
+            VertexBuffer vb = mesh.getBuffer(type);
+            if (vb == null || type == Type.Index || vb.getUsage() == Usage.CpuOnly) {
+                continue;
+            }
+            if (type == Type.InterleavedData || vb.isInstanced()
+                    || vb.getStride() != 0 || vb.getOffset() != 0) {
+                return new Slot(mesh, null);
+            }
+            signature.append(type.ordinal()).append(':')
+                    .append(vb.getFormat().ordinal()).append(':')
+                    .append(vb.getNumComponents()).append(':')
+                    .append(vb.isNormalized() ? 1 : 0).append(';');
+        }
+
+        String key = signature.toString();
+        MeshArena arena = arenas.get(key);
+        if (arena == null) {
+            arena = new MeshArena(mesh);
+            arenas.put(key, arena);
+        }
+        return arena.add(mesh);
+    }
+
+    /**
+     * The location of a packed mesh inside its arena.
+     */
+    private static final class Slot {
+
+        private final MeshArena arena;
+        private final VertexBuffer[] sources;
+        private final Buffer[] sourceData;
+        private final int bufferCount;
+        private int indexCount;
+        private int firstIndex;
+        private int baseVertex;
+
+        private Slot(Mesh mesh, MeshArena arena) {
+            this.arena = arena;
+            this.bufferCount = mesh.getBufferList().size();
+            this.sources = mesh.getBufferList().getArray().clone();
+            this.sourceData = new Buffer[sources.length];
+            for (int i = 0; i < sources.length; i++) {
+                sourceData[i] = sources[i].getData();
+            }
+        }
+
+        /**
+         * Tests whether the mesh still uses the buffers that were packed.
+         */
+        private boolean isCurrent(Mesh mesh) {
+            if (mesh.getBufferList().size() != bufferCount) {
+                return false;
+            }
+            for (int i = 0; i < sources.length; i++) {
+                VertexBuffer vb = sources[i];
+                if (mesh.getBuffer(vb.getBufferType()) != vb || vb.getData() != sourceData[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Shared vertex and index buffers for meshes with the same vertex format.
+     */
+    private static final class MeshArena {
+
+        private final Mesh mesh = new Mesh();
+        private final VertexBuffer[] buffers;
+        private final VertexBuffer indexBuffer;
+        private int vertexCount;
+        private int vertexCapacity = INITIAL_VERTICES;
+        private int indexCount;
+        private int indexCapacity = INITIAL_INDICES;
+
+        private MeshArena(Mesh template) {
+            int count = 0;
+            VertexBuffer[] layout = new VertexBuffer[Type.values().length];
+            for (Type type : Type.values()) {
+                VertexBuffer src = template.getBuffer(type);
+                if (src == null || type == Type.Index || src.getUsage() == Usage.CpuOnly) {
+                    continue;
+                }
+                VertexBuffer vb = new VertexBuffer(type);
+                vb.setupData(Usage.Static, src.getNumComponents(), src.getFormat(),
+                        VertexBuffer.createBuffer(src.getFormat(), src.getNumComponents(), vertexCapacity));
+                vb.setNormalized(src.isNormalized());
+                mesh.setBuffer(vb);
+                layout[count++] = vb;
+            }
+            buffers = new VertexBuffer[count];
+            System.arraycopy(layout, 0, buffers, 0, count);
+
+            indexBuffer = new VertexBuffer(Type.Index);
+            indexBuffer.setupData(Usage.Static, 1, Format.UnsignedInt,
+                    BufferUtils.createIntBuffer(indexCapacity));
+            mesh.setBuffer(indexBuffer);
+        }
+
+        private Slot add(Mesh src) {
+            int verts = src.getVertexCount();
+            IndexBuffer srcIndices = src.getIndexBuffer();
+            int indices = srcIndices != null ? srcIndices.size() : verts;
+
+            if (vertexCount + verts > vertexCapacity) {
+                vertexCapacity = Math.max(vertexCount + verts, vertexCapacity * 2);
+                for (VertexBuffer vb : buffers) {
+                    grow(vb, vertexCount, vertexCapacity);
+                }
+            }
+            if (indexCount + indices > indexCapacity) {
+                indexCapacity = Math.max(indexCount + indices, indexCapacity * 2);
+                grow(indexBuffer, indexCount, indexCapacity);
+            }
+
+            for (VertexBuffer vb : buffers) {
+                src.getBuffer(vb.getBufferType()).copyElements(0, vb, vertexCount, verts);
+                vb.getData().clear();
+                vb.setUpdateNeeded();
+            }
+            IntBuffer out = (IntBuffer) indexBuffer.getData();
+            for (int i = 0; i < indices; i++) {
+                out.put(indexCount + i, srcIndices != null ? srcIndices.get(i) : i);
+            }
+            indexBuffer.setUpdateNeeded();
+
+            Slot slot = new Slot(src, this);
+            slot.indexCount = indices;
+            slot.firstIndex = indexCount;
+            slot.baseVertex = vertexCount;
+            vertexCount += verts;
+            indexCount += indices;
+            return slot;
+        }
+
+        private static void grow(VertexBuffer vb, int used, int capacity) {
+            VertexBuffer grown = new VertexBuffer(vb.getBufferType());
+            grown.setupData(Usage.Static, vb.getNumComponents(), vb.getFormat(),
+                    VertexBuffer.createBuffer(vb.getFormat(), vb.getNumComponents(), capacity));
+            if (used > 0) {
+                vb.copyElements(0, grown, 0, used);
+            }
+            Buffer data = grown.getData();
+            data.clear();
+            // The arena owns its buffers, so free the old one right away
+            // instead of waiting for the GC to collect it
+            Buffer old = vb.getData();
+            vb.updateData(data);
+            BufferUtils.destroyDirectBuffer(old);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2009-2025 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.renderer;
+
+import com.jme3.renderer.queue.RenderQueue;
+
+/**
+ * A visibility stage that removes hidden geometries from a filled render
+ * queue.
+ *
+ * <p>Geometries take part through {@link com.jme3.scene.Geometry#setOccluder(boolean)}
+ * and {@link com.jme3.scene.Geometry#setOccludee(boolean)}. An occlusion
+ * culler runs after frustum culling has queued the scenes of a viewport and
+ * before the scene processors see the queue, so it only has to consider
+ * geometries that are inside the view frustum.
+ *
+ * @see com.jme3.renderer.pipeline.ForwardPipeline#setOcclusionCuller(com.jme3.renderer.OcclusionCuller)
+ * @see SoftwareOcclusionCuller
+ */
+public interface OcclusionCuller {
+
+    /**
+     * Removes the occludees that are hidden behind occluders, as seen from
+     * the given camera, from the queue.
+     *
+     * @param cam the camera the queue was filled for (not null, unaffected)
+     * @param queue the queue to cull (not null, modified)
+     * @param stats the statistics to report to (not null)
+     * @return the number of geometries that were removed
+     */
+    public int cull(Camera cam, RenderQueue queue, Statistics stats);
+
+}
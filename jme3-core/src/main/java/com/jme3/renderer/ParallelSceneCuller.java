@@ -0,0 +1,390 @@
+/*
+ * Copyright (c) 2009-2025 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.renderer;
+
+import com.jme3.renderer.queue.GeometryList;
+import com.jme3.renderer.queue.RenderQueue;
+import com.jme3.renderer.queue.RenderQueue.Bucket;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Node;
+import com.jme3.scene.Spatial;
+import com.jme3.scene.portal.PortalNode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Flattens a scene graph into a {@link RenderQueue} using a fork-join pool.
+ *
+ * <p>The culler is an opt-in replacement for the recursive walk done by
+ * {@link RenderManager#renderScene(com.jme3.scene.Spatial, com.jme3.renderer.ViewPort)}.
+ * Nodes that have more children than the {@link #setSplitThreshold(int) split threshold}
+ * get their children split across the pool, and
+ * {@link Node#setStaticRenderGroup(boolean) static render groups} are culled
+ * through their flattened cache by the worker that reaches them. Every
+ * worker culls against its own copy of the viewport camera, so the frustum
+ * plane state is never shared between threads, and enqueues the visible
+ * geometries into private segments. The segments are merged into the
+ * viewport's queue on the calling thread once the walk is complete, before
+ * the queue is flushed.
+ *
+ * <p>{@link Spatial#runControlRender(com.jme3.renderer.RenderManager, com.jme3.renderer.ViewPort) Control rendering}
+ * is not thread safe, so the controls of the visible spatials are collected
+ * during the walk and run on the calling thread after the merge.
+ * Consequently, a control's <code>render()</code> cannot affect the culling
+ * of its own spatial in the current frame.
+ *
+ * <p>In {@link #setDeterministic(boolean) deterministic} mode (the default)
+ * the segments are merged in traversal order, so the resulting queue is
+ * identical to the one built by the serial walk. Otherwise each worker thread
+ * fills a single thread-local segment, which avoids some bookkeeping but makes
+ * the order of equally sorted geometries depend on scheduling.
+ *
+ * <p>The scene graph must not be modified while it is being culled.
+ *
+ * @see RenderManager#setParallelCuller(com.jme3.renderer.ParallelSceneCuller)
+ */
+public class ParallelSceneCuller {
+
+    /**
+     * The default minimum number of children a node needs to be split.
+     */
+    public static final int DEFAULT_SPLIT_THRESHOLD = 64;
+
+    private static final Bucket[] BUCKETS = Bucket.values();
+
+    private final ForkJoinPool pool;
+    private final ThreadLocal<WorkerState> workerStates = ThreadLocal.withInitial(WorkerState::new);
+    private final ConcurrentLinkedQueue<Segment> usedSegments = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Segment> freeSegments = new ConcurrentLinkedQueue<>();
+    private final ArrayList<Spatial> controlSpatials = new ArrayList<>();
+    private int splitThreshold = DEFAULT_SPLIT_THRESHOLD;
+    private boolean deterministic = true;
+
+    // state of the pass currently running, published to the workers by
+    // ForkJoinPool.invoke()
+    private Camera passCamera;
+    private int passId;
+
+    /**
+     * Creates a culler that runs on the {@link ForkJoinPool#commonPool() common pool}.
+     */
+    public ParallelSceneCuller() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a culler that runs on the given pool.
+     *
+     * @param pool the pool to run the culling tasks on (not null, alias created)
+     */
+    public ParallelSceneCuller(ForkJoinPool pool) {
+        if (pool == null) {
+            throw new IllegalArgumentException("pool cannot be null");
+        }
+        this.pool = pool;
+    }
+
+    /**
+     * Returns the pool that runs the culling tasks.
+     *
+     * @return the pre-existing instance
+     */
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Sets the minimum number of children a node needs before its children
+     * are split across the pool. Smaller subtrees are walked serially by the
+     * worker that reaches them.
+     *
+     * @param splitThreshold the threshold (&ge;2, default 64)
+     */
+    public void setSplitThreshold(int splitThreshold) {
+        if (splitThreshold < 2) {
+            throw new IllegalArgumentException("splitThreshold must be at least 2");
+        }
+        this.splitThreshold = splitThreshold;
+    }
+
+    /**
+     * Returns the minimum number of children a node needs before its children
+     * are split across the pool.
+     *
+     * @return the threshold (&ge;2)
+     */
+    public int getSplitThreshold() {
+        return splitThreshold;
+    }
+
+    /**
+     * Enables or disables deterministic queue order. When enabled, the queue
+     * contents are in the same order as with serial culling, which keeps
+     * screenshot tests reproducible.
+     *
+     * @param deterministic true to merge in traversal order (default true)
+     */
+    public void setDeterministic(boolean deterministic) {
+        this.deterministic = deterministic;
+    }
+
+    /**
+     * Tests whether the queue order is deterministic.
+     *
+     * @return true if segments are merged in traversal order
+     */
+    public boolean isDeterministic() {
+        return deterministic;
+    }
+
+    /**
+     * Flattens the given scene into the ViewPort's queue.
+     * Must be invoked from the render thread.
+     *
+     * @param rm the RenderManager running the controls (not null)
+     * @param scene the scene to flatten (not null)
+     * @param vp the ViewPort providing the camera and the queue (not null)
+     */
+    public void cull(RenderManager rm, Spatial scene, ViewPort vp) {
+        passCamera = vp.getCamera();
+        passId++;
+
+        CullTask root = new CullTask(Collections.singletonList(scene), 0, 1, 0);
+        try {
+            pool.invoke(root);
+
+            RenderQueue queue = vp.getQueue();
+            if (deterministic) {
+                root.merge(queue, controlSpatials);
+            } else {
+                for (Segment segment : usedSegments) {
+                    segment.drainTo(queue, controlSpatials);
+                }
+            }
+
+            for (int i = 0; i < controlSpatials.size(); i++) {
+                controlSpatials.get(i).runControlRender(rm, vp);
+            }
+        } finally {
+            controlSpatials.clear();
+            Segment segment;
+            while ((segment = usedSegments.poll()) != null) {
+                segment.clear();
+                if (!segment.threadLocal) {
+                    freeSegments.add(segment);
+                }
+            }
+            passCamera = null;
+        }
+    }
+
+    private WorkerState getWorkerState() {
+        WorkerState state = workerStates.get();
+        if (state.passId != passId) {
+            if (state.camera == null) {
+                state.camera = passCamera.clone();
+            } else {
+                state.camera.copyFrom(passCamera);
+            }
+            state.segmentUsed = false;
+            state.passId = passId;
+        }
+        return state;
+    }
+
+    private Segment obtainSegment() {
+        Segment segment = freeSegments.poll();
+        if (segment == null) {
+            segment = new Segment(false);
+        }
+        usedSegments.add(segment);
+        return segment;
+    }
+
+    /**
+     * Per-thread culling state.
+     */
+    private static final class WorkerState {
+        private Camera camera;
+        private final Segment segment = new Segment(true);
+        private boolean segmentUsed;
+        private int passId = -1;
+    }
+
+    /**
+     * A run of visible geometries, kept in an unsorted queue of its own,
+     * plus the visible spatials that have controls.
+     */
+    private static final class Segment {
+        private final RenderQueue queue = new RenderQueue();
+        private final ArrayList<Spatial> controlSpatials = new ArrayList<>();
+        private final boolean threadLocal;
+
+        private Segment(boolean threadLocal) {
+            this.threadLocal = threadLocal;
+        }
+
+        private void add(Geometry geom, Bucket bucket) {
+            queue.addToQueue(geom, bucket);
+        }
+
+        private void drainTo(RenderQueue target, List<Spatial> controls) {
+            for (Bucket bucket : BUCKETS) {
+                if (bucket == Bucket.Inherit) {
+                    continue;
+                }
+                GeometryList list = queue.getList(bucket);
+                for (int i = 0; i < list.size(); i++) {
+                    target.addToQueue(list.get(i), bucket);
+                }
+            }
+            controls.addAll(controlSpatials);
+        }
+
+        private void clear() {
+            queue.clear();
+            controlSpatials.clear();
+        }
+    }
+
+    /**
+     * Culls a range of sibling spatials.
+     */
+    private final class CullTask extends RecursiveAction {
+
+        static final long serialVersionUID = 1;
+
+        private final List<Spatial> spatials;
+        private final int from;
+        private final int to;
+        private final int planeState;
+        // segments and sub-tasks in traversal order, deterministic mode only
+        private final ArrayList<Object> parts = new ArrayList<>();
+        private Segment current;
+
+        private CullTask(List<Spatial> spatials, int from, int to, int planeState) {
+            this.spatials = spatials;
+            this.from = from;
+            this.to = to;
+            this.planeState = planeState;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from >= splitThreshold) {
+                int mid = (from + to) >>> 1;
+                CullTask left = new CullTask(spatials, from, mid, planeState);
+                CullTask right = new CullTask(spatials, mid, to, planeState);
+                parts.add(left);
+                parts.add(right);
+                invokeAll(left, right);
+                return;
+            }
+
+            WorkerState state = getWorkerState();
+            for (int i = from; i < to; i++) {
+                // Restoring cam state before proceeding children recursively
+                state.camera.setPlaneState(planeState);
+                cull(spatials.get(i), state);
+            }
+        }
+
+        private void cull(Spatial scene, WorkerState state) {
+            Camera cam = state.camera;
+            if (!scene.checkCulling(cam)) {
+                return;
+            }
+            if (scene.getNumControls() > 0) {
+                getSegment(state).controlSpatials.add(scene);
+            }
+            if (scene instanceof Node && ((Node) scene).isStaticRenderGroup()) {
+                Segment segment = getSegment(state);
+                ((Node) scene).getStaticRenderGroup().cull(cam, segment.queue, segment.controlSpatials);
+            } else if (scene instanceof Node) {
+                // Cells hidden behind portals are skipped, but the visible
+                // ones are culled with the full frustum
+                List<Spatial> children = scene instanceof PortalNode
+                        ? ((PortalNode) scene).cull(cam)
+                        : ((Node) scene).getChildren();
+                // Saving cam state for culling
+                int camState = cam.getPlaneState();
+                if (children.size() >= splitThreshold) {
+                    CullTask sub = new CullTask(children, 0, children.size(), camState);
+                    parts.add(sub);
+                    current = null;
+                    sub.invoke();
+                } else {
+                    for (int i = 0; i < children.size(); i++) {
+                        cam.setPlaneState(camState);
+                        cull(children.get(i), state);
+                    }
+                }
+            } else if (scene instanceof Geometry) {
+                Geometry gm = (Geometry) scene;
+                if (gm.getMaterial() == null) {
+                    throw new IllegalStateException("No material is set for Geometry: " + gm.getName());
+                }
+                getSegment(state).add(gm, scene.getQueueBucket());
+            }
+        }
+
+        private Segment getSegment(WorkerState state) {
+            if (!deterministic) {
+                if (!state.segmentUsed) {
+                    state.segmentUsed = true;
+                    usedSegments.add(state.segment);
+                }
+                return state.segment;
+            }
+            if (current == null) {
+                current = obtainSegment();
+                parts.add(current);
+            }
+            return current;
+        }
+
+        private void merge(RenderQueue queue, List<Spatial> controls) {
+            for (int i = 0; i < parts.size(); i++) {
+                Object part = parts.get(i);
+                if (part instanceof Segment) {
+                    ((Segment) part).drainTo(queue, controls);
+                } else {
+                    ((CullTask) part).merge(queue, controls);
+                }
+            }
+        }
+    }
+}
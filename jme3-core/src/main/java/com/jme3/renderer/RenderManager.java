@@ -57,7 +57,9 @@ import com.jme3.scene.Geometry;
 import com.jme3.scene.Mesh;
 import com.jme3.scene.Node;
 import com.jme3.scene.Spatial;
+import com.jme3.scene.StaticRenderGroup;
 import com.jme3.scene.VertexBuffer;
+import com.jme3.scene.portal.PortalNode;
 import com.jme3.shader.Shader;
 import com.jme3.shader.UniformBinding;
 import com.jme3.shader.UniformBindingManager;
@@ -117,6 +119,13 @@ public class RenderManager {
     private int singlePassLightBatchSize = 1;
     private MatParamOverride boundDrawBufferId=new MatParamOverride(VarType.Int, "BoundDrawBuffer", 0);
     private Predicate<Geometry> renderFilter;
+    private ParallelSceneCuller parallelCuller;
+    private MultiDrawBatcher multiDrawBatcher;
+    private boolean uniformBlocksEnabled = false;
+    private boolean asyncShaderCompile = false;
+    private String shaderCompileFallbackTechnique = null;
+    private int deferredGeometries;
+    private final ArrayList<Spatial> groupControlSpatials = new ArrayList<>();
 
 
     /**
@@ -872,7 +881,12 @@ public class RenderManager {
      * guaranteed that the underlying renderer will actually choose to upload
      * the data to the GPU so some pause is still to be expected.
      *
+     * <p>When the renderer has a {@link com.jme3.shader.ProgramBinaryCache},
+     * the shaders linked here are stored in it, so running this method once
+     * as a warm-up pass also spares the compilation on later runs.
+     *
      * @param scene The scene to preload
+     * @see Renderer#setProgramBinaryCache(com.jme3.shader.ProgramBinaryCache)
      */
     public void preloadScene(Spatial scene) {
         if (scene instanceof Node) {
@@ -937,7 +951,11 @@ public class RenderManager {
         // (must be 0 for the first note of the scene to be rendered)
         vp.getCamera().setPlaneState(0);
         // queue the scene for rendering
-        renderSubScene(scene, vp);
+        if (parallelCuller != null) {
+            parallelCuller.cull(this, scene, vp);
+        } else {
+            renderSubScene(scene, vp, vp.getCamera());
+        }
     }
 
     /**
@@ -945,23 +963,59 @@ public class RenderManager {
      *
      * @param scene the scene to be rendered (not null)
      * @param vp the ViewPort to render in (not null)
+     * @param cam the camera to cull with, either the viewport camera or
+     *     one narrowed by a {@link PortalNode} (not null)
      */
-    private void renderSubScene(Spatial scene, ViewPort vp) {
+    private void renderSubScene(Spatial scene, ViewPort vp, Camera cam) {
         // check culling first
-        if (!scene.checkCulling(vp.getCamera())) {
+        if (!scene.checkCulling(cam)) {
             return;
         }
         scene.runControlRender(this, vp);
-        if (scene instanceof Node) {
+        if (scene instanceof Node && ((Node) scene).isStaticRenderGroup()) {
+            // Cull the flattened subtree in one pass
+            StaticRenderGroup group = ((Node) scene).getStaticRenderGroup();
+            group.cull(cam, vp.getQueue(), groupControlSpatials);
+            try {
+                for (int i = 0; i < groupControlSpatials.size(); i++) {
+                    groupControlSpatials.get(i).runControlRender(this, vp);
+                }
+            } finally {
+                groupControlSpatials.clear();
+            }
+        } else if (scene instanceof PortalNode) {
+            // Only visit the cells that can be seen through the portals
+            PortalNode pn = (PortalNode) scene;
+            List<Spatial> children = pn.cull(cam);
+            int camState = cam.getPlaneState();
+            for (int i = 0; i < children.size(); i++) {
+                Spatial child = children.get(i);
+                Camera cellCam = pn.getCellCamera(child);
+                if (cellCam != null) {
+                    cellCam.setPlaneState(0);
+                    renderSubScene(child, vp, cellCam);
+                } else {
+                    cam.setPlaneState(camState);
+                    renderSubScene(child, vp, cam);
+                }
+            }
+        } else if (scene instanceof Node) {
             // Recurse for all children
             Node n = (Node) scene;
-            List<Spatial> children = n.getChildren();
+            List<Spatial> children;
+            if (n.hasBroadphase() && n.getCullHint() != Spatial.CullHint.Never
+                    && n.getQueueBucket() != Bucket.Gui) {
+                // Only visit the children the hierarchy can't rule out
+                children = n.getBroadphase().cull(cam);
+            } else {
+                children = n.getChildren();
+            }
             // Saving cam state for culling
-            int camState = vp.getCamera().getPlaneState();
+            int camState = cam.getPlaneState();
             for (int i = 0; i < children.size(); i++) {
                 // Restoring cam state before proceeding children recursively
-                vp.getCamera().setPlaneState(camState);
-                renderSubScene(children.get(i), vp);
+                cam.setPlaneState(camState);
+                renderSubScene(children.get(i), vp, cam);
             }
         } else if (scene instanceof Geometry) {
             // addUserEvent to the render queue
@@ -1375,6 +1429,11 @@ public class RenderManager {
         }
         usedContexts.clear();
         usedPipelines.clear();
+
+        if (asyncShaderCompile && prof != null) {
+            prof.shaderCompileStep(renderer.getPendingShaderCount(), deferredGeometries);
+        }
+        deferredGeometries = 0;
         
     }
 
@@ -1424,4 +1483,120 @@ public class RenderManager {
         return renderFilter;
     }
 
+    /**
+     * Sets the culler used by {@link #renderScene(com.jme3.scene.Spatial, com.jme3.renderer.ViewPort) }
+     * to flatten large scenes in parallel. When null (the default), the scene
+     * is walked recursively on the render thread.
+     *
+     * @param culler the parallel culler, or null to cull serially
+     */
+    public void setParallelCuller(ParallelSceneCuller culler) {
+        this.parallelCuller = culler;
+    }
+
+    /**
+     * Returns the parallel culler used to flatten scenes, if any.
+     *
+     * @return the culler, or null if scenes are culled serially
+     */
+    public ParallelSceneCuller getParallelCuller() {
+        return parallelCuller;
+    }
+
+    /**
+     * Sets the batcher used to draw runs of opaque geometries that share a
+     * material with multi-draw indirect calls. When null (the default), or
+     * when the renderer lacks {@link Caps#MultiDrawIndirect}, every geometry
+     * is drawn individually.
+     *
+     * @param batcher the batcher, or null to disable batching
+     */
+    public void setMultiDrawBatcher(MultiDrawBatcher batcher) {
+        this.multiDrawBatcher = batcher;
+    }
+
+    /**
+     * Returns the batcher used for the opaque bucket, if any.
+     *
+     * @return the batcher, or null if batching is disabled
+     */
+    public MultiDrawBatcher getMultiDrawBatcher() {
+        return multiDrawBatcher;
+    }
+
+    /**
+     * Enables packing of material parameters and per-frame world parameters
+     * into uniform buffer objects. Only affects shaders loaded afterwards,
+     * written in GLSL 1.50 / GLSL ES 3.00 or newer, on renderers supporting
+     * {@link Caps#UniformBufferObject}. Disabled by default.
+     *
+     * @param enabled true to pack parameters into uniform blocks
+     * @see com.jme3.shader.UniformBlockPacker
+     */
+    public void setUniformBlocksEnabled(boolean enabled) {
+        this.uniformBlocksEnabled = enabled;
+    }
+
+    /**
+     * Tests whether parameters are packed into uniform blocks.
+     *
+     * @return true if enabled
+     */
+    public boolean isUniformBlocksEnabled() {
+        return uniformBlocksEnabled;
+    }
+
+    /**
+     * Enables asynchronous shader compilation. When a geometry needs a shader
+     * permutation that has not been compiled yet, the compilation is started
+     * in the background and the geometry is drawn with the
+     * {@link #setShaderCompileFallbackTechnique(java.lang.String) fallback technique},
+     * or skipped, until the shader is ready. Only effective on renderers
+     * supporting {@link Caps#ParallelShaderCompile}. Disabled by default.
+     *
+     * @param enabled true to compile shaders asynchronously
+     */
+    public void setAsyncShaderCompile(boolean enabled) {
+        this.asyncShaderCompile = enabled;
+    }
+
+    /**
+     * Tests whether shaders are compiled asynchronously.
+     *
+     * @return true if enabled
+     */
+    public boolean isAsyncShaderCompile() {
+        return asyncShaderCompile;
+    }
+
+    /**
+     * Sets the technique used to draw geometries whose shader is still being
+     * compiled. Materials without this technique are skipped. The fallback is
+     * not used while a technique is forced, e.g. for shadow passes.
+     *
+     * @param techniqueName the technique name, or null (the default) to skip
+     * geometries until their shader is ready
+     */
+    public void setShaderCompileFallbackTechnique(String techniqueName) {
+        this.shaderCompileFallbackTechnique = techniqueName;
+    }
+
+    /**
+     * Returns the technique used to draw geometries whose shader is still
+     * being compiled.
+     *
+     * @return the technique name, or null if such geometries are skipped
+     */
+    public String getShaderCompileFallbackTechnique() {
+        return shaderCompileFallbackTechnique;
+    }
+
+    /**
+     * Internal use only. Called by materials when a geometry cannot be drawn
+     * with its shader because that shader is still being compiled.
+     */
+    public void onShaderCompileDeferred() {
+        deferredGeometries++;
+    }
+
 }
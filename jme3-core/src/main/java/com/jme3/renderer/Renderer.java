@@ -36,6 +36,7 @@ import com.jme3.math.ColorRGBA;
 import com.jme3.scene.Mesh;
 import com.jme3.scene.VertexBuffer;
 import com.jme3.shader.bufferobject.BufferObject;
+import com.jme3.shader.ProgramBinaryCache;
 import com.jme3.shader.Shader;
 import com.jme3.shader.Shader.ShaderSource;
 import com.jme3.system.AppSettings;
@@ -185,6 +186,49 @@ public interface Renderer {
      */
     public void deleteShader(Shader shader);
 
+    /**
+     * Sets the cache used to store linked shader programs, so that they can
+     * be loaded instead of compiled the next time the application starts.
+     * Ignored by renderers lacking {@link Caps#ProgramBinary}.
+     *
+     * @param cache the cache, or null to always compile shaders
+     */
+    public default void setProgramBinaryCache(ProgramBinaryCache cache) {
+    }
+
+    /**
+     * Returns the cache used to store linked shader programs.
+     *
+     * @return the cache, or null if none is used
+     */
+    public default ProgramBinaryCache getProgramBinaryCache() {
+        return null;
+    }
+
+    /**
+     * Starts compiling and linking a shader without waiting for the driver.
+     * Once this method returns true, {@link #setShader(Shader)} can use the
+     * shader without stalling. Renderers that cannot compile in the
+     * background always return true and compile in <code>setShader</code>.
+     *
+     * @param shader the shader to compile
+     * @return true if the shader is ready to use
+     * @see Caps#ParallelShaderCompile
+     */
+    public default boolean compileShaderAsync(Shader shader) {
+        return true;
+    }
+
+    /**
+     * Returns the number of shaders started by
+     * {@link #compileShaderAsync(Shader)} that are not ready yet.
+     *
+     * @return the number of shaders being compiled
+     */
+    public default int getPendingShaderCount() {
+        return 0;
+    }
+
     /**
      * Deletes the provided shader source.
      *
@@ -358,6 +402,28 @@ public interface Renderer {
      */
     public void renderMesh(Mesh mesh, int lod, int count, VertexBuffer[] instanceData);
 
+    /**
+     * Renders several ranges of a packed, indexed mesh with a single
+     * multi-draw indirect call. The command buffer holds <code>drawCount</code>
+     * tightly packed commands of five unsigned integers each: index count,
+     * instance count, first index, base vertex and base instance. Per-draw
+     * attributes can be supplied through instanced buffers in
+     * <code>instanceData</code>, addressed by each command's base instance.
+     * <p>
+     * Only available when the renderer reports {@link Caps#MultiDrawIndirect}.
+     *
+     * @param mesh The packed mesh providing vertex attributes and indices
+     * @param commands The draw commands
+     * @param drawCount The number of commands to execute
+     * @param instanceData Per-draw attributes, or null
+     * @throws UnsupportedOperationException If the renderer does not support
+     *     indirect drawing
+     */
+    public default void renderMeshIndirect(Mesh mesh, BufferObject commands, int drawCount,
+            VertexBuffer[] instanceData) {
+        throw new UnsupportedOperationException("Multi-draw indirect is not supported by this renderer");
+    }
+
     /**
      * Resets all previously used {@link NativeObject Native Objects} on this Renderer.
      * The state of the native objects is reset in such way, that using
@@ -0,0 +1,622 @@
+/*
+ * Copyright (c) 2009-2025 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.renderer;
+
+import com.jme3.bounding.BoundingBox;
+import com.jme3.bounding.BoundingSphere;
+import com.jme3.bounding.BoundingVolume;
+import com.jme3.math.Matrix4f;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.queue.GeometryList;
+import com.jme3.renderer.queue.RenderQueue;
+import com.jme3.renderer.queue.RenderQueue.Bucket;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.VertexBuffer;
+import com.jme3.scene.mesh.IndexBuffer;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+/**
+ * An {@link OcclusionCuller} that rasterizes the occluders on the CPU.
+ *
+ * <p>The triangles of every queued {@link Geometry#isOccluder() occluder} in
+ * the opaque bucket are drawn into a small depth buffer, from which a
+ * hierarchy of maximum depths is built. The world bound of every queued
+ * {@link Geometry#isOccludee() occludee} is then projected to a screen
+ * rectangle and its nearest depth; an occludee is culled when every texel
+ * covering the rectangle, at the level where the rectangle spans only a few
+ * texels, is nearer than the bound. The test never needs the GPU, so the
+ * results are available in the frame they are computed for.
+ *
+ * <p>The test is conservative: an occluder only writes the texels it covers
+ * entirely, with the farthest depth it has over the texel, so gaps between
+ * occluders and the area around their silhouettes stay open even when they
+ * are narrower than a texel. Occludees that cross the near plane are kept,
+ * and occluder triangles crossing the near plane are skipped. Occluders are
+ * always kept, even if they are also marked as occludees. Occluders are
+ * rasterized from the position buffer of their mesh, so skinned or morphed
+ * occluders occlude with their bind pose.
+ */
+public class SoftwareOcclusionCuller implements OcclusionCuller {
+
+    /**
+     * The default width of the depth buffer, in texels.
+     */
+    public static final int DEFAULT_WIDTH = 256;
+    /**
+     * The default height of the depth buffer, in texels.
+     */
+    public static final int DEFAULT_HEIGHT = 128;
+    /**
+     * The default maximum number of triangles of a single occluder.
+     */
+    public static final int DEFAULT_MAX_OCCLUDER_TRIANGLES = 4096;
+
+    private static final Bucket[] CULLED_BUCKETS = {
+        Bucket.Opaque, Bucket.Transparent, Bucket.Translucent
+    };
+    // test with the level at which a rectangle spans at most this many texels
+    private static final int MAX_TEST_TEXELS = 4;
+    private static final float MIN_W = 1e-5f;
+    // margin, in texels, by which edges are widened when marking the texels
+    // they touch
+    private static final float EDGE_MARGIN = 1e-3f;
+    // flags of the texels of the occluder being rasterized
+    private static final byte TEXEL_COVERED = 1;
+    private static final byte TEXEL_ON_EDGE = 2;
+
+    private final int width;
+    private final int height;
+    private final float[][] levels;
+    private final int[] levelWidths;
+    private final int[] levelHeights;
+    private final Matrix4f worldViewProj = new Matrix4f();
+    private final Vector3f extent = new Vector3f();
+    private int maxOccluderTriangles = DEFAULT_MAX_OCCLUDER_TRIANGLES;
+    // screen x, screen y and depth of each transformed occluder vertex,
+    // depth is NaN for vertices in front of the near plane
+    private float[] screenVerts = new float[3 * 64];
+    // farthest depth and flags of each texel for the occluder being rasterized
+    private final float[] occluderDepth;
+    private final byte[] occluderTexels;
+    // index of the first vertex at the same screen position, for each vertex
+    private int[] weldedVerts = new int[64];
+    private int[] weldTable = new int[128];
+    // (edge << 1 | side) for each triangle edge, see rasterizeOccluder()
+    private long[] edges = new long[3 * 64];
+    // texel bounds of the occluder being rasterized
+    private int minTexelX, minTexelY, maxTexelX, maxTexelY;
+
+    /**
+     * Creates a culler with a depth buffer of the default size.
+     */
+    public SoftwareOcclusionCuller() {
+        this(DEFAULT_WIDTH, DEFAULT_HEIGHT);
+    }
+
+    /**
+     * Creates a culler with a depth buffer of the given size. The buffer does
+     * not need to match the viewport resolution: it covers the whole view
+     * frustum, and a coarser buffer makes the culler cheaper but less
+     * effective.
+     *
+     * @param width the width of the depth buffer (&gt;0)
+     * @param height the height of the depth buffer (&gt;0)
+     */
+    public SoftwareOcclusionCuller(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("width and height must be positive");
+        }
+        this.width = width;
+        this.height = height;
+
+        int count = 1;
+        for (int w = width, h = height; w > 1 || h > 1; w = (w + 1) >> 1, h = (h + 1) >> 1) {
+            count++;
+        }
+        levels = new float[count][];
+        levelWidths = new int[count];
+        levelHeights = new int[count];
+        for (int i = 0, w = width, h = height; i < count; i++, w = (w + 1) >> 1, h = (h + 1) >> 1) {
+            levels[i] = new float[w * h];
+            levelWidths[i] = w;
+            levelHeights[i] = h;
+        }
+        occluderDepth = new float[width * height];
+        occluderTexels = new byte[width * height];
+    }
+
+    /**
+     * Returns the width of the depth buffer.
+     *
+     * @return the width, in texels
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the height of the depth buffer.
+     *
+     * @return the height, in texels
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Sets the maximum number of triangles an occluder may have. Occluders
+     * with more triangles are not rasterized, since they would cost more
+     * than the occlusion they provide; use a simplified mesh instead.
+     *
+     * @param maxOccluderTriangles the maximum triangle count (&ge;0,
+     *     default={@value #DEFAULT_MAX_OCCLUDER_TRIANGLES})
+     */
+    public void setMaxOccluderTriangles(int maxOccluderTriangles) {
+        if (maxOccluderTriangles < 0) {
+            throw new IllegalArgumentException("maxOccluderTriangles cannot be negative");
+        }
+        this.maxOccluderTriangles = maxOccluderTriangles;
+    }
+
+    /**
+     * Returns the maximum number of triangles an occluder may have.
+     *
+     * @return the maximum triangle count
+     * @see #setMaxOccluderTriangles(int)
+     */
+    public int getMaxOccluderTriangles() {
+        return maxOccluderTriangles;
+    }
+
+    /**
+     * Returns the depth stored in the depth buffer by the last call to
+     * {@link #cull(com.jme3.renderer.Camera, com.jme3.renderer.queue.RenderQueue, com.jme3.renderer.Statistics) cull()}.
+     * Depths range from 0 at the near plane to 1 at the far plane, texels
+     * not entirely covered by an occluder are 1.
+     *
+     * @param x the texel column, 0 being the left edge
+     * @param y the texel row, 0 being the bottom edge
+     * @return the depth
+     */
+    public float getDepth(int x, int y) {
+        return levels[0][y * width + x];
+    }
+
+    @Override
+    public int cull(Camera cam, RenderQueue queue, Statistics stats) {
+        Matrix4f viewProj = cam.getViewProjectionMatrix();
+        Arrays.fill(levels[0], 1f);
+
+        boolean rasterized = false;
+        GeometryList opaque = queue.getList(Bucket.Opaque);
+        for (int i = 0; i < opaque.size(); i++) {
+            Geometry g = opaque.get(i);
+            if (g.isOccluder()) {
+                rasterized |= rasterizeOccluder(g, viewProj, stats);
+            }
+        }
+        if (!rasterized) {
+            return 0;
+        }
+        buildHierarchy();
+
+        int culled = 0;
+        for (Bucket bucket : CULLED_BUCKETS) {
+            culled += cullList(queue.getList(bucket), viewProj, stats);
+        }
+        return culled;
+    }
+
+    private int cullList(GeometryList list, Matrix4f viewProj, Statistics stats) {
+        int size = list.size();
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            Geometry g = list.get(i);
+            if (g.isOccludee() && !g.isOccluder()) {
+                boolean occluded = isOccluded(g.getWorldBound(), viewProj);
+                stats.onOcclusionTest(occluded);
+                if (occluded) {
+                    continue;
+                }
+            }
+            list.set(kept++, g);
+        }
+        list.truncate(kept);
+        return size - kept;
+    }
+
+    private boolean rasterizeOccluder(Geometry g, Matrix4f viewProj, Statistics stats) {
+        Mesh mesh = g.getMesh();
+        if (mesh == null) {
+            return false;
+        }
+        switch (mesh.getMode()) {
+            case Triangles:
+            case TriangleStrip:
+            case TriangleFan:
+                break;
+            default:
+                return false;
+        }
+        int triangleCount = mesh.getTriangleCount();
+        if (triangleCount == 0 || triangleCount > maxOccluderTriangles) {
+            return false;
+        }
+        VertexBuffer pb = mesh.getBuffer(VertexBuffer.Type.Position);
+        if (pb == null || pb.getNumComponents() != 3 || !(pb.getData() instanceof FloatBuffer)) {
+            return false;
+        }
+
+        FloatBuffer positions = (FloatBuffer) pb.getData();
+        int vertexCount = mesh.getVertexCount();
+        if (screenVerts.length < vertexCount * 3) {
+            screenVerts = new float[vertexCount * 3];
+        }
+        viewProj.mult(g.getWorldMatrix(), worldViewProj);
+        Matrix4f m = worldViewProj;
+        for (int i = 0; i < vertexCount; i++) {
+            float x = positions.get(i * 3);
+            float y = positions.get(i * 3 + 1);
+            float z = positions.get(i * 3 + 2);
+            float cx = m.m00 * x + m.m01 * y + m.m02 * z + m.m03;
+            float cy = m.m10 * x + m.m11 * y + m.m12 * z + m.m13;
+            float cz = m.m20 * x + m.m21 * y + m.m22 * z + m.m23;
+            float cw = m.m30 * x + m.m31 * y + m.m32 * z + m.m33;
+            if (cw < MIN_W || cz < -cw) {
+                screenVerts[i * 3 + 2] = Float.NaN;
+            } else {
+                float invW = 1f / cw;
+                screenVerts[i * 3] = (cx * invW * 0.5f + 0.5f) * width;
+                screenVerts[i * 3 + 1] = (cy * invW * 0.5f + 0.5f) * height;
+                screenVerts[i * 3 + 2] = cz * invW * 0.5f + 0.5f;
+            }
+        }
+
+        weldVertices(vertexCount);
+        if (edges.length < triangleCount * 3) {
+            edges = new long[triangleCount * 3];
+        }
+        minTexelX = width;
+        minTexelY = height;
+        maxTexelX = -1;
+        maxTexelY = -1;
+
+        IndexBuffer ib = mesh.getIndicesAsList();
+        int drawn = 0;
+        int edgeCount = 0;
+        for (int t = 0; t < triangleCount; t++) {
+            int v0 = weldedVerts[ib.get(t * 3)];
+            int v1 = weldedVerts[ib.get(t * 3 + 1)];
+            int v2 = weldedVerts[ib.get(t * 3 + 2)];
+            int i0 = v0 * 3, i1 = v1 * 3, i2 = v2 * 3;
+            float z0 = screenVerts[i0 + 2];
+            float z1 = screenVerts[i1 + 2];
+            float z2 = screenVerts[i2 + 2];
+            if (Float.isNaN(z0) || Float.isNaN(z1) || Float.isNaN(z2)) {
+                continue;
+            }
+            float area = rasterizeTriangle(screenVerts[i0], screenVerts[i0 + 1], z0,
+                    screenVerts[i1], screenVerts[i1 + 1], z1,
+                    screenVerts[i2], screenVerts[i2 + 1], z2);
+            if (area == 0f) {
+                continue;
+            }
+            // Record on which side of each edge the triangle lies, an edge
+            // with triangles on both sides is inside the occluder
+            boolean ccw = area > 0f;
+            edges[edgeCount++] = edgeKey(v0, v1, ccw, vertexCount);
+            edges[edgeCount++] = edgeKey(v1, v2, ccw, vertexCount);
+            edges[edgeCount++] = edgeKey(v2, v0, ccw, vertexCount);
+            drawn++;
+        }
+        stats.onOccluderRasterized(drawn);
+        if (drawn == 0 || minTexelX > maxTexelX || minTexelY > maxTexelY) {
+            return drawn > 0;
+        }
+
+        // The outline of the occluder runs along the edges with triangles
+        // on a single side, the texels they touch are only partly covered
+        Arrays.sort(edges, 0, edgeCount);
+        for (int i = 0; i < edgeCount; ) {
+            long edge = edges[i] >>> 1;
+            boolean left = false, right = false;
+            for (; i < edgeCount && edges[i] >>> 1 == edge; i++) {
+                if ((edges[i] & 1) != 0) {
+                    left = true;
+                } else {
+                    right = true;
+                }
+            }
+            if (!left || !right) {
+                int a = (int) (edge / vertexCount) * 3;
+                int b = (int) (edge % vertexCount) * 3;
+                markEdge(screenVerts[a], screenVerts[a + 1], screenVerts[b], screenVerts[b + 1]);
+            }
+        }
+
+        float[] depth = levels[0];
+        for (int y = minTexelY; y <= maxTexelY; y++) {
+            int row = y * width;
+            for (int x = minTexelX; x <= maxTexelX; x++) {
+                int i = row + x;
+                if (occluderTexels[i] == TEXEL_COVERED && occluderDepth[i] < depth[i]) {
+                    depth[i] = occluderDepth[i];
+                }
+                occluderTexels[i] = 0;
+                occluderDepth[i] = 0f;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Maps each vertex to the first vertex with the same screen position, so
+     * that triangles split along texture or normal seams share their edges.
+     */
+    private void weldVertices(int vertexCount) {
+        if (weldedVerts.length < vertexCount) {
+            weldedVerts = new int[vertexCount];
+        }
+        int tableSize = Integer.highestOneBit(Math.max(vertexCount, 1)) << 2;
+        if (weldTable.length < tableSize) {
+            weldTable = new int[tableSize];
+        }
+        int mask = tableSize - 1;
+        Arrays.fill(weldTable, 0, tableSize, -1);
+        for (int i = 0; i < vertexCount; i++) {
+            int sx = Float.floatToIntBits(screenVerts[i * 3]);
+            int sy = Float.floatToIntBits(screenVerts[i * 3 + 1]);
+            int sz = Float.floatToIntBits(screenVerts[i * 3 + 2]);
+            int h = (sx * 31 + sy) * 31 + sz;
+            h = (h ^ (h >>> 16)) & mask;
+            weldedVerts[i] = i;
+            for (int j; (j = weldTable[h]) != -1; h = (h + 1) & mask) {
+                if (Float.floatToIntBits(screenVerts[j * 3]) == sx
+                        && Float.floatToIntBits(screenVerts[j * 3 + 1]) == sy
+                        && Float.floatToIntBits(screenVerts[j * 3 + 2]) == sz) {
+                    weldedVerts[i] = j;
+                    break;
+                }
+            }
+            if (weldedVerts[i] == i) {
+                weldTable[h] = i;
+            }
+        }
+    }
+
+    /**
+     * Encodes an undirected edge and whether the triangle lies on the left of
+     * the edge going from its lower to its higher vertex.
+     */
+    private static long edgeKey(int from, int to, boolean ccw, int vertexCount) {
+        int lo = Math.min(from, to);
+        int hi = Math.max(from, to);
+        boolean left = (from < to) == ccw;
+        return ((long) lo * vertexCount + hi) << 1 | (left ? 1 : 0);
+    }
+
+    /**
+     * Accumulates a triangle into the texels of the current occluder: texels
+     * whose center lies inside the triangle are flagged as covered, and every
+     * texel the triangle overlaps keeps the farthest depth of the triangle
+     * over the texel. Both windings are drawn.
+     *
+     * @return the signed area of the triangle, 0 if it is degenerate
+     */
+    private float rasterizeTriangle(float x0, float y0, float z0,
+            float x1, float y1, float z1,
+            float x2, float y2, float z2) {
+        float area = (x1 - x0) * (y2 - y0) - (x2 - x0) * (y1 - y0);
+        if (area == 0f || Float.isNaN(area)) {
+            return 0f;
+        }
+        float signedArea = area;
+        if (area < 0f) {
+            float tx = x1, ty = y1, tz = z1;
+            x1 = x2;
+            y1 = y2;
+            z1 = z2;
+            x2 = tx;
+            y2 = ty;
+            z2 = tz;
+            area = -area;
+        }
+
+        int minX = Math.max(0, (int) Math.floor(Math.min(x0, Math.min(x1, x2))));
+        int maxX = Math.min(width - 1, (int) Math.floor(Math.max(x0, Math.max(x1, x2))));
+        int minY = Math.max(0, (int) Math.floor(Math.min(y0, Math.min(y1, y2))));
+        int maxY = Math.min(height - 1, (int) Math.floor(Math.max(y0, Math.max(y1, y2))));
+        if (minX > maxX || minY > maxY) {
+            return signedArea;
+        }
+        minTexelX = Math.min(minTexelX, minX);
+        minTexelY = Math.min(minTexelY, minY);
+        maxTexelX = Math.max(maxTexelX, maxX);
+        maxTexelY = Math.max(maxTexelY, maxY);
+
+        float invArea = 1f / area;
+        // how far each edge function and the depth vary from the center of
+        // a texel to its farthest corner
+        float e0 = 0.5f * (Math.abs(y2 - y1) + Math.abs(x2 - x1));
+        float e1 = 0.5f * (Math.abs(y0 - y2) + Math.abs(x0 - x2));
+        float e2 = 0.5f * (Math.abs(y1 - y0) + Math.abs(x1 - x0));
+        float dzdx = ((y1 - y2) * z0 + (y2 - y0) * z1 + (y0 - y1) * z2) * invArea;
+        float dzdy = ((x2 - x1) * z0 + (x0 - x2) * z1 + (x1 - x0) * z2) * invArea;
+        float dz = 0.5f * (Math.abs(dzdx) + Math.abs(dzdy));
+        float maxZ = Math.max(z0, Math.max(z1, z2));
+
+        for (int y = minY; y <= maxY; y++) {
+            float py = y + 0.5f;
+            int row = y * width;
+            for (int x = minX; x <= maxX; x++) {
+                float px = x + 0.5f;
+                float w0 = (x2 - x1) * (py - y1) - (y2 - y1) * (px - x1);
+                float w1 = (x0 - x2) * (py - y2) - (y0 - y2) * (px - x2);
+                float w2 = (x1 - x0) * (py - y0) - (y1 - y0) * (px - x0);
+                if (w0 < -e0 || w1 < -e1 || w2 < -e2) {
+                    // the triangle does not overlap the texel
+                    continue;
+                }
+                int i = row + x;
+                float z = Math.min((w0 * z0 + w1 * z1 + w2 * z2) * invArea + dz, maxZ);
+                if (z > occluderDepth[i]) {
+                    occluderDepth[i] = z;
+                }
+                if (w0 >= 0f && w1 >= 0f && w2 >= 0f) {
+                    occluderTexels[i] |= TEXEL_COVERED;
+                }
+            }
+        }
+        return signedArea;
+    }
+
+    /**
+     * Flags the texels of the current occluder that an edge touches.
+     */
+    private void markEdge(float x0, float y0, float x1, float y1) {
+        if (y0 > y1) {
+            float t = x0;
+            x0 = x1;
+            x1 = t;
+            t = y0;
+            y0 = y1;
+            y1 = t;
+        }
+        int minY = Math.max(minTexelY, (int) Math.floor(y0 - EDGE_MARGIN));
+        int maxY = Math.min(maxTexelY, (int) Math.floor(y1 + EDGE_MARGIN));
+        float dxdy = y1 > y0 ? (x1 - x0) / (y1 - y0) : 0f;
+        for (int y = minY; y <= maxY; y++) {
+            // the part of the edge within the row
+            float ya = Math.max(y0, y - EDGE_MARGIN);
+            float yb = Math.min(y1, y + 1 + EDGE_MARGIN);
+            float xa = y1 > y0 ? x0 + (ya - y0) * dxdy : x0;
+            float xb = y1 > y0 ? x0 + (yb - y0) * dxdy : x1;
+            int minX = Math.max(minTexelX, (int) Math.floor(Math.min(xa, xb) - EDGE_MARGIN));
+            int maxX = Math.min(maxTexelX, (int) Math.floor(Math.max(xa, xb) + EDGE_MARGIN));
+            int row = y * width;
+            for (int x = minX; x <= maxX; x++) {
+                occluderTexels[row + x] |= TEXEL_ON_EDGE;
+            }
+        }
+    }
+
+    /**
+     * Fills each level above the depth buffer with the maximum depth of the
+     * (up to) four texels below it.
+     */
+    private void buildHierarchy() {
+        for (int l = 1; l < levels.length; l++) {
+            float[] src = levels[l - 1];
+            float[] dst = levels[l];
+            int srcWidth = levelWidths[l - 1];
+            int srcHeight = levelHeights[l - 1];
+            int dstWidth = levelWidths[l];
+            int dstHeight = levelHeights[l];
+            for (int y = 0; y < dstHeight; y++) {
+                int sy0 = y * 2;
+                int sy1 = Math.min(sy0 + 1, srcHeight - 1);
+                for (int x = 0; x < dstWidth; x++) {
+                    int sx0 = x * 2;
+                    int sx1 = Math.min(sx0 + 1, srcWidth - 1);
+                    float a = Math.max(src[sy0 * srcWidth + sx0], src[sy0 * srcWidth + sx1]);
+                    float b = Math.max(src[sy1 * srcWidth + sx0], src[sy1 * srcWidth + sx1]);
+                    dst[y * dstWidth + x] = Math.max(a, b);
+                }
+            }
+        }
+    }
+
+    private boolean isOccluded(BoundingVolume bound, Matrix4f viewProj) {
+        if (bound instanceof BoundingBox) {
+            ((BoundingBox) bound).getExtent(extent);
+        } else if (bound instanceof BoundingSphere) {
+            float radius = ((BoundingSphere) bound).getRadius();
+            extent.set(radius, radius, radius);
+        } else {
+            return false;
+        }
+        Vector3f center = bound.getCenter();
+
+        float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY;
+        float minDepth = Float.POSITIVE_INFINITY;
+        Matrix4f m = viewProj;
+        for (int i = 0; i < 8; i++) {
+            float x = center.x + ((i & 1) == 0 ? -extent.x : extent.x);
+            float y = center.y + ((i & 2) == 0 ? -extent.y : extent.y);
+            float z = center.z + ((i & 4) == 0 ? -extent.z : extent.z);
+            float cx = m.m00 * x + m.m01 * y + m.m02 * z + m.m03;
+            float cy = m.m10 * x + m.m11 * y + m.m12 * z + m.m13;
+            float cz = m.m20 * x + m.m21 * y + m.m22 * z + m.m23;
+            float cw = m.m30 * x + m.m31 * y + m.m32 * z + m.m33;
+            if (cw < MIN_W || cz < -cw) {
+                // the bound reaches in front of the near plane
+                return false;
+            }
+            float invW = 1f / cw;
+            float sx = (cx * invW * 0.5f + 0.5f) * width;
+            float sy = (cy * invW * 0.5f + 0.5f) * height;
+            minX = Math.min(minX, sx);
+            maxX = Math.max(maxX, sx);
+            minY = Math.min(minY, sy);
+            maxY = Math.max(maxY, sy);
+            minDepth = Math.min(minDepth, cz * invW * 0.5f + 0.5f);
+        }
+        if (maxX < 0f || maxY < 0f || minX >= width || minY >= height
+                || Float.isNaN(minDepth)) {
+            // left to frustum culling
+            return false;
+        }
+
+        // the parts outside the screen are not visible, only test the rest
+        int x0 = Math.max(0, (int) minX), x1 = Math.min(width - 1, (int) maxX);
+        int y0 = Math.max(0, (int) minY), y1 = Math.min(height - 1, (int) maxY);
+        int l = 0;
+        while (l < levels.length - 1
+                && ((x1 >> l) - (x0 >> l) >= MAX_TEST_TEXELS
+                || (y1 >> l) - (y0 >> l) >= MAX_TEST_TEXELS)) {
+            l++;
+        }
+        float[] level = levels[l];
+        int levelWidth = levelWidths[l];
+        for (int y = y0 >> l; y <= y1 >> l; y++) {
+            for (int x = x0 >> l; x <= x1 >> l; x++) {
+                if (level[y * levelWidth + x] >= minDepth) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
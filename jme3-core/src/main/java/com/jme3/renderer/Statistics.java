@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2009-2021 jMonkeyEngine
+ * Copyright (c) 2009-2025 jMonkeyEngine
  * All rights reserved.
  *
  * Redistribution and use in source and binary forms, with or without
@@ -79,6 +79,18 @@ public class Statistics {
      * Number of uniforms set during the current frame.
      */
     protected int numUniformsSet;
+    /**
+     * Number of occludees tested for occlusion during the current frame.
+     */
+    protected int numOcclusionTests;
+    /**
+     * Number of occludees culled by occlusion during the current frame.
+     */
+    protected int numOccluded;
+    /**
+     * Number of occluder triangles rasterized during the current frame.
+     */
+    protected int numOccluderTriangles;
 
     /**
      * Number of active shaders.
@@ -135,7 +147,11 @@ public class Statistics {
 
                              "FrameBuffers (S)",
                              "FrameBuffers (F)",
-                             "FrameBuffers (M)" };
+                             "FrameBuffers (M)",
+
+                             "Occluder Triangles",
+                             "Occlusion Tests",
+                             "Occluded" };
 
     }
 
@@ -163,6 +179,10 @@ public class Statistics {
         data[10] = numFboSwitches;
         data[11] = fbosUsed.size();
         data[12] = memoryFrameBuffers;
+
+        data[13] = numOccluderTriangles;
+        data[14] = numOcclusionTests;
+        data[15] = numOccluded;
     }
 
     /**
@@ -182,6 +202,24 @@ public class Statistics {
         numVertices += mesh.getVertexCount() * count;
     }
 
+    /**
+     * Called by the Renderer when a multi-draw indirect call has been issued.
+     * Each command in the call counts as one object.
+     *
+     * @param drawCount the number of draw commands submitted
+     * @param triangleCount the total number of triangles drawn
+     * @param vertexCount the total number of vertices processed
+     */
+    public void onIndirectMeshDrawn(int drawCount, int triangleCount, int vertexCount) {
+        if (!enabled) {
+            return;
+        }
+
+        numObjects += drawCount;
+        numTriangles += triangleCount;
+        numVertices += vertexCount;
+    }
+
     /**
      * Called by the Renderer when a mesh has been drawn.
      *
@@ -192,6 +230,34 @@ public class Statistics {
         onMeshDrawn(mesh, lod, 1);
     }
 
+    /**
+     * Called by an {@link OcclusionCuller} when it has drawn the triangles
+     * of an occluder into its depth buffer.
+     *
+     * @param triangleCount the number of triangles rasterized
+     */
+    public void onOccluderRasterized(int triangleCount) {
+        if (!enabled) {
+            return;
+        }
+        numOccluderTriangles += triangleCount;
+    }
+
+    /**
+     * Called by an {@link OcclusionCuller} when it has tested an occludee.
+     *
+     * @param occluded true if the occludee was hidden and culled
+     */
+    public void onOcclusionTest(boolean occluded) {
+        if (!enabled) {
+            return;
+        }
+        numOcclusionTests++;
+        if (occluded) {
+            numOccluded++;
+        }
+    }
+
     /**
      * Called by the Renderer when a shader has been utilized.
      *
@@ -290,6 +356,9 @@ public class Statistics {
         numTextureBinds = 0;
         numFboSwitches = 0;
         numUniformsSet = 0;
+        numOcclusionTests = 0;
+        numOccluded = 0;
+        numOccluderTriangles = 0;
 
         lastShader = -1;
     }
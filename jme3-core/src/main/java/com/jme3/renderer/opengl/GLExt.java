@@ -113,6 +113,9 @@ public interface GLExt {
     public static final int GL_COMPRESSED_RGBA_BPTC_UNORM = 0x8E8C;
     public static final int GL_COMPRESSED_SRGB_ALPHA_BPTC_UNORM = 0x8E8D;
 
+    // KHR_parallel_shader_compile / ARB_parallel_shader_compile
+    public static final int GL_COMPLETION_STATUS_KHR = 0x91B1;
+
     public static final int GL_DEBUG_SOURCE_API = 0x8246;
     public static final int GL_DEBUG_SOURCE_WINDOW_SYSTEM = 0x8247;
     public static final int GL_DEBUG_SOURCE_SHADER_COMPILER = 0x8248;
@@ -72,6 +72,7 @@ import com.jme3.util.NativeObjectManager;
 import jme3tools.shader.ShaderDebug;
 
 import java.lang.ref.WeakReference;
+import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
@@ -118,6 +119,24 @@ public final class GLRenderer implements Renderer {
     private final TextureUtil texUtil;
     private boolean debug = false;
     private int debugGroupId = 0;
+    private ProgramBinaryCache programBinaryCache;
+    private String driverDescription;
+    private int[] programBinaryFormats;
+    private final IdentityHashMap<Shader, PendingShader> pendingShaders = new IdentityHashMap<>();
+
+    /**
+     * A shader program whose compilation and link were submitted but not
+     * checked yet.
+     */
+    private static final class PendingShader {
+        final boolean needRegister;
+        final String binaryKey;
+
+        PendingShader(boolean needRegister, String binaryKey) {
+            this.needRegister = needRegister;
+            this.binaryKey = binaryKey;
+        }
+    }
 
 
     public GLRenderer(GL gl, GLExt glext, GLFbo glfbo) {
@@ -627,6 +646,32 @@ public final class GLRenderer implements Renderer {
             caps.add(Caps.GLDebug);
         }
 
+        if (gl4 != null && (caps.contains(Caps.OpenGL43)
+                || (hasExtension("GL_ARB_multi_draw_indirect") && hasExtension("GL_ARB_base_instance")))) {
+            caps.add(Caps.MultiDrawIndirect);
+        }
+
+        if (hasExtension("GL_KHR_parallel_shader_compile") || hasExtension("GL_ARB_parallel_shader_compile")) {
+            caps.add(Caps.ParallelShaderCompile);
+        }
+
+        if (gl4 != null && (caps.contains(Caps.OpenGL41) || hasExtension("GL_ARB_get_program_binary"))) {
+            int numFormats = getInteger(GL4.GL_NUM_PROGRAM_BINARY_FORMATS);
+            if (numFormats > 0) {
+                IntBuffer formats = BufferUtils.createIntBuffer(Math.max(numFormats, 16));
+                gl.glGetInteger(GL4.GL_PROGRAM_BINARY_FORMATS, formats);
+                programBinaryFormats = new int[numFormats];
+                for (int i = 0; i < numFormats; i++) {
+                    programBinaryFormats[i] = formats.get(i);
+                }
+                caps.add(Caps.ProgramBinary);
+            }
+        }
+
+        driverDescription = gl.glGetString(GL.GL_VENDOR) + "\n"
+                + gl.glGetString(GL.GL_RENDERER) + "\n"
+                + gl.glGetString(GL.GL_VERSION);
+
         // Print context information
         logger.log(Level.INFO, "OpenGL Renderer Information\n" +
                         " * Vendor: {0}\n" +
@@ -745,6 +790,7 @@ public final class GLRenderer implements Renderer {
     public void resetGLObjects() {
         logger.log(Level.FINE, "Resetting objects and invalidating state");
         objManager.resetObjects();
+        pendingShaders.clear();
         statistics.clearMemory();
         invalidateState();
     }
@@ -754,6 +800,7 @@ public final class GLRenderer implements Renderer {
         logger.log(Level.FINE, "Deleting objects and invalidating state");
         objManager.deleteAllObjects(this);
         OpenCLObjectManager.getInstance().deleteAllObjects();
+        pendingShaders.clear();
         statistics.clearMemory();
         invalidateState();
     }
@@ -1557,6 +1604,14 @@ public final class GLRenderer implements Renderer {
     }
 
     public void updateShaderSourceData(ShaderSource source) {
+        compileShaderSource(source);
+        checkShaderSource(source);
+    }
+
+    /**
+     * Uploads and compiles a shader source without waiting for the result.
+     */
+    private void compileShaderSource(ShaderSource source) {
         int id = source.getId();
         if (id == -1) {
             // Create id
@@ -1583,7 +1638,21 @@ public final class GLRenderer implements Renderer {
         }
 
         // Upload shader source.
-        // Merge the defines and source code.
+        String code = mergeShaderSource(source);
+        intBuf1.clear();
+        intBuf1.put(0, code.length());
+        gl.glShaderSource(id, new String[]{ code }, intBuf1);
+        gl.glCompileShader(id);
+    }
+
+    /**
+     * Merges the version, defines and source code of a shader source.
+     */
+    private String mergeShaderSource(ShaderSource source) {
+        boolean gles3 = caps.contains(Caps.OpenGLES30);
+        boolean gles2 = caps.contains(Caps.OpenGLES20);
+        String language = source.getLanguage();
+
         stringBuf.setLength(0);
         int version = Integer.parseInt(language.substring(4));
         if (language.startsWith("GLSL")) {
@@ -1621,13 +1690,15 @@ public final class GLRenderer implements Renderer {
 
         stringBuf.append(source.getDefines());
         stringBuf.append(source.getSource());
+        return stringBuf.toString();
+    }
 
-
-        intBuf1.clear();
-        intBuf1.put(0, stringBuf.length());
-        gl.glShaderSource(id, new String[]{ stringBuf.toString() }, intBuf1);
-        gl.glCompileShader(id);
-
+    /**
+     * Checks the compile status of a shader source, waiting for the
+     * compilation to finish.
+     */
+    private void checkShaderSource(ShaderSource source) {
+        int id = source.getId();
         gl.glGetShader(id, GL.GL_COMPILE_STATUS, intBuf1);
 
         boolean compiledOK = intBuf1.get(0) == GL.GL_TRUE;
@@ -1654,7 +1725,7 @@ public final class GLRenderer implements Renderer {
             source.clearUpdateNeeded();
         } else {
             logger.log(Level.WARNING, "Bad compile of:\n{0}",
-                    new Object[]{ShaderDebug.formatShaderSource(stringBuf.toString())});
+                    new Object[]{ShaderDebug.formatShaderSource(mergeShaderSource(source))});
             if (infoLog != null) {
                 throw new RendererException("compile error in: " + source + "\n" + infoLog);
             } else {
@@ -1664,6 +1735,26 @@ public final class GLRenderer implements Renderer {
     }
 
     public void updateShaderData(Shader shader) {
+        PendingShader pending = pendingShaders.remove(shader);
+        if (pending == null) {
+            pending = linkShader(shader, false);
+            if (pending == null) {
+                // loaded from the program binary cache
+                return;
+            }
+        }
+        checkShaderLink(shader, pending);
+    }
+
+    /**
+     * Compiles the sources of a shader and links its program. When
+     * <code>async</code> is true, nothing waits for the driver and the result
+     * must be checked later with {@link #checkShaderLink(Shader, PendingShader)}.
+     *
+     * @return the state to check the link with, or null if the program was
+     * loaded from the program binary cache
+     */
+    private PendingShader linkShader(Shader shader, boolean async) {
         int id = shader.getId();
         boolean needRegister = false;
         if (id == -1) {
@@ -1677,13 +1768,27 @@ public final class GLRenderer implements Renderer {
             needRegister = true;
         }
 
+        String binaryKey = null;
+        if (programBinaryCache != null && caps.contains(Caps.ProgramBinary)) {
+            binaryKey = programBinaryCache.getKey(shader, driverDescription);
+            if (loadProgramBinary(id, binaryKey)) {
+                logger.fine("Shader loaded from program binary cache.");
+                onShaderLinked(shader, needRegister);
+                return null;
+            }
+            gl4.glProgramParameteri(id, GL4.GL_PROGRAM_BINARY_RETRIEVABLE_HINT, GL.GL_TRUE);
+        }
+
         // If using GLSL 1.5, we bind the outputs for the user
         // For versions 3.3 and up, user should use layout qualifiers instead.
         boolean bindFragDataRequired = false;
 
         for (ShaderSource source : shader.getSources()) {
             if (source.isUpdateNeeded()) {
-                updateShaderSourceData(source);
+                compileShaderSource(source);
+                if (!async) {
+                    checkShaderSource(source);
+                }
             }
             if (source.getType() == ShaderType.Fragment
                     && source.getLanguage().equals("GLSL150")) {
@@ -1704,6 +1809,23 @@ public final class GLRenderer implements Renderer {
         // Link shaders to program
         gl.glLinkProgram(id);
 
+        return new PendingShader(needRegister, binaryKey);
+    }
+
+    /**
+     * Checks the compile status of the sources and the link status of a
+     * program linked by {@link #linkShader(Shader, boolean)}, waiting for
+     * the driver if needed.
+     */
+    private void checkShaderLink(Shader shader, PendingShader pending) {
+        for (ShaderSource source : shader.getSources()) {
+            if (source.isUpdateNeeded()) {
+                checkShaderSource(source);
+            }
+        }
+
+        int id = shader.getId();
+
         // Check link status
         gl.glGetProgram(id, GL.GL_LINK_STATUS, intBuf1);
         boolean linkOK = intBuf1.get(0) == GL.GL_TRUE;
@@ -1724,15 +1846,10 @@ public final class GLRenderer implements Renderer {
             } else {
                 logger.fine("Shader linked successfully.");
             }
-            shader.clearUpdateNeeded();
-            if (needRegister) {
-                // Register shader for clean up if it was created in this method.
-                objManager.registerObject(shader);
-                statistics.onNewShader();
-            } else {
-                // OpenGL spec: uniform locations may change after re-link
-                resetUniformLocations(shader);
+            if (pending.binaryKey != null) {
+                storeProgramBinary(id, pending.binaryKey);
             }
+            onShaderLinked(shader, pending.needRegister);
         } else {
             if (infoLog != null) {
                 throw new RendererException("Shader failed to link, shader:" + shader + "\n" + infoLog);
@@ -1742,6 +1859,97 @@ public final class GLRenderer implements Renderer {
         }
     }
 
+    @Override
+    public boolean compileShaderAsync(Shader shader) {
+        if (!shader.isUpdateNeeded()) {
+            return true;
+        }
+        PendingShader pending = pendingShaders.get(shader);
+        if (pending == null) {
+            if (!caps.contains(Caps.ParallelShaderCompile)) {
+                // setShader() compiles synchronously
+                return true;
+            }
+            pending = linkShader(shader, true);
+            if (pending == null) {
+                return true;
+            }
+            pendingShaders.put(shader, pending);
+            return false;
+        }
+
+        gl.glGetProgram(shader.getId(), GLExt.GL_COMPLETION_STATUS_KHR, intBuf1);
+        if (intBuf1.get(0) != GL.GL_TRUE) {
+            return false;
+        }
+        pendingShaders.remove(shader);
+        checkShaderLink(shader, pending);
+        return true;
+    }
+
+    @Override
+    public int getPendingShaderCount() {
+        return pendingShaders.size();
+    }
+
+    private void onShaderLinked(Shader shader, boolean needRegister) {
+        shader.clearUpdateNeeded();
+        if (needRegister) {
+            // Register shader for clean up if it was created in this method.
+            objManager.registerObject(shader);
+            statistics.onNewShader();
+        } else {
+            // OpenGL spec: uniform locations may change after re-link
+            resetUniformLocations(shader);
+        }
+    }
+
+    private boolean loadProgramBinary(int id, String key) {
+        ProgramBinaryCache.Binary binary = programBinaryCache.load(key);
+        if (binary == null) {
+            return false;
+        }
+        boolean knownFormat = false;
+        for (int format : programBinaryFormats) {
+            knownFormat |= format == binary.getFormat();
+        }
+        if (knownFormat) {
+            gl4.glProgramBinary(id, binary.getFormat(), binary.getData());
+            gl.glGetProgram(id, GL.GL_LINK_STATUS, intBuf1);
+            if (intBuf1.get(0) == GL.GL_TRUE) {
+                return true;
+            }
+        }
+        // e.g. the driver was updated without changing its version string
+        logger.log(Level.FINE, "Program binary {0} was rejected by the driver", key);
+        programBinaryCache.remove(key);
+        return false;
+    }
+
+    private void storeProgramBinary(int id, String key) {
+        gl.glGetProgram(id, GL4.GL_PROGRAM_BINARY_LENGTH, intBuf1);
+        int length = intBuf1.get(0);
+        if (length <= 0) {
+            return;
+        }
+        ByteBuffer binary = BufferUtils.createByteBuffer(length);
+        intBuf1.clear();
+        intBuf16.clear();
+        gl4.glGetProgramBinary(id, intBuf1, intBuf16, binary);
+        binary.limit(intBuf1.get(0));
+        programBinaryCache.store(key, intBuf16.get(0), binary);
+    }
+
+    @Override
+    public void setProgramBinaryCache(ProgramBinaryCache cache) {
+        this.programBinaryCache = cache;
+    }
+
+    @Override
+    public ProgramBinaryCache getProgramBinaryCache() {
+        return programBinaryCache;
+    }
+
     @Override
     public void setShader(Shader shader) {
         if (shader == null) {
@@ -1775,6 +1983,7 @@ public final class GLRenderer implements Renderer {
 
     @Override
     public void deleteShader(Shader shader) {
+        pendingShaders.remove(shader);
         if (shader.getId() == -1) {
             logger.warning("Shader is not uploaded to GPU, cannot delete.");
             return;
@@ -2944,6 +3153,12 @@ public final class GLRenderer implements Renderer {
             }
         }
 
+        if (!created && !vb.hasDataSizeChanged() && vb.getUpdateRangeStart() != -1) {
+            updateBufferRange(target, vb);
+            vb.clearUpdateNeeded();
+            return;
+        }
+
         int usage = convertUsage(vb.getUsage());
         vb.getData().rewind();
 
@@ -2970,6 +3185,38 @@ public final class GLRenderer implements Renderer {
         vb.clearUpdateNeeded();
     }
 
+    private void updateBufferRange(int target, VertexBuffer vb) {
+        Buffer data = vb.getData();
+        int limit = data.limit();
+        int components = vb.getNumComponents();
+        long offset = (long) vb.getUpdateRangeStart() * components * vb.getFormat().getComponentSize();
+        data.limit(vb.getUpdateRangeEnd() * components);
+        data.position(vb.getUpdateRangeStart() * components);
+
+        switch (vb.getFormat()) {
+            case Byte:
+            case UnsignedByte:
+                gl.glBufferSubData(target, offset, (ByteBuffer) data);
+                break;
+            case Short:
+            case UnsignedShort:
+                gl.glBufferSubData(target, offset, (ShortBuffer) data);
+                break;
+            case Int:
+            case UnsignedInt:
+                glext.glBufferSubData(target, offset, (IntBuffer) data);
+                break;
+            case Float:
+                gl.glBufferSubData(target, offset, (FloatBuffer) data);
+                break;
+            default:
+                throw new UnsupportedOperationException("Unknown buffer format.");
+        }
+
+        data.limit(limit);
+        data.rewind();
+    }
+
     private int resolveUsageHint(BufferObject.AccessHint ah, BufferObject.NatureHint nh) {
         switch (ah) {
             case Dynamic: {
@@ -3476,6 +3723,64 @@ public final class GLRenderer implements Renderer {
 //        }
     }
 
+    @Override
+    public void renderMeshIndirect(Mesh mesh, BufferObject commands, int drawCount, VertexBuffer[] instanceData) {
+        if (!caps.contains(Caps.MultiDrawIndirect)) {
+            throw new RendererException("Multi-draw indirect is not supported by the video hardware");
+        }
+        if (drawCount == 0) {
+            return;
+        }
+
+        VertexBuffer indices = mesh.getBuffer(Type.Index);
+        if (indices == null) {
+            throw new IllegalArgumentException("Indirect draws require an indexed mesh");
+        }
+
+        if (statistics.isEnabled()) {
+            ByteBuffer data = commands.getData();
+            int indexCount = 0;
+            for (int i = 0; i < drawCount; i++) {
+                indexCount += data.getInt(i * 20);
+            }
+            statistics.onIndirectMeshDrawn(drawCount, indexCount / 3, indexCount);
+        }
+
+        if (instanceData != null) {
+            for (VertexBuffer vb : instanceData) {
+                setVertexAttrib(vb, null);
+            }
+        }
+
+        for (VertexBuffer vb : mesh.getBufferList().getArray()) {
+            if (vb.getBufferType() == Type.InterleavedData
+                    || vb.getUsage() == Usage.CpuOnly // ignore cpu-only buffers
+                    || vb.getBufferType() == Type.Index) {
+                continue;
+            }
+            setVertexAttrib(vb);
+        }
+
+        clearVertexAttribs();
+
+        if (indices.isUpdateNeeded()) {
+            updateBufferData(indices);
+        }
+        int indexBufId = indices.getId();
+        if (context.boundElementArrayVBO != indexBufId) {
+            gl.glBindBuffer(GL.GL_ELEMENT_ARRAY_BUFFER, indexBufId);
+            context.boundElementArrayVBO = indexBufId;
+        }
+
+        if (commands.getId() == -1 || commands.isUpdateNeeded()) {
+            updateBufferData(GL4.GL_DRAW_INDIRECT_BUFFER, commands);
+        }
+        gl4.glBindBuffer(GL4.GL_DRAW_INDIRECT_BUFFER, commands.getId());
+        gl4.glMultiDrawElementsIndirect(convertElementMode(mesh.getMode()),
+                convertFormat(indices.getFormat()), 0, drawCount, 0);
+        gl4.glBindBuffer(GL4.GL_DRAW_INDIRECT_BUFFER, 0);
+    }
+
     @Override
     public void setMainFrameBufferSrgb(boolean enableSrgb) {
         // Gamma correction
@@ -35,6 +35,7 @@ import com.jme3.post.SceneProcessor;
 import com.jme3.profile.AppProfiler;
 import com.jme3.profile.SpStep;
 import com.jme3.profile.VpStep;
+import com.jme3.renderer.OcclusionCuller;
 import com.jme3.renderer.RenderManager;
 import com.jme3.renderer.ViewPort;
 import com.jme3.scene.Spatial;
@@ -49,6 +50,28 @@ import java.util.List;
 public class ForwardPipeline implements RenderPipeline {
 
     private boolean rendered = false;
+    private OcclusionCuller occlusionCuller;
+    
+    /**
+     * Sets the occlusion culling stage. It runs for every viewport, after
+     * the scenes have been queued and before the scene processors get to
+     * see the queue.
+     * 
+     * @param occlusionCuller the stage to run, or null to disable occlusion
+     * culling (default=null)
+     */
+    public void setOcclusionCuller(OcclusionCuller occlusionCuller) {
+        this.occlusionCuller = occlusionCuller;
+    }
+    
+    /**
+     * Returns the occlusion culling stage.
+     * 
+     * @return the stage, or null if occlusion culling is disabled
+     */
+    public OcclusionCuller getOcclusionCuller() {
+        return occlusionCuller;
+    }
     
     @Override
     public PipelineContext fetchPipelineContext(RenderManager rm) {
@@ -99,6 +122,9 @@ public class ForwardPipeline implements RenderPipeline {
         for (int i = scenes.size() - 1; i >= 0; i--) {
             rm.renderScene(scenes.get(i), vp);
         }
+        if (occlusionCuller != null) {
+            occlusionCuller.cull(vp.getCamera(), vp.getQueue(), rm.getRenderer().getStatistics());
+        }
         if (processors != null) {
             if (prof != null) {
                 prof.vpStep(VpStep.PostQueue, vp, null);
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2009-2021 jMonkeyEngine
+ * Copyright (c) 2009-2025 jMonkeyEngine
  * All rights reserved.
  *
  * Redistribution and use in source and binary forms, with or without
@@ -37,6 +37,7 @@ import java.util.NoSuchElementException;
 import com.jme3.renderer.Camera;
 import com.jme3.scene.Geometry;
 import com.jme3.util.ListSort;
+import com.jme3.util.RadixSort;
 
 /**
  * This class is a special purpose list of {@link Geometry} objects for render
@@ -54,6 +55,9 @@ public class GeometryList implements Iterable<Geometry>{
     private final ListSort listSort;
     private int size;
     private GeometryComparator comparator;
+    private boolean radixSortEnabled = false;
+    private RadixSort radixSort;
+    private long[] sortKeys;
 
     /**
      * Initializes the GeometryList to use the given {@link GeometryComparator}
@@ -82,6 +86,29 @@ public class GeometryList implements Iterable<Geometry>{
         return comparator;
     }
 
+    /**
+     * Enables or disables sorting by packed keys. When enabled and the
+     * comparator is a {@link KeyedGeometryComparator}, {@link #sort()}
+     * computes one key per geometry and radix sorts the keys, instead of
+     * invoking the comparator for every pair it compares. Both paths produce
+     * the same order.
+     *
+     * @param enabled true to sort by keys when possible (default false)
+     */
+    public void setRadixSortEnabled(boolean enabled) {
+        this.radixSortEnabled = enabled;
+    }
+
+    /**
+     * Tests whether sorting by packed keys is enabled.
+     *
+     * @return true if enabled
+     * @see #setRadixSortEnabled(boolean)
+     */
+    public boolean isRadixSortEnabled() {
+        return radixSortEnabled;
+    }
+
     /**
      * Set the camera that will be set on the geometry comparators
      * via {@link GeometryComparator#setCamera(com.jme3.renderer.Camera)}.
@@ -137,6 +164,23 @@ public class GeometryList implements Iterable<Geometry>{
         geometries[size++] = g;
     }
 
+    /**
+     * Shrinks the list to the given size, dropping the elements at
+     * <code>newSize</code> and beyond.
+     *
+     * @param newSize the new size (&ge;0, &le;{@link #size()})
+     */
+    public void truncate(int newSize) {
+        if (newSize < 0 || newSize > size) {
+            throw new IllegalArgumentException("newSize must be between 0 and " + size);
+        }
+        for (int i = newSize; i < size; i++) {
+            geometries[i] = null;
+        }
+
+        size = newSize;
+    }
+
     /**
      * Resets list size to 0.
      */
@@ -153,7 +197,9 @@ public class GeometryList implements Iterable<Geometry>{
      */
     @SuppressWarnings("unchecked")
     public void sort() {
-        if (size > 1) {
+        if (size > 1 && radixSortEnabled && comparator instanceof KeyedGeometryComparator) {
+            radixSort();
+        } else if (size > 1) {
             // sort the spatial list using the comparator
             if (listSort.getLength() != size) {
                 listSort.allocateStack(size);
@@ -162,6 +208,20 @@ public class GeometryList implements Iterable<Geometry>{
         }
     }
 
+    private void radixSort() {
+        if (radixSort == null) {
+            radixSort = new RadixSort();
+        }
+        if (sortKeys == null || sortKeys.length < size) {
+            sortKeys = new long[geometries.length];
+        }
+        KeyedGeometryComparator keyed = (KeyedGeometryComparator) comparator;
+        for (int i = 0; i < size; i++) {
+            sortKeys[i] = keyed.getSortKey(geometries[i]);
+        }
+        radixSort.sort(sortKeys, geometries, size);
+    }
+
     @Override
     public Iterator<Geometry> iterator() {
         return new Iterator<Geometry>() {
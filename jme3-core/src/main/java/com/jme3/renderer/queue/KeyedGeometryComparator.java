@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2009-2025 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.renderer.queue;
+
+import com.jme3.scene.Geometry;
+
+/**
+ * A {@link GeometryComparator} that can also express its ordering as a packed
+ * 64-bit key per geometry.
+ *
+ * <p>When {@link GeometryList#setRadixSortEnabled(boolean) radix sorting} is
+ * enabled, a {@link GeometryList} computes each key once and radix sorts the
+ * keys instead of calling {@link #compare(java.lang.Object, java.lang.Object) compare()}
+ * O(n log n) times. Keys are compared as unsigned values, and the order they
+ * produce must be the same as the one defined by <code>compare()</code>, so
+ * both sort paths give the same result.
+ *
+ * @see GeometryList#setRadixSortEnabled(boolean)
+ */
+public interface KeyedGeometryComparator extends GeometryComparator {
+
+    /**
+     * Computes the sort key of the given geometry for the current camera.
+     *
+     * @param geom the geometry to compute the key for (not null)
+     * @return the key, to be compared as an unsigned value
+     */
+    public long getSortKey(Geometry geom);
+
+    /**
+     * Maps a float to 32 bits whose unsigned order matches the numeric order
+     * of the floats.
+     *
+     * @param value the value to map
+     * @return the mapped bits, in the low 32 bits of the result
+     */
+    public static long sortableBits(float value) {
+        int bits = Float.floatToIntBits(value + 0f); // -0f sorts as 0f
+        bits ^= (bits >> 31) | 0x80000000;
+        return bits & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Maps an int to 32 bits whose unsigned order matches the signed order
+     * of the ints.
+     *
+     * @param value the value to map
+     * @return the mapped bits, in the low 32 bits of the result
+     */
+    public static long sortableBits(int value) {
+        return (value ^ 0x80000000) & 0xFFFFFFFFL;
+    }
+}
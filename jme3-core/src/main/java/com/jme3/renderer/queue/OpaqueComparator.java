@@ -36,7 +36,7 @@ import com.jme3.math.Vector3f;
 import com.jme3.renderer.Camera;
 import com.jme3.scene.Geometry;
 
-public class OpaqueComparator implements GeometryComparator {
+public class OpaqueComparator implements KeyedGeometryComparator {
 
     private Camera cam;
     private final Vector3f tempVec  = new Vector3f();
@@ -92,4 +92,11 @@ public class OpaqueComparator implements GeometryComparator {
             return compareResult;
         }
     }
+
+    @Override
+    public long getSortKey(Geometry geom) {
+        // material sort id first, then front-to-back
+        return KeyedGeometryComparator.sortableBits(geom.getMaterial().getSortId()) << 32
+                | KeyedGeometryComparator.sortableBits(distanceToCam(geom));
+    }
 }
@@ -33,6 +33,7 @@ package com.jme3.renderer.queue;
 
 import com.jme3.post.SceneProcessor;
 import com.jme3.renderer.Camera;
+import com.jme3.renderer.MultiDrawBatcher;
 import com.jme3.renderer.RenderManager;
 import com.jme3.scene.Geometry;
 import com.jme3.scene.Spatial;
@@ -50,6 +51,7 @@ public class RenderQueue {
     private GeometryList transparentList;
     private GeometryList translucentList;
     private GeometryList skyList;
+    private boolean radixSortEnabled = false;
 
     /**
      * Creates a new RenderQueue, the default {@link GeometryComparator comparators}
@@ -190,24 +192,56 @@ public class RenderQueue {
         switch (bucket) {
             case Gui:
                 guiList = new GeometryList(c);
+                guiList.setRadixSortEnabled(radixSortEnabled);
                 break;
             case Opaque:
                 opaqueList = new GeometryList(c);
+                opaqueList.setRadixSortEnabled(radixSortEnabled);
                 break;
             case Sky:
                 skyList = new GeometryList(c);
+                skyList.setRadixSortEnabled(radixSortEnabled);
                 break;
             case Transparent:
                 transparentList = new GeometryList(c);
+                transparentList.setRadixSortEnabled(radixSortEnabled);
                 break;
             case Translucent:
                 translucentList = new GeometryList(c);
+                translucentList.setRadixSortEnabled(radixSortEnabled);
                 break;
             default:
                 throw new UnsupportedOperationException("Unknown bucket type: " + bucket);
         }
     }
 
+    /**
+     * Enables or disables sorting by packed keys in all buckets whose
+     * comparator is a {@link KeyedGeometryComparator}. The built-in
+     * comparators all are, and produce the same order either way.
+     *
+     * @param enabled true to radix sort by keys (default false)
+     * @see GeometryList#setRadixSortEnabled(boolean)
+     */
+    public void setRadixSortEnabled(boolean enabled) {
+        this.radixSortEnabled = enabled;
+        opaqueList.setRadixSortEnabled(enabled);
+        guiList.setRadixSortEnabled(enabled);
+        transparentList.setRadixSortEnabled(enabled);
+        translucentList.setRadixSortEnabled(enabled);
+        skyList.setRadixSortEnabled(enabled);
+    }
+
+    /**
+     * Tests whether sorting by packed keys is enabled.
+     *
+     * @return true if enabled
+     * @see #setRadixSortEnabled(boolean)
+     */
+    public boolean isRadixSortEnabled() {
+        return radixSortEnabled;
+    }
+
     /**
      *  Returns the current GeometryComparator used by the specified bucket,
      *  one of Gui, Opaque, Sky, Transparent, or Translucent.
@@ -265,13 +299,22 @@ public class RenderQueue {
     }
 
     private void renderGeometryList(GeometryList list, RenderManager rm, Camera cam, boolean flush) {
+        renderGeometryList(list, rm, cam, flush, null);
+    }
+
+    private void renderGeometryList(GeometryList list, RenderManager rm, Camera cam, boolean flush,
+            MultiDrawBatcher batcher) {
         list.setCamera(cam); // select camera for sorting
         list.sort();
-        for (int i = 0; i < list.size(); i++) {
-            Geometry obj = list.get(i);
-            assert obj != null;
-            rm.renderGeometry(obj);
-            obj.queueDistance = Float.NEGATIVE_INFINITY;
+        if (batcher != null) {
+            batcher.render(list, rm);
+        } else {
+            for (int i = 0; i < list.size(); i++) {
+                Geometry obj = list.get(i);
+                assert obj != null;
+                rm.renderGeometry(obj);
+                obj.queueDistance = Float.NEGATIVE_INFINITY;
+            }
         }
         if (flush) {
             list.clear();
@@ -312,7 +355,7 @@ public class RenderQueue {
                 renderGeometryList(guiList, rm, cam, clear);
                 break;
             case Opaque:
-                renderGeometryList(opaqueList, rm, cam, clear);
+                renderGeometryList(opaqueList, rm, cam, clear, rm.getMultiDrawBatcher());
                 break;
             case Sky:
                 renderGeometryList(skyList, rm, cam, clear);
@@ -35,7 +35,7 @@ import com.jme3.math.Vector3f;
 import com.jme3.renderer.Camera;
 import com.jme3.scene.Geometry;
 
-public class TransparentComparator implements GeometryComparator {
+public class TransparentComparator implements KeyedGeometryComparator {
 
     private Camera cam;
     private final Vector3f tempVec = new Vector3f();
@@ -63,4 +63,10 @@ public class TransparentComparator implements GeometryComparator {
         else
             return -1;
     }
+
+    @Override
+    public long getSortKey(Geometry geom) {
+        // back-to-front
+        return ~KeyedGeometryComparator.sortableBits(distanceToCam(geom)) & 0xFFFFFFFFL;
+    }
 }
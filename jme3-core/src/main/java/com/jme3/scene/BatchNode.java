@@ -31,18 +31,21 @@
  */
 package com.jme3.scene;
 
+import com.jme3.bounding.BoundingBox;
 import com.jme3.collision.Collidable;
 import com.jme3.collision.CollisionResults;
 import com.jme3.material.Material;
 import com.jme3.math.Matrix4f;
 import com.jme3.math.Vector3f;
 import com.jme3.scene.mesh.IndexBuffer;
+import com.jme3.util.RangeAllocator;
 import com.jme3.util.SafeArrayList;
 import com.jme3.util.TempVars;
 import com.jme3.util.clone.Cloner;
 import com.jme3.util.clone.JmeCloneable;
 import java.nio.Buffer;
 import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -58,9 +61,10 @@ import java.util.logging.Logger;
  * (see todo more automagic for further enhancements)
  * All the geometries that have been batched are set to not be rendered - {@link Spatial.CullHint} is left intact.
  * The sub geometries can be transformed as usual, their transforms are used to update the mesh of the geometryBatch.
- * Sub geoms can be removed but it may be slower than the normal spatial removing
+ * Sub geoms can be removed, their vertices are released from the batch without rebuilding it.
  * Sub geoms can be added after the batch() method has been called but won't be batched and will just be rendered as normal geometries.
- * To integrate them in the batch you have to call the batch() method again on the batchNode.
+ * To integrate them in the batch you have to call the batch() method again on the batchNode, the new geometries are then
+ * written in free ranges of the existing batch buffers, which grow when needed, and only those ranges are sent to the GPU.
  * <p>
  * TODO more automagic (batch when needed in the updateLogicalState)
  *
@@ -118,7 +122,17 @@ public class BatchNode extends GeometryGroupNode {
 
     @Override
     public void onGeometryUnassociated(Geometry geom) {
-        setNeedsFullRebatch(true);
+        Batch batch = batchesByGeom.get(geom);
+        if (batch == null || !batch.removeGeometry(geom)) {
+            setNeedsFullRebatch(true);
+            return;
+        }
+        batchesByGeom.remove(geom);
+        if (batch.isEmpty()) {
+            // this may be called while children are being detached,
+            // the batch is removed on the next call to batch()
+            batch.geometry.setCullHint(CullHint.Always);
+        }
     }
 
     protected Matrix4f getTransformMatrix(Geometry g) {
@@ -150,16 +164,18 @@ public class BatchNode extends GeometryGroupNode {
             Matrix4f transformMat = getTransformMatrix(bg);
             doTransforms(oposBuf, onormBuf, otanBuf, posBuf, normBuf, tanBuf, bg.startIndex, bg.startIndex + bg.getVertexCount(), transformMat);
 
-            pvb.updateData(posBuf);
-
-            if (nvb != null) {
-                nvb.updateData(normBuf);
-            }
-            if (tvb != null) {
-                tvb.updateData(tanBuf);
+            int vertexCount = bg.getVertexCount();
+            if (vertexCount > 0) {
+                pvb.updateDataRange(bg.startIndex, vertexCount);
+                if (nvb != null) {
+                    nvb.updateDataRange(bg.startIndex, vertexCount);
+                }
+                if (tvb != null) {
+                    tvb.updateDataRange(bg.startIndex, vertexCount);
+                }
             }
 
-            batch.geometry.updateModelBound();
+            batch.updateBound();
         }
     }
 
@@ -199,6 +215,13 @@ public class BatchNode extends GeometryGroupNode {
             }
             batches.clear();
             batchesByGeom.clear();
+        } else {
+            for (Batch batch : batches.getArray()) {
+                if (batch.isEmpty()) {
+                    batch.geometry.removeFromParent();
+                    batches.remove(batch);
+                }
+            }
         }
 
         for (Map.Entry<Material, List<Geometry>> entry : matMap.entrySet()) {
@@ -210,7 +233,14 @@ public class BatchNode extends GeometryGroupNode {
             Batch batch;
             if (!needsFullRebatch) {
                 batch = findBatchByMaterial(material);
+                if (batch != null && batch.addGeometries(list)) {
+                    // keep the batch after the geometries it is updated from
+                    batch.geometry.removeFromParent();
+                    this.attachChild(batch.geometry);
+                    continue;
+                }
                 if (batch != null) {
+                    // no range bookkeeping, merge the old batch mesh as a whole
                     list.add(0, batch.geometry);
                     batchName = batch.geometry.getName();
                     batch.geometry.removeFromParent();
@@ -220,7 +250,7 @@ public class BatchNode extends GeometryGroupNode {
             } else {
                 batch = new Batch();
             }
-            mergeGeometries(m, list);
+            mergeGeometries(m, list, batch);
             m.setDynamic();
 
             batch.updateGeomList(list);
@@ -232,7 +262,7 @@ public class BatchNode extends GeometryGroupNode {
 
             batch.geometry.setMesh(m);
             batch.geometry.getMesh().updateCounts();
-            batch.geometry.updateModelBound();
+            batch.updateBound();
             batches.add(batch);
         }
         if (batches.size() > 0) {
@@ -325,6 +355,23 @@ public class BatchNode extends GeometryGroupNode {
 
     }
 
+    private static Mesh.Mode getBatchMode(Mesh.Mode mode) {
+        switch (mode) {
+            case Points:
+                return Mesh.Mode.Points;
+            case LineLoop:
+            case LineStrip:
+            case Lines:
+                return Mesh.Mode.Lines;
+            case TriangleFan:
+            case TriangleStrip:
+            case Triangles:
+                return Mesh.Mode.Triangles;
+            default:
+                throw new UnsupportedOperationException();
+        }
+    }
+
     private Batch findBatchByMaterial(Material m) {
         for (Batch batch : batches.getArray()) {
             if (batch.geometry.getMaterial().contentEquals(m)) {
@@ -376,8 +423,9 @@ public class BatchNode extends GeometryGroupNode {
      *
      * @param geometries
      * @param outMesh
+     * @param batch the batch recording the range of each geometry
      */
-    private void mergeGeometries(Mesh outMesh, List<Geometry> geometries) {
+    private void mergeGeometries(Mesh outMesh, List<Geometry> geometries, Batch batch) {
         int[] compsForBuf = new int[VertexBuffer.Type.values().length];
         VertexBuffer.Format[] formatForBuf = new VertexBuffer.Format[compsForBuf.length];
         boolean[] normForBuf = new boolean[VertexBuffer.Type.values().length];
@@ -470,61 +518,85 @@ public class BatchNode extends GeometryGroupNode {
 
         int globalVertIndex = 0;
         int globalTriIndex = 0;
+        boolean mergesBatch = false;
+        batch.clearRanges();
 
         for (Geometry geom : geometries) {
             Mesh inMesh = geom.getMesh();
             if (!isBatch(geom)) {
                 geom.associateWithGroupNode(this, globalVertIndex);
+                batch.primitiveRanges.put(geom, globalTriIndex);
+            } else {
+                mergesBatch = true;
             }
 
-            int geomVertCount = inMesh.getVertexCount();
-            int geomTriCount = inMesh.getTriangleCount();
+            copyGeometry(outMesh, geom, globalVertIndex, globalTriIndex);
 
-            for (int bufType = 0; bufType < compsForBuf.length; bufType++) {
-                VertexBuffer inBuf = inMesh.getBuffer(VertexBuffer.Type.values()[bufType]);
+            globalVertIndex += inMesh.getVertexCount();
+            globalTriIndex += inMesh.getTriangleCount();
+        }
 
-                VertexBuffer outBuf = outMesh.getBuffer(VertexBuffer.Type.values()[bufType]);
+        if (!mergesBatch) {
+            batch.initRanges(totalVerts, totalTris);
+        }
+    }
 
-                if (outBuf == null) {
-                    continue;
-                }
+    /**
+     * Copies the buffers of a geometry in the given ranges of a batch mesh.
+     * Positions, normals and tangents are copied untransformed.
+     *
+     * @param outMesh the batch mesh
+     * @param geom the geometry to copy
+     * @param globalVertIndex the first vertex of the range
+     * @param globalTriIndex the first primitive of the range
+     */
+    private void copyGeometry(Mesh outMesh, Geometry geom, int globalVertIndex, int globalTriIndex) {
+        Mesh inMesh = geom.getMesh();
+        int geomVertCount = inMesh.getVertexCount();
+        int geomTriCount = inMesh.getTriangleCount();
+        VertexBuffer.Type[] types = VertexBuffer.Type.values();
 
-                if (VertexBuffer.Type.Index.ordinal() == bufType) {
-                    int components = compsForBuf[bufType];
+        for (int bufType = 0; bufType < types.length; bufType++) {
+            VertexBuffer inBuf = inMesh.getBuffer(types[bufType]);
 
-                    IndexBuffer inIdx = inMesh.getIndicesAsList();
-                    IndexBuffer outIdx = outMesh.getIndexBuffer();
+            VertexBuffer outBuf = outMesh.getBuffer(types[bufType]);
 
-                    for (int tri = 0; tri < geomTriCount; tri++) {
-                        for (int comp = 0; comp < components; comp++) {
-                            int idx = inIdx.get(tri * components + comp) + globalVertIndex;
-                            outIdx.put((globalTriIndex + tri) * components + comp, idx);
-                        }
-                    }
-                } else if (VertexBuffer.Type.Position.ordinal() == bufType) {
-                    FloatBuffer inPos = (FloatBuffer) inBuf.getData();
-                    FloatBuffer outPos = (FloatBuffer) outBuf.getData();
-                    doCopyBuffer(inPos, globalVertIndex, outPos, 3);
-                } else if (VertexBuffer.Type.Normal.ordinal() == bufType || VertexBuffer.Type.Tangent.ordinal() == bufType) {
-                    FloatBuffer inPos = (FloatBuffer) inBuf.getData();
-                    FloatBuffer outPos = (FloatBuffer) outBuf.getData();
-                    doCopyBuffer(inPos, globalVertIndex, outPos, compsForBuf[bufType]);
-                    if (VertexBuffer.Type.Tangent.ordinal() == bufType) {
-                        useTangents = true;
+            if (outBuf == null) {
+                continue;
+            }
+
+            if (VertexBuffer.Type.Index.ordinal() == bufType) {
+                int components = outBuf.getNumComponents();
+
+                IndexBuffer inIdx = inMesh.getIndicesAsList();
+                IndexBuffer outIdx = outMesh.getIndexBuffer();
+
+                for (int tri = 0; tri < geomTriCount; tri++) {
+                    for (int comp = 0; comp < components; comp++) {
+                        int idx = inIdx.get(tri * components + comp) + globalVertIndex;
+                        outIdx.put((globalTriIndex + tri) * components + comp, idx);
                     }
+                }
+            } else if (VertexBuffer.Type.Position.ordinal() == bufType) {
+                FloatBuffer inPos = (FloatBuffer) inBuf.getData();
+                FloatBuffer outPos = (FloatBuffer) outBuf.getData();
+                doCopyBuffer(inPos, globalVertIndex, outPos, 3);
+            } else if (VertexBuffer.Type.Normal.ordinal() == bufType || VertexBuffer.Type.Tangent.ordinal() == bufType) {
+                FloatBuffer inPos = (FloatBuffer) inBuf.getData();
+                FloatBuffer outPos = (FloatBuffer) outBuf.getData();
+                doCopyBuffer(inPos, globalVertIndex, outPos, outBuf.getNumComponents());
+                if (VertexBuffer.Type.Tangent.ordinal() == bufType) {
+                    useTangents = true;
+                }
+            } else {
+                if (inBuf == null) {
+                    throw new IllegalArgumentException("Geometry " + geom.getName() + " has no " + outBuf.getBufferType() + " buffer whereas other geoms have. all geometries should have the same types of buffers.\n Try to use GeometryBatchFactory.alignBuffer() on the BatchNode before batching");
+                } else if (outBuf == null) {
+                    throw new IllegalArgumentException("Geometry " + geom.getName() + " has a " + outBuf.getBufferType() + " buffer whereas other geoms don't. all geometries should have the same types of buffers.\n Try to use GeometryBatchFactory.alignBuffer() on the BatchNode before batching");
                 } else {
-                    if (inBuf == null) {
-                        throw new IllegalArgumentException("Geometry " + geom.getName() + " has no " + outBuf.getBufferType() + " buffer whereas other geoms have. all geometries should have the same types of buffers.\n Try to use GeometryBatchFactory.alignBuffer() on the BatchNode before batching");
-                    } else if (outBuf == null) {
-                        throw new IllegalArgumentException("Geometry " + geom.getName() + " has a " + outBuf.getBufferType() + " buffer whereas other geoms don't. all geometries should have the same types of buffers.\n Try to use GeometryBatchFactory.alignBuffer() on the BatchNode before batching");
-                    } else {
-                        inBuf.copyElements(0, outBuf, globalVertIndex, geomVertCount);
-                    }
+                    inBuf.copyElements(0, outBuf, globalVertIndex, geomVertCount);
                 }
             }
-
-            globalVertIndex += geomVertCount;
-            globalTriIndex += geomTriCount;
         }
     }
 
@@ -658,11 +730,253 @@ public class BatchNode extends GeometryGroupNode {
         }
 
         Geometry geometry;
+        /**
+         * the first primitive of each batched geometry, their first vertex is
+         * their start index
+         */
+        Map<Geometry, Integer> primitiveRanges = new HashMap<>();
+        /**
+         * the free vertex and primitive ranges, null if they are unknown
+         */
+        RangeAllocator vertexRanges;
+        RangeAllocator primitiveAllocator;
 
         public final Geometry getGeometry() {
             return geometry;
         }
 
+        void clearRanges() {
+            primitiveRanges.clear();
+            vertexRanges = null;
+            primitiveAllocator = null;
+        }
+
+        void initRanges(int vertexCount, int primitiveCount) {
+            vertexRanges = new RangeAllocator(vertexCount);
+            primitiveAllocator = new RangeAllocator(primitiveCount);
+        }
+
+        /**
+         * @return true if all the geometries of the batch were removed
+         */
+        boolean isEmpty() {
+            return vertexRanges != null && primitiveRanges.isEmpty();
+        }
+
+        /**
+         * Writes the given geometries in free ranges of the batch mesh,
+         * growing its buffers if needed.
+         *
+         * @param list the geometries to add
+         * @return false if the ranges of the batch are unknown
+         */
+        boolean addGeometries(List<Geometry> list) {
+            if (vertexRanges == null) {
+                return false;
+            }
+            Mesh mesh = geometry.getMesh();
+            for (Geometry geom : list) {
+                checkLayout(mesh, geom);
+            }
+
+            for (Geometry geom : list) {
+                int vertexCount = geom.getVertexCount();
+                int primitiveCount = geom.getTriangleCount();
+
+                int firstVertex = vertexRanges.allocate(vertexCount);
+                if (firstVertex == -1) {
+                    growVertices(vertexCount);
+                    firstVertex = vertexRanges.allocate(vertexCount);
+                }
+                int firstPrimitive = primitiveAllocator.allocate(primitiveCount);
+                if (firstPrimitive == -1) {
+                    growPrimitives(primitiveCount);
+                    firstPrimitive = primitiveAllocator.allocate(primitiveCount);
+                }
+                mesh = geometry.getMesh();
+
+                geom.associateWithGroupNode(BatchNode.this, firstVertex);
+                primitiveRanges.put(geom, firstPrimitive);
+                batchesByGeom.put(geom, this);
+                copyGeometry(mesh, geom, firstVertex, firstPrimitive);
+
+                for (VertexBuffer vb : mesh.getBufferList().getArray()) {
+                    if (vb.getBufferType() == VertexBuffer.Type.Index) {
+                        if (primitiveCount > 0) {
+                            vb.updateDataRange(firstPrimitive, primitiveCount);
+                        }
+                    } else if (vertexCount > 0) {
+                        vb.updateDataRange(firstVertex, vertexCount);
+                    }
+                }
+            }
+            mesh.updateCounts();
+            updateBound();
+            return true;
+        }
+
+        /**
+         * Releases the ranges of a geometry, its primitives are made degenerate.
+         *
+         * @param geom the geometry to remove
+         * @return false if the ranges of the batch are unknown
+         */
+        boolean removeGeometry(Geometry geom) {
+            Integer firstPrimitive = primitiveRanges.get(geom);
+            if (vertexRanges == null || firstPrimitive == null) {
+                return false;
+            }
+            primitiveRanges.remove(geom);
+            int primitiveCount = geom.getTriangleCount();
+            vertexRanges.release(geom.startIndex, geom.getVertexCount());
+            primitiveAllocator.release(firstPrimitive, primitiveCount);
+
+            if (!primitiveRanges.isEmpty()) {
+                fillPrimitives(firstPrimitive, primitiveCount);
+                updateBound();
+            }
+            return true;
+        }
+
+        /**
+         * Updates the bound of the batch mesh from the vertices of the batched
+         * geometries, ignoring the free ranges.
+         */
+        void updateBound() {
+            if (vertexRanges == null || primitiveRanges.isEmpty()) {
+                geometry.updateModelBound();
+                return;
+            }
+            Mesh mesh = geometry.getMesh();
+            FloatBuffer pos = (FloatBuffer) mesh.getBuffer(VertexBuffer.Type.Position).getData();
+            TempVars vars = TempVars.get();
+            Vector3f min = vars.vect1.set(Vector3f.POSITIVE_INFINITY);
+            Vector3f max = vars.vect2.set(Vector3f.NEGATIVE_INFINITY);
+            for (Geometry geom : primitiveRanges.keySet()) {
+                int end = (geom.startIndex + geom.getVertexCount()) * 3;
+                for (int i = geom.startIndex * 3; i < end; i += 3) {
+                    float x = pos.get(i);
+                    float y = pos.get(i + 1);
+                    float z = pos.get(i + 2);
+                    min.set(Math.min(min.x, x), Math.min(min.y, y), Math.min(min.z, z));
+                    max.set(Math.max(max.x, x), Math.max(max.y, y), Math.max(max.z, z));
+                }
+            }
+            BoundingBox bound;
+            if (mesh.getBound() instanceof BoundingBox) {
+                bound = (BoundingBox) mesh.getBound();
+            } else {
+                bound = new BoundingBox();
+            }
+            if (min.x > max.x) {
+                bound.setMinMax(Vector3f.ZERO, Vector3f.ZERO);
+            } else {
+                bound.setMinMax(min, max);
+            }
+            vars.release();
+            geometry.setModelBound(bound);
+        }
+
+        private void checkLayout(Mesh mesh, Geometry geom) {
+            Mesh inMesh = geom.getMesh();
+            Mesh.Mode mode = getBatchMode(inMesh.getMode());
+            if (mode != mesh.getMode()) {
+                throw new UnsupportedOperationException("Cannot combine different"
+                        + " primitive types: " + mesh.getMode() + " != " + mode);
+            }
+            for (VertexBuffer vb : inMesh.getBufferList().getArray()) {
+                if (vb.getBufferType() == VertexBuffer.Type.Index) {
+                    continue;
+                }
+                VertexBuffer outBuf = mesh.getBuffer(vb.getBufferType());
+                if (outBuf == null) {
+                    throw new IllegalArgumentException("Geometry " + geom.getName() + " has a " + vb.getBufferType() + " buffer whereas other geoms don't. all geometries should have the same types of buffers.\n Try to use GeometryBatchFactory.alignBuffer() on the BatchNode before batching");
+                }
+                if (outBuf.getNumComponents() != vb.getNumComponents()) {
+                    throw new UnsupportedOperationException("The geometry " + geom + " buffer " + vb.getBufferType()
+                            + " has different number of components than the rest of the meshes "
+                            + "(this: " + vb.getNumComponents() + ", expected: " + outBuf.getNumComponents() + ")");
+                }
+            }
+            for (VertexBuffer outBuf : mesh.getBufferList().getArray()) {
+                if (outBuf.getBufferType() != VertexBuffer.Type.Index
+                        && inMesh.getBuffer(outBuf.getBufferType()) == null) {
+                    throw new IllegalArgumentException("Geometry " + geom.getName() + " has no " + outBuf.getBufferType() + " buffer whereas other geoms have. all geometries should have the same types of buffers.\n Try to use GeometryBatchFactory.alignBuffer() on the BatchNode before batching");
+                }
+            }
+        }
+
+        private void growVertices(int needed) {
+            Mesh mesh = geometry.getMesh();
+            int capacity = vertexRanges.getCapacity();
+            int newCapacity = Math.max(capacity + needed, capacity + capacity / 2);
+            for (VertexBuffer vb : mesh.getBufferList().getArray()) {
+                if (vb.getBufferType() != VertexBuffer.Type.Index) {
+                    vb.updateData(growBuffer(vb, capacity, newCapacity));
+                }
+            }
+
+            VertexBuffer ib = mesh.getBuffer(VertexBuffer.Type.Index);
+            if (newCapacity >= 65536 && ib.getFormat() != VertexBuffer.Format.UnsignedInt) {
+                // the new vertices can't be addressed with short indices
+                IndexBuffer indices = mesh.getIndexBuffer();
+                IntBuffer data = (IntBuffer) VertexBuffer.createBuffer(VertexBuffer.Format.UnsignedInt,
+                        ib.getNumComponents(), ib.getNumElements());
+                for (int i = 0; i < data.limit(); i++) {
+                    data.put(i, indices.get(i));
+                }
+                VertexBuffer converted = new VertexBuffer(VertexBuffer.Type.Index);
+                converted.setupData(VertexBuffer.Usage.Dynamic, ib.getNumComponents(),
+                        VertexBuffer.Format.UnsignedInt, data);
+                mesh.clearBuffer(VertexBuffer.Type.Index);
+                mesh.setBuffer(converted);
+            }
+            vertexRanges.grow(newCapacity);
+        }
+
+        private void growPrimitives(int needed) {
+            Mesh mesh = geometry.getMesh();
+            int capacity = primitiveAllocator.getCapacity();
+            int newCapacity = Math.max(capacity + needed, capacity + capacity / 2);
+            VertexBuffer ib = mesh.getBuffer(VertexBuffer.Type.Index);
+            ib.updateData(growBuffer(ib, capacity, newCapacity));
+            primitiveAllocator.grow(newCapacity);
+            fillPrimitives(capacity, newCapacity - capacity);
+        }
+
+        private Buffer growBuffer(VertexBuffer vb, int elements, int newElements) {
+            VertexBuffer grown = new VertexBuffer(vb.getBufferType());
+            grown.setupData(vb.getUsage(), vb.getNumComponents(), vb.getFormat(),
+                    VertexBuffer.createBuffer(vb.getFormat(), vb.getNumComponents(), newElements));
+            if (elements > 0) {
+                vb.copyElements(0, grown, 0, elements);
+            }
+            return grown.getData();
+        }
+
+        /**
+         * Makes a range of primitives degenerate by pointing all their
+         * indices to a vertex of a batched geometry.
+         */
+        private void fillPrimitives(int first, int count) {
+            if (count == 0) {
+                return;
+            }
+            int vertex = 0;
+            for (Geometry geom : primitiveRanges.keySet()) {
+                vertex = geom.startIndex;
+                break;
+            }
+            VertexBuffer ib = geometry.getMesh().getBuffer(VertexBuffer.Type.Index);
+            IndexBuffer indices = geometry.getMesh().getIndexBuffer();
+            int components = ib.getNumComponents();
+            int end = (first + count) * components;
+            for (int i = first * components; i < end; i++) {
+                indices.put(i, vertex);
+            }
+            ib.updateDataRange(first, count);
+        }
+
         @Override
         public Batch jmeClone() {
             try {
@@ -675,6 +989,10 @@ public class BatchNode extends GeometryGroupNode {
         @Override
         public void cloneFields(Cloner cloner, Object original) {
             this.geometry = cloner.clone(geometry);
+            // the ranges are rebuilt by the next full rebatch
+            this.primitiveRanges = new HashMap<>();
+            this.vertexRanges = null;
+            this.primitiveAllocator = null;
         }
 
     }
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2009-2021 jMonkeyEngine
+ * Copyright (c) 2009-2025 jMonkeyEngine
  * All rights reserved.
  *
  * Redistribution and use in source and binary forms, with or without
@@ -35,6 +35,7 @@ import com.jme3.asset.AssetNotFoundException;
 import com.jme3.bounding.BoundingVolume;
 import com.jme3.collision.Collidable;
 import com.jme3.collision.CollisionResults;
+import com.jme3.collision.RayBatch;
 import com.jme3.export.InputCapsule;
 import com.jme3.export.JmeExporter;
 import com.jme3.export.JmeImporter;
@@ -72,6 +73,16 @@ public class Geometry extends Spatial {
      * When true, the geometry's transform will not be applied.
      */
     protected boolean ignoreTransform = false;
+    /**
+     * When true, the geometry hides what is behind it from an
+     * {@link com.jme3.renderer.OcclusionCuller}.
+     */
+    protected boolean occluder = false;
+    /**
+     * When true, an {@link com.jme3.renderer.OcclusionCuller} may remove the
+     * geometry from the render queue if it is hidden.
+     */
+    protected boolean occludee = false;
     protected transient Matrix4f cachedWorldMat = new Matrix4f();
     /**
      * Specifies which {@link GeometryGroupNode} this <code>Geometry</code>
@@ -173,6 +184,47 @@ public class Geometry extends Spatial {
         this.ignoreTransform = ignoreTransform;
     }
 
+    /**
+     * @return True if the geometry is used as an occluder.
+     *
+     * @see Geometry#setOccluder(boolean)
+     */
+    public boolean isOccluder() {
+        return occluder;
+    }
+
+    /**
+     * Marks the geometry as an occluder. Occluders are drawn into the depth
+     * buffer of an {@link com.jme3.renderer.OcclusionCuller} so that the
+     * occludees behind them can be skipped. Good occluders are large and
+     * opaque, with a low triangle count.
+     *
+     * @param occluder If true, the geometry hides the occludees behind it.
+     */
+    public void setOccluder(boolean occluder) {
+        this.occluder = occluder;
+    }
+
+    /**
+     * @return True if the geometry can be removed by occlusion culling.
+     *
+     * @see Geometry#setOccludee(boolean)
+     */
+    public boolean isOccludee() {
+        return occludee;
+    }
+
+    /**
+     * Marks the geometry as an occludee. Occludees whose world bound is
+     * entirely hidden behind occluders are removed from the render queue
+     * by an {@link com.jme3.renderer.OcclusionCuller}.
+     *
+     * @param occludee If true, the geometry may be culled when it is hidden.
+     */
+    public void setOccludee(boolean occludee) {
+        this.occludee = occludee;
+    }
+
     /**
      * Sets the LOD level to use when rendering the mesh of this geometry.
      * Level 0 indicates that the default index buffer should be used,
@@ -364,6 +416,9 @@ public class Geometry extends Spatial {
 
         this.groupNode = node;
         this.startIndex = startIndex;
+        if (parent != null) {
+            parent.invalidateRenderGroup();
+        }
     }
 
     /**
@@ -381,6 +436,9 @@ public class Geometry extends Spatial {
 
             // change the default to -1 to make error detection easier
             startIndex = -1;
+            if (parent != null) {
+                parent.invalidateRenderGroup();
+            }
         }
     }
 
@@ -485,11 +543,31 @@ public class Geometry extends Spatial {
             for (int i = prevSize; i < newSize; i++) {
                 results.getCollisionDirect(i).setGeometry(this);
             }
+            // the results are tagged, so those beyond the limit can go
+            results.trim();
             return added;
         }
         return 0;
     }
 
+    @Override
+    protected void collideWithRays(RayBatch batch, int start, int end) {
+        if (mesh != null) {
+            mesh.collideWithRays(batch, start, end, cachedWorldMat, worldBound, this);
+        }
+    }
+
+    /**
+     * Brings the world matrix and collision data up to date ahead of a
+     * batched ray query.
+     */
+    void prepareRayQueries() {
+        computeWorldMatrix();
+        if (mesh != null) {
+            mesh.prepareRayQueries();
+        }
+    }
+
     @Override
     public void depthFirstTraversal(SceneGraphVisitor visitor, DFSMode mode) {
         visitor.visit(this);
@@ -725,6 +803,8 @@ public class Geometry extends Spatial {
         }
         oc.write(material, "material", null);
         oc.write(ignoreTransform, "ignoreTransform", false);
+        oc.write(occluder, "occluder", false);
+        oc.write(occludee, "occludee", false);
     }
 
     @Override
@@ -753,6 +833,8 @@ public class Geometry extends Spatial {
             material = (Material) ic.readSavable("material", null);
         }
         ignoreTransform = ic.readBoolean("ignoreTransform", false);
+        occluder = ic.readBoolean("occluder", false);
+        occludee = ic.readBoolean("occludee", false);
 
         if (ic.getSavableVersion(Geometry.class) == 0) {
             // Fix shared mesh (if set)
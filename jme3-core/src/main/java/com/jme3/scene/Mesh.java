@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2009-2022 jMonkeyEngine
+ * Copyright (c) 2009-2025 jMonkeyEngine
  * All rights reserved.
  *
  * Redistribution and use in source and binary forms, with or without
@@ -35,6 +35,8 @@ import com.jme3.bounding.BoundingBox;
 import com.jme3.bounding.BoundingVolume;
 import com.jme3.collision.Collidable;
 import com.jme3.collision.CollisionResults;
+import com.jme3.collision.RayBatch;
+import com.jme3.collision.UnsupportedCollisionException;
 import com.jme3.collision.bih.BIHTree;
 import com.jme3.export.*;
 import com.jme3.material.Material;
@@ -49,6 +51,7 @@ import com.jme3.util.clone.JmeCloneable;
 import java.io.IOException;
 import java.nio.*;
 import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * <code>Mesh</code> is used to store rendering data.
@@ -1006,6 +1009,21 @@ public class Mesh implements Savable, Cloneable, JmeCloneable {
         collisionTree = tree;
     }
 
+    /**
+     * Generates a collision tree for the mesh with surface area heuristic
+     * splits and a flat node layout, building large subtrees in parallel.
+     * Meant for large meshes, to be called ahead of the first collision.
+     *
+     * @param pool the pool to build the tree on, or null to build it on the
+     *     calling thread only
+     * @see BIHTree#construct(java.util.concurrent.ForkJoinPool)
+     */
+    public void createCollisionData(ForkJoinPool pool) {
+        BIHTree tree = new BIHTree(this);
+        tree.construct(pool);
+        collisionTree = tree;
+    }
+
     /**
      * Clears any previously generated collision data.  Use this if
      * the mesh has changed in some way that invalidates any previously
@@ -1054,6 +1072,61 @@ public class Mesh implements Savable, Cloneable, JmeCloneable {
         return collisionTree.collideWith(other, worldMatrix, worldBound, results);
     }
 
+    /**
+     * Handles batched ray queries, internal use only.
+     * User code should only use collideWithRays() on scene
+     * graph elements such as {@link Spatial}s.
+     *
+     * @param batch the rays and results
+     * @param start the index of the first ray to test
+     * @param end the index after the last ray to test
+     * @param worldMatrix the world matrix
+     * @param worldBound the world bound
+     * @param geometry the geometry to record for each hit
+     * @return the number of rays whose nearest hit was updated (&ge;0)
+     */
+    public int collideWithRays(RayBatch batch, int start, int end,
+            Matrix4f worldMatrix,
+            BoundingVolume worldBound,
+            Geometry geometry) {
+        if (!prepareRayQueries()) {
+            return 0;
+        }
+        if (!(collisionTree instanceof BIHTree)) {
+            throw new UnsupportedCollisionException("CollisionData:" + collisionTree);
+        }
+        return ((BIHTree) collisionTree).collideWithRays(batch, start, end,
+                worldMatrix, worldBound, geometry);
+    }
+
+    /**
+     * Generates the collision data needed by batched ray queries, so
+     * concurrent queries don't race to create it.
+     *
+     * @return false if the mesh has no triangles to hit
+     */
+    boolean prepareRayQueries() {
+        switch (mode) {
+            case Points:
+            case Lines:
+            case LineStrip:
+            case LineLoop:
+                return false;
+        }
+
+        if (getVertexCount() == 0) {
+            return false;
+        }
+
+        if (collisionTree == null) {
+            createCollisionData();
+        }
+        if (collisionTree instanceof BIHTree) {
+            ((BIHTree) collisionTree).flatten();
+        }
+        return true;
+    }
+
     /**
      * Sets the {@link VertexBuffer} on the mesh.
      * This will update the vertex/triangle counts if needed.
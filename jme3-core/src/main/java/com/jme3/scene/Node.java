@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2009-2021 jMonkeyEngine
+ * Copyright (c) 2009-2025 jMonkeyEngine
  * All rights reserved.
  *
  * Redistribution and use in source and binary forms, with or without
@@ -35,9 +35,13 @@ import com.jme3.bounding.BoundingBox;
 import com.jme3.bounding.BoundingVolume;
 import com.jme3.collision.Collidable;
 import com.jme3.collision.CollisionResults;
+import com.jme3.collision.RayBatch;
+import com.jme3.export.InputCapsule;
 import com.jme3.export.JmeExporter;
 import com.jme3.export.JmeImporter;
+import com.jme3.export.OutputCapsule;
 import com.jme3.material.Material;
+import com.jme3.math.Ray;
 import com.jme3.util.SafeArrayList;
 import com.jme3.util.clone.Cloner;
 import java.io.IOException;
@@ -77,6 +81,16 @@ public class Node extends Spatial {
      * a whole list every time the scene graph changes.
      */
     private boolean updateListValid = false;
+    /**
+     * The flattened render cache of this node, or null if this node
+     * is not a static render group.
+     */
+    private StaticRenderGroup renderGroup = null;
+    /**
+     * The bounding volume hierarchy over the children of this node,
+     * or null if this node has no broadphase.
+     */
+    private SceneBVH broadphase = null;
 
     /**
      * Instantiate a <code>Node</code> with no name, no parent, and no children.
@@ -169,6 +183,9 @@ public class Node extends Spatial {
             resultBound = new BoundingBox(getWorldTranslation(), 0f, 0f, 0f);
         }
         this.worldBound = resultBound;
+        if (broadphase != null) {
+            broadphase.refit();
+        }
     }
 
     @Override
@@ -207,6 +224,110 @@ public class Node extends Spatial {
         }
     }
 
+    /**
+     *  Called to invalidate the static render group caches of this node
+     *  and its ancestors. This is called whenever state that the caches
+     *  hold but that doesn't raise refresh flags, like cull hints or
+     *  queue buckets, is changed below them.
+     */
+    void invalidateRenderGroup() {
+        if (renderGroup != null) {
+            renderGroup.invalidate();
+        }
+        if (broadphase != null) {
+            broadphase.invalidateHints();
+        }
+        if (parent != null) {
+            parent.invalidateRenderGroup();
+        }
+    }
+
+    /**
+     * Marks this node as a static render group, or clears the mark.
+     *
+     * <p>The geometries below a static render group are flattened into a
+     * {@link StaticRenderGroup cache} of compact arrays that the
+     * {@link com.jme3.renderer.RenderManager} culls linearly instead of
+     * walking the subtree each frame. The cache is rebuilt whenever the
+     * transform or bound of anything below this node changes, so this is
+     * meant for content that rarely moves, like level geometry.
+     *
+     * @param staticGroup true to cache the subtree, false to walk it
+     *     recursively (default false)
+     */
+    public void setStaticRenderGroup(boolean staticGroup) {
+        if (staticGroup && renderGroup == null) {
+            renderGroup = new StaticRenderGroup(this);
+        } else if (!staticGroup) {
+            renderGroup = null;
+        }
+    }
+
+    /**
+     * Tests whether this node is a static render group.
+     *
+     * @return true if the subtree is culled through a flattened cache
+     * @see #setStaticRenderGroup(boolean)
+     */
+    public boolean isStaticRenderGroup() {
+        return renderGroup != null;
+    }
+
+    /**
+     * Returns the flattened render cache of this node.
+     *
+     * @return the pre-existing instance, or null if this node is not a
+     *     static render group
+     * @see #setStaticRenderGroup(boolean)
+     */
+    public StaticRenderGroup getStaticRenderGroup() {
+        return renderGroup;
+    }
+
+    /**
+     * Gives this node a broadphase, or removes it.
+     *
+     * <p>A broadphase is a {@link SceneBVH bounding volume hierarchy} over
+     * the children of this node that is updated incrementally whenever this
+     * node refreshes its bound. {@link #collideWith(Collidable, CollisionResults) Ray
+     * and bounding volume collisions} and frustum culling then only visit the
+     * children near the query, instead of testing every child. This is meant
+     * for nodes with many children, like a flat list of level objects.
+     *
+     * @param enabled true to index the children, false to walk them all
+     *     (default false)
+     */
+    public void setBroadphase(boolean enabled) {
+        if (enabled && broadphase == null) {
+            broadphase = new SceneBVH(this);
+            // fill the tree on the next bound update
+            setBoundRefresh();
+        } else if (!enabled) {
+            broadphase = null;
+        }
+    }
+
+    /**
+     * Tests whether this node has a broadphase.
+     *
+     * @return true if the children are indexed by a bounding volume hierarchy
+     * @see #setBroadphase(boolean)
+     */
+    public boolean hasBroadphase() {
+        return broadphase != null;
+    }
+
+    /**
+     * Returns the broadphase of this node.
+     *
+     * @return the pre-existing instance, or null if this node has no
+     *     broadphase
+     * @see #setBroadphase(boolean)
+     */
+    public SceneBVH getBroadphase() {
+        return broadphase;
+    }
+
     private SafeArrayList<Spatial> getUpdateList() {
         if (updateListValid) {
             return updateList;
@@ -246,6 +367,9 @@ public class Node extends Spatial {
             // This branch has no geometric state that requires updates.
             return;
         }
+        if (renderGroup != null && (refreshFlags & (RF_TRANSFORM | RF_BOUND)) != 0) {
+            renderGroup.invalidate();
+        }
         if ((refreshFlags & RF_LIGHTLIST) != 0) {
             updateWorldLightList();
         }
@@ -431,6 +555,9 @@ public class Node extends Spatial {
         Spatial child = children.remove(index);
         if (child != null) {
             child.setParent(null);
+            if (broadphase != null) {
+                broadphase.remove(child);
+            }
             logger.log(Level.FINE, "{0}: Child removed.", this);
 
             // since a child with a bound was detached;
@@ -578,6 +705,20 @@ public class Node extends Spatial {
     @Override
     public int collideWith(Collidable other, CollisionResults results) {
         int total = 0;
+        if (broadphase != null && (other instanceof Ray || other instanceof BoundingVolume)) {
+            // the children's bounds must be current before the tree is walked
+            checkDoBoundUpdate();
+            ArrayList<Spatial> candidates = new ArrayList<>();
+            if (other instanceof Ray) {
+                broadphase.query((Ray) other, candidates);
+            } else {
+                broadphase.query((BoundingVolume) other, candidates);
+            }
+            for (int i = 0; i < candidates.size(); i++) {
+                total += candidates.get(i).collideWith(other, results);
+            }
+            return total;
+        }
         // optimization: try collideWith BoundingVolume to avoid possibly redundant tests on children
         // number 4 in condition is somewhat arbitrary.
         // When there is only one child, the boundingVolume test is redundant at all.
@@ -621,6 +762,13 @@ public class Node extends Spatial {
         return total;
     }
 
+    @Override
+    protected void collideWithRays(RayBatch batch, int start, int end) {
+        for (Spatial child : children.getArray()) {
+            child.collideWithRays(batch, start, end);
+        }
+    }
+
 
      /**
      * Returns flat list of Spatials implementing the specified class AND
@@ -749,13 +897,25 @@ public class Node extends Spatial {
         // or not... after all, we might be cloning a root node in which case
         // cloning this list is fine.
         this.updateList = cloner.clone(updateList);
+
+        // The render cache refers to the original's geometries.
+        if (renderGroup != null) {
+            renderGroup = new StaticRenderGroup(this);
+        }
+        if (broadphase != null) {
+            broadphase = null;
+            setBroadphase(true);
+        }
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public void write(JmeExporter e) throws IOException {
         super.write(e);
-        e.getCapsule(this).writeSavableArrayList(new ArrayList(children), "children", null);
+        OutputCapsule capsule = e.getCapsule(this);
+        capsule.writeSavableArrayList(new ArrayList(children), "children", null);
+        capsule.write(renderGroup != null, "staticRenderGroup", false);
+        capsule.write(broadphase != null, "broadphase", false);
     }
 
     @Override
@@ -764,8 +924,11 @@ public class Node extends Spatial {
         // XXX: Load children before loading itself!!
         // This prevents empty children list if controls query
         // it in Control.setSpatial().
+        InputCapsule capsule = importer.getCapsule(this);
         children = new SafeArrayList(Spatial.class,
-                importer.getCapsule(this).readSavableArrayList("children", null));
+                capsule.readSavableArrayList("children", null));
+        setStaticRenderGroup(capsule.readBoolean("staticRenderGroup", false));
+        setBroadphase(capsule.readBoolean("broadphase", false));
 
         // go through children and set parent to this node
         if (children != null) {
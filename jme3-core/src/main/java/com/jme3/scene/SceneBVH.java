@@ -0,0 +1,690 @@
+/*
+ * Copyright (c) 2009-2025 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.scene;
+
+import com.jme3.bounding.BoundingBox;
+import com.jme3.bounding.BoundingSphere;
+import com.jme3.bounding.BoundingVolume;
+import com.jme3.math.Plane;
+import com.jme3.math.Ray;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.Camera;
+import com.jme3.renderer.queue.RenderQueue.Bucket;
+import com.jme3.scene.Spatial.CullHint;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * A bounding volume hierarchy over the children of a {@link Node} that was
+ * given a {@link Node#setBroadphase(boolean) broadphase}.
+ *
+ * <p>Each child is a leaf holding an axis-aligned box slightly larger than
+ * its world bound. Whenever the node refreshes its own bound, the children
+ * whose bound left their box are removed and inserted again, and the tree is
+ * kept balanced by rotations. Children that didn't move cost a single box
+ * test, so the tree is never rebuilt from scratch.
+ *
+ * <p>Ray and bounding volume queries, as well as frustum culling, walk the
+ * tree instead of testing every child, which makes them logarithmic rather
+ * than linear in the number of children. The results are candidates only:
+ * the caller still tests each returned child the usual way.
+ *
+ * <p>Children without a world bound can't be placed in the tree and are
+ * always returned. So are, when culling, children whose local cull hint is
+ * {@link CullHint#Never} or whose local queue bucket is {@link Bucket#Gui},
+ * since those aren't culled against the world frustum.
+ *
+ * @see Node#setBroadphase(boolean)
+ */
+public final class SceneBVH {
+
+    private static final int NULL = -1;
+    // floats per tree node: min x, y, z and max x, y, z
+    private static final int BOX_STRIDE = 6;
+    private static final int NUM_PLANES = 6;
+    private static final int ALL_PLANES = (1 << NUM_PLANES) - 1;
+    /**
+     * The leaf boxes are enlarged by this fraction of the largest extent of
+     * the world bound, so small movements don't require a reinsertion.
+     */
+    private static final float MARGIN = 0.1f;
+
+    private final Node node;
+    private int root = NULL;
+    private int capacity = 0;
+    private int freeList = NULL;
+    private float[] boxes = new float[0];
+    private int[] parents = new int[0];
+    private int[] lefts = new int[0];
+    private int[] rights = new int[0];
+    private int[] heights = new int[0];
+    private Spatial[] leaves = new Spatial[0];
+    private final IdentityHashMap<Spatial, Integer> leafOf = new IdentityHashMap<>();
+    // children that can't be put in the tree
+    private final ArrayList<Spatial> unbounded = new ArrayList<>();
+    // children the frustum must not cull
+    private final ArrayList<Spatial> unculled = new ArrayList<>();
+    private boolean unculledValid = false;
+    private final ArrayList<Spatial> visible = new ArrayList<>();
+    private final float[] tmpBox = new float[BOX_STRIDE];
+    private final float[] planes = new float[NUM_PLANES * 4];
+    private int[] stack = new int[64];
+
+    SceneBVH(Node node) {
+        this.node = node;
+    }
+
+    /**
+     * Returns the node whose children are indexed.
+     *
+     * @return the pre-existing instance
+     */
+    public Node getNode() {
+        return node;
+    }
+
+    /**
+     * Returns the number of children in the tree, not counting those
+     * without a world bound.
+     *
+     * @return the count (&ge;0)
+     */
+    public int getLeafCount() {
+        return leafOf.size();
+    }
+
+    /**
+     * Returns the height of the tree.
+     *
+     * @return the number of levels below the root, or -1 if empty
+     */
+    public int getHeight() {
+        return root == NULL ? -1 : heights[root];
+    }
+
+    /**
+     * Brings the leaves up to date with the world bounds of the children.
+     * Called by the node once the bounds of all its children are current.
+     */
+    void refit() {
+        unbounded.clear();
+        for (Spatial child : node.getChildren()) {
+            update(child);
+        }
+    }
+
+    /**
+     * Removes the leaf of a child that was detached from the node.
+     *
+     * @param child the detached child (not null)
+     */
+    void remove(Spatial child) {
+        Integer leaf = leafOf.remove(child);
+        if (leaf != null) {
+            removeLeaf(leaf);
+            freeNode(leaf);
+        }
+        unbounded.remove(child);
+        unculledValid = false;
+    }
+
+    /**
+     * Marks the list of children that escape culling for recomputation,
+     * after a cull hint or queue bucket changed below the node.
+     */
+    void invalidateHints() {
+        unculledValid = false;
+    }
+
+    /**
+     * Adds the children that the ray may hit to the given list.
+     *
+     * @param ray the ray in world space (not null, unaffected)
+     * @param store storage for the children (not null, added to)
+     */
+    public void query(Ray ray, List<Spatial> store) {
+        store.addAll(unbounded);
+        if (root == NULL) {
+            return;
+        }
+
+        Vector3f o = ray.getOrigin();
+        Vector3f d = ray.getDirection();
+        float invX = 1f / d.x;
+        float invY = 1f / d.y;
+        float invZ = 1f / d.z;
+        float limit = ray.getLimit();
+
+        int stackSize = 0;
+        stack[stackSize++] = root;
+        while (stackSize > 0) {
+            int index = stack[--stackSize];
+            int b = index * BOX_STRIDE;
+            float near = (boxes[b] - o.x) * invX;
+            float far = (boxes[b + 3] - o.x) * invX;
+            if (near > far) {
+                float tmp = near;
+                near = far;
+                far = tmp;
+            }
+            float t0 = Math.max(0f, near);
+            float t1 = Math.min(limit, far);
+
+            near = (boxes[b + 1] - o.y) * invY;
+            far = (boxes[b + 4] - o.y) * invY;
+            if (near > far) {
+                float tmp = near;
+                near = far;
+                far = tmp;
+            }
+            t0 = Math.max(t0, near);
+            t1 = Math.min(t1, far);
+
+            near = (boxes[b + 2] - o.z) * invZ;
+            far = (boxes[b + 5] - o.z) * invZ;
+            if (near > far) {
+                float tmp = near;
+                near = far;
+                far = tmp;
+            }
+            t0 = Math.max(t0, near);
+            t1 = Math.min(t1, far);
+
+            // NaN from a zero direction component compares false, keeping the node
+            if (t0 > t1) {
+                continue;
+            }
+            stackSize = visit(index, stackSize, store);
+        }
+    }
+
+    /**
+     * Adds the children whose bounds may intersect the volume to the given
+     * list. Volumes other than boxes and spheres return every child.
+     *
+     * @param volume the volume in world space (not null, unaffected)
+     * @param store storage for the children (not null, added to)
+     */
+    public void query(BoundingVolume volume, List<Spatial> store) {
+        float[] q = tmpBox;
+        if (!toBox(volume, q, 0f)) {
+            store.addAll(node.getChildren());
+            return;
+        }
+        store.addAll(unbounded);
+        if (root == NULL) {
+            return;
+        }
+
+        int stackSize = 0;
+        stack[stackSize++] = root;
+        while (stackSize > 0) {
+            int index = stack[--stackSize];
+            int b = index * BOX_STRIDE;
+            if (boxes[b] > q[3] || boxes[b + 3] < q[0]
+                    || boxes[b + 1] > q[4] || boxes[b + 4] < q[1]
+                    || boxes[b + 2] > q[5] || boxes[b + 5] < q[2]) {
+                continue;
+            }
+            stackSize = visit(index, stackSize, store);
+        }
+    }
+
+    /**
+     * Returns the children that may be inside the camera frustum. The
+     * node itself must already have passed
+     * {@link Spatial#checkCulling(com.jme3.renderer.Camera)}, so that the
+     * camera's plane state reflects the planes the whole node is inside of.
+     *
+     * @param cam the camera to cull against (not null, unaffected)
+     * @return an internal list, valid until the next call (not null)
+     */
+    public List<Spatial> cull(Camera cam) {
+        visible.clear();
+        if (!unculledValid) {
+            unculled.clear();
+            for (Spatial child : node.getChildren()) {
+                if (child.getLocalCullHint() == CullHint.Never
+                        || child.getLocalQueueBucket() == Bucket.Gui) {
+                    unculled.add(child);
+                }
+            }
+            unculledValid = true;
+        }
+        visible.addAll(unbounded);
+        for (int i = 0; i < unculled.size(); i++) {
+            Spatial child = unculled.get(i);
+            if (leafOf.containsKey(child)) {
+                visible.add(child);
+            }
+        }
+        if (root == NULL) {
+            return visible;
+        }
+        int planeState = cam.getPlaneState();
+        if ((planeState & ALL_PLANES) == ALL_PLANES) {
+            // the whole node is inside the frustum
+            visible.clear();
+            visible.addAll(node.getChildren());
+            return visible;
+        }
+
+        for (int i = 0; i < NUM_PLANES; i++) {
+            Plane plane = cam.getWorldPlane(i);
+            Vector3f normal = plane.getNormal();
+            planes[i * 4] = normal.x;
+            planes[i * 4 + 1] = normal.y;
+            planes[i * 4 + 2] = normal.z;
+            planes[i * 4 + 3] = plane.getConstant();
+        }
+
+        int stackSize = 0;
+        stack[stackSize++] = root;
+        while (stackSize > 0) {
+            int index = stack[--stackSize];
+            if (isOutside(index, planeState)) {
+                continue;
+            }
+            if (lefts[index] == NULL) {
+                Spatial child = leaves[index];
+                // already added if unculled
+                if (unculled.isEmpty() || !unculled.contains(child)) {
+                    visible.add(child);
+                }
+            } else {
+                stackSize = push(lefts[index], stackSize);
+                stackSize = push(rights[index], stackSize);
+            }
+        }
+        return visible;
+    }
+
+    private boolean isOutside(int index, int planeState) {
+        int b = index * BOX_STRIDE;
+        float cx = (boxes[b] + boxes[b + 3]) * 0.5f;
+        float cy = (boxes[b + 1] + boxes[b + 4]) * 0.5f;
+        float cz = (boxes[b + 2] + boxes[b + 5]) * 0.5f;
+        float ex = (boxes[b + 3] - boxes[b]) * 0.5f;
+        float ey = (boxes[b + 4] - boxes[b + 1]) * 0.5f;
+        float ez = (boxes[b + 5] - boxes[b + 2]) * 0.5f;
+        for (int p = 0; p < NUM_PLANES; p++) {
+            if ((planeState & (1 << p)) != 0) {
+                continue;
+            }
+            int o = p * 4;
+            float nx = planes[o];
+            float ny = planes[o + 1];
+            float nz = planes[o + 2];
+            float distance = nx * cx + ny * cy + nz * cz - planes[o + 3];
+            float radius = ex * Math.abs(nx) + ey * Math.abs(ny) + ez * Math.abs(nz);
+            if (distance < -radius) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds the child of a leaf to the store, or pushes the children of an
+     * inner node.
+     *
+     * @return the new stack size
+     */
+    private int visit(int index, int stackSize, List<Spatial> store) {
+        if (lefts[index] == NULL) {
+            store.add(leaves[index]);
+            return stackSize;
+        }
+        stackSize = push(lefts[index], stackSize);
+        return push(rights[index], stackSize);
+    }
+
+    private int push(int index, int stackSize) {
+        if (stackSize == stack.length) {
+            stack = Arrays.copyOf(stack, stackSize * 2);
+        }
+        stack[stackSize] = index;
+        return stackSize + 1;
+    }
+
+    private void update(Spatial child) {
+        Integer leaf = leafOf.get(child);
+        float[] tight = tmpBox;
+        if (!toBox(child.getWorldBound(), tight, 0f)) {
+            if (leaf != null) {
+                leafOf.remove(child);
+                removeLeaf(leaf);
+                freeNode(leaf);
+            }
+            unbounded.add(child);
+            return;
+        }
+
+        int index;
+        if (leaf != null) {
+            index = leaf;
+            int b = index * BOX_STRIDE;
+            if (boxes[b] <= tight[0] && boxes[b + 1] <= tight[1] && boxes[b + 2] <= tight[2]
+                    && boxes[b + 3] >= tight[3] && boxes[b + 4] >= tight[4] && boxes[b + 5] >= tight[5]) {
+                // still inside its enlarged box
+                return;
+            }
+            removeLeaf(index);
+        } else {
+            index = allocateNode();
+            leaves[index] = child;
+            leafOf.put(child, index);
+            unculledValid = false;
+        }
+
+        toBox(child.getWorldBound(), tight, MARGIN);
+        System.arraycopy(tight, 0, boxes, index * BOX_STRIDE, BOX_STRIDE);
+        insertLeaf(index);
+    }
+
+    /**
+     * Writes the axis-aligned box around a bounding volume.
+     *
+     * @param margin the fraction of the largest extent to enlarge the box by
+     * @return false if the volume is null or of an unsupported type
+     */
+    private static boolean toBox(BoundingVolume volume, float[] store, float margin) {
+        Vector3f center;
+        float ex, ey, ez;
+        if (volume instanceof BoundingBox) {
+            BoundingBox box = (BoundingBox) volume;
+            center = box.getCenter();
+            ex = box.getXExtent();
+            ey = box.getYExtent();
+            ez = box.getZExtent();
+        } else if (volume instanceof BoundingSphere) {
+            BoundingSphere sphere = (BoundingSphere) volume;
+            center = sphere.getCenter();
+            ex = ey = ez = sphere.getRadius();
+        } else {
+            return false;
+        }
+        float m = Math.max(ex, Math.max(ey, ez)) * margin;
+        store[0] = center.x - ex - m;
+        store[1] = center.y - ey - m;
+        store[2] = center.z - ez - m;
+        store[3] = center.x + ex + m;
+        store[4] = center.y + ey + m;
+        store[5] = center.z + ez + m;
+        return true;
+    }
+
+    private int allocateNode() {
+        if (freeList == NULL) {
+            int newCapacity = Math.max(16, capacity * 2);
+            boxes = Arrays.copyOf(boxes, newCapacity * BOX_STRIDE);
+            parents = Arrays.copyOf(parents, newCapacity);
+            lefts = Arrays.copyOf(lefts, newCapacity);
+            rights = Arrays.copyOf(rights, newCapacity);
+            heights = Arrays.copyOf(heights, newCapacity);
+            leaves = Arrays.copyOf(leaves, newCapacity);
+            // chain the new nodes into the free list through their parents
+            for (int i = capacity; i < newCapacity - 1; i++) {
+                parents[i] = i + 1;
+            }
+            parents[newCapacity - 1] = NULL;
+            freeList = capacity;
+            capacity = newCapacity;
+        }
+        int index = freeList;
+        freeList = parents[index];
+        parents[index] = NULL;
+        lefts[index] = NULL;
+        rights[index] = NULL;
+        heights[index] = 0;
+        leaves[index] = null;
+        return index;
+    }
+
+    private void freeNode(int index) {
+        leaves[index] = null;
+        parents[index] = freeList;
+        heights[index] = -1;
+        freeList = index;
+    }
+
+    private void insertLeaf(int leaf) {
+        if (root == NULL) {
+            root = leaf;
+            parents[leaf] = NULL;
+            return;
+        }
+
+        // Find the sibling whose enlargement is cheapest, by surface area.
+        int lb = leaf * BOX_STRIDE;
+        int index = root;
+        while (lefts[index] != NULL) {
+            int left = lefts[index];
+            int right = rights[index];
+
+            float area = area(index);
+            float combinedArea = combinedArea(index, lb);
+            // cost of creating a new parent for this node and the new leaf
+            float cost = 2f * combinedArea;
+            // minimum cost of pushing the leaf further down the tree
+            float inheritanceCost = 2f * (combinedArea - area);
+
+            float costLeft = descendCost(left, lb) + inheritanceCost;
+            float costRight = descendCost(right, lb) + inheritanceCost;
+            if (cost < costLeft && cost < costRight) {
+                break;
+            }
+            index = costLeft < costRight ? left : right;
+        }
+
+        int sibling = index;
+        int oldParent = parents[sibling];
+        int newParent = allocateNode();
+        parents[newParent] = oldParent;
+        union(leaf, sibling, newParent);
+        heights[newParent] = heights[sibling] + 1;
+
+        if (oldParent != NULL) {
+            if (lefts[oldParent] == sibling) {
+                lefts[oldParent] = newParent;
+            } else {
+                rights[oldParent] = newParent;
+            }
+        } else {
+            root = newParent;
+        }
+        lefts[newParent] = sibling;
+        rights[newParent] = leaf;
+        parents[sibling] = newParent;
+        parents[leaf] = newParent;
+
+        refitAncestors(parents[leaf]);
+    }
+
+    private float descendCost(int index, int lb) {
+        if (lefts[index] == NULL) {
+            return combinedArea(index, lb);
+        }
+        return combinedArea(index, lb) - area(index);
+    }
+
+    private void removeLeaf(int leaf) {
+        if (leaf == root) {
+            root = NULL;
+            return;
+        }
+
+        int parent = parents[leaf];
+        int grandParent = parents[parent];
+        int sibling = lefts[parent] == leaf ? rights[parent] : lefts[parent];
+
+        if (grandParent != NULL) {
+            if (lefts[grandParent] == parent) {
+                lefts[grandParent] = sibling;
+            } else {
+                rights[grandParent] = sibling;
+            }
+            parents[sibling] = grandParent;
+            freeNode(parent);
+            refitAncestors(grandParent);
+        } else {
+            root = sibling;
+            parents[sibling] = NULL;
+            freeNode(parent);
+        }
+        parents[leaf] = NULL;
+    }
+
+    private void refitAncestors(int index) {
+        while (index != NULL) {
+            index = balance(index);
+            int left = lefts[index];
+            int right = rights[index];
+            heights[index] = 1 + Math.max(heights[left], heights[right]);
+            union(left, right, index);
+            index = parents[index];
+        }
+    }
+
+    /**
+     * Rotates the taller grandchild of an unbalanced node up.
+     *
+     * @return the index of the node that took the place of the given one
+     */
+    private int balance(int a) {
+        if (lefts[a] == NULL || heights[a] < 2) {
+            return a;
+        }
+
+        int b = lefts[a];
+        int c = rights[a];
+        int balance = heights[c] - heights[b];
+
+        if (balance > 1) {
+            // rotate c up
+            int f = lefts[c];
+            int g = rights[c];
+            lefts[c] = a;
+            parents[c] = parents[a];
+            parents[a] = c;
+            replaceChild(parents[c], a, c);
+
+            if (heights[f] > heights[g]) {
+                rights[c] = f;
+                rights[a] = g;
+                parents[g] = a;
+                union(b, g, a);
+                union(a, f, c);
+                heights[a] = 1 + Math.max(heights[b], heights[g]);
+                heights[c] = 1 + Math.max(heights[a], heights[f]);
+            } else {
+                rights[c] = g;
+                rights[a] = f;
+                parents[f] = a;
+                union(b, f, a);
+                union(a, g, c);
+                heights[a] = 1 + Math.max(heights[b], heights[f]);
+                heights[c] = 1 + Math.max(heights[a], heights[g]);
+            }
+            return c;
+        }
+
+        if (balance < -1) {
+            // rotate b up
+            int d = lefts[b];
+            int e = rights[b];
+            lefts[b] = a;
+            parents[b] = parents[a];
+            parents[a] = b;
+            replaceChild(parents[b], a, b);
+
+            if (heights[d] > heights[e]) {
+                rights[b] = d;
+                lefts[a] = e;
+                parents[e] = a;
+                union(c, e, a);
+                union(a, d, b);
+                heights[a] = 1 + Math.max(heights[c], heights[e]);
+                heights[b] = 1 + Math.max(heights[a], heights[d]);
+            } else {
+                rights[b] = e;
+                lefts[a] = d;
+                parents[d] = a;
+                union(c, d, a);
+                union(a, e, b);
+                heights[a] = 1 + Math.max(heights[c], heights[d]);
+                heights[b] = 1 + Math.max(heights[a], heights[e]);
+            }
+            return b;
+        }
+
+        return a;
+    }
+
+    private void replaceChild(int parent, int oldChild, int newChild) {
+        if (parent == NULL) {
+            root = newChild;
+        } else if (lefts[parent] == oldChild) {
+            lefts[parent] = newChild;
+        } else {
+            rights[parent] = newChild;
+        }
+    }
+
+    private void union(int i1, int i2, int store) {
+        int b1 = i1 * BOX_STRIDE;
+        int b2 = i2 * BOX_STRIDE;
+        int s = store * BOX_STRIDE;
+        for (int k = 0; k < 3; k++) {
+            boxes[s + k] = Math.min(boxes[b1 + k], boxes[b2 + k]);
+            boxes[s + k + 3] = Math.max(boxes[b1 + k + 3], boxes[b2 + k + 3]);
+        }
+    }
+
+    private float area(int index) {
+        int b = index * BOX_STRIDE;
+        float dx = boxes[b + 3] - boxes[b];
+        float dy = boxes[b + 4] - boxes[b + 1];
+        float dz = boxes[b + 5] - boxes[b + 2];
+        return dx * dy + dy * dz + dz * dx;
+    }
+
+    private float combinedArea(int index, int lb) {
+        int b = index * BOX_STRIDE;
+        float dx = Math.max(boxes[b + 3], boxes[lb + 3]) - Math.min(boxes[b], boxes[lb]);
+        float dy = Math.max(boxes[b + 4], boxes[lb + 4]) - Math.min(boxes[b + 1], boxes[lb + 1]);
+        float dz = Math.max(boxes[b + 5], boxes[lb + 5]) - Math.min(boxes[b + 2], boxes[lb + 2]);
+        return dx * dy + dy * dz + dz * dx;
+    }
+}
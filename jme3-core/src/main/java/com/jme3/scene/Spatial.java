@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2009-2023 jMonkeyEngine
+ * Copyright (c) 2009-2025 jMonkeyEngine
  * All rights reserved.
  *
  * Redistribution and use in source and binary forms, with or without
@@ -36,6 +36,7 @@ import com.jme3.asset.AssetKey;
 import com.jme3.asset.CloneableSmartAsset;
 import com.jme3.bounding.BoundingVolume;
 import com.jme3.collision.Collidable;
+import com.jme3.collision.RayBatch;
 import com.jme3.export.*;
 import com.jme3.light.Light;
 import com.jme3.light.LightList;
@@ -56,6 +57,8 @@ import com.jme3.util.clone.IdentityCloneFunction;
 import com.jme3.util.clone.JmeCloneable;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.logging.Logger;
 
 /**
@@ -782,6 +785,9 @@ public abstract class Spatial implements Savable, Cloneable, Collidable,
         if (parent != null && before != after) {
             parent.invalidateUpdateList();
         }
+        if (parent != null) {
+            parent.invalidateRenderGroup();
+        }
     }
 
     /**
@@ -838,6 +844,9 @@ public abstract class Spatial implements Savable, Cloneable, Collidable,
         if (parent != null && before != after) {
             parent.invalidateUpdateList();
         }
+        if (parent != null) {
+            parent.invalidateRenderGroup();
+        }
     }
 
     /**
@@ -863,6 +872,9 @@ public abstract class Spatial implements Savable, Cloneable, Collidable,
         if (parent != null && before != after) {
             parent.invalidateUpdateList();
         }
+        if (parent != null) {
+            parent.invalidateRenderGroup();
+        }
         return result;
     }
 
@@ -1676,6 +1688,63 @@ public abstract class Spatial implements Savable, Cloneable, Collidable,
         return worldBound;
     }
 
+    /**
+     * Finds the nearest hit of every ray in the batch within this spatial
+     * and its children. For each ray the distance, triangle index and
+     * geometry of the hit are written to the arrays of the batch, unless the
+     * hit is further away than the distance already stored there.
+     * <p>
+     * Unlike {@link #collideWith(com.jme3.collision.Collidable, com.jme3.collision.CollisionResults)}
+     * this allocates no {@link com.jme3.collision.CollisionResult} per hit,
+     * which makes it suited to casting thousands of rays per frame.
+     *
+     * @param batch the rays and results (not null)
+     */
+    public void collideWithRays(RayBatch batch) {
+        collideWithRays(batch, null);
+    }
+
+    /**
+     * Finds the nearest hit of every ray in the batch within this spatial
+     * and its children, splitting the rays among the threads of the given
+     * pool. Bounds, world matrices and collision data are brought up to date
+     * on the calling thread first, so the scene must not be modified until
+     * this returns.
+     *
+     * @param batch the rays and results (not null)
+     * @param pool the pool to run on, or null to test all rays on the
+     *     calling thread
+     * @see #collideWithRays(RayBatch)
+     */
+    public void collideWithRays(RayBatch batch, ForkJoinPool pool) {
+        checkDoBoundUpdate();
+        depthFirstTraversal(new SceneGraphVisitorAdapter() {
+            @Override
+            public void visit(Geometry geom) {
+                geom.prepareRayQueries();
+            }
+        });
+
+        if (pool == null || batch.size() <= RayBatchTask.GRAIN) {
+            collideWithRays(batch, 0, batch.size());
+        } else {
+            pool.invoke(new RayBatchTask(this, batch, 0, batch.size()));
+        }
+    }
+
+    /**
+     * Tests a range of rays of the batch against this spatial and its
+     * children. Called by {@link #collideWithRays(RayBatch, ForkJoinPool)},
+     * possibly from several threads at once, with disjoint ranges. Does
+     * nothing by default.
+     *
+     * @param batch the rays and results (not null)
+     * @param start the index of the first ray to test (&ge;0)
+     * @param end the index after the last ray to test (&le;batch size)
+     */
+    protected void collideWithRays(RayBatch batch, int start, int end) {
+    }
+
     /**
      * <code>setCullHint</code> alters how view frustum culling will treat this
      * spatial.
@@ -1689,6 +1758,9 @@ public abstract class Spatial implements Savable, Cloneable, Collidable,
      */
     public void setCullHint(CullHint hint) {
         cullHint = hint;
+        if (parent != null) {
+            parent.invalidateRenderGroup();
+        }
     }
 
     /**
@@ -1729,6 +1801,9 @@ public abstract class Spatial implements Savable, Cloneable, Collidable,
      */
     public void setQueueBucket(RenderQueue.Bucket queueBucket) {
         this.queueBucket = queueBucket;
+        if (parent != null) {
+            parent.invalidateRenderGroup();
+        }
     }
 
     /**
@@ -1874,4 +1949,40 @@ public abstract class Spatial implements Savable, Cloneable, Collidable,
     }
 
     protected abstract void breadthFirstTraversal(SceneGraphVisitor visitor, Queue<Spatial> queue);
+
+    /**
+     * Splits a batch of rays into ranges that are tested in parallel.
+     */
+    private static final class RayBatchTask extends RecursiveAction {
+
+        static final long serialVersionUID = 1;
+
+        /**
+         * Ranges up to this many rays are tested without splitting further.
+         */
+        private static final int GRAIN = 64;
+
+        private final Spatial spatial;
+        private final RayBatch batch;
+        private final int start;
+        private final int end;
+
+        RayBatchTask(Spatial spatial, RayBatch batch, int start, int end) {
+            this.spatial = spatial;
+            this.batch = batch;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= GRAIN) {
+                spatial.collideWithRays(batch, start, end);
+                return;
+            }
+            int mid = (start + end) >>> 1;
+            invokeAll(new RayBatchTask(spatial, batch, start, mid),
+                    new RayBatchTask(spatial, batch, mid, end));
+        }
+    }
 }
@@ -0,0 +1,326 @@
+/*
+ * Copyright (c) 2009-2025 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.scene;
+
+import com.jme3.bounding.BoundingBox;
+import com.jme3.bounding.BoundingSphere;
+import com.jme3.bounding.BoundingVolume;
+import com.jme3.math.Plane;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.Camera;
+import com.jme3.renderer.queue.RenderQueue;
+import com.jme3.renderer.queue.RenderQueue.Bucket;
+import com.jme3.scene.Spatial.CullHint;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A flattened, cached view of the geometries below a {@link Node} that was
+ * marked as a {@link Node#setStaticRenderGroup(boolean) static render group}.
+ *
+ * <p>The geometries, their world bounds and their queue buckets are copied
+ * into flat arrays, so culling the group is a linear pass over primitive
+ * data instead of a recursive walk through the scene graph. The arrays are
+ * rebuilt lazily whenever the node reports a transform or bound refresh
+ * (which includes children being attached or detached anywhere below it), or
+ * when a cull hint, queue bucket or control changes inside the group.
+ *
+ * <p>Hierarchical culling is not performed inside the group: every geometry
+ * is tested against the frustum on its own, and a geometry whose cull hint
+ * resolves to {@link CullHint#Never} is always queued.
+ *
+ * @see Node#setStaticRenderGroup(boolean)
+ */
+public final class StaticRenderGroup {
+
+    private static final Bucket[] BUCKETS = Bucket.values();
+    private static final int NUM_PLANES = 6;
+    // floats per entry: center x, y, z and extent x, y, z
+    private static final int BOUND_STRIDE = 6;
+
+    private static final byte SHAPE_NONE = 0;
+    private static final byte SHAPE_BOX = 1;
+    private static final byte SHAPE_SPHERE = 2;
+
+    private static final byte HINT_INHERIT = 0;
+    private static final byte HINT_DYNAMIC = 1;
+    private static final byte HINT_NEVER = 2;
+
+    private final Node node;
+    private boolean valid = false;
+    private int size = 0;
+    private Geometry[] geometries = new Geometry[0];
+    // bucket ordinal, or -1 when inherited from the group node
+    private byte[] buckets = new byte[0];
+    private byte[] hints = new byte[0];
+    private byte[] shapes = new byte[0];
+    private float[] bounds = new float[0];
+    private final ArrayList<Spatial> controlled = new ArrayList<>();
+    private final float[] planes = new float[NUM_PLANES * 4];
+
+    StaticRenderGroup(Node node) {
+        this.node = node;
+    }
+
+    /**
+     * Returns the node whose subtree is cached.
+     *
+     * @return the pre-existing instance
+     */
+    public Node getNode() {
+        return node;
+    }
+
+    /**
+     * Returns the number of geometries in the cache, rebuilding it if needed.
+     *
+     * @return the count (&ge;0)
+     */
+    public int getGeometryCount() {
+        if (!valid) {
+            rebuild();
+        }
+        return size;
+    }
+
+    /**
+     * Tests whether the cache is up to date.
+     *
+     * @return true if the cache doesn't need to be rebuilt
+     */
+    public boolean isValid() {
+        return valid;
+    }
+
+    /**
+     * Marks the cache for rebuilding on next use.
+     */
+    void invalidate() {
+        valid = false;
+    }
+
+    /**
+     * Culls the cached geometries and adds the visible ones to the queue.
+     * The group node itself must already have passed
+     * {@link Spatial#checkCulling(com.jme3.renderer.Camera)}, so that the
+     * camera's plane state reflects the planes the whole group is inside of.
+     *
+     * @param cam the camera to cull against (not null, unaffected)
+     * @param queue the queue to add the visible geometries to (not null)
+     * @param visibleControlled storage for the visible spatials of the group
+     *     that have controls, which the caller is expected to render (not null,
+     *     added to)
+     */
+    public void cull(Camera cam, RenderQueue queue, List<Spatial> visibleControlled) {
+        if (!valid) {
+            rebuild();
+        }
+
+        int planeState = cam.getPlaneState();
+        for (int i = 0; i < NUM_PLANES; i++) {
+            Plane plane = cam.getWorldPlane(i);
+            Vector3f normal = plane.getNormal();
+            planes[i * 4] = normal.x;
+            planes[i * 4 + 1] = normal.y;
+            planes[i * 4 + 2] = normal.z;
+            planes[i * 4 + 3] = plane.getConstant();
+        }
+
+        CullHint groupHint = node.getCullHint();
+        Bucket groupBucket = node.getQueueBucket();
+        for (int i = 0; i < size; i++) {
+            Bucket bucket = buckets[i] < 0 ? groupBucket : BUCKETS[buckets[i]];
+            boolean never = hints[i] == HINT_NEVER
+                    || (hints[i] == HINT_INHERIT && groupHint == CullHint.Never);
+            if (!never) {
+                if (bucket == Bucket.Gui) {
+                    if (!cam.containsGui(geometries[i].getWorldBound())) {
+                        continue;
+                    }
+                } else if (isOutside(i, planeState)) {
+                    continue;
+                }
+            }
+
+            Geometry geom = geometries[i];
+            if (geom.getMaterial() == null) {
+                throw new IllegalStateException("No material is set for Geometry: " + geom.getName());
+            }
+            queue.addToQueue(geom, bucket);
+        }
+
+        for (int i = 0; i < controlled.size(); i++) {
+            Spatial spatial = controlled.get(i);
+            CullHint hint = spatial.getCullHint();
+            if (hint == CullHint.Never) {
+                visibleControlled.add(spatial);
+            } else if (hint == CullHint.Dynamic) {
+                int saveState = cam.getPlaneState();
+                if (spatial.getQueueBucket() == Bucket.Gui) {
+                    if (cam.containsGui(spatial.getWorldBound())) {
+                        visibleControlled.add(spatial);
+                    }
+                } else if (cam.contains(spatial.getWorldBound()) != Camera.FrustumIntersect.Outside) {
+                    visibleControlled.add(spatial);
+                }
+                cam.setPlaneState(saveState);
+            }
+        }
+    }
+
+    private boolean isOutside(int index, int planeState) {
+        byte shape = shapes[index];
+        if (shape == SHAPE_NONE) {
+            return false;
+        }
+
+        int b = index * BOUND_STRIDE;
+        float cx = bounds[b];
+        float cy = bounds[b + 1];
+        float cz = bounds[b + 2];
+        float ex = bounds[b + 3];
+        float ey = bounds[b + 4];
+        float ez = bounds[b + 5];
+        for (int p = 0; p < NUM_PLANES; p++) {
+            if ((planeState & (1 << p)) != 0) {
+                continue;
+            }
+            int o = p * 4;
+            float nx = planes[o];
+            float ny = planes[o + 1];
+            float nz = planes[o + 2];
+            float distance = nx * cx + ny * cy + nz * cz - planes[o + 3];
+            if (shape == SHAPE_BOX) {
+                float radius = ex * Math.abs(nx) + ey * Math.abs(ny) + ez * Math.abs(nz);
+                if (distance < -radius) {
+                    return true;
+                }
+            } else if (distance <= -ex) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void rebuild() {
+        for (int i = 0; i < size; i++) {
+            geometries[i] = null;
+        }
+        size = 0;
+        controlled.clear();
+
+        for (Spatial child : node.getChildren()) {
+            flatten(child, HINT_INHERIT, (byte) -1);
+        }
+        valid = true;
+    }
+
+    private void flatten(Spatial spatial, byte hint, byte bucket) {
+        CullHint localHint = spatial.getLocalCullHint();
+        if (localHint == CullHint.Always) {
+            return;
+        } else if (localHint == CullHint.Never) {
+            hint = HINT_NEVER;
+        } else if (localHint == CullHint.Dynamic) {
+            hint = HINT_DYNAMIC;
+        }
+        Bucket localBucket = spatial.getLocalQueueBucket();
+        if (localBucket != Bucket.Inherit) {
+            bucket = (byte) localBucket.ordinal();
+        }
+
+        if (spatial.getNumControls() > 0) {
+            controlled.add(spatial);
+        }
+
+        if (spatial instanceof Node) {
+            for (Spatial child : ((Node) spatial).getChildren()) {
+                flatten(child, hint, bucket);
+            }
+        } else if (spatial instanceof Geometry) {
+            Geometry geom = (Geometry) spatial;
+            if (!geom.isGrouped()) {
+                add(geom, hint, bucket);
+            }
+        }
+    }
+
+    private void add(Geometry geom, byte hint, byte bucket) {
+        if (size == geometries.length) {
+            int capacity = Math.max(16, size * 2);
+            Geometry[] temp = new Geometry[capacity];
+            System.arraycopy(geometries, 0, temp, 0, size);
+            geometries = temp;
+            buckets = copyOf(buckets, capacity);
+            hints = copyOf(hints, capacity);
+            shapes = copyOf(shapes, capacity);
+            float[] tempBounds = new float[capacity * BOUND_STRIDE];
+            System.arraycopy(bounds, 0, tempBounds, 0, size * BOUND_STRIDE);
+            bounds = tempBounds;
+        }
+
+        int i = size++;
+        geometries[i] = geom;
+        buckets[i] = bucket;
+        hints[i] = hint;
+
+        int b = i * BOUND_STRIDE;
+        BoundingVolume bv = geom.getWorldBound();
+        if (bv instanceof BoundingBox) {
+            BoundingBox box = (BoundingBox) bv;
+            Vector3f center = box.getCenter();
+            bounds[b] = center.x;
+            bounds[b + 1] = center.y;
+            bounds[b + 2] = center.z;
+            bounds[b + 3] = box.getXExtent();
+            bounds[b + 4] = box.getYExtent();
+            bounds[b + 5] = box.getZExtent();
+            shapes[i] = SHAPE_BOX;
+        } else if (bv instanceof BoundingSphere) {
+            BoundingSphere sphere = (BoundingSphere) bv;
+            Vector3f center = sphere.getCenter();
+            bounds[b] = center.x;
+            bounds[b + 1] = center.y;
+            bounds[b + 2] = center.z;
+            bounds[b + 3] = sphere.getRadius();
+            shapes[i] = SHAPE_SPHERE;
+        } else {
+            shapes[i] = SHAPE_NONE;
+        }
+    }
+
+    private static byte[] copyOf(byte[] array, int capacity) {
+        byte[] temp = new byte[capacity];
+        System.arraycopy(array, 0, temp, 0, Math.min(array.length, capacity));
+        return temp;
+    }
+}
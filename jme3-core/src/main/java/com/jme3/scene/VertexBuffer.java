@@ -332,6 +332,8 @@ public class VertexBuffer extends NativeObject implements Savable, Cloneable {
     protected boolean normalized = false;
     protected int instanceSpan = 0;
     protected transient boolean dataSizeChanged = false;
+    protected transient int updateRangeStart = -1;
+    protected transient int updateRangeEnd = -1;
     protected String name;
 
     /**
@@ -707,9 +709,65 @@ public class VertexBuffer extends NativeObject implements Savable, Cloneable {
         }
 
         this.data = data;
+        updateRangeStart = -1;
+        updateRangeEnd = -1;
         setUpdateNeeded();
     }
 
+    /**
+     * Marks a range of elements as modified, so that only that range is
+     * sent to the GPU on the next update. Ranges marked before the next
+     * update are merged, and a pending full update (through
+     * {@link #updateData(java.nio.Buffer) }) takes precedence.
+     * <p>
+     * The data must have been modified in place, the buffer itself and its
+     * size must be unchanged. Renderers that do not support partial updates
+     * re-send the whole buffer.
+     *
+     * @param first the index of the first modified element
+     * @param count the number of modified elements
+     */
+    public void updateDataRange(int first, int count) {
+        if (first < 0 || count < 1 || first + count > data.capacity() / components) {
+            throw new IllegalArgumentException("Range is outside of the buffer");
+        }
+        if (isUpdateNeeded() && updateRangeStart == -1) {
+            // a full update is already pending
+            return;
+        }
+        int end = first + count;
+        if (updateRangeStart == -1) {
+            updateRangeStart = first;
+            updateRangeEnd = end;
+        } else {
+            updateRangeStart = Math.min(updateRangeStart, first);
+            updateRangeEnd = Math.max(updateRangeEnd, end);
+        }
+        super.setUpdateNeeded();
+    }
+
+    /**
+     * Returns the first element of the pending partial update.
+     * Internal use only.
+     *
+     * @return the first modified element, or -1 if the whole buffer
+     * must be sent
+     */
+    public int getUpdateRangeStart() {
+        return updateRangeStart;
+    }
+
+    /**
+     * Returns the end (exclusive) of the pending partial update.
+     * Internal use only.
+     *
+     * @return the element after the last modified one, or -1 if the whole
+     * buffer must be sent
+     */
+    public int getUpdateRangeEnd() {
+        return updateRangeEnd;
+    }
+
     /**
      * Returns true if the data size of the VertexBuffer has changed.
      * Internal use only.
@@ -720,10 +778,23 @@ public class VertexBuffer extends NativeObject implements Savable, Cloneable {
         return dataSizeChanged;
     }
 
+    /**
+     * Marks the whole buffer as modified, dropping any pending partial
+     * update marked with {@link #updateDataRange(int, int) }.
+     */
+    @Override
+    public void setUpdateNeeded() {
+        updateRangeStart = -1;
+        updateRangeEnd = -1;
+        super.setUpdateNeeded();
+    }
+
     @Override
     public void clearUpdateNeeded() {
         super.clearUpdateNeeded();
         dataSizeChanged = false;
+        updateRangeStart = -1;
+        updateRangeEnd = -1;
     }
 
     /**
@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2009-2025 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.scene.instancing;
+
+import com.jme3.bounding.BoundingVolume;
+import com.jme3.light.LightList;
+import com.jme3.material.Material;
+import com.jme3.math.Matrix4f;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.VertexBuffer;
+import com.jme3.scene.VertexBuffer.Format;
+import com.jme3.scene.VertexBuffer.Type;
+import com.jme3.scene.VertexBuffer.Usage;
+import com.jme3.shader.bufferobject.BufferObject;
+import com.jme3.util.BufferUtils;
+import com.jme3.util.TempVars;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+/**
+ * A transient geometry that draws several ranges of a packed mesh with one
+ * multi-draw indirect call.
+ * <p>
+ * Each draw has its own index range, base vertex and world transform. The
+ * transforms are encoded exactly like {@link InstancedGeometry} encodes its
+ * instances, and each draw command selects its transform through its base
+ * instance, so the material must be rendered with instancing enabled.
+ * <p>
+ * This geometry is never attached to the scene graph: its world light list
+ * and world bound are assigned directly by {@link #beginDraws} and
+ * {@link #addDraw}.
+ */
+public class IndirectGeometry extends Geometry {
+
+    private static final int INSTANCE_SIZE = 16;
+    private static final int COMMAND_SIZE = 5 * 4;
+
+    private final BufferObject commands = new BufferObject();
+    private VertexBuffer transformInstanceData;
+    private final VertexBuffer[] allInstanceData = new VertexBuffer[1];
+    private int capacity;
+    private int drawCount;
+
+    /**
+     * Creates an indirect geometry with the specified name.
+     *
+     * @param name The name of the spatial.
+     */
+    public IndirectGeometry(String name) {
+        super(name);
+        setIgnoreTransform(true);
+        setBatchHint(BatchHint.Never);
+        commands.setAccessHint(BufferObject.AccessHint.Stream);
+        ensureCapacity(16);
+    }
+
+    /**
+     * Starts a new set of draws, discarding the previous ones.
+     *
+     * @param packedMesh the indexed mesh the draws read from
+     * @param material the material shared by all draws
+     * @param lights the lights shared by all draws
+     */
+    public void beginDraws(Mesh packedMesh, Material material, LightList lights) {
+        setMesh(packedMesh);
+        setMaterial(material);
+        worldLights.clear();
+        for (int i = 0; i < lights.size(); i++) {
+            worldLights.add(lights.get(i));
+        }
+        worldBound = null;
+        drawCount = 0;
+        ((FloatBuffer) transformInstanceData.getData()).clear();
+    }
+
+    /**
+     * Appends a draw of a range of the packed mesh.
+     *
+     * @param indexCount the number of indices to draw
+     * @param firstIndex the first index of the range
+     * @param baseVertex the value added to each index
+     * @param worldMatrix the world transform of the draw
+     * @param bound the world bound of the draw, or null
+     */
+    public void addDraw(int indexCount, int firstIndex, int baseVertex,
+            Matrix4f worldMatrix, BoundingVolume bound) {
+        ensureCapacity(drawCount + 1);
+
+        ByteBuffer data = commands.getData();
+        int offset = drawCount * COMMAND_SIZE;
+        data.putInt(offset, indexCount);
+        data.putInt(offset + 4, 1);
+        data.putInt(offset + 8, firstIndex);
+        data.putInt(offset + 12, baseVertex);
+        data.putInt(offset + 16, drawCount);
+
+        TempVars vars = TempVars.get();
+        float[] temp = vars.matrixWrite;
+        InstancedGeometry.updateInstance(worldMatrix, temp, 0, vars.tempMat3, vars.quat1);
+        ((FloatBuffer) transformInstanceData.getData()).put(temp);
+        vars.release();
+
+        if (bound != null) {
+            if (worldBound == null) {
+                worldBound = bound.clone();
+            } else {
+                worldBound = worldBound.mergeLocal(bound);
+            }
+        }
+        drawCount++;
+    }
+
+    /**
+     * Finishes the current set of draws and marks the buffers for upload.
+     */
+    public void endDraws() {
+        FloatBuffer fb = (FloatBuffer) transformInstanceData.getData();
+        fb.flip();
+        transformInstanceData.updateData(fb);
+        commands.setUpdateNeeded();
+        // the world state was assigned directly, nothing to recompute
+        refreshFlags = 0;
+    }
+
+    private void ensureCapacity(int draws) {
+        if (draws <= capacity) {
+            return;
+        }
+        int newCapacity = Math.max(draws, capacity * 2);
+
+        byte[] written = new byte[drawCount * COMMAND_SIZE];
+        if (capacity > 0) {
+            commands.getData().get(written);
+        }
+        commands.initializeEmpty(newCapacity * COMMAND_SIZE);
+        commands.getData().put(written);
+
+        FloatBuffer transforms = BufferUtils.createFloatBuffer(newCapacity * INSTANCE_SIZE);
+        if (transformInstanceData == null) {
+            transformInstanceData = new VertexBuffer(Type.InstanceData);
+            transformInstanceData.setInstanced(true);
+            transformInstanceData.setupData(Usage.Stream, INSTANCE_SIZE, Format.Float, transforms);
+            allInstanceData[0] = transformInstanceData;
+        } else {
+            FloatBuffer old = (FloatBuffer) transformInstanceData.getData();
+            old.flip();
+            transforms.put(old);
+            BufferUtils.destroyDirectBuffer(old);
+            transformInstanceData.updateData(transforms);
+        }
+        capacity = newCapacity;
+    }
+
+    /**
+     * Returns the draw commands, five unsigned integers per draw.
+     *
+     * @return the command buffer
+     */
+    public BufferObject getCommands() {
+        return commands;
+    }
+
+    /**
+     * Returns the number of draws added since {@link #beginDraws}.
+     *
+     * @return the draw count
+     */
+    public int getDrawCount() {
+        return drawCount;
+    }
+
+    /**
+     * Returns the per-draw instance data used by the renderer.
+     *
+     * @return the instance data buffers
+     */
+    public VertexBuffer[] getAllInstanceData() {
+        return allInstanceData;
+    }
+}
@@ -46,15 +46,18 @@ import com.jme3.math.Quaternion;
 import com.jme3.renderer.Camera;
 import com.jme3.renderer.Camera.FrustumIntersect;
 import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
 import com.jme3.scene.Spatial;
 import com.jme3.scene.VertexBuffer;
 import com.jme3.scene.VertexBuffer.Format;
 import com.jme3.scene.VertexBuffer.Type;
 import com.jme3.scene.VertexBuffer.Usage;
+import com.jme3.shader.bufferobject.BufferObject;
 import com.jme3.util.BufferUtils;
 import com.jme3.util.TempVars;
 import com.jme3.util.clone.Cloner;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -63,6 +66,8 @@ import java.util.function.BiFunction;
 public class InstancedGeometry extends Geometry {
 
     private static final int INSTANCE_SIZE = 16;
+    private static final int MATRIX_SIZE = 12;
+    private static final int COMMAND_SIZE = 5 * 4;
 
     private static BiFunction<Camera, Geometry, Boolean> instanceCullingFunction = new DefaultInstanceCullingFunction();
 
@@ -77,6 +82,15 @@ public class InstancedGeometry extends Geometry {
     private int numVisibleInstances = 0;
     private Camera cam;
 
+    // Resident mode: instance i always lives at slot i of the transform
+    // buffer, only the slots whose world matrix changed are re-encoded
+    // and visible runs of slots are drawn with indirect commands.
+    private boolean residentInstances;
+    private boolean residentActive;
+    private float[] residentMatrices;
+    private BufferObject commands;
+    private int drawCount;
+
     public InstancedGeometry() {
         super();
         setIgnoreTransform(true);
@@ -164,7 +178,7 @@ public class InstancedGeometry extends Geometry {
         return transformInstanceData;
     }
 
-    private void updateInstance(Matrix4f worldMatrix, float[] store,
+    static void updateInstance(Matrix4f worldMatrix, float[] store,
                                 int offset, Matrix3f tempMat3,
                                 Quaternion tempQuat) {
         worldMatrix.toRotationMatrix(tempMat3);
@@ -221,6 +235,7 @@ public class InstancedGeometry extends Geometry {
         }
 
         // Resize instance data.
+        residentMatrices = null;
         if (transformInstanceData != null) {
             BufferUtils.destroyDirectBuffer(transformInstanceData.getData());
             transformInstanceData.updateData(BufferUtils.createFloatBuffer(geometries.length * INSTANCE_SIZE));
@@ -239,6 +254,67 @@ public class InstancedGeometry extends Geometry {
         return geometries.length;
     }
 
+    /**
+     * Enables or disables resident instance data.
+     * <p>
+     * When enabled, every instance keeps a fixed slot in the transform
+     * buffer and only the instances whose world transform changed since the
+     * last update are re-encoded and sent to the GPU. Instances are still
+     * culled individually, but instead of compacting the visible transforms
+     * each frame, every run of consecutive visible instances becomes one
+     * command of a multi-draw indirect call.
+     * <p>
+     * The resident path requires an indexed mesh drawn at LOD level 0 and a
+     * renderer supporting {@link com.jme3.renderer.Caps#MultiDrawIndirect};
+     * otherwise the instances are updated the regular way.
+     * {@link InstancedNode#setResidentInstances(boolean) } enables it only
+     * when the renderer supports it.
+     *
+     * @param residentInstances true to keep instance data resident
+     */
+    public void setResidentInstances(boolean residentInstances) {
+        if (this.residentInstances != residentInstances) {
+            this.residentInstances = residentInstances;
+            residentMatrices = null;
+        }
+    }
+
+    /**
+     * @return true if resident instance data is enabled
+     * @see #setResidentInstances(boolean)
+     */
+    public boolean isResidentInstances() {
+        return residentInstances;
+    }
+
+    /**
+     * Returns true if the last {@link #updateInstances(com.jme3.renderer.Camera) }
+     * used the resident path, in which case the instances must be drawn with
+     * {@link #getCommands() } instead of {@link #getNumVisibleInstances() }.
+     *
+     * @return true if the instances are drawn indirectly
+     */
+    public boolean isDrawnIndirect() {
+        return residentActive;
+    }
+
+    /**
+     * Returns the indirect draw commands written by the resident path,
+     * five unsigned integers per command.
+     *
+     * @return the command buffer, or null if the resident path was never used
+     */
+    public BufferObject getCommands() {
+        return commands;
+    }
+
+    /**
+     * @return the number of indirect draw commands written by the last update
+     */
+    public int getDrawCount() {
+        return drawCount;
+    }
+
     /**
      * @return The number of instances are visible by camera.
      */
@@ -284,6 +360,16 @@ public class InstancedGeometry extends Geometry {
     }
 
     public void updateInstances(Camera cam) {
+        boolean resident = residentInstances && canDrawResident();
+        if (resident != residentActive) {
+            residentActive = resident;
+            residentMatrices = null;
+        }
+        if (resident) {
+            updateResidentInstances(cam);
+            return;
+        }
+
         FloatBuffer fb = (FloatBuffer) transformInstanceData.getData();
         fb.limit(fb.capacity());
         fb.position(0);
@@ -335,6 +421,136 @@ public class InstancedGeometry extends Geometry {
         transformInstanceData.updateData(fb);
     }
 
+    private boolean canDrawResident() {
+        Mesh mesh = getMesh();
+        return getLodLevel() == 0 && mesh != null && mesh.getBuffer(Type.Index) != null;
+    }
+
+    private void updateResidentInstances(Camera cam) {
+        FloatBuffer fb = (FloatBuffer) transformInstanceData.getData();
+        boolean fullUpdate = residentMatrices == null;
+        if (fullUpdate) {
+            residentMatrices = new float[geometries.length * MATRIX_SIZE];
+        }
+        // a run needs at least one culled instance after it
+        ensureCommandCapacity(firstUnusedIndex / 2 + 1);
+        ByteBuffer data = commands.getData();
+        int indexCount = getMesh().getBuffer(Type.Index).getNumElements();
+
+        int dirtyStart = -1;
+        int dirtyEnd = -1;
+        int runStart = -1;
+        int numCulledGeometries = 0;
+        drawCount = 0;
+
+        TempVars vars = TempVars.get();
+        {
+            float[] temp = vars.matrixWrite;
+
+            for (int i = 0; i < firstUnusedIndex; i++) {
+                Geometry geom = geometries[i];
+
+                if (geom == null) {
+                    geom = geometries[firstUnusedIndex - 1];
+
+                    if (geom == null) {
+                        throw new AssertionError();
+                    }
+
+                    swap(i, firstUnusedIndex - 1);
+
+                    while (geometries[firstUnusedIndex -1] == null) {
+                        firstUnusedIndex--;
+                    }
+                }
+
+                Matrix4f worldMatrix = geom.getWorldMatrix();
+                if (fullUpdate || !matchesResidentMatrix(worldMatrix, i)) {
+                    storeResidentMatrix(worldMatrix, i);
+                    updateInstance(worldMatrix, temp, 0, vars.tempMat3, vars.quat1);
+                    fb.position(i * INSTANCE_SIZE);
+                    fb.put(temp);
+                    if (dirtyStart == -1) {
+                        dirtyStart = i;
+                    }
+                    dirtyEnd = i + 1;
+                }
+
+                boolean culled = cam != null && instanceCullingFunction != null
+                        && instanceCullingFunction.apply(cam, geom);
+                if (culled) {
+                    numCulledGeometries++;
+                    if (runStart != -1) {
+                        putCommand(data, indexCount, runStart, i - runStart);
+                        runStart = -1;
+                    }
+                } else if (runStart == -1) {
+                    runStart = i;
+                }
+            }
+        }
+        vars.release();
+
+        if (runStart != -1) {
+            putCommand(data, indexCount, runStart, firstUnusedIndex - runStart);
+        }
+        numVisibleInstances = firstUnusedIndex - numCulledGeometries;
+        commands.setUpdateNeeded();
+
+        fb.clear();
+        if (fullUpdate) {
+            transformInstanceData.updateData(fb);
+        } else if (dirtyStart != -1) {
+            transformInstanceData.updateDataRange(dirtyStart, dirtyEnd - dirtyStart);
+        }
+    }
+
+    private boolean matchesResidentMatrix(Matrix4f m, int index) {
+        float[] stored = residentMatrices;
+        int o = index * MATRIX_SIZE;
+        return stored[o] == m.m00 && stored[o + 1] == m.m10 && stored[o + 2] == m.m20
+                && stored[o + 3] == m.m01 && stored[o + 4] == m.m11 && stored[o + 5] == m.m21
+                && stored[o + 6] == m.m02 && stored[o + 7] == m.m12 && stored[o + 8] == m.m22
+                && stored[o + 9] == m.m03 && stored[o + 10] == m.m13 && stored[o + 11] == m.m23;
+    }
+
+    private void storeResidentMatrix(Matrix4f m, int index) {
+        float[] stored = residentMatrices;
+        int o = index * MATRIX_SIZE;
+        stored[o] = m.m00;
+        stored[o + 1] = m.m10;
+        stored[o + 2] = m.m20;
+        stored[o + 3] = m.m01;
+        stored[o + 4] = m.m11;
+        stored[o + 5] = m.m21;
+        stored[o + 6] = m.m02;
+        stored[o + 7] = m.m12;
+        stored[o + 8] = m.m22;
+        stored[o + 9] = m.m03;
+        stored[o + 10] = m.m13;
+        stored[o + 11] = m.m23;
+    }
+
+    private void putCommand(ByteBuffer data, int indexCount, int firstInstance, int instanceCount) {
+        int offset = drawCount * COMMAND_SIZE;
+        data.putInt(offset, indexCount);
+        data.putInt(offset + 4, instanceCount);
+        data.putInt(offset + 8, 0);
+        data.putInt(offset + 12, 0);
+        data.putInt(offset + 16, firstInstance);
+        drawCount++;
+    }
+
+    private void ensureCommandCapacity(int count) {
+        if (commands == null) {
+            commands = new BufferObject();
+            commands.setAccessHint(BufferObject.AccessHint.Dynamic);
+        } else if (commands.getData().capacity() >= count * COMMAND_SIZE) {
+            return;
+        }
+        commands.initializeEmpty(Math.max(count, 16) * COMMAND_SIZE);
+    }
+
     public void deleteInstance(Geometry geom) {
         int idx = InstancedNode.getGeometryStartIndex2(geom);
         InstancedNode.setGeometryStartIndex2(geom, -1);
@@ -445,6 +661,9 @@ public class InstancedGeometry extends Geometry {
         this.transformInstanceData = cloner.clone(transformInstanceData);
         this.allInstanceData = cloner.clone(allInstanceData);
         this.geometries = cloner.clone(geometries);
+        this.residentMatrices = null;
+        this.commands = null;
+        this.drawCount = 0;
     }
 
     @Override
@@ -478,6 +697,8 @@ public class InstancedGeometry extends Geometry {
         transformInstanceData = null;
         allInstanceData = null;
         geometries = null;
+        residentMatrices = null;
+        commands = null;
     }
 
     /**
@@ -36,6 +36,7 @@ import com.jme3.export.JmeImporter;
 import com.jme3.material.MatParam;
 import com.jme3.material.Material;
 import com.jme3.renderer.Camera;
+import com.jme3.renderer.Caps;
 import com.jme3.renderer.RenderManager;
 import com.jme3.renderer.ViewPort;
 import com.jme3.renderer.queue.RenderQueue;
@@ -162,7 +163,7 @@ public class InstancedNode extends GeometryGroupNode {
 
         @Override
         public void render(RenderManager rm, ViewPort vp) {
-            node.renderFromControl(vp.getCamera());
+            node.renderFromControl(rm, vp.getCamera());
         }
 
         @Override
@@ -181,6 +182,8 @@ public class InstancedNode extends GeometryGroupNode {
 
     private InstanceTypeKey lookUp = new InstanceTypeKey();
 
+    private boolean residentInstances;
+
     private HashMap<InstanceTypeKey, InstancedGeometry> instancesMap =
             new HashMap<>();
 
@@ -199,8 +202,31 @@ public class InstancedNode extends GeometryGroupNode {
         addControl(control);
     }
 
-    private void renderFromControl(Camera cam) {
+    /**
+     * Enables or disables resident instance data for the instanced
+     * geometries of this node. It is only used when the renderer supports
+     * {@link Caps#MultiDrawIndirect}.
+     *
+     * @param residentInstances true to keep instance data resident
+     * @see InstancedGeometry#setResidentInstances(boolean)
+     */
+    public void setResidentInstances(boolean residentInstances) {
+        this.residentInstances = residentInstances;
+    }
+
+    /**
+     * @return true if resident instance data is enabled
+     * @see #setResidentInstances(boolean)
+     */
+    public boolean isResidentInstances() {
+        return residentInstances;
+    }
+
+    private void renderFromControl(RenderManager rm, Camera cam) {
+        boolean resident = residentInstances
+                && rm.getRenderer().getCaps().contains(Caps.MultiDrawIndirect);
         for (InstancedGeometry ig : instancesMap.values()) {
+            ig.setResidentInstances(resident);
             ig.updateInstances(cam);
         }
     }
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2009-2025 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.scene.portal;
+
+import com.jme3.bounding.BoundingBox;
+import com.jme3.export.InputCapsule;
+import com.jme3.export.JmeExporter;
+import com.jme3.export.JmeImporter;
+import com.jme3.export.OutputCapsule;
+import com.jme3.renderer.Camera;
+import com.jme3.scene.Node;
+import com.jme3.util.clone.Cloner;
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * A room or other enclosed area of a {@link PortalNode}. The contents of a
+ * cell are only rendered when the cell can be seen through the portals that
+ * lead to it from the cell containing the camera.
+ *
+ * <p>The region of a cell is the volume used to locate the camera. It is
+ * given in the local space of the portal node; if no region is set, the
+ * world bound of the cell is used instead.
+ */
+public class Cell extends Node {
+
+    private BoundingBox region;
+
+    // portals leading out of this cell, rebuilt by the portal node
+    transient ArrayList<Portal> portals = new ArrayList<>();
+    // visibility state of the last PortalNode.cull() pass
+    transient int visibleStamp;
+    transient float[] rect = new float[4];
+    transient int shadowStamp;
+    transient int shadowDepth;
+    transient Camera clippedCamera;
+
+    /**
+     * Serialization only. Do not use.
+     */
+    protected Cell() {
+        super();
+    }
+
+    /**
+     * Creates a cell without a region.
+     *
+     * @param name the name of the cell (may be null)
+     */
+    public Cell(String name) {
+        super(name);
+    }
+
+    /**
+     * Creates a cell with the given region.
+     *
+     * @param name the name of the cell (may be null)
+     * @param region the volume of the cell, in the local space of the portal
+     *     node (alias created) or null
+     */
+    public Cell(String name, BoundingBox region) {
+        super(name);
+        this.region = region;
+    }
+
+    /**
+     * Sets the volume used to decide whether the camera is inside this cell.
+     *
+     * @param region the volume, in the local space of the portal node
+     *     (alias created), or null to use the world bound of the cell
+     */
+    public void setRegion(BoundingBox region) {
+        this.region = region;
+    }
+
+    /**
+     * Returns the volume used to decide whether the camera is inside this
+     * cell.
+     *
+     * @return the pre-existing region, or null if the world bound is used
+     */
+    public BoundingBox getRegion() {
+        return region;
+    }
+
+    @Override
+    public void cloneFields(Cloner cloner, Object original) {
+        super.cloneFields(cloner, original);
+        region = cloner.clone(region);
+
+        // per-frame state belongs to the original
+        portals = new ArrayList<>();
+        visibleStamp = 0;
+        rect = new float[4];
+        shadowStamp = 0;
+        shadowDepth = 0;
+        clippedCamera = null;
+    }
+
+    @Override
+    public void write(JmeExporter ex) throws IOException {
+        super.write(ex);
+        OutputCapsule oc = ex.getCapsule(this);
+        oc.write(region, "region", null);
+    }
+
+    @Override
+    public void read(JmeImporter im) throws IOException {
+        super.read(im);
+        InputCapsule ic = im.getCapsule(this);
+        region = (BoundingBox) ic.readSavable("region", null);
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2009-2025 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.scene.portal;
+
+import com.jme3.export.InputCapsule;
+import com.jme3.export.JmeExporter;
+import com.jme3.export.JmeImporter;
+import com.jme3.export.OutputCapsule;
+import com.jme3.export.Savable;
+import com.jme3.math.Vector3f;
+import com.jme3.util.clone.Cloner;
+import com.jme3.util.clone.JmeCloneable;
+import java.io.IOException;
+
+/**
+ * An opening, such as a doorway or a window, through which one
+ * {@link Cell} of a {@link PortalNode} can be seen from another.
+ *
+ * <p>The opening is a convex polygon given in the local space of the portal
+ * node. Portals are two-sided and can be closed, for example while the door
+ * they belong to is shut.
+ */
+public class Portal implements Savable, JmeCloneable {
+
+    private Cell cellA;
+    private Cell cellB;
+    private Vector3f[] points;
+    private boolean open = true;
+
+    /**
+     * Serialization only. Do not use.
+     */
+    protected Portal() {
+    }
+
+    /**
+     * Creates an open portal between two cells.
+     *
+     * @param cellA the cell on one side (not null, alias created)
+     * @param cellB the cell on the other side (not null, alias created)
+     * @param points the corners of the opening, in the local space of the
+     *     portal node (at least 3, not null, alias created)
+     */
+    public Portal(Cell cellA, Cell cellB, Vector3f... points) {
+        if (cellA == null || cellB == null) {
+            throw new IllegalArgumentException("cells cannot be null");
+        }
+        if (cellA == cellB) {
+            throw new IllegalArgumentException("a portal must connect two different cells");
+        }
+        if (points == null || points.length < 3) {
+            throw new IllegalArgumentException("a portal needs at least 3 points");
+        }
+        this.cellA = cellA;
+        this.cellB = cellB;
+        this.points = points;
+    }
+
+    /**
+     * Returns the cell on one side of the portal.
+     *
+     * @return the pre-existing cell
+     */
+    public Cell getCellA() {
+        return cellA;
+    }
+
+    /**
+     * Returns the cell on the other side of the portal.
+     *
+     * @return the pre-existing cell
+     */
+    public Cell getCellB() {
+        return cellB;
+    }
+
+    /**
+     * Returns the cell on the opposite side of the portal from the given
+     * one.
+     *
+     * @param cell one of the cells of the portal
+     * @return the pre-existing cell on the other side
+     */
+    public Cell getOtherCell(Cell cell) {
+        return cell == cellA ? cellB : cellA;
+    }
+
+    /**
+     * Returns the corners of the opening.
+     *
+     * @return the pre-existing array, in the local space of the portal node
+     */
+    public Vector3f[] getPoints() {
+        return points;
+    }
+
+    /**
+     * Opens or closes the portal. Nothing can be seen through a closed
+     * portal.
+     *
+     * @param open true to open the portal (default=true)
+     */
+    public void setOpen(boolean open) {
+        this.open = open;
+    }
+
+    /**
+     * Tests whether the portal is open.
+     *
+     * @return true if open
+     */
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public Object jmeClone() {
+        try {
+            return super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new RuntimeException("Can't clone portal", e);
+        }
+    }
+
+    @Override
+    public void cloneFields(Cloner cloner, Object original) {
+        cellA = cloner.clone(cellA);
+        cellB = cloner.clone(cellB);
+        Vector3f[] copy = new Vector3f[points.length];
+        for (int i = 0; i < points.length; i++) {
+            copy[i] = points[i].clone();
+        }
+        points = copy;
+    }
+
+    @Override
+    public void write(JmeExporter ex) throws IOException {
+        OutputCapsule oc = ex.getCapsule(this);
+        oc.write(cellA, "cellA", null);
+        oc.write(cellB, "cellB", null);
+        oc.write(points, "points", null);
+        oc.write(open, "open", true);
+    }
+
+    @Override
+    public void read(JmeImporter im) throws IOException {
+        InputCapsule ic = im.getCapsule(this);
+        cellA = (Cell) ic.readSavable("cellA", null);
+        cellB = (Cell) ic.readSavable("cellB", null);
+        Savable[] saved = ic.readSavableArray("points", null);
+        points = new Vector3f[saved.length];
+        for (int i = 0; i < saved.length; i++) {
+            points[i] = (Vector3f) saved[i];
+        }
+        open = ic.readBoolean("open", true);
+    }
+}
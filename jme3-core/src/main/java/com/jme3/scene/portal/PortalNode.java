@@ -0,0 +1,571 @@
+/*
+ * Copyright (c) 2009-2025 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.scene.portal;
+
+import com.jme3.bounding.BoundingBox;
+import com.jme3.bounding.BoundingVolume;
+import com.jme3.export.InputCapsule;
+import com.jme3.export.JmeExporter;
+import com.jme3.export.JmeImporter;
+import com.jme3.export.OutputCapsule;
+import com.jme3.math.Matrix4f;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.Camera;
+import com.jme3.scene.Node;
+import com.jme3.scene.Spatial;
+import com.jme3.util.clone.Cloner;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A node that divides an indoor scene into {@link Cell cells} connected by
+ * {@link Portal portals}.
+ *
+ * <p>When the scene is rendered, the cell containing the camera is located
+ * and the screen rectangle of every open portal leading out of it is
+ * projected. A cell behind a portal is only visible if that rectangle is
+ * not empty, and the portals leading out of that cell are clipped against
+ * it in turn. Cells that cannot be reached this way are skipped together
+ * with their whole subtree, and the contents of the cells that are reached
+ * are frustum culled with the camera frustum narrowed to the rectangle they
+ * are seen through.
+ *
+ * <p>Children that are not cells are always visited, and if the camera is
+ * not inside any cell every cell is visited with the full frustum. The
+ * visibility of the last pass also restricts the shadow casters gathered
+ * by the {@link com.jme3.shadow.ShadowUtil shadow utilities}, see
+ * {@link #setShadowCasterDepth(int)}.
+ */
+public class PortalNode extends Node {
+
+    /**
+     * The default maximum number of portals followed from the camera cell.
+     */
+    public static final int DEFAULT_MAX_PORTAL_DEPTH = 32;
+
+    private static final float MIN_W = 1e-5f;
+
+    private ArrayList<Portal> portals = new ArrayList<>();
+    private int maxPortalDepth = DEFAULT_MAX_PORTAL_DEPTH;
+    private int shadowCasterDepth = -1;
+
+    // state of the last cull() pass, 0 if no pass has run yet
+    private transient int stamp;
+    private transient Cell cameraCell;
+    private transient ArrayList<Spatial> visibleChildren = new ArrayList<>();
+    private transient ArrayList<Cell> visibleCells = new ArrayList<>();
+    private transient ArrayList<Spatial> shadowChildren = new ArrayList<>();
+    private transient ArrayList<Cell> shadowQueue = new ArrayList<>();
+    private transient int shadowStamp;
+    private transient Matrix4f viewProj;
+    private transient float[] bounds = new float[4];
+    private transient float[] clipIn = new float[0];
+    private transient float[] clipOut = new float[0];
+    private transient Vector3f tempVec = new Vector3f();
+
+    /**
+     * Serialization only. Do not use.
+     */
+    public PortalNode() {
+        super();
+    }
+
+    /**
+     * Creates a portal node without cells.
+     *
+     * @param name the name of the node (may be null)
+     */
+    public PortalNode(String name) {
+        super(name);
+    }
+
+    /**
+     * Adds a portal between two cells. Both cells must be children of this
+     * node.
+     *
+     * @param portal the portal to add (not null, alias created)
+     */
+    public void addPortal(Portal portal) {
+        if (portal.getCellA().getParent() != this || portal.getCellB().getParent() != this) {
+            throw new IllegalArgumentException("The cells of the portal must be children of this node");
+        }
+        portals.add(portal);
+    }
+
+    /**
+     * Removes a portal.
+     *
+     * @param portal the portal to remove
+     * @return true if the portal was removed, false if it wasn't found
+     */
+    public boolean removePortal(Portal portal) {
+        return portals.remove(portal);
+    }
+
+    /**
+     * Returns the portals of this node. Portals whose cells have been
+     * detached from this node are ignored.
+     *
+     * @return an unmodifiable list of portals
+     */
+    public List<Portal> getPortals() {
+        return Collections.unmodifiableList(portals);
+    }
+
+    /**
+     * Sets the maximum number of portals followed from the cell containing
+     * the camera.
+     *
+     * @param maxPortalDepth the maximum depth (&ge;0,
+     *     default={@value #DEFAULT_MAX_PORTAL_DEPTH})
+     */
+    public void setMaxPortalDepth(int maxPortalDepth) {
+        if (maxPortalDepth < 0) {
+            throw new IllegalArgumentException("maxPortalDepth cannot be negative");
+        }
+        this.maxPortalDepth = maxPortalDepth;
+    }
+
+    /**
+     * Returns the maximum number of portals followed from the cell containing
+     * the camera.
+     *
+     * @return the maximum depth
+     */
+    public int getMaxPortalDepth() {
+        return maxPortalDepth;
+    }
+
+    /**
+     * Restricts the shadow casters of this node to the cells near the
+     * visible ones. Casters are gathered from the cells that were visible in
+     * the last pass and from the cells up to <code>shadowCasterDepth</code>
+     * open portals away from them, since those can cast shadows through the
+     * portals. A negative depth gathers casters from every cell.
+     *
+     * @param shadowCasterDepth the number of portals a shadow may pass
+     *     through, or a negative value for no restriction (default=-1)
+     */
+    public void setShadowCasterDepth(int shadowCasterDepth) {
+        this.shadowCasterDepth = shadowCasterDepth;
+    }
+
+    /**
+     * Returns the number of portals a shadow may pass through.
+     *
+     * @return the depth, negative if shadow casters are not restricted
+     * @see #setShadowCasterDepth(int)
+     */
+    public int getShadowCasterDepth() {
+        return shadowCasterDepth;
+    }
+
+    /**
+     * Finds the cell that contains the given location.
+     *
+     * @param worldLocation the location in world space (not null, unaffected)
+     * @return the first child cell containing the location, or null if none
+     */
+    public Cell findCell(Vector3f worldLocation) {
+        Vector3f local = worldToLocal(worldLocation, tempVec);
+        List<Spatial> children = getChildren();
+        for (int i = 0; i < children.size(); i++) {
+            Spatial child = children.get(i);
+            if (!(child instanceof Cell)) {
+                continue;
+            }
+            Cell cell = (Cell) child;
+            BoundingBox region = cell.getRegion();
+            if (region != null) {
+                if (region.intersects(local)) {
+                    return cell;
+                }
+            } else {
+                BoundingVolume bound = cell.getWorldBound();
+                if (bound != null && bound.intersects(worldLocation)) {
+                    return cell;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the cell that contained the camera in the last pass.
+     *
+     * @return the cell, or null if the camera was outside every cell
+     */
+    public Cell getCameraCell() {
+        return cameraCell;
+    }
+
+    /**
+     * Tests whether a cell was visible in the last pass.
+     *
+     * @param cell the cell to test (not null)
+     * @return true if visible, or if no pass has run yet
+     */
+    public boolean isCellVisible(Cell cell) {
+        return cell.getParent() == this && (stamp == 0 || cell.visibleStamp == stamp);
+    }
+
+    /**
+     * Determines the cells that are visible from the given camera. This is
+     * called by the <code>RenderManager</code> when the scene is rendered;
+     * the children it returns are the ones that need to be visited.
+     *
+     * @param cam the camera to cull with (not null, unaffected)
+     * @return the children that are not cells and the visible cells
+     *     (a reused internal list, valid until the next pass)
+     */
+    public List<Spatial> cull(Camera cam) {
+        stamp++;
+        if (stamp == 0) {
+            stamp = 1;
+        }
+        visibleChildren.clear();
+        visibleCells.clear();
+        linkPortals();
+
+        List<Spatial> children = getChildren();
+        cameraCell = findCell(cam.getLocation());
+        if (cameraCell == null) {
+            for (int i = 0; i < children.size(); i++) {
+                Spatial child = children.get(i);
+                if (child instanceof Cell) {
+                    markVisible((Cell) child, -1f, -1f, 1f, 1f);
+                }
+                visibleChildren.add(child);
+            }
+            return visibleChildren;
+        }
+
+        viewProj = cam.getViewProjectionMatrix();
+        flood(cameraCell, -1f, -1f, 1f, 1f, 0);
+        viewProj = null;
+
+        for (int i = 0; i < children.size(); i++) {
+            Spatial child = children.get(i);
+            if (!(child instanceof Cell) || ((Cell) child).visibleStamp == stamp) {
+                visibleChildren.add(child);
+            }
+        }
+        for (int i = 0; i < visibleCells.size(); i++) {
+            clipCamera(visibleCells.get(i), cam);
+        }
+        return visibleChildren;
+    }
+
+    /**
+     * Returns the camera to cull the contents of a child with in the last
+     * pass. For a cell that is seen through portals, this is a copy of the
+     * camera whose frustum is narrowed to the screen rectangle of the
+     * portals.
+     *
+     * @param child a child returned by {@link #cull(com.jme3.renderer.Camera)}
+     * @return the narrowed camera, or null to use the original camera
+     */
+    public Camera getCellCamera(Spatial child) {
+        if (!(child instanceof Cell)) {
+            return null;
+        }
+        Cell cell = (Cell) child;
+        if (cell.visibleStamp != stamp || cell.getParent() != this || isFullScreen(cell.rect)) {
+            return null;
+        }
+        return cell.clippedCamera;
+    }
+
+    /**
+     * Returns the children that may cast shadows into the cells visible in
+     * the last pass.
+     *
+     * @return the children, or all children if shadow casters are not
+     *     restricted or no pass has run yet
+     * @see #setShadowCasterDepth(int)
+     */
+    public List<Spatial> getShadowChildren() {
+        if (shadowCasterDepth < 0 || stamp == 0 || cameraCell == null) {
+            return getChildren();
+        }
+        if (shadowStamp == stamp) {
+            return shadowChildren;
+        }
+        shadowStamp = stamp;
+
+        // breadth-first through the open portals, starting at the visible cells
+        shadowQueue.clear();
+        for (int i = 0; i < visibleCells.size(); i++) {
+            Cell cell = visibleCells.get(i);
+            cell.shadowStamp = stamp;
+            cell.shadowDepth = 0;
+            shadowQueue.add(cell);
+        }
+        for (int i = 0; i < shadowQueue.size(); i++) {
+            Cell cell = shadowQueue.get(i);
+            if (cell.shadowDepth >= shadowCasterDepth) {
+                continue;
+            }
+            for (int j = 0; j < cell.portals.size(); j++) {
+                Portal portal = cell.portals.get(j);
+                Cell next = portal.getOtherCell(cell);
+                if (portal.isOpen() && next.shadowStamp != stamp) {
+                    next.shadowStamp = stamp;
+                    next.shadowDepth = cell.shadowDepth + 1;
+                    shadowQueue.add(next);
+                }
+            }
+        }
+        shadowQueue.clear();
+
+        shadowChildren.clear();
+        List<Spatial> children = getChildren();
+        for (int i = 0; i < children.size(); i++) {
+            Spatial child = children.get(i);
+            if (!(child instanceof Cell) || ((Cell) child).shadowStamp == stamp) {
+                shadowChildren.add(child);
+            }
+        }
+        return shadowChildren;
+    }
+
+    @Override
+    public boolean checkCulling(Camera cam) {
+        boolean visible = super.checkCulling(cam);
+        if (frustrumIntersects == Camera.FrustumIntersect.Inside) {
+            // the cells are culled with narrowed frustums, so they must not
+            // inherit the result of the full one
+            frustrumIntersects = Camera.FrustumIntersect.Intersects;
+        }
+        return visible;
+    }
+
+    private void linkPortals() {
+        List<Spatial> children = getChildren();
+        for (int i = 0; i < children.size(); i++) {
+            Spatial child = children.get(i);
+            if (child instanceof Cell) {
+                ((Cell) child).portals.clear();
+            }
+        }
+        for (int i = 0; i < portals.size(); i++) {
+            Portal portal = portals.get(i);
+            Cell a = portal.getCellA();
+            Cell b = portal.getCellB();
+            if (a.getParent() == this && b.getParent() == this) {
+                a.portals.add(portal);
+                b.portals.add(portal);
+            }
+        }
+    }
+
+    private void markVisible(Cell cell, float x0, float y0, float x1, float y1) {
+        cell.visibleStamp = stamp;
+        cell.rect[0] = x0;
+        cell.rect[1] = y0;
+        cell.rect[2] = x1;
+        cell.rect[3] = y1;
+        visibleCells.add(cell);
+    }
+
+    /**
+     * Marks a cell as seen through the given rectangle, in normalized device
+     * coordinates, and follows its portals.
+     */
+    private void flood(Cell cell, float x0, float y0, float x1, float y1, int depth) {
+        float[] rect = cell.rect;
+        if (cell.visibleStamp != stamp) {
+            markVisible(cell, x0, y0, x1, y1);
+        } else if (x0 >= rect[0] && y0 >= rect[1] && x1 <= rect[2] && y1 <= rect[3]) {
+            // nothing new can be seen along this path
+            return;
+        } else {
+            rect[0] = Math.min(rect[0], x0);
+            rect[1] = Math.min(rect[1], y0);
+            rect[2] = Math.max(rect[2], x1);
+            rect[3] = Math.max(rect[3], y1);
+        }
+        if (depth >= maxPortalDepth) {
+            return;
+        }
+
+        ArrayList<Portal> cellPortals = cell.portals;
+        for (int i = 0; i < cellPortals.size(); i++) {
+            Portal portal = cellPortals.get(i);
+            if (!portal.isOpen() || !projectPortal(portal)) {
+                continue;
+            }
+            float nx0 = Math.max(x0, bounds[0]);
+            float ny0 = Math.max(y0, bounds[1]);
+            float nx1 = Math.min(x1, bounds[2]);
+            float ny1 = Math.min(y1, bounds[3]);
+            if (nx0 < nx1 && ny0 < ny1) {
+                flood(portal.getOtherCell(cell), nx0, ny0, nx1, ny1, depth + 1);
+            }
+        }
+    }
+
+    /**
+     * Computes the screen rectangle of a portal into bounds. The opening is
+     * clipped against the plane of the eye first, so the parts behind the
+     * camera don't count. The near plane is not used: the camera still sees
+     * through a doorway that is closer than the near plane.
+     *
+     * @return false if the portal is entirely behind the camera
+     */
+    private boolean projectPortal(Portal portal) {
+        Vector3f[] points = portal.getPoints();
+        int n = points.length;
+        if (clipIn.length < n * 4) {
+            clipIn = new float[n * 4];
+            clipOut = new float[(n + 1) * 4];
+        }
+        Matrix4f m = viewProj;
+        for (int i = 0; i < n; i++) {
+            Vector3f p = localToWorld(points[i], tempVec);
+            clipIn[i * 4] = m.m00 * p.x + m.m01 * p.y + m.m02 * p.z + m.m03;
+            clipIn[i * 4 + 1] = m.m10 * p.x + m.m11 * p.y + m.m12 * p.z + m.m13;
+            clipIn[i * 4 + 2] = m.m20 * p.x + m.m21 * p.y + m.m22 * p.z + m.m23;
+            clipIn[i * 4 + 3] = m.m30 * p.x + m.m31 * p.y + m.m32 * p.z + m.m33;
+        }
+
+        // Sutherland-Hodgman against the eye plane, w >= MIN_W
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            int j = (i + 1) % n;
+            float di = clipIn[i * 4 + 3] - MIN_W;
+            float dj = clipIn[j * 4 + 3] - MIN_W;
+            if (di >= 0f) {
+                System.arraycopy(clipIn, i * 4, clipOut, count * 4, 4);
+                count++;
+            }
+            if ((di >= 0f) != (dj >= 0f)) {
+                float t = di / (di - dj);
+                for (int k = 0; k < 4; k++) {
+                    float from = clipIn[i * 4 + k];
+                    clipOut[count * 4 + k] = from + (clipIn[j * 4 + k] - from) * t;
+                }
+                count++;
+            }
+        }
+        if (count == 0) {
+            return false;
+        }
+
+        float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            float w = Math.max(MIN_W, clipOut[i * 4 + 3]);
+            float x = clipOut[i * 4] / w;
+            float y = clipOut[i * 4 + 1] / w;
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+        }
+        bounds[0] = minX;
+        bounds[1] = minY;
+        bounds[2] = maxX;
+        bounds[3] = maxY;
+        return true;
+    }
+
+    private static boolean isFullScreen(float[] rect) {
+        return rect[0] <= -1f && rect[1] <= -1f && rect[2] >= 1f && rect[3] >= 1f;
+    }
+
+    private void clipCamera(Cell cell, Camera cam) {
+        float[] rect = cell.rect;
+        if (isFullScreen(rect)) {
+            return;
+        }
+        if (cell.clippedCamera == null) {
+            cell.clippedCamera = cam.clone();
+        } else {
+            cell.clippedCamera.copyFrom(cam);
+        }
+        float left = cam.getFrustumLeft();
+        float right = cam.getFrustumRight();
+        float bottom = cam.getFrustumBottom();
+        float top = cam.getFrustumTop();
+        float x0 = Math.max(-1f, rect[0]), x1 = Math.min(1f, rect[2]);
+        float y0 = Math.max(-1f, rect[1]), y1 = Math.min(1f, rect[3]);
+        cell.clippedCamera.setFrustum(cam.getFrustumNear(), cam.getFrustumFar(),
+                left + (x0 + 1f) * 0.5f * (right - left),
+                left + (x1 + 1f) * 0.5f * (right - left),
+                bottom + (y1 + 1f) * 0.5f * (top - bottom),
+                bottom + (y0 + 1f) * 0.5f * (top - bottom));
+        cell.clippedCamera.setPlaneState(0);
+    }
+
+    @Override
+    public void cloneFields(Cloner cloner, Object original) {
+        super.cloneFields(cloner, original);
+        portals = cloner.clone(portals);
+
+        // per-frame state belongs to the original
+        stamp = 0;
+        cameraCell = null;
+        visibleChildren = new ArrayList<>();
+        visibleCells = new ArrayList<>();
+        shadowChildren = new ArrayList<>();
+        shadowQueue = new ArrayList<>();
+        shadowStamp = 0;
+        bounds = new float[4];
+        clipIn = new float[0];
+        clipOut = new float[0];
+        tempVec = new Vector3f();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void write(JmeExporter ex) throws IOException {
+        super.write(ex);
+        OutputCapsule oc = ex.getCapsule(this);
+        oc.writeSavableArrayList(portals, "portals", null);
+        oc.write(maxPortalDepth, "maxPortalDepth", DEFAULT_MAX_PORTAL_DEPTH);
+        oc.write(shadowCasterDepth, "shadowCasterDepth", -1);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void read(JmeImporter im) throws IOException {
+        super.read(im);
+        InputCapsule ic = im.getCapsule(this);
+        ArrayList<Portal> saved = ic.readSavableArrayList("portals", null);
+        portals = saved != null ? saved : new ArrayList<>();
+        maxPortalDepth = ic.readInt("maxPortalDepth", DEFAULT_MAX_PORTAL_DEPTH);
+        shadowCasterDepth = ic.readInt("shadowCasterDepth", -1);
+    }
+}
@@ -0,0 +1,298 @@
+/*
+ * Copyright (c) 2009-2025 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.shader;
+
+import com.jme3.shader.Shader.ShaderSource;
+import com.jme3.util.BufferUtils;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Stores linked shader programs on disk, so that they are not compiled again
+ * the next time the application starts.
+ * <p>
+ * Programs are keyed by a hash of their sources, defines and languages, and of
+ * the driver that linked them, so a driver update simply misses the cache.
+ * Binaries the driver refuses anyway are removed with {@link #remove(String)}.
+ * <p>
+ * Set a cache with
+ * {@link com.jme3.renderer.Renderer#setProgramBinaryCache(ProgramBinaryCache)}.
+ * It is only used by renderers supporting
+ * {@link com.jme3.renderer.Caps#ProgramBinary}. Calling
+ * {@link com.jme3.renderer.RenderManager#preloadScene(com.jme3.scene.Spatial)}
+ * at load time fills it ahead of the first frame.
+ */
+public class ProgramBinaryCache {
+
+    private static final Logger logger = Logger.getLogger(ProgramBinaryCache.class.getName());
+
+    private static final int MAGIC = 0x4A4D5042; // JMPB
+    private static final int VERSION = 1;
+    private static final String EXTENSION = ".bin";
+
+    private final File directory;
+    private int hitCount;
+    private int missCount;
+    private int rejectedCount;
+
+    /**
+     * A program binary and its driver specific format.
+     */
+    public static final class Binary {
+
+        private final int format;
+        private final ByteBuffer data;
+
+        public Binary(int format, ByteBuffer data) {
+            this.format = format;
+            this.data = data;
+        }
+
+        /**
+         * @return the format of the binary, as reported by the driver
+         */
+        public int getFormat() {
+            return format;
+        }
+
+        /**
+         * @return the binary data, a direct buffer
+         */
+        public ByteBuffer getData() {
+            return data;
+        }
+    }
+
+    /**
+     * Creates a cache storing binaries in the given directory. The directory
+     * is created when the first binary is stored.
+     *
+     * @param directory the directory to store binaries in (not null)
+     */
+    public ProgramBinaryCache(File directory) {
+        if (directory == null) {
+            throw new IllegalArgumentException("directory cannot be null");
+        }
+        this.directory = directory;
+    }
+
+    /**
+     * @return the directory binaries are stored in
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Computes the key of a shader program.
+     *
+     * @param shader the shader (not null)
+     * @param driver a description of the driver, e.g. its vendor, renderer
+     * and version strings
+     * @return the key, a hexadecimal string
+     */
+    public String getKey(Shader shader, String driver) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+        update(digest, driver);
+        for (ShaderSource source : shader.getSources()) {
+            update(digest, source.getType().name());
+            update(digest, source.getLanguage());
+            update(digest, source.getDefines());
+            update(digest, source.getSource());
+        }
+
+        byte[] hash = digest.digest();
+        StringBuilder sb = new StringBuilder(hash.length * 2);
+        for (byte b : hash) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+            sb.append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        if (value != null) {
+            digest.update(value.getBytes(StandardCharsets.UTF_8));
+        }
+        // separator, so that moving text between fields changes the key
+        digest.update((byte) 0);
+    }
+
+    private File getFile(String key) {
+        return new File(directory, key + EXTENSION);
+    }
+
+    /**
+     * Loads the binary stored for a key.
+     *
+     * @param key the key computed by {@link #getKey(Shader, String)}
+     * @return the binary, or null if none is stored or the file is unreadable
+     */
+    public Binary load(String key) {
+        File file = getFile(key);
+        if (!file.isFile()) {
+            missCount++;
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a program binary");
+            }
+            int format = in.readInt();
+            int length = in.readInt();
+            if (length <= 0 || length > file.length()) {
+                throw new IOException("Invalid length " + length);
+            }
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+
+            ByteBuffer data = BufferUtils.createByteBuffer(length);
+            data.put(bytes).flip();
+            hitCount++;
+            return new Binary(format, data);
+        } catch (EOFException ex) {
+            logger.log(Level.WARNING, "Truncated program binary {0}, removing it", file);
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Cannot read program binary " + file + ", removing it", ex);
+        }
+        missCount++;
+        delete(file);
+        return null;
+    }
+
+    /**
+     * Stores the binary of a program. Failures are logged and otherwise
+     * ignored, the program just is not cached.
+     *
+     * @param key the key computed by {@link #getKey(Shader, String)}
+     * @param format the format of the binary
+     * @param data the binary data, from its position to its limit
+     */
+    public void store(String key, int format, ByteBuffer data) {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            logger.log(Level.WARNING, "Cannot create program binary directory {0}", directory);
+            return;
+        }
+
+        byte[] bytes = new byte[data.remaining()];
+        data.duplicate().get(bytes);
+
+        File file = getFile(key);
+        File temp = new File(directory, key + ".tmp");
+        try {
+            try (OutputStream os = new FileOutputStream(temp);
+                    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(format);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            // readers never see a partially written file
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Cannot write program binary " + file, ex);
+            delete(temp);
+        }
+    }
+
+    /**
+     * Removes the binary stored for a key. Called when the driver refuses a
+     * binary, e.g. after a driver update that kept its version string.
+     *
+     * @param key the key computed by {@link #getKey(Shader, String)}
+     */
+    public void remove(String key) {
+        rejectedCount++;
+        delete(getFile(key));
+    }
+
+    /**
+     * Removes every binary from the cache directory.
+     */
+    public void clear() {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(EXTENSION));
+        if (files != null) {
+            for (File file : files) {
+                delete(file);
+            }
+        }
+    }
+
+    private static void delete(File file) {
+        if (file.exists() && !file.delete()) {
+            logger.log(Level.WARNING, "Cannot delete {0}", file);
+        }
+    }
+
+    /**
+     * @return the number of binaries loaded from the cache
+     */
+    public int getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return the number of programs that were not in the cache
+     */
+    public int getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * @return the number of cached binaries refused by the driver
+     */
+    public int getRejectedCount() {
+        return rejectedCount;
+    }
+}
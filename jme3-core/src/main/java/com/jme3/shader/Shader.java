@@ -69,6 +69,16 @@ public final class Shader extends NativeObject {
      */
     private final IntMap<Attribute> attribs;
 
+    /**
+     * Layout of the packed material parameter block, or null.
+     */
+    private UniformBlockLayout materialBlockLayout;
+
+    /**
+     * Whether world parameters are read from the packed frame block.
+     */
+    private boolean frameBlock;
+
     /**
      * Type of shader. The shader will control the pipeline of its type.
      */
@@ -309,7 +319,7 @@ public final class Shader extends NativeObject {
      */
     public ShaderBufferBlock getBufferBlock(final String name) {
 
-        assert name.startsWith("m_");
+        assert name.startsWith("m_") || name.startsWith("g_");
 
         ShaderBufferBlock block = bufferBlocks.get(name);
 
@@ -359,6 +369,46 @@ public final class Shader extends NativeObject {
         return bufferBlocks;
     }
 
+    /**
+     * Returns the layout of the block holding the packed material parameters.
+     *
+     * @return the layout, or null if material parameters are plain uniforms
+     * @see UniformBlockPacker
+     */
+    public UniformBlockLayout getMaterialBlockLayout() {
+        return materialBlockLayout;
+    }
+
+    /**
+     * Sets the layout of the block holding the packed material parameters.
+     *
+     * @param materialBlockLayout the layout, or null
+     */
+    public void setMaterialBlockLayout(UniformBlockLayout materialBlockLayout) {
+        this.materialBlockLayout = materialBlockLayout;
+    }
+
+    /**
+     * Tests whether the per-frame world parameters are read from the packed
+     * frame block.
+     *
+     * @return true if the shader declares the frame block
+     * @see UniformBlockPacker
+     */
+    public boolean hasFrameBlock() {
+        return frameBlock;
+    }
+
+    /**
+     * Sets whether the per-frame world parameters are read from the packed
+     * frame block.
+     *
+     * @param frameBlock true if the shader declares the frame block
+     */
+    public void setFrameBlock(boolean frameBlock) {
+        this.frameBlock = frameBlock;
+    }
+
     public ArrayList<Uniform> getBoundUniforms() {
         return boundUniforms;
     }
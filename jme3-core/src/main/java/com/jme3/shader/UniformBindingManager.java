@@ -35,6 +35,7 @@ import com.jme3.material.Material;
 import com.jme3.math.*;
 import com.jme3.renderer.Camera;
 import com.jme3.renderer.RenderManager;
+import com.jme3.shader.bufferobject.BufferObject;
 import com.jme3.system.Timer;
 
 import java.util.ArrayList;
@@ -81,6 +82,11 @@ public class UniformBindingManager {
     private final Vector2f resolutionInv = new Vector2f();
     private final Vector2f nearFar = new Vector2f();
 
+    private UniformBlockLayout frameLayout;
+    private UniformBinding[] frameBindings;
+    private BufferObject frameBlock;
+    private boolean frameBlockDirty = true;
+
     /**
      * Internal use only.
      * Updates the given list of uniforms with {@link UniformBinding uniform bindings}
@@ -89,6 +95,13 @@ public class UniformBindingManager {
      * @param shader (not null)
      */
     public void updateUniformBindings(Shader shader) {
+        if (shader.hasFrameBlock()) {
+            if (frameBlockDirty) {
+                updateFrameBlock();
+            }
+            shader.getBufferBlock(UniformBlockPacker.FRAME_BLOCK)
+                    .setBufferObject(ShaderBufferBlock.BufferType.UniformBufferObject, frameBlock);
+        }
         ArrayList<Uniform> params = shader.getBoundUniforms();
         for (int i = 0; i < params.size(); i++) {
             Uniform u = params.get(i);
@@ -221,6 +234,73 @@ public class UniformBindingManager {
         }
     }
 
+    /**
+     * Writes the per-frame world parameters into the buffer object shared by
+     * all shaders using the frame block. Only called when the camera, the
+     * viewport or the frame changed since the last update.
+     */
+    private void updateFrameBlock() {
+        if (frameLayout == null) {
+            frameLayout = UniformBlockPacker.newFrameLayout();
+            frameBindings = new UniformBinding[frameLayout.getFieldCount()];
+            for (int i = 0; i < frameBindings.length; i++) {
+                frameBindings[i] = UniformBinding.valueOf(frameLayout.getParameterName(i));
+            }
+            frameBlock = frameLayout.createBufferObject();
+            frameBlock.setBinding(UniformBlockPacker.FRAME_BLOCK_BINDING);
+        }
+
+        boolean changed = false;
+        for (int i = 0; i < frameBindings.length; i++) {
+            changed |= frameLayout.setField(frameBlock, i, getFrameValue(frameBindings[i]));
+        }
+        if (changed) {
+            frameBlock.setUpdateNeeded(false);
+        }
+        frameBlockDirty = false;
+    }
+
+    private Object getFrameValue(UniformBinding binding) {
+        switch (binding) {
+            case ViewMatrix:
+                return viewMatrix;
+            case ProjectionMatrix:
+                return projMatrix;
+            case ViewProjectionMatrix:
+                return viewProjMatrix;
+            case ViewMatrixInverse:
+                return viewMatrixInv.set(viewMatrix).invertLocal();
+            case ProjectionMatrixInverse:
+                return projMatrixInv.set(projMatrix).invertLocal();
+            case ViewProjectionMatrixInverse:
+                return viewProjMatrixInv.set(viewProjMatrix).invertLocal();
+            case ViewPort:
+                return viewPort.set(viewX, viewY, viewWidth, viewHeight);
+            case CameraPosition:
+                return camLoc;
+            case CameraDirection:
+                return camDir;
+            case CameraLeft:
+                return camLeft;
+            case CameraUp:
+                return camUp;
+            case FrustumNearFar:
+                return nearFar.set(near, far);
+            case Resolution:
+                return resolution.set(viewWidth, viewHeight);
+            case ResolutionInverse:
+                return resolutionInv.set(1f / viewWidth, 1f / viewHeight);
+            case Aspect:
+                return ((float) viewWidth) / viewHeight;
+            case Time:
+                return time;
+            case Tpf:
+                return tpf;
+            default:
+                throw new IllegalArgumentException("Not a frame parameter: " + binding);
+        }
+    }
+
     /**
      * Internal use only. Sets the world matrix to use for future
      * rendering. This has no effect unless objects are rendered manually
@@ -254,6 +334,7 @@ public class UniformBindingManager {
 
         near = cam.getFrustumNear();
         far = cam.getFrustumFar();
+        frameBlockDirty = true;
     }
 
     public void setViewPort(int viewX, int viewY, int viewWidth, int viewHeight) {
@@ -261,6 +342,7 @@ public class UniformBindingManager {
         this.viewY = viewY;
         this.viewWidth = viewWidth;
         this.viewHeight = viewHeight;
+        frameBlockDirty = true;
     }
  
     /**
@@ -272,5 +354,6 @@ public class UniformBindingManager {
         // time for this frame to avoid inter-frame drift.
         time = timer.getTimeInSeconds();
         tpf = timer.getTimePerFrame();
+        frameBlockDirty = true;
     }
 }
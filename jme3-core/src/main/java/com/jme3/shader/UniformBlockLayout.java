@@ -0,0 +1,312 @@
+/*
+ * Copyright (c) 2009-2025 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.shader;
+
+import com.jme3.math.FastMath;
+import com.jme3.shader.bufferobject.BufferObject;
+import com.jme3.shader.bufferobject.BufferRegion;
+import com.jme3.shader.bufferobject.layout.Std140Layout;
+import com.jme3.util.BufferUtils;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The std140 layout of a uniform block made of plain uniforms.
+ * <p>
+ * Each field keeps the name the uniform had before it was moved into the
+ * block, so shader code using it does not change. Offsets follow the std140
+ * rules, and every field becomes one {@link BufferRegion} of the buffer
+ * objects created by {@link #createBufferObject()}, so that only the fields
+ * that changed are uploaded.
+ *
+ * @see UniformBlockPacker
+ */
+public final class UniformBlockLayout {
+
+    private final String blockName;
+    private final String[] names;
+    private final String[] parameterNames;
+    private final VarType[] types;
+    private final int[] offsets;
+    private final int[] lengths;
+    private final int size;
+    private final Map<String, Integer> indices = new HashMap<>();
+
+    private final Std140Layout std140 = new Std140Layout();
+    private final ByteBuffer scratch;
+
+    /**
+     * Creates a layout. Fields are laid out in the given order.
+     *
+     * @param blockName the name of the uniform block
+     * @param names the uniform names of the fields
+     * @param types the types of the fields, one of Float, Int, Boolean,
+     * Vector2, Vector3, Vector4, Matrix3 or Matrix4
+     */
+    public UniformBlockLayout(String blockName, List<String> names, List<VarType> types) {
+        if (names.size() != types.size()) {
+            throw new IllegalArgumentException("Expected one type per field");
+        }
+        this.blockName = blockName;
+        this.names = names.toArray(new String[names.size()]);
+        this.types = types.toArray(new VarType[types.size()]);
+        this.parameterNames = new String[this.names.length];
+        this.offsets = new int[this.names.length];
+        this.lengths = new int[this.names.length];
+
+        int pos = 0;
+        for (int i = 0; i < this.names.length; i++) {
+            int length = getLength(this.types[i]);
+            pos = FastMath.toMultipleOf(pos, getAlignment(this.types[i]));
+            offsets[i] = pos;
+            lengths[i] = length;
+            pos += length;
+            parameterNames[i] = this.names[i].substring(2);
+            indices.put(this.names[i], i);
+        }
+        this.size = FastMath.toMultipleOf(Math.max(pos, 16), 16);
+        this.scratch = BufferUtils.createByteBuffer(getLength(VarType.Matrix4));
+    }
+
+    /**
+     * Tests whether a type can be stored in a layout.
+     *
+     * @param type the type to test
+     * @return true if supported
+     */
+    public static boolean isSupported(VarType type) {
+        switch (type) {
+            case Float:
+            case Int:
+            case Boolean:
+            case Vector2:
+            case Vector3:
+            case Vector4:
+            case Matrix3:
+            case Matrix4:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static int getAlignment(VarType type) {
+        switch (type) {
+            case Vector2:
+                return 8;
+            case Vector3:
+            case Vector4:
+            case Matrix3:
+            case Matrix4:
+                return 16;
+            default:
+                return 4;
+        }
+    }
+
+    private static int getLength(VarType type) {
+        switch (type) {
+            case Float:
+            case Int:
+            case Boolean:
+                return 4;
+            case Vector2:
+                return 8;
+            case Vector3:
+                return 12;
+            case Vector4:
+                return 16;
+            case Matrix3:
+                return 48;
+            case Matrix4:
+                return 64;
+            default:
+                throw new IllegalArgumentException("Unsupported uniform block type: " + type);
+        }
+    }
+
+    /**
+     * Returns the name of the uniform block.
+     *
+     * @return the block name
+     */
+    public String getBlockName() {
+        return blockName;
+    }
+
+    /**
+     * Returns the number of fields.
+     *
+     * @return the field count
+     */
+    public int getFieldCount() {
+        return names.length;
+    }
+
+    /**
+     * Returns the uniform name of a field.
+     *
+     * @param field the field index
+     * @return the name, including its prefix
+     */
+    public String getFieldName(int field) {
+        return names[field];
+    }
+
+    /**
+     * Returns the name of a field without its <code>m_</code> or
+     * <code>g_</code> prefix, as used by material parameters.
+     *
+     * @param field the field index
+     * @return the name
+     */
+    public String getParameterName(int field) {
+        return parameterNames[field];
+    }
+
+    /**
+     * Returns the type of a field.
+     *
+     * @param field the field index
+     * @return the type
+     */
+    public VarType getFieldType(int field) {
+        return types[field];
+    }
+
+    /**
+     * Returns the byte offset of a field in the block.
+     *
+     * @param field the field index
+     * @return the offset
+     */
+    public int getFieldOffset(int field) {
+        return offsets[field];
+    }
+
+    /**
+     * Returns the index of the field with the given uniform name.
+     *
+     * @param name the uniform name, including its prefix
+     * @return the field index, or -1 if the block has no such field
+     */
+    public int indexOf(String name) {
+        Integer index = indices.get(name);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Returns the size of the block in bytes.
+     *
+     * @return the size, a multiple of 16
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the GLSL declaration of the block.
+     *
+     * @return the declaration, ending with a new line
+     */
+    public String toGlsl() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("layout(std140) uniform ").append(blockName).append(" {\n");
+        for (int i = 0; i < names.length; i++) {
+            sb.append("    ");
+            if (types[i] != VarType.Boolean) {
+                // identical in every stage, and valid for GLSL ES
+                sb.append("highp ");
+            }
+            sb.append(types[i].getGlslType()).append(' ').append(names[i]).append(";\n");
+        }
+        sb.append("};\n");
+        return sb.toString();
+    }
+
+    /**
+     * Creates a zeroed buffer object with one region per field.
+     *
+     * @return a new buffer object
+     */
+    public BufferObject createBufferObject() {
+        BufferObject bo = new BufferObject();
+        List<BufferRegion> regions = new ArrayList<>(names.length);
+        for (int i = 0; i < names.length; i++) {
+            regions.add(new BufferRegion(offsets[i], offsets[i] + lengths[i] - 1));
+        }
+        bo.initializeEmpty(size);
+        bo.setRegions(regions);
+        bo.setName(blockName);
+        return bo;
+    }
+
+    /**
+     * Writes the value of a field into a buffer object created by this
+     * layout. The field's region is only marked dirty if its bytes change.
+     *
+     * @param bo the buffer object
+     * @param field the field index
+     * @param value the value, or null to write zeros
+     * @return true if the field changed
+     */
+    public boolean setField(BufferObject bo, int field, Object value) {
+        int length = lengths[field];
+        scratch.clear();
+        if (value != null) {
+            std140.write(scratch, value);
+        }
+        while (scratch.position() < length) {
+            scratch.put((byte) 0);
+        }
+
+        BufferRegion region = bo.getRegion(field);
+        ByteBuffer data = region.getData();
+        boolean changed = false;
+        for (int i = 0; i < length; i++) {
+            if (data.get(i) != scratch.get(i)) {
+                changed = true;
+                break;
+            }
+        }
+        if (changed) {
+            scratch.flip();
+            scratch.limit(length);
+            data.put(scratch);
+            region.markDirty();
+        }
+        return changed;
+    }
+}
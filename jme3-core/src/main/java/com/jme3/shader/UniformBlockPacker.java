@@ -0,0 +1,365 @@
+/*
+ * Copyright (c) 2009-2025 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.shader;
+
+import com.jme3.shader.Shader.ShaderType;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Moves the plain uniforms of a shader into std140 uniform blocks.
+ * <p>
+ * Two blocks are produced. The material block holds every non-opaque
+ * material parameter (<code>m_</code> uniforms) declared by any stage, so
+ * that a material uploads its parameters with one buffer update instead of
+ * one <code>glUniform</code> call per parameter. The frame block holds the
+ * world parameters that only change with the camera, the viewport or the
+ * frame, and is shared by every shader.
+ * <p>
+ * Per-draw world parameters, such as <code>g_WorldMatrix</code> or
+ * <code>g_WorldViewProjectionMatrix</code>, are not packed and stay plain
+ * uniforms set for each geometry. Packing them would need one range of a
+ * shared buffer bound per draw, and the renderer can only bind whole buffer
+ * objects.
+ * <p>
+ * Declarations are rewritten textually: a single declaration on its own line,
+ * such as <code>uniform vec4 m_Color;</code>, is removed and the block is
+ * declared once near the top of each stage that used it. Uniforms declared in
+ * any other way, or with different types in different places, are left
+ * untouched. Members keep their names, so shader code does not change.
+ */
+public final class UniformBlockPacker {
+
+    /**
+     * The name of the block holding material parameters.
+     */
+    public static final String MATERIAL_BLOCK = "m_MaterialParameters";
+
+    /**
+     * The name of the block holding per-frame world parameters.
+     */
+    public static final String FRAME_BLOCK = "g_FrameParameters";
+
+    /**
+     * The binding point of the frame block.
+     */
+    public static final int FRAME_BLOCK_BINDING = 0;
+
+    /**
+     * The binding point of the material block.
+     */
+    public static final int MATERIAL_BLOCK_BINDING = 1;
+
+    /**
+     * The number of binding points reserved for packed blocks. Uniform buffer
+     * parameters of a material are bound after them.
+     */
+    public static final int RESERVED_BINDINGS = 2;
+
+    private static final UniformBinding[] FRAME_BINDINGS = {
+        UniformBinding.ViewMatrix,
+        UniformBinding.ProjectionMatrix,
+        UniformBinding.ViewProjectionMatrix,
+        UniformBinding.ViewMatrixInverse,
+        UniformBinding.ProjectionMatrixInverse,
+        UniformBinding.ViewProjectionMatrixInverse,
+        UniformBinding.ViewPort,
+        UniformBinding.CameraPosition,
+        UniformBinding.CameraDirection,
+        UniformBinding.CameraLeft,
+        UniformBinding.CameraUp,
+        UniformBinding.FrustumNearFar,
+        UniformBinding.Resolution,
+        UniformBinding.ResolutionInverse,
+        UniformBinding.Aspect,
+        UniformBinding.Time,
+        UniformBinding.Tpf
+    };
+
+    private static final VarType[] BLOCK_TYPES = {
+        VarType.Matrix4, VarType.Matrix3, VarType.Vector4, VarType.Vector3,
+        VarType.Vector2, VarType.Float, VarType.Int, VarType.Boolean
+    };
+
+    private static final Pattern DECLARATION = Pattern.compile(
+            "\\s*uniform\\s+(?:(?:lowp|mediump|highp)\\s+)?(\\w+)\\s+([mg]_\\w+)\\s*;\\s*(?://.*)?");
+    private static final Pattern UNIFORM = Pattern.compile("\\s*uniform\\b.*");
+    private static final Pattern PREFIXED_NAME = Pattern.compile("\\b([mg]_\\w+)\\b");
+
+    private static final String FRAME_DECLARATION = newFrameLayout().toGlsl();
+    private static final Map<String, VarType> FRAME_TYPES = new HashMap<>();
+
+    static {
+        for (UniformBinding binding : FRAME_BINDINGS) {
+            FRAME_TYPES.put("g_" + binding.name(), toVarType(binding.getGlslType()));
+        }
+    }
+
+    private UniformBlockLayout materialLayout;
+    private boolean frameBlock;
+
+    /**
+     * Tests whether shaders written in a language can be packed.
+     *
+     * @param language the shader language, e.g. GLSL150
+     * @return true for GLSL 1.50 and above, or GLSL ES 3.00 and above
+     */
+    public static boolean isSupported(String language) {
+        switch (language) {
+            case "GLSL150":
+            case "GLSL330":
+            case "GLSL400":
+            case "GLSL410":
+            case "GLSL420":
+            case "GLSL430":
+            case "GLSL440":
+            case "GLSL450":
+            case "GLSL300":
+            case "GLSL310":
+            case "GLSL320":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Tests whether a world parameter is provided by the frame block.
+     *
+     * @param binding the world parameter
+     * @return true if the frame block contains it
+     */
+    public static boolean isFrameBinding(UniformBinding binding) {
+        for (UniformBinding frameBinding : FRAME_BINDINGS) {
+            if (frameBinding == binding) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Creates a layout of the frame block. Every shader declares the same
+     * frame block, so a single buffer object can serve all of them.
+     *
+     * @return a new layout
+     */
+    public static UniformBlockLayout newFrameLayout() {
+        List<String> names = new ArrayList<>();
+        List<VarType> types = new ArrayList<>();
+        for (UniformBinding binding : FRAME_BINDINGS) {
+            names.add("g_" + binding.name());
+            types.add(toVarType(binding.getGlslType()));
+        }
+        return new UniformBlockLayout(FRAME_BLOCK, names, types);
+    }
+
+    private static VarType toVarType(String glslType) {
+        for (VarType type : BLOCK_TYPES) {
+            if (type.getGlslType().equals(glslType)) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Rewrites the sources of all stages of a shader. The map is updated in
+     * place.
+     *
+     * @param sources the source code of each stage
+     */
+    public void pack(Map<ShaderType, String> sources) {
+        Map<String, VarType> candidates = new LinkedHashMap<>();
+        Set<String> rejected = new HashSet<>();
+        boolean usesFrame = false;
+        boolean frameRejected = false;
+
+        for (String source : sources.values()) {
+            for (String line : source.split("\n", -1)) {
+                if (!line.contains("uniform")) {
+                    continue;
+                }
+                Matcher m = DECLARATION.matcher(line);
+                if (m.matches()) {
+                    String name = m.group(2);
+                    VarType type = toVarType(m.group(1));
+                    if (name.startsWith("g_")) {
+                        if (FRAME_TYPES.containsKey(name)) {
+                            usesFrame = true;
+                            frameRejected |= FRAME_TYPES.get(name) != type;
+                        }
+                    } else if (type == null) {
+                        rejected.add(name);
+                    } else {
+                        VarType previous = candidates.put(name, type);
+                        if (previous != null && previous != type) {
+                            rejected.add(name);
+                        }
+                    }
+                } else if (UNIFORM.matcher(line).matches()) {
+                    Matcher names = PREFIXED_NAME.matcher(line);
+                    while (names.find()) {
+                        String name = names.group(1);
+                        rejected.add(name);
+                        frameRejected |= FRAME_TYPES.containsKey(name);
+                    }
+                }
+            }
+        }
+
+        List<String> names = new ArrayList<>();
+        List<VarType> types = new ArrayList<>();
+        // largest alignments first keeps the padding small
+        for (VarType blockType : BLOCK_TYPES) {
+            for (Map.Entry<String, VarType> entry : candidates.entrySet()) {
+                if (entry.getValue() == blockType && !rejected.contains(entry.getKey())) {
+                    names.add(entry.getKey());
+                    types.add(blockType);
+                }
+            }
+        }
+        materialLayout = names.isEmpty() ? null : new UniformBlockLayout(MATERIAL_BLOCK, names, types);
+        frameBlock = usesFrame && !frameRejected;
+
+        if (materialLayout == null && !frameBlock) {
+            return;
+        }
+        String materialDeclaration = materialLayout != null ? materialLayout.toGlsl() : null;
+        for (Map.Entry<ShaderType, String> entry : sources.entrySet()) {
+            entry.setValue(rewrite(entry.getValue(), materialDeclaration));
+        }
+    }
+
+    private String rewrite(String source, String materialDeclaration) {
+        String[] lines = source.split("\n", -1);
+        boolean removedMaterial = false;
+        boolean removedFrame = false;
+        int lastExtension = -1;
+        int[] depthBefore = new int[lines.length];
+        int depth = 0;
+
+        for (int i = 0; i < lines.length; i++) {
+            depthBefore[i] = depth;
+            String line = lines[i];
+            String trimmed = line.trim();
+            if (trimmed.startsWith("#")) {
+                String directive = trimmed.substring(1).trim();
+                if (directive.startsWith("if")) {
+                    depth++;
+                } else if (directive.startsWith("endif")) {
+                    depth--;
+                } else if (directive.startsWith("extension") || directive.startsWith("version")) {
+                    lastExtension = i;
+                }
+                continue;
+            }
+            if (!line.contains("uniform")) {
+                continue;
+            }
+            Matcher m = DECLARATION.matcher(line);
+            if (!m.matches()) {
+                continue;
+            }
+            String name = m.group(2);
+            if (materialLayout != null && materialLayout.indexOf(name) >= 0) {
+                lines[i] = "";
+                removedMaterial = true;
+            } else if (frameBlock && FRAME_TYPES.containsKey(name)) {
+                lines[i] = "";
+                removedFrame = true;
+            }
+        }
+
+        if (!removedMaterial && !removedFrame) {
+            return source;
+        }
+
+        // declare the blocks unconditionally, after any extension directive
+        int insertAt = lastExtension + 1;
+        while (insertAt < lines.length && depthBefore[insertAt] != 0) {
+            insertAt++;
+        }
+
+        StringBuilder sb = new StringBuilder(source.length() + 512);
+        for (int i = 0; i < lines.length; i++) {
+            if (i == insertAt) {
+                appendBlocks(sb, removedFrame, removedMaterial, materialDeclaration);
+            }
+            sb.append(lines[i]);
+            if (i < lines.length - 1) {
+                sb.append('\n');
+            }
+        }
+        if (insertAt >= lines.length) {
+            sb.append('\n');
+            appendBlocks(sb, removedFrame, removedMaterial, materialDeclaration);
+        }
+        return sb.toString();
+    }
+
+    private static void appendBlocks(StringBuilder sb, boolean frame, boolean material, String materialDeclaration) {
+        if (frame) {
+            sb.append(FRAME_DECLARATION);
+        }
+        if (material) {
+            sb.append(materialDeclaration);
+        }
+    }
+
+    /**
+     * Returns the layout of the material block produced by the last call to
+     * {@link #pack(Map)}.
+     *
+     * @return the layout, or null if no material parameter was packed
+     */
+    public UniformBlockLayout getMaterialLayout() {
+        return materialLayout;
+    }
+
+    /**
+     * Tests whether the last call to {@link #pack(Map)} moved world
+     * parameters into the frame block.
+     *
+     * @return true if the shader uses the frame block
+     */
+    public boolean hasFrameBlock() {
+        return frameBlock;
+    }
+}
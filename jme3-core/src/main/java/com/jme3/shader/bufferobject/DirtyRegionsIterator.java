@@ -59,7 +59,7 @@ public class DirtyRegionsIterator implements Iterator<BufferRegion> {
                 source.limit(currentLimit);
                 source.position(currentPos);
             }
-            slice.limit(end);
+            slice.limit(end + 1);
             slice.position(start);
             return slice;
         }
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2009-2024 jMonkeyEngine
+ * Copyright (c) 2009-2025 jMonkeyEngine
  * All rights reserved.
  *
  * Redistribution and use in source and binary forms, with or without
@@ -74,6 +74,11 @@ import java.util.logging.Logger;
  * abstract shadow renderer that holds commons feature to have for a shadow
  * renderer
  *
+ * <p>Shadow casters are gathered through {@link ShadowUtil}, so a
+ * {@link com.jme3.scene.portal.PortalNode} with a
+ * {@link com.jme3.scene.portal.PortalNode#setShadowCasterDepth(int) shadow caster depth}
+ * limits them to the cells around the ones the camera can see.
+ *
  * @author Rémy Bouquet aka Nehon
  */
 public abstract class AbstractShadowRenderer implements SceneProcessor, Savable, JmeCloneable, Cloneable {
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2009-2021 jMonkeyEngine
+ * Copyright (c) 2009-2025 jMonkeyEngine
  * All rights reserved.
  *
  * Redistribution and use in source and binary forms, with or without
@@ -45,6 +45,7 @@ import com.jme3.renderer.queue.RenderQueue;
 import com.jme3.scene.Geometry;
 import com.jme3.scene.Node;
 import com.jme3.scene.Spatial;
+import com.jme3.scene.portal.PortalNode;
 import com.jme3.util.TempVars;
 import static java.lang.Math.max;
 import static java.lang.Math.min;
@@ -453,7 +454,7 @@ public class ShadowUtil {
                 }
 
                 if (intersects) {
-                    for (Spatial child : ((Node)scene).getChildren()) {
+                    for (Spatial child : getShadowChildren(nodeOcc)) {
                         process(child);
                     }
                 }
@@ -662,6 +663,23 @@ public class ShadowUtil {
         }
     }
 
+    /**
+     * Returns the children of a node to gather shadow casters and receivers
+     * from. These are all of its children, unless the node is a
+     * {@link PortalNode} that restricts them to the cells near the visible
+     * ones.
+     *
+     * @param node the node to traverse (not null)
+     * @return the children to traverse
+     * @see PortalNode#setShadowCasterDepth(int)
+     */
+    private static List<Spatial> getShadowChildren(Node node) {
+        if (node instanceof PortalNode) {
+            return ((PortalNode) node).getShadowChildren();
+        }
+        return node.getChildren();
+    }
+
     /**
      * Helper function to distinguish between Occluders and Receivers
      *
@@ -698,7 +716,7 @@ public class ShadowUtil {
         if (scene.getCullHint() == Spatial.CullHint.Always) return;
         camera.setPlaneState(0);
         if (camera.contains(scene.getWorldBound()) != Camera.FrustumIntersect.Outside) {
-            for (Spatial child: scene.getChildren()) {
+            for (Spatial child: getShadowChildren(scene)) {
                 if (child instanceof Node) addGeometriesInCamFrustumFromNode(camera, (Node)child, mode, outputGeometryList);
                 else if (child instanceof Geometry && child.getCullHint() != Spatial.CullHint.Always) {
                     camera.setPlaneState(0);
@@ -782,7 +800,7 @@ public class ShadowUtil {
             if (scene instanceof Node)
             {
                 Node node = (Node)scene;
-                for (Spatial child: node.getChildren()) {
+                for (Spatial child: getShadowChildren(node)) {
                     addGeometriesInCamFrustumAndViewPortFromNode(vpCamera, cameras, child, mode, outputGeometryList);
                 }
             }
@@ -198,6 +198,10 @@ public class NullRenderer implements Renderer {
     public void renderMesh(Mesh mesh, int lod, int count, VertexBuffer[] instanceData) {
     }
 
+    @Override
+    public void renderMeshIndirect(Mesh mesh, BufferObject commands, int drawCount, VertexBuffer[] instanceData) {
+    }
+
     @Override
     public void resetGLObjects() {
     }
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2009-2025 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.util;
+
+import java.util.Arrays;
+
+/**
+ * Stable LSD radix sort of objects by unsigned 64-bit keys.
+ *
+ * <p>Like {@link ListSort}, an instance is meant to be kept with the list it
+ * sorts: its scratch arrays grow to the largest length sorted so far and are
+ * reused afterwards, so sorting creates no garbage once warmed up.
+ * Byte positions where all keys agree are skipped, so keys that only use
+ * their low bits cost fewer passes.
+ */
+public class RadixSort {
+
+    private static final int RADIX_BITS = 8;
+    private static final int BUCKETS = 1 << RADIX_BITS;
+    private static final int PASSES = Long.SIZE / RADIX_BITS;
+    /**
+     * Below this length an insertion sort is cheaper than the histogram passes.
+     */
+    private static final int INSERTION_SORT_THRESHOLD = 32;
+
+    private final int[] histograms = new int[PASSES * BUCKETS];
+    private long[] tmpKeys = new long[0];
+    private Object[] tmpValues = new Object[0];
+
+    /**
+     * Sorts the first <code>length</code> keys in ascending unsigned order,
+     * applying the same permutation to the values. Values with equal keys keep
+     * their relative order.
+     *
+     * @param <T> the type of the values
+     * @param keys the sort keys (not null, modified)
+     * @param values the values to reorder alongside the keys (not null,
+     *     modified)
+     * @param length the number of elements to sort (&ge;0)
+     */
+    @SuppressWarnings("unchecked")
+    public <T> void sort(long[] keys, T[] values, int length) {
+        if (length < INSERTION_SORT_THRESHOLD) {
+            insertionSort(keys, values, length);
+            return;
+        }
+        if (tmpKeys.length < length) {
+            tmpKeys = new long[length];
+            tmpValues = new Object[length];
+        }
+
+        // build all histograms in a single pass over the keys
+        Arrays.fill(histograms, 0);
+        for (int i = 0; i < length; i++) {
+            long key = keys[i];
+            for (int pass = 0; pass < PASSES; pass++) {
+                histograms[pass * BUCKETS + (int) ((key >>> (pass * RADIX_BITS)) & (BUCKETS - 1))]++;
+            }
+        }
+
+        long[] srcKeys = keys;
+        Object[] srcValues = values;
+        long[] dstKeys = tmpKeys;
+        Object[] dstValues = tmpValues;
+        for (int pass = 0; pass < PASSES; pass++) {
+            int offset = pass * BUCKETS;
+            int shift = pass * RADIX_BITS;
+
+            // all keys share this digit, the pass would not move anything
+            int first = (int) ((srcKeys[0] >>> shift) & (BUCKETS - 1));
+            if (histograms[offset + first] == length) {
+                continue;
+            }
+
+            // turn the counts into starting positions
+            int sum = 0;
+            for (int b = 0; b < BUCKETS; b++) {
+                int count = histograms[offset + b];
+                histograms[offset + b] = sum;
+                sum += count;
+            }
+
+            for (int i = 0; i < length; i++) {
+                long key = srcKeys[i];
+                int pos = histograms[offset + (int) ((key >>> shift) & (BUCKETS - 1))]++;
+                dstKeys[pos] = key;
+                dstValues[pos] = srcValues[i];
+            }
+
+            long[] swapKeys = srcKeys;
+            srcKeys = dstKeys;
+            dstKeys = swapKeys;
+            Object[] swapValues = srcValues;
+            srcValues = dstValues;
+            dstValues = swapValues;
+        }
+
+        if (srcKeys != keys) {
+            System.arraycopy(srcKeys, 0, keys, 0, length);
+            System.arraycopy(srcValues, 0, values, 0, length);
+        }
+        // don't hold on to the sorted objects
+        Arrays.fill(tmpValues, 0, length, null);
+    }
+
+    private static <T> void insertionSort(long[] keys, T[] values, int length) {
+        for (int i = 1; i < length; i++) {
+            long key = keys[i];
+            T value = values[i];
+            int j = i - 1;
+            while (j >= 0 && Long.compareUnsigned(keys[j], key) > 0) {
+                keys[j + 1] = keys[j];
+                values[j + 1] = values[j];
+                j--;
+            }
+            keys[j + 1] = key;
+            values[j + 1] = value;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2009-2025 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.util;
+
+import java.util.ArrayList;
+
+/**
+ * Keeps track of the free ranges of a fixed-capacity array, such as a
+ * vertex buffer shared by several meshes or a texture shared by several
+ * owners. Ranges are allocated first-fit and adjacent free ranges are merged
+ * when released.
+ * <p>
+ * The allocator only does the bookkeeping, the owner of the array grows it
+ * and then calls {@link #grow(int) }.
+ */
+public final class RangeAllocator {
+
+    // sorted, non adjacent free ranges as {start, length}
+    private final ArrayList<int[]> free = new ArrayList<>();
+    private int capacity;
+
+    /**
+     * Creates an allocator with the whole capacity in use.
+     *
+     * @param capacity the number of elements
+     */
+    public RangeAllocator(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * @return the number of elements, used or not
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Allocates the first free range that fits.
+     *
+     * @param length the number of elements
+     * @return the first element of the range, or -1 if none fits
+     */
+    public int allocate(int length) {
+        if (length == 0) {
+            return 0;
+        }
+        for (int i = 0; i < free.size(); i++) {
+            int[] range = free.get(i);
+            if (range[1] >= length) {
+                int start = range[0];
+                if (range[1] == length) {
+                    free.remove(i);
+                } else {
+                    range[0] += length;
+                    range[1] -= length;
+                }
+                return start;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Releases a previously allocated range.
+     *
+     * @param start the first element of the range
+     * @param length the number of elements
+     */
+    public void release(int start, int length) {
+        if (length == 0) {
+            return;
+        }
+        int i = 0;
+        while (i < free.size() && free.get(i)[0] < start) {
+            i++;
+        }
+        int[] range = new int[]{start, length};
+        free.add(i, range);
+        if (i + 1 < free.size() && start + length == free.get(i + 1)[0]) {
+            range[1] += free.remove(i + 1)[1];
+        }
+        if (i > 0) {
+            int[] previous = free.get(i - 1);
+            if (previous[0] + previous[1] == start) {
+                previous[1] += range[1];
+                free.remove(i);
+            }
+        }
+    }
+
+    /**
+     * Extends the capacity, the new elements are free.
+     *
+     * @param newCapacity the new number of elements
+     */
+    public void grow(int newCapacity) {
+        if (newCapacity < capacity) {
+            throw new IllegalArgumentException("Cannot shrink from " + capacity + " to " + newCapacity);
+        }
+        int oldCapacity = capacity;
+        capacity = newCapacity;
+        release(oldCapacity, newCapacity - oldCapacity);
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2009-2025 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.export.binary;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Size statistics of one {@link BinaryExporter#save(com.jme3.export.Savable,
+ * java.io.OutputStream) save}, collected when
+ * {@link BinaryExporter#setStatisticsEnabled(boolean) enabled}.
+ *
+ * <p>Sizes are counted before deduplication and compression: they tell which
+ * classes and fields make up the exported data, not how many bytes end up in
+ * the file. Buffer contents are counted in the field that wrote them.
+ */
+public class BinaryExportStatistics {
+
+    private static class ClassStats {
+        int objects;
+        long bytes;
+        final HashMap<String, Long> fields = new HashMap<>();
+    }
+
+    private final HashMap<String, ClassStats> classes = new HashMap<>();
+    private int deduplicatedBuffers;
+    private long deduplicatedBytes;
+
+    BinaryExportStatistics() {
+    }
+
+    synchronized void addObject(String className, Map<String, Long> fieldBytes) {
+        ClassStats stats = classes.get(className);
+        if (stats == null) {
+            stats = new ClassStats();
+            classes.put(className, stats);
+        }
+        stats.objects++;
+        for (Map.Entry<String, Long> entry : fieldBytes.entrySet()) {
+            stats.bytes += entry.getValue();
+            stats.fields.merge(entry.getKey(), entry.getValue(), Long::sum);
+        }
+    }
+
+    synchronized void addDeduplicatedBuffer(int bytes) {
+        deduplicatedBuffers++;
+        deduplicatedBytes += bytes;
+    }
+
+    /**
+     * @return the names of all exported classes (not null)
+     */
+    public synchronized Set<String> getClassNames() {
+        return Collections.unmodifiableSet(new TreeSet<>(classes.keySet()));
+    }
+
+    /**
+     * @param className the fully qualified class name
+     * @return the number of exported objects of the class
+     */
+    public synchronized int getObjectCount(String className) {
+        ClassStats stats = classes.get(className);
+        return stats == null ? 0 : stats.objects;
+    }
+
+    /**
+     * @param className the fully qualified class name
+     * @return the bytes written by all objects of the class
+     */
+    public synchronized long getByteCount(String className) {
+        ClassStats stats = classes.get(className);
+        return stats == null ? 0 : stats.bytes;
+    }
+
+    /**
+     * @param className the fully qualified class name
+     * @param fieldName the name the field was written with
+     * @return the bytes written for the field by all objects of the class
+     */
+    public synchronized long getByteCount(String className, String fieldName) {
+        ClassStats stats = classes.get(className);
+        if (stats == null) {
+            return 0;
+        }
+        Long bytes = stats.fields.get(fieldName);
+        return bytes == null ? 0 : bytes;
+    }
+
+    /**
+     * @param className the fully qualified class name
+     * @return the names of the fields written by the class (not null)
+     */
+    public synchronized Set<String> getFieldNames(String className) {
+        ClassStats stats = classes.get(className);
+        if (stats == null) {
+            return Collections.emptySet();
+        }
+        return Collections.unmodifiableSet(new TreeSet<>(stats.fields.keySet()));
+    }
+
+    /**
+     * @return the number of buffers that were stored only once because an
+     * identical buffer had already been written
+     */
+    public synchronized int getDeduplicatedBufferCount() {
+        return deduplicatedBuffers;
+    }
+
+    /**
+     * @return the bytes saved by buffer deduplication
+     */
+    public synchronized long getDeduplicatedByteCount() {
+        return deduplicatedBytes;
+    }
+
+    /**
+     * Formats the statistics as a table, classes and fields sorted by size.
+     */
+    @Override
+    public synchronized String toString() {
+        StringBuilder sb = new StringBuilder();
+        List<Map.Entry<String, ClassStats>> sorted = new ArrayList<>(classes.entrySet());
+        sorted.sort((a, b) -> Long.compare(b.getValue().bytes, a.getValue().bytes));
+        for (Map.Entry<String, ClassStats> entry : sorted) {
+            ClassStats stats = entry.getValue();
+            sb.append(String.format("%12d bytes %8d objects  %s%n",
+                    stats.bytes, stats.objects, entry.getKey()));
+            List<Map.Entry<String, Long>> fields = new ArrayList<>(stats.fields.entrySet());
+            fields.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+            for (Map.Entry<String, Long> field : fields) {
+                sb.append(String.format("%12d bytes             .%s%n",
+                        field.getValue(), field.getKey()));
+            }
+        }
+        sb.append(String.format("%12d bytes %8d buffers  deduplicated%n",
+                deduplicatedBytes, deduplicatedBuffers));
+        return sb.toString();
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2009-2021 jMonkeyEngine
+ * Copyright (c) 2009-2025 jMonkeyEngine
  * All rights reserved.
  *
  * Redistribution and use in source and binary forms, with or without
@@ -38,12 +38,21 @@ import com.jme3.export.OutputCapsule;
 import com.jme3.export.Savable;
 import com.jme3.export.SavableClassUtil;
 import com.jme3.math.FastMath;
+import com.jme3.scene.Spatial;
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.zip.Deflater;
 
 /**
  * Exports savable objects in jMonkeyEngine's native binary format.
@@ -53,7 +62,7 @@ import java.util.logging.Logger;
  *
  * <p>1. "signature" - 4 bytes - 0x4A4D4533
  *
- * <p>2. "version" - 4 bytes - 0x00000002
+ * <p>2. "version" - 4 bytes - 0x00000004
  *
  * <p>3. "number of classes" - 4 bytes - number of entries in the class table
  *
@@ -90,29 +99,69 @@ import java.util.logging.Logger;
  * <p>12. "number of capsules" - 4 bytes
  * - the number of capsules in this stream
  *
- * <p>LOCATION TABLE: X blocks, each consisting of items 13 and 14,
+ * <p>LOCATION TABLE: X blocks, each consisting of items 13 thru 15,
  * where X = the number of capsules from item 12
  *
  * <p>13. "data id" - 4 bytes
  * - numeric ID of an object that was saved to this stream
  *
- * <p>14. "data location" - 4 bytes
- * - the offset in the capsule-data section where the savable object identified
+ * <p>14. "data block" - 4 bytes
+ * - the index of the data block where the savable object identified
  * in item 13 is stored
  *
- * <p>15. "future use" - 4 bytes - 0x00000001
+ * <p>15. "data location" - 4 bytes
+ * - the offset in the (uncompressed) data block where the savable object
+ * identified in item 13 is stored
  *
- * <p>16. "root id" - 4 bytes - numeric ID of the top-level savable object
+ * <p>16. "future use" - 4 bytes - 0x00000001
  *
- * CAPSULE-DATA SECTION: X blocks, each consisting of items 17
- * thru 19, where X = the number of capsules from item 12
+ * <p>17. "root id" - 4 bytes - numeric ID of the top-level savable object
  *
- * <p>17. "class alias" - 4 bytes - see item 4
+ * <p>18. "number of names" - 4 bytes
+ * - the number of named spatials in the name index
  *
- * <p>18. "capsule length" - 4 bytes - the length in bytes of item 19
+ * <p>NAME INDEX: X blocks, each consisting of items 19 and 20,
+ * where X = the number of names from item 18
  *
- * <p>19. "capsule data" - X bytes of data, where X = the number of bytes from
- * item 18
+ * <p>19. "named id" - 4 bytes - numeric ID of a spatial
+ *
+ * <p>20. "name" - a 4 byte size followed by the UTF-8 name of the spatial
+ *
+ * <p>21. "number of blocks" - 4 bytes
+ *
+ * <p>BLOCK TABLE: X blocks, each consisting of items 22 thru 24,
+ * where X = the number of blocks from item 21
+ *
+ * <p>22. "block compression" - 1 byte - 0 for raw, 1 for Deflate
+ *
+ * <p>23. "stored block size" - 4 bytes - the number of bytes in the file
+ *
+ * <p>24. "block size" - 4 bytes - the number of bytes once inflated
+ *
+ * <p>Each (inflated) block holds a series of capsules, each consisting of
+ * items 25 thru 27:
+ *
+ * <p>25. "class alias" - X bytes - see item 4
+ *
+ * <p>26. "capsule length" - 4 bytes - the length in bytes of item 27
+ *
+ * <p>27. "capsule data" - X bytes of data, where X = the number of bytes from
+ * item 26. NIO buffer fields store the element count and the offset of
+ * their data in the buffer section.
+ *
+ * <p>28. "buffer section size" - 4 bytes
+ *
+ * <p>29. "padding" - 1 byte holding the padding size X, followed by X zero
+ * bytes, so that the buffer section starts on a 16 byte boundary
+ *
+ * <p>30. "buffer section" - the little-endian contents of all NIO buffers,
+ * each starting on a 16 byte boundary
+ *
+ * <p>DATA SECTION: the blocks from the block table, stored back to back
+ *
+ * <p>Files of version 2 and 3 have no items 14 and 18 thru 30: their
+ * location table points into a single raw data section holding items 25
+ * thru 27, with buffer data stored inline.
  *
  * @author Joshua Slack
  */
@@ -130,6 +179,10 @@ public class BinaryExporter implements JmeExporter {
     protected HashMap<Integer, Integer> locationTable
              = new HashMap<>();
 
+    //Key - id, object - the block holding its data
+    protected HashMap<Integer, Integer> blockTable
+             = new HashMap<>();
+
     // key - class name, value = bco
     private final HashMap<String, BinaryClassObject> classes
              = new HashMap<>();
@@ -139,6 +192,19 @@ public class BinaryExporter implements JmeExporter {
     public static boolean debug = false;
     public static boolean useFastBufs = true;
 
+    static final byte BLOCK_RAW = 0;
+    static final byte BLOCK_DEFLATE = 1;
+
+    private int blockSize = 64 * 1024;
+    private boolean compressed = false;
+    private ByteArrayOutputStream bufferSection;
+    // Key - buffer contents, object - offset in the buffer section
+    private final HashMap<BufferKey, Integer> bufferOffsets = new HashMap<>();
+
+    private boolean parallel = false;
+    private boolean statisticsEnabled = false;
+    private BinaryExportStatistics statistics;
+
     public BinaryExporter() {
     }
 
@@ -146,6 +212,95 @@ public class BinaryExporter implements JmeExporter {
         return new BinaryExporter();
     }
 
+    /**
+     * Enables Deflate compression of the object data blocks. Each block is
+     * compressed separately, so loading a single object only inflates the
+     * blocks it touches. Buffer data is never compressed.
+     *
+     * @param compressed true to compress (default: false)
+     */
+    public void setCompressed(boolean compressed) {
+        this.compressed = compressed;
+    }
+
+    /**
+     * @return true if object data blocks are compressed
+     */
+    public boolean isCompressed() {
+        return compressed;
+    }
+
+    /**
+     * Sets the size from which a data block is closed and a new one is
+     * started. Smaller blocks make loading a single object cheaper, larger
+     * ones compress better.
+     *
+     * @param blockSize the block size in bytes (default: 65536)
+     */
+    public void setBlockSize(int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("blockSize must be positive");
+        }
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * @return the size from which a data block is closed
+     */
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Enables concurrent export: the elements of savable arrays and lists,
+     * e.g. the children of a <code>Node</code>, are written by parallel tasks
+     * of the common <code>ForkJoinPool</code>.
+     *
+     * <p>The exported objects must not be modified during the save, and
+     * their <code>write()</code> methods must be safe to run concurrently for
+     * different objects. The file loads the same as a serially exported one,
+     * but object ids and the order of the objects in the file, and so its
+     * exact bytes, may differ from one save to the next.
+     *
+     * @param parallel true to export concurrently (default: false)
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /**
+     * @return true if subtrees are exported concurrently
+     */
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    /**
+     * Enables collection of size statistics per class and per field, see
+     * {@link #getStatistics()}.
+     *
+     * @param enabled true to collect statistics (default: false)
+     */
+    public void setStatisticsEnabled(boolean enabled) {
+        this.statisticsEnabled = enabled;
+    }
+
+    /**
+     * @return true if size statistics are collected
+     */
+    public boolean isStatisticsEnabled() {
+        return statisticsEnabled;
+    }
+
+    /**
+     * Returns the size statistics of the last save.
+     *
+     * @return the statistics, or null if they were not enabled
+     */
+    public BinaryExportStatistics getStatistics() {
+        return statistics;
+    }
+
     /**
      * Saves the object into memory then loads it from memory.
      *
@@ -180,13 +335,26 @@ public class BinaryExporter implements JmeExporter {
         classes.clear();
         contentTable.clear();
         locationTable.clear();
+        blockTable.clear();
         contentKeys.clear();
+        bufferSection = new ByteArrayOutputStream();
+        bufferOffsets.clear();
+        statistics = statisticsEnabled ? new BinaryExportStatistics() : null;
 
-        // write signature and version
-        os.write(ByteUtils.convertToBytes(FormatVersion.SIGNATURE)); // 1. "signature"
-        os.write(ByteUtils.convertToBytes(FormatVersion.VERSION));   // 2. "version"
+        // the header is assembled in memory so the buffer section that
+        // follows it can be aligned within the file
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
 
-        int id = processBinarySavable(object);
+        // write signature and version
+        header.write(ByteUtils.convertToBytes(FormatVersion.SIGNATURE)); // 1. "signature"
+        header.write(ByteUtils.convertToBytes(FormatVersion.VERSION));   // 2. "version"
+
+        int id;
+        if (parallel) {
+            id = processBinarySavables(Collections.singletonList(object))[0];
+        } else {
+            id = processBinarySavable(object);
+        }
 
         // write out tag table
         int classTableSize = 0;
@@ -195,45 +363,46 @@ public class BinaryExporter implements JmeExporter {
                                                                   // aliases a
                                                                   // fixed width
 
-        os.write(ByteUtils.convertToBytes(classNum)); // 3. "number of classes"
+        header.write(ByteUtils.convertToBytes(classNum)); // 3. "number of classes"
         for (String key : classes.keySet()) {
             BinaryClassObject bco = classes.get(key);
 
             // write alias
             byte[] aliasBytes = fixClassAlias(bco.alias,
                     aliasSize);
-            os.write(aliasBytes);                     // 4. "class alias"
+            header.write(aliasBytes);                     // 4. "class alias"
             classTableSize += aliasSize;
 
             // jME3 NEW: Write class hierarchy version numbers
-            os.write( bco.classHierarchyVersions.length );
+            header.write( bco.classHierarchyVersions.length );
             for (int version : bco.classHierarchyVersions){
-                os.write(ByteUtils.convertToBytes(version));
+                header.write(ByteUtils.convertToBytes(version));
             }
             classTableSize += 1 + bco.classHierarchyVersions.length * 4;
 
             // write classname size & classname
             byte[] classBytes = key.getBytes();
-            os.write(ByteUtils.convertToBytes(classBytes.length)); // 5. "full class-name size"
-            os.write(classBytes);                                  // 6. "full class name"
+            header.write(ByteUtils.convertToBytes(classBytes.length)); // 5. "full class-name size"
+            header.write(classBytes);                                  // 6. "full class name"
             classTableSize += 4 + classBytes.length;
 
             // for each field, write alias, type, and name
-            os.write(ByteUtils.convertToBytes(bco.nameFields.size())); // 7. "number of fields"
+            header.write(ByteUtils.convertToBytes(bco.nameFields.size())); // 7. "number of fields"
             for (String fieldName : bco.nameFields.keySet()) {
                 BinaryClassField bcf = bco.nameFields.get(fieldName);
-                os.write(bcf.alias);                                   // 8. "field alias"
-                os.write(bcf.type);                                    // 9. "field type"
+                header.write(bcf.alias);                                   // 8. "field alias"
+                header.write(bcf.type);                                    // 9. "field type"
 
                 byte[] fNameBytes = fieldName.getBytes();
-                os.write(ByteUtils.convertToBytes(fNameBytes.length)); // 10. "field-name size"
-                os.write(fNameBytes);                                  // 11. "field name"
+                header.write(ByteUtils.convertToBytes(fNameBytes.length)); // 10. "field-name size"
+                header.write(fNameBytes);                                  // 11. "field name"
                 classTableSize += 2 + 4 + fNameBytes.length;
             }
         }
 
+        // write out data to a list of separate blocks
+        ArrayList<byte[]> blocks = new ArrayList<>();
         ByteArrayOutputStream out = new ByteArrayOutputStream();
-        // write out data to a separate stream
         int location = 0;
         // keep track of location for each piece
         HashMap<String, ArrayList<BinaryIdContentPair>> alreadySaved = new HashMap<>(
@@ -244,51 +413,100 @@ public class BinaryExporter implements JmeExporter {
             BinaryIdContentPair pair = contentTable.get(savable);
             ArrayList<BinaryIdContentPair> bucket = alreadySaved
                     .get(savableName + getChunk(pair));
-            int prevLoc = findPrevMatch(pair, bucket);
-            if (prevLoc != -1) {
-                locationTable.put(pair.getId(), prevLoc);
+            int prevId = findPrevMatch(pair, bucket);
+            if (prevId != -1) {
+                locationTable.put(pair.getId(), locationTable.get(prevId));
+                blockTable.put(pair.getId(), blockTable.get(prevId));
                 continue;
             }
 
-            locationTable.put(pair.getId(), location);
+            if (out.size() >= blockSize) {
+                blocks.add(out.toByteArray());
+                out.reset();
+            }
+            locationTable.put(pair.getId(), out.size());
+            blockTable.put(pair.getId(), blocks.size());
             if (bucket == null) {
                 bucket = new ArrayList<BinaryIdContentPair>();
                 alreadySaved.put(savableName + getChunk(pair), bucket);
             }
             bucket.add(pair);
             byte[] aliasBytes = fixClassAlias(classes.get(savableName).alias, aliasSize);
-            out.write(aliasBytes);            // 17. "class alias"
-            location += aliasSize;
+            out.write(aliasBytes);            // 25. "class alias"
             BinaryOutputCapsule cap = contentTable.get(savable).getContent();
-            out.write(ByteUtils.convertToBytes(cap.bytes.length)); // 18. "capsule length"
-            location += 4; // length of bytes
-            out.write(cap.bytes);             // 19. "capsule data"
-            location += cap.bytes.length;
+            out.write(ByteUtils.convertToBytes(cap.bytes.length)); // 26. "capsule length"
+            out.write(cap.bytes);             // 27. "capsule data"
+            location += aliasSize + 4 + cap.bytes.length;
         }
+        if (out.size() > 0) {
+            blocks.add(out.toByteArray());
+        }
+        out = null;
 
         // write out location table
-        // tag/location
+        // tag/block/location
         int numLocations = locationTable.keySet().size();
-        os.write(ByteUtils.convertToBytes(numLocations)); // 12. "number of capsules"
+        header.write(ByteUtils.convertToBytes(numLocations)); // 12. "number of capsules"
         int locationTableSize = 0;
         for (Integer key : locationTable.keySet()) {
-            os.write(ByteUtils.convertToBytes(key));                    // 13. "data id"
-            os.write(ByteUtils.convertToBytes(locationTable.get(key))); // 14. "data location"
-            locationTableSize += 8;
+            header.write(ByteUtils.convertToBytes(key));                    // 13. "data id"
+            header.write(ByteUtils.convertToBytes(blockTable.get(key)));    // 14. "data block"
+            header.write(ByteUtils.convertToBytes(locationTable.get(key))); // 15. "data location"
+            locationTableSize += 12;
         }
 
         // write out number of root ids - hardcoded 1 for now
-        os.write(ByteUtils.convertToBytes(1));  // 15. "future use"
+        header.write(ByteUtils.convertToBytes(1));  // 16. "future use"
 
         // write out root id
-        os.write(ByteUtils.convertToBytes(id)); // 16. "root id"
+        header.write(ByteUtils.convertToBytes(id)); // 17. "root id"
 
-        // append stream to the output stream
-        out.writeTo(os);
+        // write out the name index of all named spatials
+        ArrayList<Integer> namedIds = new ArrayList<>();
+        ArrayList<byte[]> names = new ArrayList<>();
+        for (Savable savable : contentKeys) {
+            if (savable instanceof Spatial && ((Spatial) savable).getName() != null) {
+                namedIds.add(contentTable.get(savable).getId());
+                names.add(((Spatial) savable).getName().getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        header.write(ByteUtils.convertToBytes(names.size())); // 18. "number of names"
+        for (int i = 0; i < names.size(); i++) {
+            header.write(ByteUtils.convertToBytes(namedIds.get(i))); // 19. "named id"
+            header.write(ByteUtils.convertToBytes(names.get(i).length));
+            header.write(names.get(i));                             // 20. "name"
+        }
 
+        // write out the block table, compressing the blocks if asked to
+        header.write(ByteUtils.convertToBytes(blocks.size())); // 21. "number of blocks"
+        int storedSize = 0;
+        for (int i = 0; i < blocks.size(); i++) {
+            byte[] block = blocks.get(i);
+            byte compression = BLOCK_RAW;
+            if (compressed) {
+                byte[] deflated = deflate(block);
+                if (deflated.length < block.length) {
+                    blocks.set(i, deflated);
+                    compression = BLOCK_DEFLATE;
+                }
+            }
+            header.write(compression);                                   // 22. "block compression"
+            header.write(ByteUtils.convertToBytes(blocks.get(i).length)); // 23. "stored block size"
+            header.write(ByteUtils.convertToBytes(block.length));        // 24. "block size"
+            storedSize += blocks.get(i).length;
+        }
 
-        out = null;
-        os = null;
+        // write out the buffer section size and pad to a 16 byte boundary
+        header.write(ByteUtils.convertToBytes(bufferSection.size())); // 28. "buffer section size"
+        int padding = (16 - (header.size() + 1) % 16) % 16;
+        header.write(padding);                                        // 29. "padding size"
+        header.write(new byte[padding]);
+
+        header.writeTo(os);
+        bufferSection.writeTo(os);                                    // 30. "buffer section"
+        for (byte[] block : blocks) {
+            os.write(block);
+        }
 
         if (debug) {
             logger.fine("Stats:");
@@ -296,7 +514,83 @@ public class BinaryExporter implements JmeExporter {
             logger.log(Level.FINE, "class table: {0} bytes", classTableSize);
             logger.log(Level.FINE, "objects: {0}", numLocations);
             logger.log(Level.FINE, "location table: {0} bytes", locationTableSize);
-            logger.log(Level.FINE, "data: {0} bytes", location);
+            logger.log(Level.FINE, "data: {0} bytes in {1} blocks, {2} bytes stored",
+                    new Object[]{location, blocks.size(), storedSize});
+            logger.log(Level.FINE, "buffers: {0} bytes", bufferSection.size());
+            if (statistics != null) {
+                logger.log(Level.FINE, "sizes:\n{0}", statistics);
+            }
+        }
+        bufferSection = null;
+        bufferOffsets.clear();
+    }
+
+    private static byte[] deflate(byte[] block) {
+        Deflater deflater = new Deflater();
+        try {
+            deflater.setInput(block);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(block.length / 2 + 16);
+            byte[] chunk = new byte[4096];
+            while (!deflater.finished()) {
+                int count = deflater.deflate(chunk);
+                out.write(chunk, 0, count);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Appends raw buffer data to the buffer section, starting at a 16 byte
+     * aligned offset. Data identical to a buffer already in the section is
+     * not stored again.
+     *
+     * @param data the little-endian buffer contents
+     * @return the offset of the data within the buffer section
+     */
+    synchronized int writeBufferData(byte[] data) {
+        BufferKey key = new BufferKey(data);
+        Integer existing = bufferOffsets.get(key);
+        if (existing != null) {
+            if (statistics != null) {
+                statistics.addDeduplicatedBuffer(data.length);
+            }
+            return existing;
+        }
+
+        int offset = (bufferSection.size() + 15) & ~15;
+        while (bufferSection.size() < offset) {
+            bufferSection.write(0);
+        }
+        bufferSection.write(data, 0, data.length);
+        bufferOffsets.put(key, offset);
+        return offset;
+    }
+
+    /**
+     * Buffer contents compared by value, hashed once.
+     */
+    private static final class BufferKey {
+
+        private final byte[] data;
+        private final int hash;
+
+        BufferKey(byte[] data) {
+            this.data = data;
+            this.hash = Arrays.hashCode(data);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof BufferKey && hash == ((BufferKey) o).hash
+                    && Arrays.equals(data, ((BufferKey) o).data);
         }
     }
 
@@ -312,7 +606,7 @@ public class BinaryExporter implements JmeExporter {
         for (int x = bucket.size(); --x >= 0;) {
             BinaryIdContentPair pair = bucket.get(x);
             if (pair.getContent().equals(oldPair.getContent()))
-                return locationTable.get(pair.getId());
+                return pair.getId();
         }
         return -1;
     }
@@ -342,7 +636,9 @@ public class BinaryExporter implements JmeExporter {
 
     @Override
     public OutputCapsule getCapsule(Savable object) {
-        return contentTable.get(object).getContent();
+        synchronized (contentTable) {
+            return contentTable.get(object).getContent();
+        }
     }
 
     private BinaryClassObject createClassObject(Class<? extends Savable> clazz) throws IOException{
@@ -350,6 +646,7 @@ public class BinaryExporter implements JmeExporter {
         bco.alias = generateTag();
         bco.nameFields = new HashMap<>();
         bco.classHierarchyVersions = SavableClassUtil.getSavableVersions(clazz);
+        bco.className = clazz.getName();
 
         classes.put(clazz.getName(), bco);
 
@@ -360,20 +657,20 @@ public class BinaryExporter implements JmeExporter {
         if (object == null) {
             return -1;
         }
-        Class<? extends Savable> clazz = object.getClass();
-        BinaryClassObject bco = classes.get(object.getClass().getName());
-        // is this class been looked at before? in tagTable?
-        if (bco == null) {
-            bco = createClassObject(object.getClass());
-        }
+        BinaryIdContentPair newPair;
+        synchronized (contentTable) {
+            BinaryClassObject bco = classes.get(object.getClass().getName());
+            // is this class been looked at before? in tagTable?
+            if (bco == null) {
+                bco = createClassObject(object.getClass());
+            }
 
-        // is object in contentTable?
-        if (contentTable.get(object) != null) {
-            return (contentTable.get(object).getId());
-        }
-        BinaryIdContentPair newPair = generateIdContentPair(bco);
-        BinaryIdContentPair old = contentTable.put(object, newPair);
-        if (old == null) {
+            // is object in contentTable?
+            if (contentTable.get(object) != null) {
+                return (contentTable.get(object).getId());
+            }
+            newPair = generateIdContentPair(bco);
+            contentTable.put(object, newPair);
             contentKeys.add(object);
         }
         object.write(this);
@@ -382,6 +679,64 @@ public class BinaryExporter implements JmeExporter {
 
     }
 
+    /**
+     * Processes several savables, concurrently if the exporter is
+     * {@link #setParallel(boolean) parallel}.
+     *
+     * @param objects the savables to process (elements may be null)
+     * @return the ids of the savables, -1 for null elements
+     * @throws IOException if a savable cannot be written
+     */
+    int[] processBinarySavables(List<? extends Savable> objects) throws IOException {
+        int[] ids = new int[objects.size()];
+        if (!parallel || objects.isEmpty()
+                || (objects.size() == 1 && ForkJoinTask.inForkJoinPool())) {
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = processBinarySavable(objects.get(i));
+            }
+            return ids;
+        }
+
+        Exception[] errors = new Exception[ids.length];
+        List<RecursiveAction> tasks = new ArrayList<>(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            final int index = i;
+            tasks.add(new RecursiveAction() {
+                static final long serialVersionUID = 1;
+
+                @Override
+                protected void compute() {
+                    try {
+                        ids[index] = processBinarySavable(objects.get(index));
+                    } catch (IOException | RuntimeException ex) {
+                        errors[index] = ex;
+                    }
+                }
+            });
+        }
+        if (ForkJoinTask.inForkJoinPool()) {
+            ForkJoinTask.invokeAll(tasks);
+        } else {
+            ForkJoinPool.commonPool().invoke(new RecursiveAction() {
+                static final long serialVersionUID = 1;
+
+                @Override
+                protected void compute() {
+                    invokeAll(tasks);
+                }
+            });
+        }
+
+        for (Exception ex : errors) {
+            if (ex instanceof IOException) {
+                throw (IOException) ex;
+            } else if (ex != null) {
+                throw (RuntimeException) ex;
+            }
+        }
+        return ids;
+    }
+
     protected byte[] generateTag() {
         int width = ((int) FastMath.log(aliasCount, 256) + 1);
         int count = aliasCount;
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2009-2021 jMonkeyEngine
+ * Copyright (c) 2009-2025 jMonkeyEngine
  * All rights reserved.
  *
  * Redistribution and use in source and binary forms, with or without
@@ -35,13 +35,21 @@ import com.jme3.asset.AssetInfo;
 import com.jme3.asset.AssetManager;
 import com.jme3.export.*;
 import com.jme3.math.FastMath;
+import com.jme3.scene.Node;
+import com.jme3.scene.Spatial;
 import java.io.*;
 import java.net.URL;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.IdentityHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
 
 /**
  * @author Joshua Slack
@@ -65,14 +73,30 @@ public final class BinaryImporter implements JmeImporter {
     //Key - id, object - location in the file
     private final HashMap<Integer, Integer> locationTable
              = new HashMap<>();
+    //Key - id, object - the data block holding it
+    private final HashMap<Integer, Integer> blockTable
+             = new HashMap<>();
+    //Key - spatial name, object - id
+    private final HashMap<String, Integer> nameTable
+             = new HashMap<>();
 
     public static boolean debug = false;
 
-    private byte[] dataArray;
+    private ByteBuffer data;
     private int aliasWidth;
     private int formatVersion;
+    private int rootId;
+
+    private byte[] blockCompression;
+    private int[] blockOffsets;
+    private int[] blockSizes;
+    private ByteBuffer[] blocks;
+    private int bufferSectionSize;
+    private ByteBuffer bufferSection;
 
     private static final boolean fastRead = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
+
+    private static volatile long mapThreshold = -1;
     
     public BinaryImporter() {
     }
@@ -86,6 +110,35 @@ public final class BinaryImporter implements JmeImporter {
         return fastRead;
     }
 
+    /**
+     * Sets the file size from which files are memory-mapped instead of being
+     * copied into the heap. Applies to {@link #load(File)} and to any other
+     * load from a {@link FileInputStream}, e.g. assets found by the
+     * <code>FileLocator</code>. Mapped files are decoded lazily, field by
+     * field, as the savables read them.
+     * <p>
+     * Mapping is disabled by default. A mapped file stays mapped until the
+     * mapping is garbage collected, which can be long after the load has
+     * returned, and on Windows a mapped file cannot be deleted, renamed or
+     * overwritten in the meantime. Only enable it for files that are not
+     * modified while the application runs, e.g. packaged assets.
+     *
+     * @param bytes the size threshold in bytes, or a negative value to never
+     * map files (default: -1)
+     */
+    public static void setMemoryMapThreshold(long bytes){
+        mapThreshold = bytes;
+    }
+
+    /**
+     * @return the size from which files are memory-mapped, negative if
+     * mapping is disabled
+     * @see #setMemoryMapThreshold(long)
+     */
+    public static long getMemoryMapThreshold(){
+        return mapThreshold;
+    }
+
     public static BinaryImporter getInstance() {
         return new BinaryImporter();
     }
@@ -133,9 +186,206 @@ public final class BinaryImporter implements JmeImporter {
     }
 
     public Savable load(InputStream is, ReadListener listener, ByteArrayOutputStream baos) throws IOException {
+        long threshold = mapThreshold;
+        if (is instanceof FileInputStream && threshold >= 0) {
+            FileChannel channel = ((FileInputStream) is).getChannel();
+            long remaining = channel.size() - channel.position();
+            if (remaining >= threshold) {
+                return load(channel.map(FileChannel.MapMode.READ_ONLY, channel.position(), remaining), listener);
+            }
+        }
+
         contentTable.clear();
         BufferedInputStream bis = new BufferedInputStream(is);
-        
+        int id = readHeader(bis, listener);
+
+        if (baos == null) {
+                baos = new ByteArrayOutputStream();
+        } else {
+                baos.reset();
+        }
+        int size = -1;
+        byte[] cache = new byte[4096];
+        while((size = bis.read(cache)) != -1) {
+            baos.write(cache, 0, size);
+            if (listener != null) listener.readBytes(size);
+        }
+        bis = null;
+
+        data = ByteBuffer.wrap(baos.toByteArray());
+        baos = null;
+
+        return readRoot(id);
+    }
+
+    /**
+     * Loads from a memory-mapped file. Only the header is parsed up front,
+     * the object data is read straight out of the mapping.
+     */
+    private Savable load(MappedByteBuffer map, ReadListener listener) throws IOException {
+        openMapped(map, listener);
+        return readRoot(rootId);
+    }
+
+    private void openMapped(MappedByteBuffer map, ReadListener listener) throws IOException {
+        contentTable.clear();
+        readHeader(new MappedInputStream(map), listener);
+        if (listener != null) listener.readBytes(map.remaining());
+
+        data = map.slice();
+    }
+
+    private static MappedByteBuffer map(File f) throws IOException {
+        try (FileInputStream fis = new FileInputStream(f)) {
+            FileChannel channel = fis.getChannel();
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Loads a single savable out of a file, decoding only that savable and
+     * the ones it references. The file is always memory-mapped, see
+     * {@link #setMemoryMapThreshold(long)} about file locking.
+     *
+     * @param f the file to read
+     * @param id the id of the savable in the file's location table
+     * @return the savable, or null if the file holds no such id
+     * @throws IOException if the file cannot be read
+     */
+    public Savable loadObject(File f, int id) throws IOException {
+        openMapped(map(f), null);
+        if (!locationTable.containsKey(id)) {
+            data = null;
+            return null;
+        }
+        return readRoot(id);
+    }
+
+    /**
+     * Loads the first spatial with the given name out of a file, decoding
+     * only that spatial and its subtree. The file is always memory-mapped,
+     * see {@link #setMemoryMapThreshold(long)} about file locking.
+     *
+     * <p>Files written before format version 4 have no name index: they are
+     * loaded completely and the spatial is looked up in the loaded scene.
+     *
+     * @param f the file to read
+     * @param name the name of the spatial
+     * @return the spatial, or null if the file holds no such spatial
+     * @throws IOException if the file cannot be read
+     */
+    public Spatial loadNamed(File f, String name) throws IOException {
+        openMapped(map(f), null);
+        if (formatVersion >= 4) {
+            Integer id = nameTable.get(name);
+            if (id == null) {
+                data = null;
+                return null;
+            }
+            return (Spatial) readRoot(id);
+        }
+
+        Savable root = readRoot(rootId);
+        if (root instanceof Node) {
+            return ((Node) root).getChild(name);
+        } else if (root instanceof Spatial && name.equals(((Spatial) root).getName())) {
+            return (Spatial) root;
+        }
+        return null;
+    }
+
+    private Savable readRoot(int id) {
+        openBlocks();
+        Savable rVal = readObject(id);
+        if (debug) {
+            logger.fine("Importer Stats: ");
+            logger.log(Level.FINE, "Tags: {0}", classes.size());
+            logger.log(Level.FINE, "Objects: {0}", locationTable.size());
+            logger.log(Level.FINE, "Data Size: {0}", data.capacity());
+        }
+        data = null;
+        blocks = null;
+        bufferSection = null;
+        return rVal;
+    }
+
+    /**
+     * Splits the data section into the buffer section and the object data
+     * blocks. Files written before format version 4 have a single raw block.
+     */
+    private void openBlocks() {
+        if (formatVersion < 4) {
+            blocks = new ByteBuffer[]{ data };
+            return;
+        }
+        bufferSection = slice(0, bufferSectionSize);
+        blocks = new ByteBuffer[blockSizes.length];
+    }
+
+    private ByteBuffer slice(int offset, int length) {
+        ByteBuffer slice = data.duplicate();
+        slice.limit(offset + length);
+        slice.position(offset);
+        return slice.slice();
+    }
+
+    private ByteBuffer getBlock(int index) throws IOException {
+        if (blocks[index] == null) {
+            int stored = blockOffsets[index + 1] - blockOffsets[index];
+            ByteBuffer block = slice(blockOffsets[index], stored);
+            if (blockCompression[index] == BinaryExporter.BLOCK_DEFLATE) {
+                byte[] input = new byte[stored];
+                block.get(input);
+                block = ByteBuffer.wrap(inflate(input, blockSizes[index]));
+            } else if (blockCompression[index] != BinaryExporter.BLOCK_RAW) {
+                throw new IOException("Unknown block compression " + blockCompression[index]);
+            }
+            blocks[index] = block;
+        }
+        return blocks[index];
+    }
+
+    private static byte[] inflate(byte[] input, int size) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(input);
+            byte[] output = new byte[size];
+            int count = 0;
+            while (count < size && !inflater.finished()) {
+                int read = inflater.inflate(output, count, size - count);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                count += read;
+            }
+            if (count != size) {
+                throw new IOException("Truncated data block");
+            }
+            return output;
+        } catch (DataFormatException ex) {
+            throw new IOException("Corrupt data block", ex);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Returns a little-endian view of raw buffer data in the buffer section
+     * of a version 4 file.
+     */
+    ByteBuffer getBufferData(int offset, int length) {
+        ByteBuffer view = bufferSection.duplicate();
+        view.limit(offset + length);
+        view.position(offset);
+        return view.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Reads the signature, class table and location table.
+     *
+     * @return the id of the root savable
+     */
+    private int readHeader(InputStream bis, ReadListener listener) throws IOException {
         int numClasses;
         
         // Try to read signature
@@ -213,8 +463,13 @@ public final class BinaryImporter implements JmeImporter {
 
         capsuleTable.clear();
         locationTable.clear();
+        blockTable.clear();
         for(int i = 0; i < numLocs; i++) {
             int id = ByteUtils.readInt(bis);
+            if (formatVersion >= 4) {
+                blockTable.put(id, ByteUtils.readInt(bis));
+                bytes += 4;
+            }
             int loc = ByteUtils.readInt(bis);
             locationTable.put(id, loc);
             bytes += 8;
@@ -224,33 +479,46 @@ public final class BinaryImporter implements JmeImporter {
         int numbIDs = ByteUtils.readInt(bis); // XXX: NOT CURRENTLY USED
         int id = ByteUtils.readInt(bis);
         bytes += 8;
-        if (listener != null) listener.readBytes(bytes);
 
-        if (baos == null) {
-                baos = new ByteArrayOutputStream(bytes);
-        } else {
-                baos.reset();
-        }
-        int size = -1;
-        byte[] cache = new byte[4096];
-        while((size = bis.read(cache)) != -1) {
-            baos.write(cache, 0, size);
-            if (listener != null) listener.readBytes(size);
-        }
-        bis = null;
+        nameTable.clear();
+        if (formatVersion >= 4) {
+            int numNames = ByteUtils.readInt(bis);
+            bytes += 4;
+            for (int i = 0; i < numNames; i++) {
+                int namedId = ByteUtils.readInt(bis);
+                int nameLength = ByteUtils.readInt(bis);
+                byte[] name = new byte[nameLength];
+                ByteUtils.readData(name, nameLength, bis);
+                nameTable.putIfAbsent(new String(name, StandardCharsets.UTF_8), namedId);
+                bytes += 8 + nameLength;
+            }
 
-        dataArray = baos.toByteArray();
-        baos = null;
+            int numBlocks = ByteUtils.readInt(bis);
+            blockCompression = new byte[numBlocks];
+            blockSizes = new int[numBlocks];
+            int[] storedSizes = new int[numBlocks];
+            for (int i = 0; i < numBlocks; i++) {
+                blockCompression[i] = (byte) bis.read();
+                storedSizes[i] = ByteUtils.readInt(bis);
+                blockSizes[i] = ByteUtils.readInt(bis);
+            }
+            bufferSectionSize = ByteUtils.readInt(bis);
+            blockOffsets = new int[numBlocks + 1];
+            blockOffsets[0] = bufferSectionSize;
+            for (int i = 0; i < numBlocks; i++) {
+                blockOffsets[i + 1] = blockOffsets[i] + storedSizes[i];
+            }
 
-        Savable rVal = readObject(id);
-        if (debug) {
-            logger.fine("Importer Stats: ");
-            logger.log(Level.FINE, "Tags: {0}", numClasses);
-            logger.log(Level.FINE, "Objects: {0}", numLocs);
-            logger.log(Level.FINE, "Data Size: {0}", dataArray.length);
+            int padding = bis.read();
+            for (int i = 0; i < padding; i++) {
+                bis.read();
+            }
+            // numBlocks, the buffer section size and the padding size
+            bytes += 9 + numBlocks * 9 + padding;
         }
-        dataArray = null;
-        return rVal;
+        if (listener != null) listener.readBytes(bytes);
+        rootId = id;
+        return id;
     }
 
     public Savable load(URL f) throws IOException {
@@ -298,10 +566,10 @@ public final class BinaryImporter implements JmeImporter {
         return new String(data);
     }
 
-    protected String readString(int length, int offset) throws IOException {
+    protected String readString(ByteBuffer block, int length, int offset) throws IOException {
         byte[] data = new byte[length];
         for(int j = 0; j < length; j++) {
-            data[j] = dataArray[j+offset];
+            data[j] = block.get(j+offset);
         }
 
         return new String(data);
@@ -315,8 +583,10 @@ public final class BinaryImporter implements JmeImporter {
 
         try {
             int loc = locationTable.get(id);
+            Integer blockIndex = blockTable.get(id);
+            ByteBuffer block = getBlock(blockIndex != null ? blockIndex : 0);
 
-            String alias = readString(aliasWidth, loc);
+            String alias = readString(block, aliasWidth, loc);
             loc+=aliasWidth;
 
             BinaryClassObject bco = classes.get(alias);
@@ -326,13 +596,13 @@ public final class BinaryImporter implements JmeImporter {
                 return null;
             }
 
-            int dataLength = ByteUtils.convertIntFromBytes(dataArray, loc);
+            int dataLength = block.getInt(loc);
             loc+=4;
 
             Savable  out = SavableClassUtil.fromName(bco.className);
 
             BinaryInputCapsule cap = new BinaryInputCapsule(this, out, bco);
-            cap.setContent(dataArray, loc, loc+dataLength);
+            cap.setContent(block, loc, loc+dataLength);
 
             capsuleTable.put(out, cap);
             contentTable.put(id, out);
@@ -348,4 +618,32 @@ public final class BinaryImporter implements JmeImporter {
             return null;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Reads the header of a memory-mapped file, leaving the buffer positioned
+     * at the object data.
+     */
+    private static class MappedInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        MappedInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            len = Math.min(len, buffer.remaining());
+            buffer.get(b, off, len);
+            return len;
+        }
+    }
+}
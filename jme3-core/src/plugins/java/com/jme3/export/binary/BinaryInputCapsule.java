@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2009-2021 jMonkeyEngine
+ * Copyright (c) 2009-2025 jMonkeyEngine
  * All rights reserved.
  *
  * Redistribution and use in source and binary forms, with or without
@@ -38,11 +38,13 @@ import com.jme3.util.BufferUtils;
 import com.jme3.util.IntMap;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
 import java.nio.ShortBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.HashMap;
 import java.util.Map;
@@ -60,203 +62,342 @@ final class BinaryInputCapsule implements InputCapsule {
     protected BinaryImporter importer;
     protected BinaryClassObject cObj;
     protected Savable savable;
-    protected HashMap<Byte, Object> fieldData;
 
+    /**
+     * The savable's field data, read with absolute gets so that capsules of
+     * nested savables can share one (possibly memory-mapped) buffer.
+     */
+    protected ByteBuffer content;
     protected int index = 0;
 
+    private int limit;
+    /**
+     * Start offset of each field's value keyed by {@code alias & 0xFF}, or -1
+     * if the field has not been reached yet. Filled in lazily by
+     * {@link #seek(BinaryClassField)}.
+     */
+    private int[] fieldOffsets;
+    private int scanIndex;
+
+    /**
+     * True if buffer contents are stored in the importer's buffer section
+     * rather than inline (format version 4 and up).
+     */
+    private final boolean bufferSection;
+
     public BinaryInputCapsule(BinaryImporter importer, Savable savable, BinaryClassObject bco) {
         this.importer = importer;
         this.cObj = bco;
         this.savable = savable;
+        this.bufferSection = importer.getFormatVersion() >= 4;
+    }
+
+    /**
+     * Sets the range of <code>content</code> holding this savable's fields.
+     * Nothing is decoded here: fields are located on demand and decoded only
+     * when the matching <code>readXxx</code> method is called.
+     *
+     * @param content the data buffer (big-endian, not modified)
+     * @param start the offset of the first field
+     * @param limit the offset just past the last field
+     */
+    public void setContent(ByteBuffer content, int start, int limit) {
+        this.content = content;
+        this.limit = limit;
+        this.scanIndex = start;
+        this.fieldOffsets = null;
+    }
+
+    /**
+     * Positions {@link #index} at the value of the given field, skipping over
+     * (but not decoding) any fields that precede it.
+     *
+     * @param field the field to look for
+     * @return true if the field was written, false if it should default
+     */
+    private boolean seek(BinaryClassField field) throws IOException {
+        if (fieldOffsets == null) {
+            fieldOffsets = new int[256];
+            Arrays.fill(fieldOffsets, -1);
+        }
+        int key = field.alias & 0xFF;
+        while (fieldOffsets[key] == -1 && scanIndex < limit) {
+            byte alias = content.get(scanIndex);
+            BinaryClassField scanned = cObj.aliasFields.get(alias);
+            fieldOffsets[alias & 0xFF] = scanIndex + 1;
+            index = scanIndex + 1;
+            if (!skip(scanned.type)) {
+                logger.log(Level.SEVERE, "Unknown field type {0} in {1}",
+                        new Object[]{scanned.type, cObj.className});
+                scanIndex = limit;
+                break;
+            }
+            scanIndex = index;
+        }
+        if (fieldOffsets[key] == -1) {
+            return false;
+        }
+        index = fieldOffsets[key];
+        return true;
+    }
+
+    /**
+     * Decodes the value at {@link #index}, as the eager reader used to store
+     * it for the given field type.
+     */
+    private Object decode(byte type) throws IOException {
+        switch (type) {
+            case BinaryClassField.BITSET:
+                return readBitSet(content);
+            case BinaryClassField.BOOLEAN:
+                return readBoolean(content);
+            case BinaryClassField.BOOLEAN_1D:
+                return readBooleanArray(content);
+            case BinaryClassField.BOOLEAN_2D:
+                return readBooleanArray2D(content);
+            case BinaryClassField.BYTE:
+                return readByte(content);
+            case BinaryClassField.BYTE_1D:
+                return readByteArray(content);
+            case BinaryClassField.BYTE_2D:
+                return readByteArray2D(content);
+            case BinaryClassField.BYTEBUFFER:
+                return readByteBuffer(content);
+            case BinaryClassField.DOUBLE:
+                return readDouble(content);
+            case BinaryClassField.DOUBLE_1D:
+                return readDoubleArray(content);
+            case BinaryClassField.DOUBLE_2D:
+                return readDoubleArray2D(content);
+            case BinaryClassField.FLOAT:
+                return readFloat(content);
+            case BinaryClassField.FLOAT_1D:
+                return readFloatArray(content);
+            case BinaryClassField.FLOAT_2D:
+                return readFloatArray2D(content);
+            case BinaryClassField.FLOATBUFFER:
+                return readFloatBuffer(content);
+            case BinaryClassField.FLOATBUFFER_ARRAYLIST:
+                return readFloatBufferArrayList(content);
+            case BinaryClassField.BYTEBUFFER_ARRAYLIST:
+                return readByteBufferArrayList(content);
+            case BinaryClassField.INT:
+                return readInt(content);
+            case BinaryClassField.INT_1D:
+                return readIntArray(content);
+            case BinaryClassField.INT_2D:
+                return readIntArray2D(content);
+            case BinaryClassField.INTBUFFER:
+                return readIntBuffer(content);
+            case BinaryClassField.LONG:
+                return readLong(content);
+            case BinaryClassField.LONG_1D:
+                return readLongArray(content);
+            case BinaryClassField.LONG_2D:
+                return readLongArray2D(content);
+            case BinaryClassField.SAVABLE:
+                return readSavable(content);
+            case BinaryClassField.SAVABLE_1D:
+            case BinaryClassField.SAVABLE_ARRAYLIST:
+                return readSavableArray(content);
+            case BinaryClassField.SAVABLE_2D:
+            case BinaryClassField.SAVABLE_ARRAYLIST_1D:
+                return readSavableArray2D(content);
+            case BinaryClassField.SAVABLE_ARRAYLIST_2D:
+                return readSavableArray3D(content);
+            case BinaryClassField.SAVABLE_MAP:
+                return readSavableMap(content);
+            case BinaryClassField.STRING_SAVABLE_MAP:
+                return readStringSavableMap(content);
+            case BinaryClassField.INT_SAVABLE_MAP:
+                return readIntSavableMap(content);
+            case BinaryClassField.SHORT:
+                return readShort(content);
+            case BinaryClassField.SHORT_1D:
+                return readShortArray(content);
+            case BinaryClassField.SHORT_2D:
+                return readShortArray2D(content);
+            case BinaryClassField.SHORTBUFFER:
+                return readShortBuffer(content);
+            case BinaryClassField.STRING:
+                return readString(content);
+            case BinaryClassField.STRING_1D:
+                return readStringArray(content);
+            case BinaryClassField.STRING_2D:
+                return readStringArray2D(content);
+            default:
+                return null;
+        }
     }
 
-    public void setContent(byte[] content, int start, int limit) {
-        fieldData = new HashMap<Byte, Object>();
-        for (index = start; index < limit;) {
-            byte alias = content[index];
-
-            index++;
-
-            try {
-                byte type = cObj.aliasFields.get(alias).type;
-                Object value = null;
-
-                switch (type) {
-                    case BinaryClassField.BITSET: {
-                        value = readBitSet(content);
-                        break;
-                    }
-                    case BinaryClassField.BOOLEAN: {
-                        value = readBoolean(content);
-                        break;
-                    }
-                    case BinaryClassField.BOOLEAN_1D: {
-                        value = readBooleanArray(content);
-                        break;
-                    }
-                    case BinaryClassField.BOOLEAN_2D: {
-                        value = readBooleanArray2D(content);
-                        break;
-                    }
-                    case BinaryClassField.BYTE: {
-                        value = readByte(content);
-                        break;
-                    }
-                    case BinaryClassField.BYTE_1D: {
-                        value = readByteArray(content);
-                        break;
-                    }
-                    case BinaryClassField.BYTE_2D: {
-                        value = readByteArray2D(content);
-                        break;
-                    }
-                    case BinaryClassField.BYTEBUFFER: {
-                        value = readByteBuffer(content);
-                        break;
-                    }
-                    case BinaryClassField.DOUBLE: {
-                        value = readDouble(content);
-                        break;
-                    }
-                    case BinaryClassField.DOUBLE_1D: {
-                        value = readDoubleArray(content);
-                        break;
-                    }
-                    case BinaryClassField.DOUBLE_2D: {
-                        value = readDoubleArray2D(content);
-                        break;
-                    }
-                    case BinaryClassField.FLOAT: {
-                        value = readFloat(content);
-                        break;
-                    }
-                    case BinaryClassField.FLOAT_1D: {
-                        value = readFloatArray(content);
-                        break;
-                    }
-                    case BinaryClassField.FLOAT_2D: {
-                        value = readFloatArray2D(content);
-                        break;
-                    }
-                    case BinaryClassField.FLOATBUFFER: {
-                        value = readFloatBuffer(content);
-                        break;
-                    }
-                    case BinaryClassField.FLOATBUFFER_ARRAYLIST: {
-                        value = readFloatBufferArrayList(content);
-                        break;
-                    }
-                    case BinaryClassField.BYTEBUFFER_ARRAYLIST: {
-                        value = readByteBufferArrayList(content);
-                        break;
-                    }
-                    case BinaryClassField.INT: {
-                        value = readInt(content);
-                        break;
-                    }
-                    case BinaryClassField.INT_1D: {
-                        value = readIntArray(content);
-                        break;
-                    }
-                    case BinaryClassField.INT_2D: {
-                        value = readIntArray2D(content);
-                        break;
+    // element kinds for skipArray, positive values are fixed byte sizes
+    private static final int INT_ELEMENT = -1;
+    private static final int LONG_ELEMENT = -2;
+    private static final int STRING_ELEMENT = -3;
+
+    /**
+     * Advances {@link #index} past the value of a field of the given type
+     * without materializing it.
+     *
+     * @return false if the type is unknown
+     */
+    private boolean skip(byte type) throws IOException {
+        switch (type) {
+            case BinaryClassField.BOOLEAN:
+            case BinaryClassField.BYTE:
+                index += 1;
+                return true;
+            case BinaryClassField.SHORT:
+                index += 2;
+                return true;
+            case BinaryClassField.FLOAT:
+                index += 4;
+                return true;
+            case BinaryClassField.DOUBLE:
+                index += 8;
+                return true;
+            case BinaryClassField.INT:
+            case BinaryClassField.SAVABLE:
+                skipArray(INT_ELEMENT, 0);
+                return true;
+            case BinaryClassField.LONG:
+                skipArray(LONG_ELEMENT, 0);
+                return true;
+            case BinaryClassField.STRING:
+                skipArray(STRING_ELEMENT, 0);
+                return true;
+            case BinaryClassField.BITSET:
+            case BinaryClassField.BOOLEAN_1D:
+            case BinaryClassField.BYTE_1D:
+                skipArray(1, 1);
+                return true;
+            case BinaryClassField.BOOLEAN_2D:
+            case BinaryClassField.BYTE_2D:
+                skipArray(1, 2);
+                return true;
+            case BinaryClassField.SHORT_1D:
+                skipArray(2, 1);
+                return true;
+            case BinaryClassField.SHORT_2D:
+                skipArray(2, 2);
+                return true;
+            case BinaryClassField.FLOAT_1D:
+                skipArray(4, 1);
+                return true;
+            case BinaryClassField.FLOAT_2D:
+                skipArray(4, 2);
+                return true;
+            case BinaryClassField.BYTEBUFFER:
+                skipBuffer(1);
+                return true;
+            case BinaryClassField.SHORTBUFFER:
+                skipBuffer(2);
+                return true;
+            case BinaryClassField.FLOATBUFFER:
+            case BinaryClassField.INTBUFFER:
+                skipBuffer(4);
+                return true;
+            case BinaryClassField.BYTEBUFFER_ARRAYLIST:
+            case BinaryClassField.FLOATBUFFER_ARRAYLIST: {
+                int length = readInt(content);
+                if (length != BinaryOutputCapsule.NULL_OBJECT) {
+                    int elementSize = type == BinaryClassField.BYTEBUFFER_ARRAYLIST ? 1 : 4;
+                    for (int x = 0; x < length; x++) {
+                        skipBuffer(elementSize);
                     }
-                    case BinaryClassField.INTBUFFER: {
-                        value = readIntBuffer(content);
-                        break;
-                    }
-                    case BinaryClassField.LONG: {
-                        value = readLong(content);
-                        break;
-                    }
-                    case BinaryClassField.LONG_1D: {
-                        value = readLongArray(content);
-                        break;
-                    }
-                    case BinaryClassField.LONG_2D: {
-                        value = readLongArray2D(content);
-                        break;
-                    }
-                    case BinaryClassField.SAVABLE: {
-                        value = readSavable(content);
-                        break;
-                    }
-                    case BinaryClassField.SAVABLE_1D: {
-                        value = readSavableArray(content);
-                        break;
-                    }
-                    case BinaryClassField.SAVABLE_2D: {
-                        value = readSavableArray2D(content);
-                        break;
-                    }
-                    case BinaryClassField.SAVABLE_ARRAYLIST: {
-                        value = readSavableArray(content);
-                        break;
-                    }
-                    case BinaryClassField.SAVABLE_ARRAYLIST_1D: {
-                        value = readSavableArray2D(content);
-                        break;
-                    }
-                    case BinaryClassField.SAVABLE_ARRAYLIST_2D: {
-                        value = readSavableArray3D(content);
-                        break;
-                    }
-                    case BinaryClassField.SAVABLE_MAP: {
-                        value = readSavableMap(content);
-                        break;
-                    }
-                    case BinaryClassField.STRING_SAVABLE_MAP: {
-                        value = readStringSavableMap(content);
-                        break;
-                    }
-                    case BinaryClassField.INT_SAVABLE_MAP: {
-                        value = readIntSavableMap(content);
-                        break;
-                    }
-                    case BinaryClassField.SHORT: {
-                        value = readShort(content);
-                        break;
-                    }
-                    case BinaryClassField.SHORT_1D: {
-                        value = readShortArray(content);
-                        break;
-                    }
-                    case BinaryClassField.SHORT_2D: {
-                        value = readShortArray2D(content);
-                        break;
-                    }
-                    case BinaryClassField.SHORTBUFFER: {
-                        value = readShortBuffer(content);
-                        break;
-                    }
-                    case BinaryClassField.STRING: {
-                        value = readString(content);
-                        break;
-                    }
-                    case BinaryClassField.STRING_1D: {
-                        value = readStringArray(content);
-                        break;
-                    }
-                    case BinaryClassField.STRING_2D: {
-                        value = readStringArray2D(content);
-                        break;
-                    }
-
-                    default:
-                        // skip put statement
-                        continue;
                 }
+                return true;
+            }
+            case BinaryClassField.DOUBLE_1D:
+                skipArray(8, 1);
+                return true;
+            case BinaryClassField.DOUBLE_2D:
+                skipArray(8, 2);
+                return true;
+            case BinaryClassField.INT_1D:
+            case BinaryClassField.SAVABLE_1D:
+            case BinaryClassField.SAVABLE_ARRAYLIST:
+                skipArray(INT_ELEMENT, 1);
+                return true;
+            case BinaryClassField.INT_2D:
+            case BinaryClassField.SAVABLE_2D:
+            case BinaryClassField.SAVABLE_ARRAYLIST_1D:
+            case BinaryClassField.SAVABLE_MAP:
+                skipArray(INT_ELEMENT, 2);
+                return true;
+            case BinaryClassField.SAVABLE_ARRAYLIST_2D:
+                skipArray(INT_ELEMENT, 3);
+                return true;
+            case BinaryClassField.LONG_1D:
+                skipArray(LONG_ELEMENT, 1);
+                return true;
+            case BinaryClassField.LONG_2D:
+                skipArray(LONG_ELEMENT, 2);
+                return true;
+            case BinaryClassField.STRING_1D:
+                skipArray(STRING_ELEMENT, 1);
+                return true;
+            case BinaryClassField.STRING_2D:
+                skipArray(STRING_ELEMENT, 2);
+                return true;
+            case BinaryClassField.STRING_SAVABLE_MAP:
+                if (readInt(content) != BinaryOutputCapsule.NULL_OBJECT) {
+                    skipArray(STRING_ELEMENT, 1);
+                    skipArray(INT_ELEMENT, 1);
+                }
+                return true;
+            case BinaryClassField.INT_SAVABLE_MAP:
+                if (readInt(content) != BinaryOutputCapsule.NULL_OBJECT) {
+                    skipArray(INT_ELEMENT, 1);
+                    skipArray(INT_ELEMENT, 1);
+                }
+                return true;
+            default:
+                return false;
+        }
+    }
 
-                fieldData.put(alias, value);
+    private void skipBuffer(int elementSize) throws IOException {
+        int length = readInt(content);
+        if (length == BinaryOutputCapsule.NULL_OBJECT) {
+            return;
+        }
+        if (bufferSection) {
+            readInt(content);
+        } else {
+            index += length * elementSize;
+        }
+    }
 
-            } catch (IOException e) {
-                logger.logp(Level.SEVERE, this.getClass().toString(),
-                        "setContent(byte[] content)", "Exception", e);
+    private void skipArray(int element, int depth) throws IOException {
+        if (depth == 0) {
+            if (element == INT_ELEMENT) {
+                readInt(content);
+            } else if (element == LONG_ELEMENT) {
+                readLong(content);
+            } else if (element == STRING_ELEMENT) {
+                int length = readInt(content);
+                if (length != BinaryOutputCapsule.NULL_OBJECT) {
+                    index += length;
+                }
+            } else {
+                index += element;
             }
+            return;
+        }
+        int length = readInt(content);
+        if (length == BinaryOutputCapsule.NULL_OBJECT) {
+            return;
+        }
+        if (depth == 1 && element > 0) {
+            index += length * element;
+            return;
+        }
+        for (int x = 0; x < length; x++) {
+            skipArray(element, depth - 1);
         }
     }
-    
+
     @Override
     public int getSavableVersion(Class<? extends Savable> desiredClass){
         return SavableClassUtil.getSavedSavableVersion(savable, desiredClass, 
@@ -266,69 +407,69 @@ final class BinaryInputCapsule implements InputCapsule {
     @Override
     public BitSet readBitSet(String name, BitSet defVal) throws IOException {
         BinaryClassField field = cObj.nameFields.get(name);
-        if (field == null || !fieldData.containsKey(field.alias))
+        if (field == null || !seek(field))
             return defVal;
-        return (BitSet) fieldData.get(field.alias);
+        return (BitSet) decode(field.type);
     }
 
     @Override
     public boolean readBoolean(String name, boolean defVal) throws IOException {
         BinaryClassField field = cObj.nameFields.get(name);
-        if (field == null || !fieldData.containsKey(field.alias))
+        if (field == null || !seek(field))
             return defVal;
-        return ((Boolean) fieldData.get(field.alias)).booleanValue();
+        return ((Boolean) decode(field.type)).booleanValue();
     }
 
     @Override
     public boolean[] readBooleanArray(String name, boolean[] defVal)
             throws IOException {
         BinaryClassField field = cObj.nameFields.get(name);
-        if (field == null || !fieldData.containsKey(field.alias))
+        if (field == null || !seek(field))
             return defVal;
-        return (boolean[]) fieldData.get(field.alias);
+        return (boolean[]) decode(field.type);
     }
 
     @Override
     public boolean[][] readBooleanArray2D(String name, boolean[][] defVal)
             throws IOException {
         BinaryClassField field = cObj.nameFields.get(name);
-        if (field == null || !fieldData.containsKey(field.alias))
+        if (field == null || !seek(field))
             return defVal;
-        return (boolean[][]) fieldData.get(field.alias);
+        return (boolean[][]) decode(field.type);
     }
 
     @Override
     public byte readByte(String name, byte defVal) throws IOException {
         BinaryClassField field = cObj.nameFields.get(name);
-        if (field == null || !fieldData.containsKey(field.alias))
+        if (field == null || !seek(field))
             return defVal;
-        return ((Byte) fieldData.get(field.alias)).byteValue();
+        return ((Byte) decode(field.type)).byteValue();
     }
 
     @Override
     public byte[] readByteArray(String name, byte[] defVal) throws IOException {
         BinaryClassField field = cObj.nameFields.get(name);
-        if (field == null || !fieldData.containsKey(field.alias))
+        if (field == null || !seek(field))
             return defVal;
-        return (byte[]) fieldData.get(field.alias);
+        return (byte[]) decode(field.type);
     }
 
     @Override
     public byte[][] readByteArray2D(String name, byte[][] defVal)
             throws IOException {
         BinaryClassField field = cObj.nameFields.get(name);
-        if (field == null || !fieldData.containsKey(field.alias))
+        if (field == null || !seek(field))
             return defVal;
-        return (byte[][]) fieldData.get(field.alias);
+        return (byte[][]) decode(field.type);
     }
 
     @Override
     public ByteBuffer readByteBuffer(String name, ByteBuffer defVal)
             throws IOException {
         BinaryClassField field = cObj.nameFields.get(name);
-        if (field == null || !fieldData.containsKey(field.alias))
+        if (field == null || !seek(field))
             return defVal;
-        return (ByteBuffer) fieldData.get(field.alias);
+        return (ByteBuffer) decode(field.type);
     }
 
     @SuppressWarnings("unchecked")
@@ -336,70 +477,70 @@ final class BinaryInputCapsule implements InputCapsule {
     public ArrayList<ByteBuffer> readByteBufferArrayList(String name,
             ArrayList<ByteBuffer> defVal) throws IOException {
         BinaryClassField field = cObj.nameFields.get(name);
-        if (field == null || !fieldData.containsKey(field.alias))
+        if (field == null || !seek(field))
             return defVal;
-        return (ArrayList<ByteBuffer>) fieldData.get(field.alias);
+        return (ArrayList<ByteBuffer>) decode(field.type);
     }
 
     @Override
     public double readDouble(String name, double defVal) throws IOException {
         BinaryClassField field = cObj.nameFields.get(name);
-        if (field == null || !fieldData.containsKey(field.alias))
+        if (field == null || !seek(field))
             return defVal;
-        return ((Double) fieldData.get(field.alias)).doubleValue();
+        return ((Double) decode(field.type)).doubleValue();
     }
 
     @Override
     public double[] readDoubleArray(String name, double[] defVal)
             throws IOException {
         BinaryClassField field = cObj.nameFields.get(name);
-        if (field == null || !fieldData.containsKey(field.alias))
+        if (field == null || !seek(field))
             return defVal;
-        return (double[]) fieldData.get(field.alias);
+        return (double[]) decode(field.type);
     }
 
     @Override
     public double[][] readDoubleArray2D(String name, double[][] defVal)
             throws IOException {
         BinaryClassField field = cObj.nameFields.get(name);
-        if (field == null || !fieldData.containsKey(field.alias))
+        if (field == null || !seek(field))
             return defVal;
-        return (double[][]) fieldData.get(field.alias);
+        return (double[][]) decode(field.type);
     }
 
     @Override
     public float readFloat(String name, float defVal) throws IOException {
         BinaryClassField field = cObj.nameFields.get(name);
-        if (field == null || !fieldData.containsKey(field.alias))
+        if (field == null || !seek(field))
             return defVal;
-        return ((Float) fieldData.get(field.alias)).floatValue();
+        return ((Float) decode(field.type)).floatValue();
     }
 
     @Override
     public float[] readFloatArray(String name, float[] defVal)
             throws IOException {
         BinaryClassField field = cObj.nameFields.get(name);
-        if (field == null || !fieldData.containsKey(field.alias))
+        if (field == null || !seek(field))
             return defVal;
-        return (float[]) fieldData.get(field.alias);
+        return (float[]) decode(field.type);
     }
 
     @Override
     public float[][] readFloatArray2D(String name, float[][] defVal)
             throws IOException {
         BinaryClassField field = cObj.nameFields.get(name);
-        if (field == null || !fieldData.containsKey(field.alias))
+        if (field == null || !seek(field))
             return defVal;
-        return (float[][]) fieldData.get(field.alias);
+        return (float[][]) decode(field.type);
     }
 
     @Override
     public FloatBuffer readFloatBuffer(String name, FloatBuffer defVal)
             throws IOException {
         BinaryClassField field = cObj.nameFields.get(name);
-        if (field == null || !fieldData.containsKey(field.alias))
+        if (field == null || !seek(field))
             return defVal;
-        return (FloatBuffer) fieldData.get(field.alias);
+        return (FloatBuffer) decode(field.type);
     }
 
     @SuppressWarnings("unchecked")
@@ -407,81 +548,80 @@ final class BinaryInputCapsule implements InputCapsule {
     public ArrayList<FloatBuffer> readFloatBufferArrayList(String name,
             ArrayList<FloatBuffer> defVal) throws IOException {
         BinaryClassField field = cObj.nameFields.get(name);
-        if (field == null || !fieldData.containsKey(field.alias))
+        if (field == null || !seek(field))
             return defVal;
-        return (ArrayList<FloatBuffer>) fieldData.get(field.alias);
+        return (ArrayList<FloatBuffer>) decode(field.type);
     }
 
     @Override
     public int readInt(String name, int defVal) throws IOException {
         BinaryClassField field = cObj.nameFields.get(name);
-        if (field == null || !fieldData.containsKey(field.alias))
+        if (field == null || !seek(field))
             return defVal;
-        return ((Integer) fieldData.get(field.alias)).intValue();
+        return ((Integer) decode(field.type)).intValue();
     }
 
     @Override
     public int[] readIntArray(String name, int[] defVal) throws IOException {
         BinaryClassField field = cObj.nameFields.get(name);
-        if (field == null || !fieldData.containsKey(field.alias))
+        if (field == null || !seek(field))
             return defVal;
-        return (int[]) fieldData.get(field.alias);
+        return (int[]) decode(field.type);
     }
 
     @Override
     public int[][] readIntArray2D(String name, int[][] defVal)
             throws IOException {
         BinaryClassField field = cObj.nameFields.get(name);
-        if (field == null || !fieldData.containsKey(field.alias))
+        if (field == null || !seek(field))
             return defVal;
-        return (int[][]) fieldData.get(field.alias);
+        return (int[][]) decode(field.type);
     }
 
     @Override
     public IntBuffer readIntBuffer(String name, IntBuffer defVal)
             throws IOException {
         BinaryClassField field = cObj.nameFields.get(name);
-        if (field == null || !fieldData.containsKey(field.alias))
+        if (field == null || !seek(field))
             return defVal;
-        return (IntBuffer) fieldData.get(field.alias);
+        return (IntBuffer) decode(field.type);
     }
 
     @Override
     public long readLong(String name, long defVal) throws IOException {
         BinaryClassField field = cObj.nameFields.get(name);
-        if (field == null || !fieldData.containsKey(field.alias))
+        if (field == null || !seek(field))
             return defVal;
-        return ((Long) fieldData.get(field.alias)).longValue();
+        return ((Long) decode(field.type)).longValue();
     }
 
     @Override
     public long[] readLongArray(String name, long[] defVal) throws IOException {
         BinaryClassField field = cObj.nameFields.get(name);
-        if (field == null || !fieldData.containsKey(field.alias))
+        if (field == null || !seek(field))
             return defVal;
-        return (long[]) fieldData.get(field.alias);
+        return (long[]) decode(field.type);
     }
 
     @Override
     public long[][] readLongArray2D(String name, long[][] defVal)
             throws IOException {
         BinaryClassField field = cObj.nameFields.get(name);
-        if (field == null || !fieldData.containsKey(field.alias))
+        if (field == null || !seek(field))
             return defVal;
-        return (long[][]) fieldData.get(field.alias);
+        return (long[][]) decode(field.type);
     }
 
     @Override
     public Savable readSavable(String name, Savable defVal) throws IOException {
         BinaryClassField field = cObj.nameFields.get(name);
-        if (field == null || !fieldData.containsKey(field.alias))
+        if (field == null || !seek(field))
             return defVal;
-        Object value = fieldData.get(field.alias);
+        Object value = decode(field.type);
         if (value == null)
             return null;
         else if (value instanceof ID) {
             value = importer.readObject(((ID) value).id);
-            fieldData.put(field.alias, value);
             return (Savable) value;
         } else
             return defVal;
@@ -491,12 +631,11 @@ final class BinaryInputCapsule implements InputCapsule {
     public Savable[] readSavableArray(String name, Savable[] defVal)
             throws IOException {
         BinaryClassField field = cObj.nameFields.get(name);
-        if (field == null || !fieldData.containsKey(field.alias))
+        if (field == null || !seek(field))
             return defVal;
-        Object[] values = (Object[]) fieldData.get(field.alias);
+        Object[] values = (Object[]) decode(field.type);
         if (values instanceof ID[]) {
             values = resolveIDs(values);
-            fieldData.put(field.alias, values);
             return (Savable[]) values;
         } else
             return defVal;
@@ -519,9 +658,9 @@ final class BinaryInputCapsule implements InputCapsule {
     public Savable[][] readSavableArray2D(String name, Savable[][] defVal)
             throws IOException {
         BinaryClassField field = cObj.nameFields.get(name);
-        if (field == null ||!fieldData.containsKey(field.alias))
+        if (field == null || !seek(field))
             return defVal;
-        Object[][] values = (Object[][]) fieldData.get(field.alias);
+        Object[][] values = (Object[][]) decode(field.type);
         if (values instanceof ID[][]) {
             Savable[][] savables = new Savable[values.length][];
             for (int i = 0; i < values.length; i++) {
@@ -530,7 +669,6 @@ final class BinaryInputCapsule implements InputCapsule {
                 } else savables[i] = null;
             }
             values = savables;
-            fieldData.put(field.alias, values);
         }
         return (Savable[][]) values;
     }
@@ -538,9 +676,9 @@ final class BinaryInputCapsule implements InputCapsule {
     public Savable[][][] readSavableArray3D(String name, Savable[][][] defVal)
             throws IOException {
         BinaryClassField field = cObj.nameFields.get(name);
-        if (field == null || !fieldData.containsKey(field.alias))
+        if (field == null || !seek(field))
             return defVal;
-        Object[][][] values = (Object[][][]) fieldData.get(field.alias);
+        Object[][][] values = (Object[][][]) decode(field.type);
         if (values instanceof ID[][][]) {
             Savable[][][] savables = new Savable[values.length][][];
             for (int i = 0; i < values.length; i++) {
@@ -551,7 +689,6 @@ final class BinaryInputCapsule implements InputCapsule {
                     }
                 } else savables[i] = null;
             }
-            fieldData.put(field.alias, savables);
             return savables;
         } else
             return defVal;
@@ -608,14 +745,13 @@ final class BinaryInputCapsule implements InputCapsule {
     public ArrayList readSavableArrayList(String name, ArrayList defVal)
             throws IOException {
         BinaryClassField field = cObj.nameFields.get(name);
-        if (field == null || !fieldData.containsKey(field.alias))
+        if (field == null || !seek(field))
             return defVal;
-        Object value = fieldData.get(field.alias);
+        Object value = decode(field.type);
         if (value instanceof ID[]) {
             // read Savable array and convert to ArrayList
             Savable[] savables = readSavableArray(name, null);
             value = savableArrayListFromArray(savables);
-            fieldData.put(field.alias, value);
         }
         return (ArrayList) value;
     }
@@ -624,9 +760,9 @@ final class BinaryInputCapsule implements InputCapsule {
     public ArrayList[] readSavableArrayListArray(String name, ArrayList[] defVal)
             throws IOException {
         BinaryClassField field = cObj.nameFields.get(name);
-        if (field == null || !fieldData.containsKey(field.alias))
+        if (field == null || !seek(field))
             return defVal;
-        Object value = fieldData.get(field.alias);
+        Object value = decode(field.type);
         if (value instanceof ID[][]) {
             // read 2D Savable array and convert to ArrayList array
             Savable[][] savables = readSavableArray2D(name, null);
@@ -638,7 +774,6 @@ final class BinaryInputCapsule implements InputCapsule {
                 value = arrayLists;
             } else
                 value = defVal;
-            fieldData.put(field.alias, value);
         }
         return (ArrayList[]) value;
     }
@@ -647,9 +782,9 @@ final class BinaryInputCapsule implements InputCapsule {
     public ArrayList[][] readSavableArrayListArray2D(String name,
             ArrayList[][] defVal) throws IOException {
         BinaryClassField field = cObj.nameFields.get(name);
-        if (field == null || !fieldData.containsKey(field.alias))
+        if (field == null || !seek(field))
             return defVal;
-        Object value = fieldData.get(field.alias);
+        Object value = decode(field.type);
         if (value instanceof ID[][][]) {
             // read 3D Savable array and convert to 2D ArrayList array
             Savable[][][] savables = readSavableArray3D(name, null);
@@ -664,7 +799,6 @@ final class BinaryInputCapsule implements InputCapsule {
                 value = arrayLists;
             } else
                 value = defVal;
-            fieldData.put(field.alias, value);
         }
         return (ArrayList[][]) value;
     }
@@ -674,14 +808,13 @@ final class BinaryInputCapsule implements InputCapsule {
     public Map<? extends Savable, ? extends Savable> readSavableMap(String name, Map<? extends Savable, ? extends Savable> defVal)
             throws IOException {
         BinaryClassField field = cObj.nameFields.get(name);
-        if (field == null || !fieldData.containsKey(field.alias))
+        if (field == null || !seek(field))
             return defVal;
-        Object value = fieldData.get(field.alias);
+        Object value = decode(field.type);
         if (value instanceof ID[][]) {
             // read Savable array and convert to Map
             Savable[][] savables = readSavableArray2D(name, null);
             value = savableMapFrom2DArray(savables);
-            fieldData.put(field.alias, value);
         }
         return (Map<? extends Savable, ? extends Savable>) value;
     }
@@ -691,15 +824,14 @@ final class BinaryInputCapsule implements InputCapsule {
     public Map<String, ? extends Savable> readStringSavableMap(String name, Map<String, ? extends Savable> defVal)
             throws IOException {
         BinaryClassField field = cObj.nameFields.get(name);
-        if (field == null || !fieldData.containsKey(field.alias))
+        if (field == null || !seek(field))
             return defVal;
-        Object value = fieldData.get(field.alias);
+        Object value = decode(field.type);
         if (value instanceof StringIDMap) {
             // read Savable array and convert to Map values
             StringIDMap in = (StringIDMap) value;
             Savable[] values = resolveIDs(in.values);
             value = stringSavableMapFromKV(in.keys, values);
-            fieldData.put(field.alias, value);
         }
         return (Map<String, Savable>) value;
     }
@@ -709,15 +841,14 @@ final class BinaryInputCapsule implements InputCapsule {
     public IntMap<? extends Savable> readIntSavableMap(String name, IntMap<? extends Savable> defVal)
             throws IOException {
         BinaryClassField field = cObj.nameFields.get(name);
-        if (field == null || !fieldData.containsKey(field.alias))
+        if (field == null || !seek(field))
             return defVal;
-        Object value = fieldData.get(field.alias);
+        Object value = decode(field.type);
         if (value instanceof IntIDMap) {
             // read Savable array and convert to Map values
             IntIDMap in = (IntIDMap) value;
             Savable[] values = resolveIDs(in.values);
             value = intSavableMapFromKV(in.keys, values);
-            fieldData.put(field.alias, value);
         }
         return (IntMap<Savable>) value;
     }
@@ -725,89 +856,94 @@ final class BinaryInputCapsule implements InputCapsule {
     @Override
     public short readShort(String name, short defVal) throws IOException {
         BinaryClassField field = cObj.nameFields.get(name);
-        if (field == null || !fieldData.containsKey(field.alias))
+        if (field == null || !seek(field))
             return defVal;
-        return ((Short) fieldData.get(field.alias)).shortValue();
+        return ((Short) decode(field.type)).shortValue();
     }
 
     @Override
     public short[] readShortArray(String name, short[] defVal)
             throws IOException {
         BinaryClassField field = cObj.nameFields.get(name);
-        if (field == null || !fieldData.containsKey(field.alias))
+        if (field == null || !seek(field))
             return defVal;
-        return (short[]) fieldData.get(field.alias);
+        return (short[]) decode(field.type);
     }
 
     @Override
     public short[][] readShortArray2D(String name, short[][] defVal)
             throws IOException {
         BinaryClassField field = cObj.nameFields.get(name);
-        if (field == null || !fieldData.containsKey(field.alias))
+        if (field == null || !seek(field))
             return defVal;
-        return (short[][]) fieldData.get(field.alias);
+        return (short[][]) decode(field.type);
     }
 
     @Override
     public ShortBuffer readShortBuffer(String name, ShortBuffer defVal)
             throws IOException {
         BinaryClassField field = cObj.nameFields.get(name);
-        if (field == null || !fieldData.containsKey(field.alias))
+        if (field == null || !seek(field))
             return defVal;
-        return (ShortBuffer) fieldData.get(field.alias);
+        return (ShortBuffer) decode(field.type);
     }
 
     @Override
     public String readString(String name, String defVal) throws IOException {
         BinaryClassField field = cObj.nameFields.get(name);
-        if (field == null || !fieldData.containsKey(field.alias))
+        if (field == null || !seek(field))
             return defVal;
-        return (String) fieldData.get(field.alias);
+        return (String) decode(field.type);
     }
 
     @Override
     public String[] readStringArray(String name, String[] defVal)
             throws IOException {
         BinaryClassField field = cObj.nameFields.get(name);
-        if (field == null || !fieldData.containsKey(field.alias))
+        if (field == null || !seek(field))
             return defVal;
-        return (String[]) fieldData.get(field.alias);
+        return (String[]) decode(field.type);
     }
 
     @Override
     public String[][] readStringArray2D(String name, String[][] defVal)
             throws IOException {
         BinaryClassField field = cObj.nameFields.get(name);
-        if (field == null || !fieldData.containsKey(field.alias))
+        if (field == null || !seek(field))
             return defVal;
-        return (String[][]) fieldData.get(field.alias);
+        return (String[][]) decode(field.type);
     }
 
-    // byte primitive
-
-    protected byte readByte(byte[] content) throws IOException {
-        byte value = content[index];
-        index++;
-        return value;
+    /**
+     * Returns a big-endian view of the next <code>length</code> bytes and
+     * advances {@link #index} past them.
+     */
+    private ByteBuffer view(ByteBuffer content, int length) {
+        ByteBuffer view = content.duplicate();
+        view.limit(index + length);
+        view.position(index);
+        index += length;
+        return view;
     }
 
-    protected byte readByteForBuffer(byte[] content) throws IOException {
-        byte value = content[index];
+    // byte primitive
+
+    protected byte readByte(ByteBuffer content) throws IOException {
+        byte value = content.get(index);
         index++;
         return value;
     }
 
-    protected byte[] readByteArray(byte[] content) throws IOException {
+    protected byte[] readByteArray(ByteBuffer content) throws IOException {
         int length = readInt(content);
         if (length == BinaryOutputCapsule.NULL_OBJECT)
             return null;
         byte[] value = new byte[length];
-        for (int x = 0; x < length; x++)
-            value[x] = readByte(content);
+        view(content, length).get(value);
         return value;
     }
 
-    protected byte[][] readByteArray2D(byte[] content) throws IOException {
+    protected byte[][] readByteArray2D(ByteBuffer content) throws IOException {
         int length = readInt(content);
         if (length == BinaryOutputCapsule.NULL_OBJECT)
             return null;
@@ -819,27 +955,26 @@ final class BinaryInputCapsule implements InputCapsule {
 
     // int primitive
 
-    protected int readIntForBuffer(byte[] content){
-        int number = ((content[index+3] & 0xFF) << 24)
-                   + ((content[index+2] & 0xFF) << 16)
-                   + ((content[index+1] & 0xFF) << 8)
-                   +  (content[index]   & 0xFF);
-        index += 4;
-        return number;
-    }
-
-    protected int readInt(byte[] content) throws IOException {
-        byte[] bytes = inflateFrom(content, index);
-        index += 1 + bytes.length;
-        bytes = ByteUtils.rightAlignBytes(bytes, 4);
-        int value = ByteUtils.convertIntFromBytes(bytes);
+    protected int readInt(ByteBuffer content) throws IOException {
+        byte firstByte = content.get(index);
+        int value;
+        if (firstByte == BinaryOutputCapsule.NULL_OBJECT
+                || firstByte == BinaryOutputCapsule.DEFAULT_OBJECT) {
+            value = firstByte;
+            index += 5;
+        } else {
+            value = 0;
+            for (int x = 1; x <= firstByte; x++)
+                value = (value << 8) | (content.get(index + x) & 0xFF);
+            index += 1 + firstByte;
+        }
         if (value == BinaryOutputCapsule.NULL_OBJECT
                 || value == BinaryOutputCapsule.DEFAULT_OBJECT)
             index -= 4;
         return value;
     }
 
-    protected int[] readIntArray(byte[] content) throws IOException {
+    protected int[] readIntArray(ByteBuffer content) throws IOException {
         int length = readInt(content);
         if (length == BinaryOutputCapsule.NULL_OBJECT)
             return null;
@@ -849,7 +984,7 @@ final class BinaryInputCapsule implements InputCapsule {
         return value;
     }
 
-    protected int[][] readIntArray2D(byte[] content) throws IOException {
+    protected int[][] readIntArray2D(ByteBuffer content) throws IOException {
         int length = readInt(content);
         if (length == BinaryOutputCapsule.NULL_OBJECT)
             return null;
@@ -861,28 +996,22 @@ final class BinaryInputCapsule implements InputCapsule {
 
     // float primitive
 
-    protected float readFloat(byte[] content) throws IOException {
-        float value = ByteUtils.convertFloatFromBytes(content, index);
+    protected float readFloat(ByteBuffer content) throws IOException {
+        float value = content.getFloat(index);
         index += 4;
         return value;
     }
 
-    protected float readFloatForBuffer(byte[] content) throws IOException {
-        int number = readIntForBuffer(content);
-        return Float.intBitsToFloat(number);
-    }
-
-    protected float[] readFloatArray(byte[] content) throws IOException {
+    protected float[] readFloatArray(ByteBuffer content) throws IOException {
         int length = readInt(content);
         if (length == BinaryOutputCapsule.NULL_OBJECT)
             return null;
         float[] value = new float[length];
-        for (int x = 0; x < length; x++)
-            value[x] = readFloat(content);
+        view(content, length * 4).asFloatBuffer().get(value);
         return value;
     }
 
-    protected float[][] readFloatArray2D(byte[] content) throws IOException {
+    protected float[][] readFloatArray2D(ByteBuffer content) throws IOException {
         int length = readInt(content);
         if (length == BinaryOutputCapsule.NULL_OBJECT)
             return null;
@@ -894,23 +1023,22 @@ final class BinaryInputCapsule implements InputCapsule {
 
     // double primitive
 
-    protected double readDouble(byte[] content) throws IOException {
-        double value = ByteUtils.convertDoubleFromBytes(content, index);
+    protected double readDouble(ByteBuffer content) throws IOException {
+        double value = content.getDouble(index);
         index += 8;
         return value;
     }
 
-    protected double[] readDoubleArray(byte[] content) throws IOException {
+    protected double[] readDoubleArray(ByteBuffer content) throws IOException {
         int length = readInt(content);
         if (length == BinaryOutputCapsule.NULL_OBJECT)
             return null;
         double[] value = new double[length];
-        for (int x = 0; x < length; x++)
-            value[x] = readDouble(content);
+        view(content, length * 8).asDoubleBuffer().get(value);
         return value;
     }
 
-    protected double[][] readDoubleArray2D(byte[] content) throws IOException {
+    protected double[][] readDoubleArray2D(ByteBuffer content) throws IOException {
         int length = readInt(content);
         if (length == BinaryOutputCapsule.NULL_OBJECT)
             return null;
@@ -922,15 +1050,21 @@ final class BinaryInputCapsule implements InputCapsule {
 
     // long primitive
 
-    protected long readLong(byte[] content) throws IOException {
-        byte[] bytes = inflateFrom(content, index);
-        index += 1 + bytes.length;
-        bytes = ByteUtils.rightAlignBytes(bytes, 8);
-        long value = ByteUtils.convertLongFromBytes(bytes);
+    protected long readLong(ByteBuffer content) throws IOException {
+        byte firstByte = content.get(index);
+        if (firstByte == BinaryOutputCapsule.NULL_OBJECT
+                || firstByte == BinaryOutputCapsule.DEFAULT_OBJECT) {
+            index += 5;
+            return firstByte & 0xFFFFFFFFL;
+        }
+        long value = 0;
+        for (int x = 1; x <= firstByte; x++)
+            value = (value << 8) | (content.get(index + x) & 0xFF);
+        index += 1 + firstByte;
         return value;
     }
 
-    protected long[] readLongArray(byte[] content) throws IOException {
+    protected long[] readLongArray(ByteBuffer content) throws IOException {
         int length = readInt(content);
         if (length == BinaryOutputCapsule.NULL_OBJECT)
             return null;
@@ -940,7 +1074,7 @@ final class BinaryInputCapsule implements InputCapsule {
         return value;
     }
 
-    protected long[][] readLongArray2D(byte[] content) throws IOException {
+    protected long[][] readLongArray2D(ByteBuffer content) throws IOException {
         int length = readInt(content);
         if (length == BinaryOutputCapsule.NULL_OBJECT)
             return null;
@@ -952,30 +1086,22 @@ final class BinaryInputCapsule implements InputCapsule {
 
     // short primitive
 
-    protected short readShort(byte[] content) throws IOException {
-        short value = ByteUtils.convertShortFromBytes(content, index);
+    protected short readShort(ByteBuffer content) throws IOException {
+        short value = content.getShort(index);
         index += 2;
         return value;
     }
 
-    protected short readShortForBuffer(byte[] content) throws IOException {
-        short number = (short) ((content[index+0] & 0xFF)
-                             + ((content[index+1] & 0xFF) << 8));
-        index += 2;
-        return number;
-    }
-
-    protected short[] readShortArray(byte[] content) throws IOException {
+    protected short[] readShortArray(ByteBuffer content) throws IOException {
         int length = readInt(content);
         if (length == BinaryOutputCapsule.NULL_OBJECT)
             return null;
         short[] value = new short[length];
-        for (int x = 0; x < length; x++)
-            value[x] = readShort(content);
+        view(content, length * 2).asShortBuffer().get(value);
         return value;
     }
 
-    protected short[][] readShortArray2D(byte[] content) throws IOException {
+    protected short[][] readShortArray2D(ByteBuffer content) throws IOException {
         int length = readInt(content);
         if (length == BinaryOutputCapsule.NULL_OBJECT)
             return null;
@@ -987,13 +1113,13 @@ final class BinaryInputCapsule implements InputCapsule {
 
     // boolean primitive
 
-    protected boolean readBoolean(byte[] content) throws IOException {
-        boolean value = ByteUtils.convertBooleanFromBytes(content, index);
+    protected boolean readBoolean(ByteBuffer content) throws IOException {
+        boolean value = content.get(index) != 0;
         index += 1;
         return value;
     }
 
-    protected boolean[] readBooleanArray(byte[] content) throws IOException {
+    protected boolean[] readBooleanArray(ByteBuffer content) throws IOException {
         int length = readInt(content);
         if (length == BinaryOutputCapsule.NULL_OBJECT)
             return null;
@@ -1003,7 +1129,7 @@ final class BinaryInputCapsule implements InputCapsule {
         return value;
     }
 
-    protected boolean[][] readBooleanArray2D(byte[] content) throws IOException {
+    protected boolean[][] readBooleanArray2D(ByteBuffer content) throws IOException {
         int length = readInt(content);
         if (length == BinaryOutputCapsule.NULL_OBJECT)
             return null;
@@ -1013,20 +1139,15 @@ final class BinaryInputCapsule implements InputCapsule {
         return value;
     }
 
-    protected String readString(byte[] content) throws IOException {
+    protected String readString(ByteBuffer content) throws IOException {
         int length = readInt(content);
         if (length == BinaryOutputCapsule.NULL_OBJECT)
             return null;
 
-        byte[] bytes = new byte[length];
-        for (int x = 0; x < length; x++) {
-            bytes[x] =  content[index++];
-        }
-
-        return new String(bytes, StandardCharsets.UTF_8);
+        return StandardCharsets.UTF_8.decode(view(content, length)).toString();
     }
 
-    protected String[] readStringArray(byte[] content) throws IOException {
+    protected String[] readStringArray(ByteBuffer content) throws IOException {
         int length = readInt(content);
         if (length == BinaryOutputCapsule.NULL_OBJECT)
             return null;
@@ -1036,7 +1157,7 @@ final class BinaryInputCapsule implements InputCapsule {
         return value;
     }
 
-    protected String[][] readStringArray2D(byte[] content) throws IOException {
+    protected String[][] readStringArray2D(ByteBuffer content) throws IOException {
         int length = readInt(content);
         if (length == BinaryOutputCapsule.NULL_OBJECT)
             return null;
@@ -1048,7 +1169,7 @@ final class BinaryInputCapsule implements InputCapsule {
 
     // BitSet
 
-    protected BitSet readBitSet(byte[] content) throws IOException {
+    protected BitSet readBitSet(ByteBuffer content) throws IOException {
         int length = readInt(content);
         if (length == BinaryOutputCapsule.NULL_OBJECT)
             return null;
@@ -1058,27 +1179,9 @@ final class BinaryInputCapsule implements InputCapsule {
         return value;
     }
 
-    // INFLATOR for int and long
-
-    protected static byte[] inflateFrom(byte[] contents, int index) {
-        byte firstByte = contents[index];
-        if (firstByte == BinaryOutputCapsule.NULL_OBJECT)
-            return ByteUtils.convertToBytes(BinaryOutputCapsule.NULL_OBJECT);
-        else if (firstByte == BinaryOutputCapsule.DEFAULT_OBJECT)
-            return ByteUtils.convertToBytes(BinaryOutputCapsule.DEFAULT_OBJECT);
-        else if (firstByte == 0)
-            return new byte[0];
-        else {
-            byte[] rVal = new byte[firstByte];
-            for (int x = 0; x < rVal.length; x++)
-                rVal[x] = contents[x + 1 + index];
-            return rVal;
-        }
-    }
-
     // BinarySavable
 
-    protected ID readSavable(byte[] content) throws IOException {
+    protected ID readSavable(ByteBuffer content) throws IOException {
         int id = readInt(content);
         if (id == BinaryOutputCapsule.NULL_OBJECT) {
             return null;
@@ -1089,7 +1192,7 @@ final class BinaryInputCapsule implements InputCapsule {
 
     // BinarySavable array
 
-    protected ID[] readSavableArray(byte[] content) throws IOException {
+    protected ID[] readSavableArray(ByteBuffer content) throws IOException {
         int elements = readInt(content);
         if (elements == BinaryOutputCapsule.NULL_OBJECT)
             return null;
@@ -1100,7 +1203,7 @@ final class BinaryInputCapsule implements InputCapsule {
         return rVal;
     }
 
-    protected ID[][] readSavableArray2D(byte[] content) throws IOException {
+    protected ID[][] readSavableArray2D(ByteBuffer content) throws IOException {
         int elements = readInt(content);
         if (elements == BinaryOutputCapsule.NULL_OBJECT)
             return null;
@@ -1111,7 +1214,7 @@ final class BinaryInputCapsule implements InputCapsule {
         return rVal;
     }
 
-    protected ID[][][] readSavableArray3D(byte[] content) throws IOException {
+    protected ID[][][] readSavableArray3D(ByteBuffer content) throws IOException {
         int elements = readInt(content);
         if (elements == BinaryOutputCapsule.NULL_OBJECT)
             return null;
@@ -1124,7 +1227,7 @@ final class BinaryInputCapsule implements InputCapsule {
 
     // BinarySavable map
 
-    protected ID[][] readSavableMap(byte[] content) throws IOException {
+    protected ID[][] readSavableMap(ByteBuffer content) throws IOException {
         int elements = readInt(content);
         if (elements == BinaryOutputCapsule.NULL_OBJECT)
             return null;
@@ -1135,7 +1238,7 @@ final class BinaryInputCapsule implements InputCapsule {
         return rVal;
     }
 
-    protected StringIDMap readStringSavableMap(byte[] content) throws IOException {
+    protected StringIDMap readStringSavableMap(ByteBuffer content) throws IOException {
         int elements = readInt(content);
         if (elements == BinaryOutputCapsule.NULL_OBJECT)
             return null;
@@ -1147,7 +1250,7 @@ final class BinaryInputCapsule implements InputCapsule {
         return rVal;
     }
 
-    protected IntIDMap readIntSavableMap(byte[] content) throws IOException {
+    protected IntIDMap readIntSavableMap(ByteBuffer content) throws IOException {
         int elements = readInt(content);
         if (elements == BinaryOutputCapsule.NULL_OBJECT)
             return null;
@@ -1162,7 +1265,7 @@ final class BinaryInputCapsule implements InputCapsule {
 
     // ArrayList<FloatBuffer>
 
-    protected ArrayList<FloatBuffer> readFloatBufferArrayList(byte[] content)
+    protected ArrayList<FloatBuffer> readFloatBufferArrayList(ByteBuffer content)
             throws IOException {
         int length = readInt(content);
         if (length == BinaryOutputCapsule.NULL_OBJECT) {
@@ -1177,7 +1280,7 @@ final class BinaryInputCapsule implements InputCapsule {
 
     // ArrayList<ByteBuffer>
 
-    protected ArrayList<ByteBuffer> readByteBufferArrayList(byte[] content)
+    protected ArrayList<ByteBuffer> readByteBufferArrayList(ByteBuffer content)
             throws IOException {
         int length = readInt(content);
         if (length == BinaryOutputCapsule.NULL_OBJECT) {
@@ -1191,23 +1294,36 @@ final class BinaryInputCapsule implements InputCapsule {
     }
 
     // NIO BUFFERS
+    // Buffer data is stored little-endian. It is always copied out of the
+    // source: handing out slices of a mapped file would let a later
+    // BufferUtils.destroyDirectBuffer() unmap the data of every other savable.
+
+    /**
+     * Returns a little-endian view of the contents of the buffer whose
+     * element count was just read, either inline or in the buffer section.
+     */
+    private ByteBuffer bufferData(ByteBuffer content, int length) throws IOException {
+        if (bufferSection) {
+            return importer.getBufferData(readInt(content), length);
+        }
+        return view(content, length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
     // float buffer
 
-    protected FloatBuffer readFloatBuffer(byte[] content) throws IOException {
+    protected FloatBuffer readFloatBuffer(ByteBuffer content) throws IOException {
         int length = readInt(content);
         if (length == BinaryOutputCapsule.NULL_OBJECT)
             return null;
 
+        ByteBuffer data = bufferData(content, length * 4);
         if (BinaryImporter.canUseFastBuffers()){
             ByteBuffer value = BufferUtils.createByteBuffer(length * 4);
-            value.put(content, index, length * 4).rewind();
-            index += length * 4;
+            value.put(data).rewind();
             return value.asFloatBuffer();
         }else{
             FloatBuffer value = BufferUtils.createFloatBuffer(length);
-            for (int x = 0; x < length; x++) {
-                value.put(readFloatForBuffer(content));
-            }
+            value.put(data.asFloatBuffer());
             value.rewind();
             return value;
         }
@@ -1215,21 +1331,19 @@ final class BinaryInputCapsule implements InputCapsule {
 
     // int buffer
 
-    protected IntBuffer readIntBuffer(byte[] content) throws IOException {
+    protected IntBuffer readIntBuffer(ByteBuffer content) throws IOException {
         int length = readInt(content);
         if (length == BinaryOutputCapsule.NULL_OBJECT)
             return null;
 
+        ByteBuffer data = bufferData(content, length * 4);
         if (BinaryImporter.canUseFastBuffers()){
             ByteBuffer value = BufferUtils.createByteBuffer(length * 4);
-            value.put(content, index, length * 4).rewind();
-            index += length * 4;
+            value.put(data).rewind();
             return value.asIntBuffer();
         }else{
             IntBuffer value = BufferUtils.createIntBuffer(length);
-            for (int x = 0; x < length; x++) {
-                value.put(readIntForBuffer(content));
-            }
+            value.put(data.asIntBuffer());
             value.rewind();
             return value;
         }
@@ -1237,43 +1351,31 @@ final class BinaryInputCapsule implements InputCapsule {
 
     // byte buffer
 
-    protected ByteBuffer readByteBuffer(byte[] content) throws IOException {
+    protected ByteBuffer readByteBuffer(ByteBuffer content) throws IOException {
         int length = readInt(content);
         if (length == BinaryOutputCapsule.NULL_OBJECT)
             return null;
 
-        if (BinaryImporter.canUseFastBuffers()){
-            ByteBuffer value = BufferUtils.createByteBuffer(length);
-            value.put(content, index, length).rewind();
-            index += length;
-            return value;
-        }else{
-            ByteBuffer value = BufferUtils.createByteBuffer(length);
-            for (int x = 0; x < length; x++) {
-                value.put(readByteForBuffer(content));
-            }
-            value.rewind();
-            return value;
-        }
+        ByteBuffer value = BufferUtils.createByteBuffer(length);
+        value.put(bufferData(content, length)).rewind();
+        return value;
     }
 
     // short buffer
 
-    protected ShortBuffer readShortBuffer(byte[] content) throws IOException {
+    protected ShortBuffer readShortBuffer(ByteBuffer content) throws IOException {
         int length = readInt(content);
         if (length == BinaryOutputCapsule.NULL_OBJECT)
             return null;
 
+        ByteBuffer data = bufferData(content, length * 2);
         if (BinaryImporter.canUseFastBuffers()){
             ByteBuffer value = BufferUtils.createByteBuffer(length * 2);
-            value.put(content, index, length * 2).rewind();
-            index += length * 2;
+            value.put(data).rewind();
             return value.asShortBuffer();
         }else{
             ShortBuffer value = BufferUtils.createShortBuffer(length);
-            for (int x = 0; x < length; x++) {
-                value.put(readShortForBuffer(content));
-            }
+            value.put(data.asShortBuffer());
             value.rewind();
             return value;
         }
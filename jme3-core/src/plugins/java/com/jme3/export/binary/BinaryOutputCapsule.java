@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2009-2020 jMonkeyEngine
+ * Copyright (c) 2009-2025 jMonkeyEngine
  * All rights reserved.
  *
  * Redistribution and use in source and binary forms, with or without
@@ -38,6 +38,7 @@ import com.jme3.util.IntMap.Entry;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
 import java.nio.ShortBuffer;
@@ -45,6 +46,8 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -63,10 +66,19 @@ final class BinaryOutputCapsule implements OutputCapsule {
     protected BinaryExporter exporter;
     protected BinaryClassObject cObj;
 
+    // Key - field name, object - bytes written for it, null unless the
+    // exporter collects statistics
+    private HashMap<String, Long> fieldBytes;
+    private String currentField;
+    private int currentFieldStart;
+
     public BinaryOutputCapsule(BinaryExporter exporter, BinaryClassObject bco) {
         this.baos = new ByteArrayOutputStream();
         this.exporter = exporter;
         this.cObj = bco;
+        if (exporter.getStatistics() != null) {
+            fieldBytes = new HashMap<>();
+        }
     }
 
     @Override
@@ -430,13 +442,29 @@ final class BinaryOutputCapsule implements OutputCapsule {
     }
 
     protected void writeAlias(String name, byte fieldType) throws IOException {
-        if (cObj.nameFields.get(name) == null)
-            generateAlias(name, fieldType);
+        byte alias;
+        // class objects are shared by the tasks of a parallel export
+        synchronized (cObj) {
+            if (cObj.nameFields.get(name) == null)
+                generateAlias(name, fieldType);
 
-        byte alias = cObj.nameFields.get(name).alias;
+            alias = cObj.nameFields.get(name).alias;
+        }
+        if (fieldBytes != null) {
+            endField();
+            currentField = name;
+            currentFieldStart = baos.size();
+        }
         write(alias);
     }
 
+    private void endField() {
+        if (currentField != null) {
+            fieldBytes.merge(currentField, (long) (baos.size() - currentFieldStart), Long::sum);
+            currentField = null;
+        }
+    }
+
     // XXX: The generation of aliases is limited to 256 possible values.
     // If we run into classes with more than 256 fields, we need to expand this.
     // But I mean, come on...
@@ -468,6 +496,11 @@ final class BinaryOutputCapsule implements OutputCapsule {
         // overridden like this
         // - finalize should not be called directly but is called by garbage
         // collection!!!
+        if (fieldBytes != null) {
+            endField();
+            exporter.getStatistics().addObject(cObj.className, fieldBytes);
+            fieldBytes = null;
+        }
         bytes = baos.toByteArray();
         baos = null;
     }
@@ -478,10 +511,6 @@ final class BinaryOutputCapsule implements OutputCapsule {
         baos.write(value);
     }
 
-    protected void writeForBuffer(byte value) throws IOException {
-        baos.write(value);
-    }
-    
     protected void write(byte[] value) throws IOException {
         if (value == null) {
             write(NULL_OBJECT);
@@ -507,15 +536,6 @@ final class BinaryOutputCapsule implements OutputCapsule {
         baos.write(deflate(ByteUtils.convertToBytes(value)));
     }
 
-    protected void writeForBuffer(int value) throws IOException {
-        byte[] byteArray = new byte[4];
-        byteArray[0] = (byte) value;
-        byteArray[1] = (byte) (value >> 8);
-        byteArray[2] = (byte) (value >> 16);
-        byteArray[3] = (byte) (value >> 24);
-        baos.write(byteArray);
-    }
-
     protected void write(int[] value) throws IOException {
         if (value == null) {
             write(NULL_OBJECT);
@@ -542,11 +562,6 @@ final class BinaryOutputCapsule implements OutputCapsule {
         baos.write(ByteUtils.convertToBytes(value));
     }
 
-    protected void writeForBuffer(float value) throws IOException {
-        int integer = Float.floatToIntBits(value);
-        writeForBuffer(integer);
-    }
-
     protected void write(float[] value) throws IOException {
         if (value == null) {
             write(NULL_OBJECT);
@@ -625,13 +640,6 @@ final class BinaryOutputCapsule implements OutputCapsule {
         baos.write(ByteUtils.convertToBytes(value));
     }
 
-    protected void writeForBuffer(short value) throws IOException {
-        byte[] byteArray = new byte[2];
-        byteArray[0] = (byte) value;
-        byteArray[1] = (byte) (value >> 8);
-        baos.write(byteArray);
-    }
-
     protected void write(short[] value) throws IOException {
         if (value == null) {
             write(NULL_OBJECT);
@@ -768,9 +776,14 @@ final class BinaryOutputCapsule implements OutputCapsule {
             write(NULL_OBJECT);
             return;
         }
-        write(objects.length);
-        for (int x = 0; x < objects.length; x++) {
-            write(objects[x]);
+        writeSavables(Arrays.asList(objects));
+    }
+
+    // writes the count and ids, the savables may be processed concurrently
+    protected void writeSavables(List<? extends Savable> objects) throws IOException {
+        write(objects.size());
+        for (int id : exporter.processBinarySavables(objects)) {
+            write(id);
         }
     }
 
@@ -787,15 +800,13 @@ final class BinaryOutputCapsule implements OutputCapsule {
 
     // ArrayList<BinarySavable>
 
+    @SuppressWarnings("unchecked")
     protected void writeSavableArrayList(ArrayList array) throws IOException {
         if (array == null) {
             write(NULL_OBJECT);
             return;
         }
-        write(array.size());
-        for (Object bs : array) {
-            write((Savable) bs);
-        }
+        writeSavables((List<? extends Savable>) array);
     }
 
     protected void writeSavableArrayListArray(ArrayList[] array)
@@ -906,6 +917,22 @@ final class BinaryOutputCapsule implements OutputCapsule {
     }
 
     // NIO BUFFERS
+    // The contents go to the exporter's aligned buffer section, the capsule
+    // only stores the element count and the offset of the data. Buffers are
+    // read through duplicates as a parallel export may read a buffer shared
+    // by several savables from several threads.
+
+    protected void writeBufferData(ByteBuffer data) throws IOException {
+        write(exporter.writeBufferData(data.array()));
+        if (fieldBytes != null && currentField != null) {
+            fieldBytes.merge(currentField, (long) data.capacity(), Long::sum);
+        }
+    }
+
+    protected static ByteBuffer allocateBufferData(int bytes) {
+        return ByteBuffer.allocate(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
     // float buffer
 
     protected void write(FloatBuffer value) throws IOException {
@@ -913,13 +940,13 @@ final class BinaryOutputCapsule implements OutputCapsule {
             write(NULL_OBJECT);
             return;
         }
+        value = value.duplicate();
         value.rewind();
         int length = value.limit();
         write(length);
-        for (int x = 0; x < length; x++) {
-            writeForBuffer(value.get());
-        }
-        value.rewind();
+        ByteBuffer data = allocateBufferData(length * 4);
+        data.asFloatBuffer().put(value);
+        writeBufferData(data);
     }
 
     // int buffer
@@ -929,14 +956,13 @@ final class BinaryOutputCapsule implements OutputCapsule {
             write(NULL_OBJECT);
             return;
         }
+        value = value.duplicate();
         value.rewind();
         int length = value.limit();
         write(length);
-
-        for (int x = 0; x < length; x++) {
-            writeForBuffer(value.get());
-        }
-        value.rewind();
+        ByteBuffer data = allocateBufferData(length * 4);
+        data.asIntBuffer().put(value);
+        writeBufferData(data);
     }
 
     // byte buffer
@@ -946,13 +972,13 @@ final class BinaryOutputCapsule implements OutputCapsule {
             write(NULL_OBJECT);
             return;
         }
+        value = value.duplicate();
         value.rewind();
         int length = value.limit();
         write(length);
-        for (int x = 0; x < length; x++) {
-            writeForBuffer(value.get());
-        }
-        value.rewind();
+        ByteBuffer data = allocateBufferData(length);
+        data.put(value);
+        writeBufferData(data);
     }
 
     // short buffer
@@ -962,13 +988,13 @@ final class BinaryOutputCapsule implements OutputCapsule {
             write(NULL_OBJECT);
             return;
         }
+        value = value.duplicate();
         value.rewind();
         int length = value.limit();
         write(length);
-        for (int x = 0; x < length; x++) {
-            writeForBuffer(value.get());
-        }
-        value.rewind();
+        ByteBuffer data = allocateBufferData(length * 2);
+        data.asShortBuffer().put(value);
+        writeBufferData(data);
     }
 
     @Override
@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2009-2025 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.anim;
+
+import com.jme3.bounding.BoundingSphere;
+import com.jme3.math.Quaternion;
+import com.jme3.math.Transform;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.Camera;
+import com.jme3.renderer.ViewPort;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Node;
+import com.jme3.scene.shape.Box;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Verifies the animation LOD support of AnimComposer and SkinningControl.
+ */
+public class AnimLodPolicyTest {
+
+    private Node createModel() {
+        Joint root = new Joint("root");
+        Joint tip = new Joint("tip");
+        root.addChild(tip);
+        Armature armature = new Armature(new Joint[]{root, tip});
+        armature.saveBindPose();
+        armature.saveInitialPose();
+
+        float[] times = {0f, 1f, 2f};
+        Vector3f[] translations = {
+            new Vector3f(0f, 0f, 0f), new Vector3f(1f, 0f, 0f), new Vector3f(2f, 0f, 0f)
+        };
+        AnimClip clip = new AnimClip("move");
+        clip.setTracks(new AnimTrack[]{new TransformTrack(tip, times, translations, null, null)});
+        Quaternion[] rotations = {
+            new Quaternion(), new Quaternion().fromAngleAxis(1f, Vector3f.UNIT_Z),
+            new Quaternion().fromAngleAxis(2f, Vector3f.UNIT_Z)
+        };
+        AnimClip spin = new AnimClip("spin");
+        spin.setTracks(new AnimTrack[]{new TransformTrack(root, times, null, rotations, null)});
+
+        Node model = new Node("model");
+        model.attachChild(new Geometry("box", new Box(1f, 1f, 1f)));
+        AnimComposer composer = new AnimComposer();
+        composer.addAnimClip(clip);
+        composer.addAnimClip(spin);
+        composer.makeLayer("upper", null);
+        model.addControl(composer);
+        model.addControl(new SkinningControl(armature));
+        composer.setCurrentAction("move");
+        composer.setCurrentAction("spin", "upper");
+        model.updateGeometricState();
+        return model;
+    }
+
+    private static AnimLodPolicy fixedInterval(int interval, boolean layers) {
+        return new AnimLodPolicy() {
+            @Override
+            public int getUpdateInterval(AnimComposer composer, float screenSize) {
+                return interval;
+            }
+
+            @Override
+            public boolean isLayerUpdated(AnimComposer composer, String layerName, float screenSize) {
+                return layers;
+            }
+        };
+    }
+
+    @Test
+    public void testReducedRateKeepsAnimationTime() {
+        Node model = createModel();
+        AnimComposer composer = model.getControl(AnimComposer.class);
+        Joint tip = model.getControl(SkinningControl.class).getArmature().getJoint("tip");
+        composer.setLodPolicy(fixedInterval(3, true));
+
+        model.updateLogicalState(0.2f);
+        model.updateLogicalState(0.2f);
+        Assert.assertTrue(composer.isEvaluationSkipped());
+        Assert.assertEquals(0.0, composer.getTime(), 1e-6);
+        Assert.assertEquals(0f, tip.getLocalTranslation().x, 1e-6f);
+
+        // the third frame evaluates with the time of all three
+        model.updateLogicalState(0.2f);
+        Assert.assertFalse(composer.isEvaluationSkipped());
+        Assert.assertEquals(0.6, composer.getTime(), 1e-6);
+        // past the 0.4 second transition, so the clip is fully weighted
+        Assert.assertEquals(0.6f, tip.getLocalTranslation().x, 1e-5f);
+        Assert.assertEquals(2, composer.getSkippedEvaluations());
+
+        composer.resetSkippedEvaluations();
+        Assert.assertEquals(0, composer.getSkippedEvaluations());
+    }
+
+    @Test
+    public void testFrozenReusesSkinning() {
+        Node model = createModel();
+        AnimComposer composer = model.getControl(AnimComposer.class);
+        Armature armature = model.getControl(SkinningControl.class).getArmature();
+        model.updateLogicalState(0.5f);
+        Transform pose = armature.getJoint("tip").getModelTransform().clone();
+
+        composer.setLodPolicy(fixedInterval(0, true));
+        for (int i = 0; i < 10; i++) {
+            model.updateLogicalState(0.1f);
+        }
+        Assert.assertEquals(10, composer.getSkippedEvaluations());
+        Assert.assertEquals(pose, armature.getJoint("tip").getModelTransform());
+    }
+
+    @Test
+    public void testSkippedLayersArePaused() {
+        Node model = createModel();
+        AnimComposer composer = model.getControl(AnimComposer.class);
+        composer.setLodPolicy(fixedInterval(1, false));
+        model.updateLogicalState(0.25f);
+        Assert.assertEquals(0.25, composer.getTime(), 1e-6);
+        Assert.assertEquals(0.0, composer.getTime("upper"), 1e-6);
+    }
+
+    @Test
+    public void testScreenSize() {
+        Camera cam = new Camera(640, 480);
+        cam.setFrustumPerspective(90f, 640f / 480f, 1f, 1000f);
+        // at distance 10, the view is 20 units tall
+        BoundingSphere sphere = new BoundingSphere(2f, new Vector3f(0f, 0f, 10f));
+        Assert.assertEquals(0.2f, AnimComposer.computeScreenSize(sphere, cam), 1e-4f);
+        sphere.setCenter(new Vector3f(0f, 0f, 1f));
+        Assert.assertEquals(Float.POSITIVE_INFINITY, AnimComposer.computeScreenSize(sphere, cam), 0f);
+
+        Node model = createModel();
+        AnimComposer composer = model.getControl(AnimComposer.class);
+        composer.setLodPolicy(new ScreenSizeAnimLodPolicy(0.2f, 0.01f, 2));
+        ViewPort vp = new ViewPort("test", cam);
+
+        // not rendered yet: full evaluation
+        model.updateLogicalState(0.1f);
+        Assert.assertFalse(composer.isEvaluationSkipped());
+
+        // rendered small: reduced rate
+        model.setLocalTranslation(0f, 0f, 100f);
+        model.updateGeometricState();
+        composer.render(null, vp);
+        model.updateLogicalState(0.1f);
+        Assert.assertTrue(composer.getScreenSize() > 0.01f && composer.getScreenSize() < 0.2f);
+        Assert.assertTrue(composer.isEvaluationSkipped());
+
+        // not rendered: frozen
+        model.updateLogicalState(0.1f);
+        Assert.assertEquals(0f, composer.getScreenSize(), 0f);
+        Assert.assertTrue(composer.isEvaluationSkipped());
+
+        // rendered large: full rate
+        model.setLocalTranslation(0f, 0f, 5f);
+        model.updateGeometricState();
+        composer.render(null, vp);
+        model.updateLogicalState(0.1f);
+        Assert.assertFalse(composer.isEvaluationSkipped());
+        Assert.assertEquals(0.4, composer.getTime(), 1e-6);
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2009-2025 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.anim;
+
+import com.jme3.math.Matrix4f;
+import com.jme3.math.Quaternion;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Node;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Verifies that the AnimationSystem produces the same poses as the controls
+ * updating themselves.
+ */
+public class AnimationSystemTest {
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    private Node createModel(String name) {
+        Joint root = new Joint("root");
+        Joint middle = new Joint("middle");
+        Joint tip = new Joint("tip");
+        root.addChild(middle);
+        middle.addChild(tip);
+        middle.setLocalTranslation(new Vector3f(0f, 1f, 0f));
+        tip.setLocalTranslation(new Vector3f(0f, 1f, 0f));
+        Armature armature = new Armature(new Joint[]{root, middle, tip});
+        armature.saveBindPose();
+        armature.saveInitialPose();
+
+        float[] times = {0f, 0.5f, 1f};
+        Quaternion[] rotations = {
+            new Quaternion(),
+            new Quaternion().fromAngleAxis(1f, Vector3f.UNIT_Z),
+            new Quaternion().fromAngleAxis(2f, Vector3f.UNIT_Z)
+        };
+        Vector3f[] translations = {
+            new Vector3f(0f, 1f, 0f), new Vector3f(1f, 1f, 0f), new Vector3f(0f, 2f, 0f)
+        };
+        AnimClip clip = new AnimClip("bend");
+        clip.setTracks(new AnimTrack[]{
+            new TransformTrack(middle, times, translations, rotations, null),
+            new TransformTrack(tip, times, null, rotations, null)
+        });
+
+        Node model = new Node(name);
+        AnimComposer composer = new AnimComposer();
+        composer.addAnimClip(clip);
+        model.addControl(composer);
+        model.addControl(new SkinningControl(armature));
+        composer.setCurrentAction("bend");
+        return model;
+    }
+
+    private void assertSamePose(Node expected, Node actual) {
+        Armature a = expected.getControl(SkinningControl.class).getArmature();
+        Armature b = actual.getControl(SkinningControl.class).getArmature();
+        Matrix4f[] ma = a.computeSkinningMatrices();
+        Matrix4f[] mb = b.computeSkinningMatrices();
+        for (int i = 0; i < a.getJointCount(); i++) {
+            Assert.assertEquals(a.getJoint(i).getModelTransform(), b.getJoint(i).getModelTransform());
+            Assert.assertEquals(ma[i], mb[i]);
+        }
+    }
+
+    @Test
+    public void testParallelMatchesSerial() {
+        Node reference = createModel("reference");
+        AnimationSystem system = new AnimationSystem(pool);
+        system.initialize(null, null);
+
+        List<Node> models = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Node model = createModel("model" + i);
+            system.register(model);
+            models.add(model);
+        }
+        Assert.assertEquals(20, system.getModelCount());
+        Assert.assertSame(system, models.get(0).getControl(AnimComposer.class).getAnimationSystem());
+
+        for (int frame = 0; frame < 30; frame++) {
+            float tpf = 0.03f + 0.01f * (frame % 3);
+            reference.updateLogicalState(tpf);
+            for (Node model : models) {
+                // the managed controls must not update themselves
+                model.updateLogicalState(tpf);
+            }
+            system.update(tpf);
+            for (Node model : models) {
+                assertSamePose(reference, model);
+            }
+        }
+    }
+
+    @Test
+    public void testAttachNodesFollowJoints() {
+        AnimationSystem system = new AnimationSystem(pool);
+        system.initialize(null, null);
+        Node first = createModel("first");
+        Node second = createModel("second");
+        system.register(first);
+        system.register(second);
+        Node attachments = first.getControl(SkinningControl.class).getAttachmentsNode("tip");
+
+        system.update(0.25f);
+        Joint tip = first.getControl(SkinningControl.class).getArmature().getJoint("tip");
+        Assert.assertEquals(tip.getModelTransform(), attachments.getLocalTransform());
+    }
+
+    @Test
+    public void testUnregisterRestoresSelfUpdate() {
+        AnimationSystem system = new AnimationSystem(pool);
+        system.initialize(null, null);
+        Node reference = createModel("reference");
+        Node model = createModel("model");
+        system.register(model);
+        try {
+            system.register(model.getControl(AnimComposer.class), null);
+            Assert.fail("Expected an IllegalStateException");
+        } catch (IllegalStateException expected) {
+        }
+
+        reference.updateLogicalState(0.1f);
+        system.update(0.1f);
+        Assert.assertTrue(system.unregister(model));
+        Assert.assertNull(model.getControl(SkinningControl.class).getAnimationSystem());
+        Assert.assertEquals(0, system.getModelCount());
+
+        reference.updateLogicalState(0.1f);
+        model.updateLogicalState(0.1f);
+        assertSamePose(reference, model);
+    }
+
+    @Test
+    public void testDisableRestoresSelfUpdate() {
+        AnimationSystem system = new AnimationSystem(pool);
+        Node model = createModel("model");
+        system.register(model);
+        // not attached yet, so the controls still update themselves
+        Assert.assertNull(model.getControl(AnimComposer.class).getAnimationSystem());
+
+        system.initialize(null, null);
+        Assert.assertSame(system, model.getControl(AnimComposer.class).getAnimationSystem());
+        system.setEnabled(false);
+        Assert.assertNull(model.getControl(AnimComposer.class).getAnimationSystem());
+        Assert.assertEquals(1, system.getModelCount());
+    }
+}
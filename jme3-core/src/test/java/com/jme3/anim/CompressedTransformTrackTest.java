@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2009-2025 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.anim;
+
+import com.jme3.anim.util.AnimCompressor;
+import com.jme3.asset.AssetManager;
+import com.jme3.asset.DesktopAssetManager;
+import com.jme3.export.binary.BinaryExporter;
+import com.jme3.math.FastMath;
+import com.jme3.math.Quaternion;
+import com.jme3.math.Transform;
+import com.jme3.math.Vector3f;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Verifies that CompressedTransformTrack reproduces its source track within
+ * tolerance.
+ */
+public class CompressedTransformTrackTest {
+
+    private static final int FRAMES = 120;
+
+    private TransformTrack createTrack() {
+        float[] times = new float[FRAMES];
+        Vector3f[] translations = new Vector3f[FRAMES];
+        Quaternion[] rotations = new Quaternion[FRAMES];
+        Vector3f[] scales = new Vector3f[FRAMES];
+        for (int i = 0; i < FRAMES; i++) {
+            float t = i / 30f;
+            times[i] = t;
+            // linear motion, which keyframe reduction should collapse
+            translations[i] = new Vector3f(2f * t, -t, 5f);
+            rotations[i] = new Quaternion().fromAngles(FastMath.sin(t * 3f), t * 2f, 0.3f * t);
+            // alternate signs, which must not be mistaken for a rotation
+            if (i % 2 == 1) {
+                rotations[i].negateLocal();
+            }
+            scales[i] = new Vector3f(1f, 1f, 1f);
+        }
+        return new TransformTrack(new Joint("joint"), times, translations, rotations, scales);
+    }
+
+    private void assertClose(TransformTrack expected, CompressedTransformTrack actual, float tolerance) {
+        Transform a = new Transform();
+        Transform b = new Transform();
+        for (float t = -0.1f; t < expected.getLength() + 0.2f; t += 0.011f) {
+            expected.getDataAtTime(t, a);
+            actual.getDataAtTime(t, b);
+            Assert.assertEquals(a.getTranslation().x, b.getTranslation().x, tolerance);
+            Assert.assertEquals(a.getTranslation().y, b.getTranslation().y, tolerance);
+            Assert.assertEquals(a.getTranslation().z, b.getTranslation().z, tolerance);
+            Assert.assertEquals(a.getScale().x, b.getScale().x, tolerance);
+            Quaternion qa = a.getRotation();
+            Quaternion qb = b.getRotation();
+            float sign = qa.dot(qb) < 0f ? -1f : 1f;
+            Assert.assertEquals(qa.getX(), sign * qb.getX(), tolerance);
+            Assert.assertEquals(qa.getY(), sign * qb.getY(), tolerance);
+            Assert.assertEquals(qa.getZ(), sign * qb.getZ(), tolerance);
+            Assert.assertEquals(qa.getW(), sign * qb.getW(), tolerance);
+        }
+    }
+
+    @Test
+    public void testCompression() {
+        TransformTrack track = createTrack();
+        CompressedTransformTrack compressed = new CompressedTransformTrack(track, 1e-4f, 1e-3f, 1e-4f);
+
+        Assert.assertEquals(track.getLength(), compressed.getLength(), 0.0);
+        Assert.assertEquals(2, compressed.getTranslationKeyCount());
+        Assert.assertEquals(1, compressed.getScaleKeyCount());
+        int rotationKeys = compressed.getRotationKeyCount();
+        Assert.assertTrue(rotationKeys > 2 && rotationKeys < FRAMES);
+
+        assertClose(track, compressed, 3e-3f);
+    }
+
+    @Test
+    public void testZeroToleranceKeepsAllKeys() {
+        TransformTrack track = createTrack();
+        Quaternion[] rotations = track.getRotations();
+        rotations[7].set(0f, 1f, 0f, 0f);
+        track.setKeyframesRotation(rotations);
+        CompressedTransformTrack compressed = new CompressedTransformTrack(track, 0f, 0f, 0f);
+        Assert.assertEquals(FRAMES, compressed.getRotationKeyCount());
+
+        // each keyframe is reproduced up to the quantization error
+        Transform a = new Transform();
+        Transform b = new Transform();
+        for (float time : track.getTimes()) {
+            track.getDataAtTime(time, a);
+            compressed.getDataAtTime(time, b);
+            Assert.assertEquals(1f, Math.abs(a.getRotation().dot(b.getRotation())), 1e-4f);
+            Assert.assertEquals(a.getTranslation().x, b.getTranslation().x, 1e-4f);
+        }
+    }
+
+    @Test
+    public void testSaveAndLoad() {
+        AssetManager assetManager = new DesktopAssetManager();
+        TransformTrack track = createTrack();
+        AnimClip clip = new AnimClip("clip");
+        clip.setTracks(new AnimTrack[]{track});
+        AnimClip compressed = AnimCompressor.compress(clip);
+        Assert.assertTrue(compressed.getTracks()[0] instanceof CompressedTransformTrack);
+
+        AnimClip loaded = BinaryExporter.saveAndLoad(assetManager, compressed);
+        CompressedTransformTrack loadedTrack = (CompressedTransformTrack) loaded.getTracks()[0];
+        Assert.assertEquals("joint", ((Joint) loadedTrack.getTarget()).getName());
+        Assert.assertEquals(clip.getLength(), loaded.getLength(), 0.0);
+        assertClose(track, loadedTrack, 3e-3f);
+    }
+
+    @Test
+    public void testPlaysInComposer() {
+        Joint joint = new Joint("joint");
+        float[] times = {0f, 1f};
+        Vector3f[] translations = {new Vector3f(0f, 0f, 0f), new Vector3f(4f, 0f, 0f)};
+        AnimClip clip = new AnimClip("move");
+        clip.setTracks(new AnimTrack[]{new TransformTrack(joint, times, translations, null, null)});
+
+        AnimComposer composer = new AnimComposer();
+        composer.addAnimClip(AnimCompressor.compress(clip));
+        composer.setCurrentAction("move");
+        composer.update(0.5f);
+        Assert.assertEquals(2f, joint.getLocalTranslation().x, 1e-3f);
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2009-2025 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.anim;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.material.MatParamOverride;
+import com.jme3.material.Material;
+import com.jme3.math.Matrix4f;
+import com.jme3.renderer.Camera;
+import com.jme3.renderer.RenderManager;
+import com.jme3.renderer.ViewPort;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.Node;
+import com.jme3.scene.VertexBuffer;
+import com.jme3.scene.shape.Box;
+import com.jme3.system.NullRenderer;
+import com.jme3.system.TestUtil;
+import com.jme3.texture.Texture2D;
+import com.jme3.util.BufferUtils;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Verifies the layout of {@link JointPalette} and its use by
+ * {@link SkinningControl}.
+ */
+public class JointPaletteTest {
+
+    private AssetManager assetManager;
+    private RenderManager renderManager;
+    private ViewPort viewPort;
+
+    @Before
+    public void setUp() {
+        assetManager = TestUtil.createAssetManager();
+        renderManager = TestUtil.createRenderManager(new NullRenderer());
+        viewPort = renderManager.createMainView("main", new Camera(640, 480));
+    }
+
+    private static FloatBuffer getData(JointPalette palette) {
+        return palette.getTexture().getImage().getData(0)
+                .duplicate().order(ByteOrder.nativeOrder()).asFloatBuffer();
+    }
+
+    private Node createSkinnedModel() {
+        Mesh mesh = new Box(1, 1, 1);
+        int vertexCount = mesh.getVertexCount();
+        mesh.setBuffer(VertexBuffer.Type.BoneIndex, 4, BufferUtils.createByteBuffer(vertexCount * 4));
+        float[] weights = new float[vertexCount * 4];
+        for (int i = 0; i < vertexCount; i++) {
+            weights[i * 4] = 1f;
+        }
+        mesh.setBuffer(VertexBuffer.Type.BoneWeight, 4, weights);
+        VertexBuffer hwIndex = new VertexBuffer(VertexBuffer.Type.HWBoneIndex);
+        hwIndex.setUsage(VertexBuffer.Usage.CpuOnly);
+        mesh.setBuffer(hwIndex);
+        VertexBuffer hwWeight = new VertexBuffer(VertexBuffer.Type.HWBoneWeight);
+        hwWeight.setUsage(VertexBuffer.Usage.CpuOnly);
+        mesh.setBuffer(hwWeight);
+        mesh.setMaxNumWeights(1);
+        mesh.generateBindPose();
+
+        Geometry geom = new Geometry("skinned", mesh);
+        geom.setMaterial(new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md"));
+        Node model = new Node("model");
+        model.attachChild(geom);
+        return model;
+    }
+
+    private static Armature createArmature() {
+        Joint root = new Joint("root");
+        Joint child = new Joint("child");
+        root.addChild(child);
+        child.getLocalTransform().setTranslation(0, 2, 0);
+        Armature armature = new Armature(new Joint[]{root, child});
+        armature.update();
+        armature.saveBindPose();
+        return armature;
+    }
+
+    @Test
+    public void testMatrixLayout() {
+        JointPalette palette = new JointPalette();
+        int offset = palette.allocate(2);
+        Matrix4f m = new Matrix4f();
+        m.setTranslation(1, 2, 3);
+        palette.setMatrices(offset + 1, new Matrix4f[]{m});
+
+        FloatBuffer data = getData(palette);
+        int base = (offset + 1) * 16;
+        // 4th column holds the translation
+        Assert.assertEquals(1f, data.get(base + 12), 0f);
+        Assert.assertEquals(2f, data.get(base + 13), 0f);
+        Assert.assertEquals(3f, data.get(base + 14), 0f);
+        Assert.assertEquals(1f, data.get(base + 15), 0f);
+        Assert.assertTrue(palette.getTexture().getImage().isUpdateNeeded());
+    }
+
+    @Test
+    public void testGrowKeepsTextureAndData() {
+        JointPalette palette = new JointPalette();
+        Texture2D texture = palette.getTexture();
+        int first = palette.allocate(200);
+        Matrix4f m = new Matrix4f();
+        m.setTranslation(5, 0, 0);
+        palette.setMatrices(first, new Matrix4f[]{m});
+
+        int second = palette.allocate(200);
+        Assert.assertEquals(200, second);
+        Assert.assertSame(texture, palette.getTexture());
+        Assert.assertEquals(2, texture.getImage().getHeight());
+        Assert.assertEquals(5f, getData(palette).get(first * 16 + 12), 0f);
+
+        palette.release(first, 200);
+        Assert.assertEquals(0, palette.allocate(100));
+    }
+
+    @Test
+    public void testControlsShareThePalette() {
+        JointPalette palette = new JointPalette();
+        Node[] models = new Node[2];
+        SkinningControl[] controls = new SkinningControl[2];
+        for (int i = 0; i < 2; i++) {
+            models[i] = createSkinnedModel();
+            controls[i] = new SkinningControl(createArmature());
+            controls[i].setJointPalette(palette);
+            models[i].addControl(controls[i]);
+            models[i].updateLogicalState(0);
+            models[i].updateGeometricState();
+            models[i].runControlRender(renderManager, viewPort);
+        }
+
+        for (int i = 0; i < 2; i++) {
+            Assert.assertTrue(controls[i].isHardwareSkinningUsed());
+            Assert.assertTrue(controls[i].isJointPaletteUsed());
+        }
+
+        int[] offsets = new int[2];
+        for (int i = 0; i < 2; i++) {
+            for (MatParamOverride override : models[i].getLocalMatParamOverrides()) {
+                if (override.getName().equals("JointPaletteOffset")) {
+                    Assert.assertTrue(override.isEnabled());
+                    offsets[i] = (Integer) override.getValue();
+                } else if (override.getName().equals("JointPalette")) {
+                    Assert.assertSame(palette.getTexture(), override.getValue());
+                } else if (override.getName().equals("BoneMatrices")) {
+                    Assert.assertFalse(override.isEnabled());
+                }
+            }
+        }
+        Assert.assertNotEquals(offsets[0], offsets[1]);
+        // identity skinning matrices of the second joint
+        Assert.assertEquals(1f, getData(palette).get((offsets[1] + 1) * 16), 0f);
+
+        models[0].removeControl(controls[0]);
+        Assert.assertEquals(offsets[0], palette.allocate(2));
+    }
+
+    @Test
+    public void testUniformsWithoutPalette() {
+        Node model = createSkinnedModel();
+        SkinningControl control = new SkinningControl(createArmature());
+        model.addControl(control);
+        model.updateLogicalState(0);
+        model.updateGeometricState();
+        model.runControlRender(renderManager, viewPort);
+
+        Assert.assertTrue(control.isHardwareSkinningUsed());
+        Assert.assertFalse(control.isJointPaletteUsed());
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2009-2025 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.anim;
+
+import com.jme3.anim.interpolator.AnimInterpolators;
+import com.jme3.anim.interpolator.FrameInterpolator;
+import com.jme3.math.FastMath;
+import com.jme3.math.Quaternion;
+import com.jme3.math.Transform;
+import com.jme3.math.Vector3f;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Verifies keyframe lookup and flat keyframe storage in TransformTrack.
+ */
+public class TransformTrackTest {
+
+    private static final int FRAMES = 50;
+
+    private TransformTrack createTrack() {
+        float[] times = new float[FRAMES];
+        Vector3f[] translations = new Vector3f[FRAMES];
+        Quaternion[] rotations = new Quaternion[FRAMES];
+        Vector3f[] scales = new Vector3f[FRAMES];
+        float time = 0f;
+        for (int i = 0; i < FRAMES; i++) {
+            times[i] = time;
+            // uneven intervals, so a wrong frame gives a wrong result
+            time += 0.1f + (i % 3) * 0.05f;
+            translations[i] = new Vector3f(i, i * i, -i);
+            rotations[i] = new Quaternion().fromAngleAxis(i * 0.3f, Vector3f.UNIT_Y);
+            scales[i] = new Vector3f(1f + i, 1f, 1f + 0.5f * i);
+        }
+        return new TransformTrack(new Joint("joint"), times, translations, rotations, scales);
+    }
+
+    /**
+     * Evaluates the track by linear scan, as the original implementation did.
+     */
+    private Transform expected(TransformTrack track, float time) {
+        float[] times = track.getTimes();
+        Vector3f[] translations = track.getTranslations();
+        Quaternion[] rotations = track.getRotations();
+        Vector3f[] scales = track.getScales();
+        int lastFrame = times.length - 1;
+        int start = 0;
+        int end = 0;
+        float blend = 0f;
+        if (time >= times[lastFrame]) {
+            start = lastFrame;
+            end = lastFrame;
+        } else if (time >= 0f) {
+            for (int i = 0; i < lastFrame && times[i] < time; i++) {
+                start = i;
+            }
+            end = start + 1;
+            blend = (time - times[start]) / (times[end] - times[start]);
+        }
+        Transform result = new Transform();
+        result.getTranslation().set(translations[start]).interpolateLocal(translations[end], blend);
+        Quaternion rotation = new Quaternion(rotations[start]);
+        rotation.nlerp(rotations[end], blend);
+        result.setRotation(rotation);
+        result.getScale().set(scales[start]).interpolateLocal(scales[end], blend);
+        return result;
+    }
+
+    private void assertTransform(Transform expected, Transform actual) {
+        Assert.assertEquals(expected.getTranslation().x, actual.getTranslation().x, 1e-3f);
+        Assert.assertEquals(expected.getTranslation().y, actual.getTranslation().y, 1e-3f);
+        Assert.assertEquals(expected.getTranslation().z, actual.getTranslation().z, 1e-3f);
+        Assert.assertEquals(expected.getRotation().getX(), actual.getRotation().getX(), 1e-5f);
+        Assert.assertEquals(expected.getRotation().getY(), actual.getRotation().getY(), 1e-5f);
+        Assert.assertEquals(expected.getRotation().getZ(), actual.getRotation().getZ(), 1e-5f);
+        Assert.assertEquals(expected.getRotation().getW(), actual.getRotation().getW(), 1e-5f);
+        Assert.assertEquals(expected.getScale().x, actual.getScale().x, 1e-4f);
+        Assert.assertEquals(expected.getScale().y, actual.getScale().y, 1e-4f);
+        Assert.assertEquals(expected.getScale().z, actual.getScale().z, 1e-4f);
+    }
+
+    private void checkPlayback(TransformTrack track) {
+        float end = track.getTimes()[FRAMES - 1];
+        Transform actual = new Transform();
+
+        // forward, at keyframe times and between them
+        for (float t = 0f; t <= end + 0.2f; t += 0.0173f) {
+            track.getDataAtTime(t, actual);
+            assertTransform(expected(track, t), actual);
+        }
+        for (float t : track.getTimes()) {
+            track.getDataAtTime(t, actual);
+            assertTransform(expected(track, t), actual);
+        }
+
+        // backward and random access, which defeat the cursor
+        for (float t = end; t >= 0f; t -= 0.31f) {
+            track.getDataAtTime(t, actual);
+            assertTransform(expected(track, t), actual);
+        }
+        for (int i = 0; i < 200; i++) {
+            float t = FastMath.nextRandomFloat() * end;
+            track.getDataAtTime(t, actual);
+            assertTransform(expected(track, t), actual);
+        }
+    }
+
+    @Test
+    public void testCompactKeyframes() {
+        TransformTrack track = createTrack();
+        Assert.assertFalse(track.isFlatKeyframes());
+        checkPlayback(track);
+    }
+
+    @Test
+    public void testFlatKeyframes() {
+        TransformTrack track = createTrack();
+        track.setFlatKeyframes(true);
+        Assert.assertTrue(track.isFlatKeyframes());
+        checkPlayback(track);
+
+        // replacing keyframes refreshes the flat copies
+        Vector3f[] translations = track.getTranslations();
+        for (Vector3f translation : translations) {
+            translation.multLocal(2f);
+        }
+        track.setKeyframesTranslation(translations);
+        checkPlayback(track);
+    }
+
+    @Test
+    public void testCustomInterpolatorBypassesFlatKeyframes() {
+        TransformTrack track = createTrack();
+        track.setFlatKeyframes(true);
+        FrameInterpolator interpolator = new FrameInterpolator();
+        Assert.assertTrue(interpolator.isLinear());
+        interpolator.setTimeInterpolator(AnimInterpolators.constant);
+        Assert.assertFalse(interpolator.isLinear());
+        track.setFrameInterpolator(interpolator);
+
+        // the constant easing holds each keyframe until the next one
+        float[] times = track.getTimes();
+        Transform actual = new Transform();
+        track.getDataAtTime((times[3] + times[4]) / 2f, actual);
+        Assert.assertEquals(3f, actual.getTranslation().x, 1e-5f);
+    }
+}
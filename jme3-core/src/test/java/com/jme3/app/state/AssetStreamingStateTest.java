@@ -0,0 +1,303 @@
+/*
+ * Copyright (c) 2009-2025 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.app.state;
+
+import com.jme3.app.Application;
+import com.jme3.asset.AssetInfo;
+import com.jme3.asset.AssetKey;
+import com.jme3.asset.AssetLoader;
+import com.jme3.asset.AssetLocator;
+import com.jme3.asset.AssetManager;
+import com.jme3.asset.AssetNotFoundException;
+import com.jme3.asset.DesktopAssetManager;
+import com.jme3.asset.ModelKey;
+import com.jme3.renderer.RenderManager;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Spatial;
+import com.jme3.scene.shape.Box;
+import com.jme3.system.NullRenderer;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Verifies the ordering, cancellation, budget and upload slicing of
+ * {@link AssetStreamingState}.
+ */
+public class AssetStreamingStateTest {
+
+    private static volatile CountDownLatch gate = new CountDownLatch(0);
+
+    /**
+     * Locates every asset except those under "Missing/".
+     */
+    public static class AnyLocator implements AssetLocator {
+
+        @Override
+        public void setRootPath(String rootPath) {
+        }
+
+        @Override
+        public AssetInfo locate(AssetManager manager, AssetKey key) {
+            if (key.getName().startsWith("Missing/")) {
+                return null;
+            }
+            return new AssetInfo(manager, key) {
+                @Override
+                public InputStream openStream() {
+                    return new ByteArrayInputStream(new byte[0]);
+                }
+            };
+        }
+    }
+
+    /**
+     * Returns the name of the asset, after waiting for the gate if the
+     * name starts with "gate". Throws an error if the name starts with
+     * "error".
+     */
+    public static class GateLoader implements AssetLoader {
+
+        @Override
+        public Object load(AssetInfo assetInfo) throws IOException {
+            String name = assetInfo.getKey().getName();
+            if (name.startsWith("error")) {
+                throw new AssertionError(name);
+            }
+            if (name.startsWith("gate")) {
+                try {
+                    gate.await();
+                } catch (InterruptedException ex) {
+                    throw new InterruptedIOException();
+                }
+            }
+            return name;
+        }
+    }
+
+    /**
+     * Returns a box without material.
+     */
+    public static class BoxLoader implements AssetLoader {
+
+        @Override
+        public Object load(AssetInfo assetInfo) {
+            return new Geometry("box", new Box(1, 1, 1));
+        }
+    }
+
+    private final ConcurrentLinkedQueue<Runnable> renderQueue = new ConcurrentLinkedQueue<>();
+    private final List<String> delivered = new ArrayList<>();
+
+    private AssetStreamingState createState(int threads, long budget) {
+        AssetManager assetManager = new DesktopAssetManager();
+        assetManager.registerLocator("/", AnyLocator.class);
+        assetManager.registerLoader(GateLoader.class, "txt");
+        assetManager.registerLoader(BoxLoader.class, "box");
+        Application app = (Application) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] {Application.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getAssetManager":
+                            return assetManager;
+                        case "enqueue":
+                            renderQueue.add((Runnable) args[0]);
+                            return null;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+        AssetStreamingState state = new AssetStreamingState(threads, budget);
+        state.initialize(null, app);
+        return state;
+    }
+
+    private AssetStreamingState.Request<String> request(AssetStreamingState state, String name,
+                                                        float priority, long bytes) {
+        return state.request(new AssetKey<>(name), priority, bytes,
+                new AssetStreamingState.Listener<String>() {
+                    @Override
+                    public void assetLoaded(AssetStreamingState.Request<String> request, String asset) {
+                        delivered.add(asset);
+                    }
+
+                    @Override
+                    public void assetFailed(AssetStreamingState.Request<String> request, Throwable cause) {
+                        delivered.add(cause.getClass().getSimpleName());
+                    }
+                });
+    }
+
+    private static void awaitDone(AssetStreamingState.Request<?>... requests)
+            throws InterruptedException {
+        long end = System.currentTimeMillis() + 10000;
+        for (AssetStreamingState.Request<?> request : requests) {
+            while (!request.isDone()) {
+                Assert.assertTrue("Timed out waiting for " + request,
+                        System.currentTimeMillis() < end);
+                Thread.sleep(5);
+            }
+        }
+    }
+
+    private void runRenderQueue() {
+        for (Runnable task = renderQueue.poll(); task != null; task = renderQueue.poll()) {
+            task.run();
+        }
+    }
+
+    @Test
+    public void testPriorityAndCancellation() throws Exception {
+        gate = new CountDownLatch(1);
+        AssetStreamingState state = createState(1, 1000);
+
+        AssetStreamingState.Request<String> first = request(state, "gate.txt", 0, 0);
+        AssetStreamingState.Request<String> low = request(state, "low.txt", 1, 0);
+        AssetStreamingState.Request<String> high = request(state, "high.txt", 2, 0);
+        AssetStreamingState.Request<String> mid = request(state, "mid.txt", 1.5f, 0);
+        AssetStreamingState.Request<String> cancelled = request(state, "cancelled.txt", 5, 0);
+        low.setPriority(3);
+        Assert.assertTrue(cancelled.cancel());
+        Assert.assertFalse(cancelled.cancel());
+        gate.countDown();
+
+        awaitDone(first, low, high, mid);
+        Assert.assertTrue(delivered.isEmpty());
+        runRenderQueue();
+
+        Assert.assertEquals("[gate.txt, low.txt, high.txt, mid.txt]", delivered.toString());
+        Assert.assertTrue(cancelled.isCancelled());
+        Assert.assertFalse(cancelled.isDone());
+        Assert.assertFalse(first.cancel());
+        state.cleanup();
+    }
+
+    @Test
+    public void testCancelBeforeNotification() throws Exception {
+        AssetStreamingState state = createState(1, 1000);
+
+        AssetStreamingState.Request<String> request = request(state, "a.txt", 0, 0);
+        awaitDone(request);
+        Assert.assertTrue(request.cancel());
+        runRenderQueue();
+
+        Assert.assertTrue(delivered.isEmpty());
+        state.cleanup();
+    }
+
+    @Test
+    public void testByteBudget() throws Exception {
+        gate = new CountDownLatch(1);
+        AssetStreamingState state = createState(2, 100);
+
+        AssetStreamingState.Request<String> a = request(state, "gateA.txt", 1, 80);
+        AssetStreamingState.Request<String> b = request(state, "gateB.txt", 0, 50);
+        Assert.assertEquals(80, state.getInFlightBytes());
+        Assert.assertEquals(1, state.getQueuedCount());
+
+        // Raising the budget lets the second request start
+        state.setByteBudget(200);
+        Assert.assertEquals(130, state.getInFlightBytes());
+        Assert.assertEquals(0, state.getQueuedCount());
+
+        gate.countDown();
+        awaitDone(a, b);
+        Assert.assertEquals(0, state.getInFlightBytes());
+        state.cleanup();
+    }
+
+    @Test
+    public void testFailure() throws Exception {
+        AssetStreamingState state = createState(1, 1000);
+
+        AssetStreamingState.Request<String> missing = request(state, "Missing/a.txt", 0, 10);
+        awaitDone(missing);
+        runRenderQueue();
+
+        Assert.assertEquals("[" + AssetNotFoundException.class.getSimpleName() + "]",
+                delivered.toString());
+        Assert.assertEquals(0, state.getInFlightBytes());
+        state.cleanup();
+    }
+
+    @Test
+    public void testErrorReleasesLoader() throws Exception {
+        AssetStreamingState state = createState(1, 1000);
+
+        AssetStreamingState.Request<String> error = request(state, "error.txt", 1, 10);
+        AssetStreamingState.Request<String> next = request(state, "next.txt", 0, 10);
+        awaitDone(error, next);
+        runRenderQueue();
+
+        Assert.assertEquals("[AssertionError, next.txt]", delivered.toString());
+        Assert.assertEquals(0, state.getInFlightBytes());
+        state.cleanup();
+    }
+
+    @Test
+    public void testUploadTimeSlice() throws Exception {
+        AssetStreamingState state = createState(1, 1 << 20);
+        state.setUploadTimeSlice(0);
+        List<Spatial> boxes = new ArrayList<>();
+        AssetStreamingState.Request<Spatial> request = state.request(
+                new ModelKey("a.box"), 0, (r, asset) -> boxes.add(asset));
+
+        long end = System.currentTimeMillis() + 10000;
+        while (state.getInFlightBytes() == 0) {
+            Assert.assertTrue(System.currentTimeMillis() < end);
+            Thread.sleep(5);
+        }
+        // Positions, normals, texture coordinates and indices
+        long bytes = 3 * 24 * 4 + 3 * 24 * 4 + 2 * 24 * 4 + 36 * 2;
+        Assert.assertEquals(bytes, state.getInFlightBytes());
+
+        RenderManager rm = new RenderManager(new NullRenderer());
+        for (int i = 0; i < 3; i++) {
+            state.render(rm);
+            Assert.assertFalse(request.isDone());
+        }
+        state.render(rm);
+        Assert.assertTrue(request.isDone());
+        Assert.assertEquals(0, state.getInFlightBytes());
+
+        runRenderQueue();
+        Assert.assertEquals(1, boxes.size());
+        state.cleanup();
+    }
+}
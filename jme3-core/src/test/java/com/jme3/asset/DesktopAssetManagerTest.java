@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2009-2025 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.asset;
+
+import com.jme3.asset.plugins.ClasspathLocator;
+import com.jme3.system.JmeSystem;
+import com.jme3.system.MockJmeSystemDelegate;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Verifies that concurrent loads of the same asset are deduplicated, without
+ * deadlocking on cross-dependent loads or ignoring interrupts.
+ */
+public class DesktopAssetManagerTest {
+
+    private static final int THREADS = 8;
+
+    /**
+     * A loader that counts its invocations and takes long enough for the
+     * concurrent requests to overlap.
+     */
+    public static class SlowTextLoader extends TextLoader {
+
+        static final AtomicInteger loads = new AtomicInteger();
+
+        @Override
+        public Object load(AssetInfo assetInfo) {
+            loads.incrementAndGet();
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return super.load(assetInfo);
+        }
+    }
+
+    /**
+     * Locates every asset as an empty stream.
+     */
+    public static class AnyLocator implements AssetLocator {
+
+        @Override
+        public void setRootPath(String rootPath) {
+        }
+
+        @Override
+        public AssetInfo locate(AssetManager manager, AssetKey key) {
+            return new AssetInfo(manager, key) {
+                @Override
+                public InputStream openStream() {
+                    return new ByteArrayInputStream(new byte[0]);
+                }
+            };
+        }
+    }
+
+    private static volatile CyclicBarrier barrier;
+    private static final ThreadLocal<Integer> depth = ThreadLocal.withInitial(() -> 0);
+
+    /**
+     * "x.dep" depends on "y.dep" and the other way around. The outermost
+     * loads wait for each other before loading their dependency, and
+     * nested loads stop the recursion.
+     */
+    public static class CrossLoader implements AssetLoader {
+
+        @Override
+        public Object load(AssetInfo assetInfo) throws IOException {
+            String name = assetInfo.getKey().getName();
+            int level = depth.get();
+            if (level > 0) {
+                return name;
+            }
+            depth.set(level + 1);
+            try {
+                barrier.await(10, TimeUnit.SECONDS);
+                String other = name.equals("x.dep") ? "y.dep" : "x.dep";
+                return name + "+" + assetInfo.getManager().loadAsset(other);
+            } catch (InterruptedException | BrokenBarrierException | TimeoutException ex) {
+                throw new IOException(ex);
+            } finally {
+                depth.set(level);
+            }
+        }
+    }
+
+    /**
+     * Loads after the gate opens.
+     */
+    public static class GateLoader implements AssetLoader {
+
+        static volatile CountDownLatch gate;
+
+        @Override
+        public Object load(AssetInfo assetInfo) throws IOException {
+            try {
+                gate.await();
+            } catch (InterruptedException ex) {
+                throw new InterruptedIOException();
+            }
+            return assetInfo.getKey().getName();
+        }
+    }
+
+    private static List<Future<Object>> loadConcurrently(AssetManager am, String name)
+            throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Object>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                results.add(executor.submit((Callable<Object>) () -> {
+                    start.await();
+                    return am.loadAsset(name);
+                }));
+            }
+            start.countDown();
+            for (Future<Object> result : results) {
+                try {
+                    result.get();
+                } catch (ExecutionException ex) {
+                    // checked by the caller
+                }
+            }
+            return results;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testConcurrentLoadsShareOneLoad() throws Exception {
+        JmeSystem.setSystemDelegate(new MockJmeSystemDelegate());
+        AssetManager am = new DesktopAssetManager();
+        am.registerLocator("/", ClasspathLocator.class);
+        am.registerLoader(SlowTextLoader.class, "fnt");
+        SlowTextLoader.loads.set(0);
+
+        List<Future<Object>> results = loadConcurrently(am, "Interface/Fonts/Console.fnt");
+
+        Assert.assertEquals(1, SlowTextLoader.loads.get());
+        Object first = results.get(0).get();
+        Assert.assertTrue(((String) first).startsWith("info face=\"Lucida Console\""));
+        for (Future<Object> result : results) {
+            Assert.assertSame(first, result.get());
+        }
+    }
+
+    @Test
+    public void testCrossDependentLoadsDoNotDeadlock() throws Exception {
+        AssetManager am = new DesktopAssetManager();
+        am.registerLocator("/", AnyLocator.class);
+        am.registerLoader(CrossLoader.class, "dep");
+        barrier = new CyclicBarrier(2);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Object> x = executor.submit(() -> am.loadAsset("x.dep"));
+            Future<Object> y = executor.submit(() -> am.loadAsset("y.dep"));
+            // a dependency may come from the cache once the other load ends
+            Assert.assertTrue(((String) x.get(10, TimeUnit.SECONDS)).startsWith("x.dep+y.dep"));
+            Assert.assertTrue(((String) y.get(10, TimeUnit.SECONDS)).startsWith("y.dep+x.dep"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testInterruptAbortsWait() throws Exception {
+        AssetManager am = new DesktopAssetManager();
+        am.registerLocator("/", AnyLocator.class);
+        am.registerLoader(GateLoader.class, "gate");
+        GateLoader.gate = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Object> first = executor.submit(() -> am.loadAsset("a.gate"));
+            Thread.sleep(100);
+            Future<Object> second = executor.submit(() -> am.loadAsset("a.gate"));
+            Thread.sleep(100);
+            second.cancel(true);
+            // the interrupted waiter gives up while the first load goes on
+            long end = System.currentTimeMillis() + 10000;
+            while (!second.isDone()) {
+                Assert.assertTrue(System.currentTimeMillis() < end);
+                Thread.sleep(5);
+            }
+            Assert.assertFalse(first.isDone());
+            GateLoader.gate.countDown();
+            Assert.assertEquals("a.gate", first.get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testConcurrentLoadsOfMissingAsset() throws Exception {
+        JmeSystem.setSystemDelegate(new MockJmeSystemDelegate());
+        AssetManager am = new DesktopAssetManager();
+        am.registerLocator("/", ClasspathLocator.class);
+        am.registerLoader(SlowTextLoader.class, "fnt");
+
+        List<Future<Object>> results = loadConcurrently(am, "Interface/Fonts/Missing.fnt");
+
+        for (Future<Object> result : results) {
+            try {
+                result.get();
+                Assert.fail("Expected AssetNotFoundException");
+            } catch (ExecutionException ex) {
+                Assert.assertTrue(ex.getCause() instanceof AssetNotFoundException);
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2009-2025 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.collision;
+
+import com.jme3.math.Ray;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Node;
+import com.jme3.scene.shape.Sphere;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Verifies the result limit and recycling of {@link CollisionResults}.
+ */
+public class CollisionResultsTest {
+
+    private static Node createScene() {
+        Node root = new Node("root");
+        Sphere mesh = new Sphere(16, 16, 1f);
+        for (int i = 0; i < 10; i++) {
+            Geometry geometry = new Geometry("sphere" + i, mesh);
+            geometry.setLocalTranslation(i * 3f, (i % 3) * 0.2f, 0f);
+            root.attachChild(geometry);
+        }
+        root.updateGeometricState();
+        return root;
+    }
+
+    private static CollisionResult add(CollisionResults results, float distance) {
+        CollisionResult result = results.createCollision();
+        result.setDistance(distance);
+        results.addCollision(result);
+        return result;
+    }
+
+    @Test
+    public void testLimitKeepsNearest() {
+        CollisionResults results = new CollisionResults(2);
+        Assert.assertEquals(Float.POSITIVE_INFINITY, results.getCutoffDistance(), 0f);
+        for (float distance : new float[]{5f, 3f, 9f, 1f, 7f}) {
+            add(results, distance);
+        }
+        Assert.assertEquals(3f, results.getCutoffDistance(), 0f);
+        Assert.assertEquals(1f, results.getClosestCollision().getDistance(), 0f);
+        Assert.assertEquals(2, results.size());
+        Assert.assertEquals(3f, results.getFarthestCollision().getDistance(), 0f);
+
+        // equal distances are kept up to the limit
+        results.clear();
+        add(results, 2f);
+        add(results, 2f);
+        add(results, 2f);
+        results.trim();
+        Assert.assertEquals(2, results.size());
+    }
+
+    @Test
+    public void testLimitedPickMatchesUnlimited() {
+        Node root = createScene();
+        Random random = new Random(9);
+        CollisionResults all = new CollisionResults();
+        CollisionResults closest = new CollisionResults(1);
+        CollisionResults nearest3 = new CollisionResults(3);
+        for (int i = 0; i < 100; i++) {
+            Vector3f origin = new Vector3f(-5f, random.nextFloat() - 0.5f, random.nextFloat() - 0.5f);
+            Ray ray = new Ray(origin, new Vector3f(1f, random.nextFloat() * 0.02f - 0.01f, 0f).normalizeLocal());
+            all.clear();
+            closest.clear();
+            nearest3.clear();
+            root.collideWith(ray, all);
+            root.collideWith(ray, closest);
+            root.collideWith(ray, nearest3);
+
+            Assert.assertEquals(Math.min(all.size(), 1), closest.size());
+            Assert.assertEquals(Math.min(all.size(), 3), nearest3.size());
+            for (int j = 0; j < nearest3.size(); j++) {
+                CollisionResult expected = all.getCollision(j);
+                CollisionResult actual = nearest3.getCollision(j);
+                Assert.assertEquals(expected.getDistance(), actual.getDistance(), 0f);
+                Assert.assertEquals(expected.getGeometry(), actual.getGeometry());
+                Assert.assertEquals(expected.getTriangleIndex(), actual.getTriangleIndex());
+            }
+            if (closest.size() > 0) {
+                CollisionResult expected = all.getClosestCollision();
+                CollisionResult actual = closest.getClosestCollision();
+                Assert.assertEquals(expected.getDistance(), actual.getDistance(), 0f);
+                Assert.assertEquals(expected.getGeometry(), actual.getGeometry());
+                Assert.assertEquals(expected.getContactPoint(), actual.getContactPoint());
+                Assert.assertEquals(expected.getContactNormal(), actual.getContactNormal());
+            }
+        }
+    }
+
+    @Test
+    public void testRecycling() {
+        Node root = createScene();
+        Ray ray = new Ray(new Vector3f(-5f, 0.1f, 0.1f), Vector3f.UNIT_X);
+        CollisionResults results = new CollisionResults();
+        results.setRecycling(true);
+        root.collideWith(ray, results);
+        int count = results.size();
+        Assert.assertTrue(count > 0);
+
+        Map<CollisionResult, Boolean> first = new IdentityHashMap<>();
+        for (CollisionResult result : results) {
+            first.put(result, Boolean.TRUE);
+        }
+        Vector3f closestPoint = results.getClosestCollision().getContactPoint().clone();
+
+        results.clear();
+        root.collideWith(ray, results);
+        Assert.assertEquals(count, results.size());
+        for (CollisionResult result : results) {
+            Assert.assertTrue(first.containsKey(result));
+        }
+        Assert.assertEquals(closestPoint, results.getClosestCollision().getContactPoint());
+
+        // without recycling, results are never reused
+        results.setRecycling(false);
+        results.clear();
+        root.collideWith(ray, results);
+        for (CollisionResult result : results) {
+            Assert.assertFalse(first.containsKey(result));
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2009-2025 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.collision;
+
+import com.jme3.math.FastMath;
+import com.jme3.math.Quaternion;
+import com.jme3.math.Ray;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Node;
+import com.jme3.scene.shape.Box;
+import com.jme3.scene.shape.Sphere;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Verifies that batched ray queries find the same nearest hits as
+ * {@link com.jme3.scene.Spatial#collideWith(Collidable, CollisionResults)}.
+ */
+public class RayBatchTest {
+
+    private static Node createScene() {
+        Node root = new Node("root");
+        Random random = new Random(3);
+        for (int i = 0; i < 12; i++) {
+            Geometry geometry = (i % 2 == 0)
+                    ? new Geometry("sphere" + i, new Sphere(12, 12, 1.5f))
+                    : new Geometry("box" + i, new Box(1f, 2f, 0.5f));
+            geometry.setLocalTranslation(random.nextFloat() * 20f - 10f,
+                    random.nextFloat() * 20f - 10f, random.nextFloat() * 20f - 10f);
+            geometry.setLocalRotation(new Quaternion().fromAngles(random.nextFloat() * FastMath.TWO_PI,
+                    random.nextFloat() * FastMath.TWO_PI, 0f));
+            geometry.setLocalScale(0.5f + random.nextFloat());
+            root.attachChild(geometry);
+        }
+        root.setLocalTranslation(1f, -2f, 3f);
+        root.updateGeometricState();
+        return root;
+    }
+
+    private static RayBatch createBatch(int size) {
+        RayBatch batch = new RayBatch(size, true);
+        Random random = new Random(11);
+        Ray ray = new Ray();
+        for (int i = 0; i < size; i++) {
+            ray.origin.set(random.nextFloat() - 0.5f, random.nextFloat() - 0.5f,
+                    random.nextFloat() - 0.5f).normalizeLocal().multLocal(40f);
+            ray.direction.set(random.nextFloat() * 24f - 12f, random.nextFloat() * 24f - 12f,
+                    random.nextFloat() * 24f - 12f).subtractLocal(ray.origin).normalizeLocal();
+            batch.setRay(i, ray);
+        }
+        return batch;
+    }
+
+    private static void assertMatchesCollideWith(Node root, RayBatch batch) {
+        Ray ray = new Ray();
+        int hits = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            batch.getRay(i, ray);
+            ray.setLimit(Float.POSITIVE_INFINITY);
+            CollisionResults results = new CollisionResults();
+            root.collideWith(ray, results);
+            if (results.size() == 0) {
+                Assert.assertEquals(-1, batch.getTriangleIndex(i));
+                Assert.assertNull(batch.getGeometry(i));
+                continue;
+            }
+            CollisionResult closest = results.getClosestCollision();
+            Assert.assertEquals(closest.getDistance(), batch.getDistance(i), 1e-3f);
+            Assert.assertEquals(closest.getGeometry(), batch.getGeometry(i));
+            Assert.assertEquals(closest.getTriangleIndex(), batch.getTriangleIndex(i));
+            hits++;
+        }
+        Assert.assertTrue(hits > 0);
+    }
+
+    @Test
+    public void testSerial() {
+        Node root = createScene();
+        RayBatch batch = createBatch(500);
+        root.collideWithRays(batch);
+        assertMatchesCollideWith(root, batch);
+    }
+
+    @Test
+    public void testParallel() {
+        Node root = createScene();
+        RayBatch serial = createBatch(2000);
+        root.collideWithRays(serial);
+
+        RayBatch parallel = createBatch(2000);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            root.collideWithRays(parallel, pool);
+        } finally {
+            pool.shutdown();
+        }
+        for (int i = 0; i < serial.size(); i++) {
+            Assert.assertEquals(serial.getDistance(i), parallel.getDistance(i), 0f);
+            Assert.assertEquals(serial.getTriangleIndex(i), parallel.getTriangleIndex(i));
+            Assert.assertEquals(serial.getGeometry(i), parallel.getGeometry(i));
+        }
+    }
+
+    @Test
+    public void testLimit() {
+        Node root = createScene();
+        RayBatch batch = createBatch(500);
+        root.collideWithRays(batch);
+
+        RayBatch limited = createBatch(500);
+        limited.reset(30f);
+        root.collideWithRays(limited);
+        for (int i = 0; i < batch.size(); i++) {
+            if (batch.getDistance(i) < 30f) {
+                Assert.assertEquals(batch.getDistance(i), limited.getDistance(i), 0f);
+                Assert.assertEquals(batch.getTriangleIndex(i), limited.getTriangleIndex(i));
+            } else {
+                Assert.assertEquals(30f, limited.getDistance(i), 0f);
+                Assert.assertEquals(-1, limited.getTriangleIndex(i));
+            }
+        }
+    }
+}
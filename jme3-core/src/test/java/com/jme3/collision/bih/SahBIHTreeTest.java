@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2009-2025 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.collision.bih;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.asset.DesktopAssetManager;
+import com.jme3.bounding.BoundingBox;
+import com.jme3.bounding.BoundingSphere;
+import com.jme3.collision.CollisionResult;
+import com.jme3.collision.CollisionResults;
+import com.jme3.export.binary.BinaryExporter;
+import com.jme3.math.Matrix4f;
+import com.jme3.math.Quaternion;
+import com.jme3.math.Ray;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.VertexBuffer;
+import com.jme3.scene.shape.Sphere;
+import com.jme3.util.BufferUtils;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Verifies that trees built by BIHTree.construct(ForkJoinPool) give the same
+ * collisions as the default construction.
+ */
+public class SahBIHTreeTest {
+
+    private static Mesh createTriangleSoup(int count, long seed) {
+        Random random = new Random(seed);
+        float[] positions = new float[count * 9];
+        for (int i = 0; i < count; i++) {
+            float cx = random.nextFloat() * 20f - 10f;
+            float cy = random.nextFloat() * 20f - 10f;
+            float cz = random.nextFloat() * 20f - 10f;
+            for (int v = 0; v < 3; v++) {
+                positions[i * 9 + v * 3] = cx + random.nextFloat() - 0.5f;
+                positions[i * 9 + v * 3 + 1] = cy + random.nextFloat() - 0.5f;
+                positions[i * 9 + v * 3 + 2] = cz + random.nextFloat() - 0.5f;
+            }
+        }
+        Mesh mesh = new Mesh();
+        mesh.setBuffer(VertexBuffer.Type.Position, 3, BufferUtils.createFloatBuffer(positions));
+        mesh.updateBound();
+        return mesh;
+    }
+
+    private static Geometry createGeometry(Mesh mesh, ForkJoinPool pool, boolean flat) {
+        Mesh copy = mesh.deepClone();
+        if (flat) {
+            copy.createCollisionData(pool);
+        } else {
+            copy.createCollisionData();
+        }
+        Geometry geometry = new Geometry("geometry", copy);
+        geometry.setLocalRotation(new Quaternion().fromAngles(0.3f, 0.7f, 0.1f));
+        geometry.setLocalTranslation(1f, 2f, 3f);
+        geometry.setLocalScale(1.5f);
+        geometry.updateGeometricState();
+        return geometry;
+    }
+
+    private static void assertSameResults(CollisionResults expected, CollisionResults actual) {
+        Assert.assertEquals(expected.size(), actual.size());
+        // hits at equal distances may come back in either order
+        int[] expectedIndices = new int[expected.size()];
+        int[] actualIndices = new int[actual.size()];
+        for (int i = 0; i < expected.size(); i++) {
+            CollisionResult a = expected.getCollision(i);
+            CollisionResult b = actual.getCollision(i);
+            Assert.assertEquals(a.getDistance(), b.getDistance(), 1e-4f);
+            expectedIndices[i] = a.getTriangleIndex();
+            actualIndices[i] = b.getTriangleIndex();
+        }
+        Arrays.sort(expectedIndices);
+        Arrays.sort(actualIndices);
+        Assert.assertArrayEquals(expectedIndices, actualIndices);
+    }
+
+    private static void compare(Mesh mesh, ForkJoinPool pool) {
+        Geometry reference = createGeometry(mesh, null, false);
+        Geometry flat = createGeometry(mesh, pool, true);
+
+        Random random = new Random(7);
+        int hits = 0;
+        for (int i = 0; i < 300; i++) {
+            Vector3f origin = new Vector3f(random.nextFloat() - 0.5f, random.nextFloat() - 0.5f,
+                    random.nextFloat() - 0.5f).normalizeLocal().multLocal(60f);
+            Vector3f target = new Vector3f(random.nextFloat() * 20f - 10f, random.nextFloat() * 20f - 10f,
+                    random.nextFloat() * 20f - 10f);
+            Ray ray = new Ray(origin, target.subtractLocal(origin).normalizeLocal());
+
+            CollisionResults expected = new CollisionResults();
+            CollisionResults actual = new CollisionResults();
+            reference.collideWith(ray, expected);
+            flat.collideWith(ray, actual);
+            assertSameResults(expected, actual);
+            hits += expected.size();
+        }
+        Assert.assertTrue(hits > 0);
+
+        for (int i = 0; i < 50; i++) {
+            Vector3f center = new Vector3f(random.nextFloat() * 30f - 15f, random.nextFloat() * 30f - 15f,
+                    random.nextFloat() * 30f - 15f);
+            CollisionResults expected = new CollisionResults();
+            CollisionResults actual = new CollisionResults();
+            reference.collideWith(new BoundingBox(center, 2f, 3f, 1f), expected);
+            flat.collideWith(new BoundingBox(center, 2f, 3f, 1f), actual);
+            Assert.assertEquals(expected.size(), actual.size());
+            expected = new CollisionResults();
+            actual = new CollisionResults();
+            reference.collideWith(new BoundingSphere(2.5f, center), expected);
+            flat.collideWith(new BoundingSphere(2.5f, center), actual);
+            Assert.assertEquals(expected.size(), actual.size());
+        }
+    }
+
+    @Test
+    public void testSerialBuild() {
+        compare(new Sphere(32, 32, 10f), null);
+    }
+
+    @Test
+    public void testParallelBuild() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            compare(createTriangleSoup(20000, 42), pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testDegenerateTriangles() {
+        // many identical triangles can't be split by centroid
+        float[] triangle = {-10f, -10f, 0f, 10f, -10f, 0f, 0f, 10f, 0f};
+        float[] repeated = new float[triangle.length * 100];
+        for (int i = 0; i < 100; i++) {
+            System.arraycopy(triangle, 0, repeated, i * triangle.length, triangle.length);
+        }
+        Mesh mesh = new Mesh();
+        mesh.setBuffer(VertexBuffer.Type.Position, 3, BufferUtils.createFloatBuffer(repeated));
+        mesh.updateBound();
+        compare(mesh, null);
+    }
+
+    @Test
+    public void testSaveAndLoad() {
+        AssetManager assetManager = new DesktopAssetManager();
+        Mesh mesh = new Sphere(16, 16, 10f);
+        BIHTree tree = new BIHTree(mesh);
+        tree.construct(null);
+        BIHTree loaded = BinaryExporter.saveAndLoad(assetManager, tree);
+        Assert.assertTrue(loaded.isFlat());
+
+        CollisionResults expected = new CollisionResults();
+        CollisionResults actual = new CollisionResults();
+        Ray ray = new Ray(new Vector3f(50f, 0.1f, 0.2f), new Vector3f(-1f, 0f, 0f));
+        BoundingBox bound = new BoundingBox(new Vector3f(), 10f, 10f, 10f);
+        tree.collideWith(ray, new Matrix4f(), bound, expected);
+        ray = new Ray(new Vector3f(50f, 0.1f, 0.2f), new Vector3f(-1f, 0f, 0f));
+        loaded.collideWith(ray, new Matrix4f(), bound, actual);
+        Assert.assertEquals(2, expected.size());
+        assertSameResults(expected, actual);
+        Assert.assertEquals(40f, expected.getClosestCollision().getDistance(), 0.5f);
+    }
+}
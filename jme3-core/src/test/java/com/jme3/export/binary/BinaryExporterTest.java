@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2009-2025 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.export.binary;
+
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.Node;
+import com.jme3.scene.Spatial;
+import com.jme3.scene.VertexBuffer;
+import com.jme3.scene.shape.Box;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests buffer deduplication, parallel export and size statistics of
+ * {@link BinaryExporter}.
+ */
+public class BinaryExporterTest {
+
+    /**
+     * Creates a scene of nested nodes. All boxes of the same size have equal
+     * buffer contents, every third geometry shares the mesh of the first.
+     */
+    private static Node createScene() {
+        Node root = new Node("root");
+        Mesh shared = new Box(1, 1, 1);
+        for (int i = 0; i < 8; i++) {
+            Node group = new Node("group" + i);
+            root.attachChild(group);
+            for (int j = 0; j < 6; j++) {
+                Mesh mesh = j % 3 == 0 ? shared : new Box(1 + j % 2, 1, 1);
+                Geometry geom = new Geometry("geom" + i + "_" + j, mesh);
+                geom.setLocalTranslation(i, j, 0);
+                group.attachChild(geom);
+            }
+        }
+        return root;
+    }
+
+    private static byte[] save(BinaryExporter exporter, Node scene) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exporter.save(scene, out);
+        return out.toByteArray();
+    }
+
+    private static List<Spatial> flatten(Node scene) {
+        List<Spatial> list = new ArrayList<>();
+        scene.depthFirstTraversal(list::add);
+        return list;
+    }
+
+    private static void assertSceneEquals(Node expected, Node actual) {
+        List<Spatial> expectedList = flatten(expected);
+        List<Spatial> actualList = flatten(actual);
+        Assert.assertEquals(expectedList.size(), actualList.size());
+        for (int i = 0; i < expectedList.size(); i++) {
+            Spatial e = expectedList.get(i);
+            Spatial a = actualList.get(i);
+            Assert.assertEquals(e.getName(), a.getName());
+            Assert.assertEquals(e.getLocalTranslation(), a.getLocalTranslation());
+            if (e instanceof Geometry) {
+                Mesh em = ((Geometry) e).getMesh();
+                Mesh am = ((Geometry) a).getMesh();
+                Assert.assertEquals(em.getVertexCount(), am.getVertexCount());
+                Assert.assertEquals(em.getFloatBuffer(VertexBuffer.Type.Position).rewind(),
+                        am.getFloatBuffer(VertexBuffer.Type.Position));
+                Assert.assertEquals(em.getShortBuffer(VertexBuffer.Type.Index).rewind(),
+                        am.getShortBuffer(VertexBuffer.Type.Index));
+            }
+        }
+    }
+
+    @Test
+    public void testBufferDeduplication() throws IOException {
+        Node one = new Node("root");
+        one.attachChild(new Geometry("a", new Box(1, 1, 1)));
+        Node two = one.clone(false);
+        two.attachChild(new Geometry("b", new Box(1, 1, 1)));
+
+        BinaryExporter exporter = BinaryExporter.getInstance();
+        exporter.setStatisticsEnabled(true);
+        int oneSize = save(exporter, one).length;
+        Assert.assertEquals(0, exporter.getStatistics().getDeduplicatedBufferCount());
+        byte[] twoData = save(exporter, two);
+        Assert.assertTrue(exporter.getStatistics().getDeduplicatedBufferCount() > 0);
+
+        // the second box only adds its capsules, not its buffers
+        int bufferBytes = 0;
+        for (VertexBuffer vb : ((Geometry) one.getChild(0)).getMesh().getBufferList()) {
+            bufferBytes += vb.getData().limit() * vb.getFormat().getComponentSize();
+        }
+        Assert.assertTrue(twoData.length - oneSize < bufferBytes);
+
+        Node loaded = (Node) BinaryImporter.getInstance().load(twoData);
+        assertSceneEquals(two, loaded);
+        // each mesh still gets its own copy of the data
+        Assert.assertNotSame(
+                ((Geometry) loaded.getChild("a")).getMesh().getFloatBuffer(VertexBuffer.Type.Position),
+                ((Geometry) loaded.getChild("b")).getMesh().getFloatBuffer(VertexBuffer.Type.Position));
+    }
+
+    @Test
+    public void testParallelExport() throws IOException {
+        Node scene = createScene();
+
+        BinaryExporter exporter = BinaryExporter.getInstance();
+        exporter.setParallel(true);
+        byte[] parallel = save(exporter, scene);
+
+        Node loaded = (Node) BinaryImporter.getInstance().load(parallel);
+        assertSceneEquals(scene, loaded);
+
+        // shared savables are still written once
+        Node group = (Node) loaded.getChild("group5");
+        Assert.assertSame(((Geometry) group.getChild(0)).getMesh(),
+                ((Geometry) group.getChild(3)).getMesh());
+        Assert.assertSame(((Geometry) group.getChild(0)).getMesh(),
+                ((Geometry) loaded.getChild("geom1_0")).getMesh());
+    }
+
+    @Test
+    public void testStatistics() throws IOException {
+        Node scene = createScene();
+        BinaryExporter exporter = BinaryExporter.getInstance();
+        Assert.assertNull(exporter.getStatistics());
+
+        exporter.setStatisticsEnabled(true);
+        exporter.setParallel(true);
+        save(exporter, scene);
+        BinaryExportStatistics stats = exporter.getStatistics();
+
+        String geometry = Geometry.class.getName();
+        String mesh = Box.class.getName();
+        String vertexBuffer = VertexBuffer.class.getName();
+        Assert.assertEquals(48, stats.getObjectCount(geometry));
+        Assert.assertEquals(9, stats.getObjectCount(Node.class.getName()));
+        // one shared box and four distinct ones per group
+        Assert.assertEquals(33, stats.getObjectCount(mesh));
+        Assert.assertTrue(stats.getFieldNames(mesh).contains("buffers"));
+        Assert.assertTrue(stats.getByteCount(vertexBuffer, "dataFloat") > 0);
+
+        long fieldTotal = 0;
+        for (String field : stats.getFieldNames(vertexBuffer)) {
+            fieldTotal += stats.getByteCount(vertexBuffer, field);
+        }
+        Assert.assertEquals(stats.getByteCount(vertexBuffer), fieldTotal);
+
+        // the distinct boxes only have two different sizes
+        Assert.assertTrue(stats.getDeduplicatedBufferCount() > 0);
+        Assert.assertTrue(stats.toString().contains(vertexBuffer));
+
+        exporter.setStatisticsEnabled(false);
+        save(exporter, scene);
+        Assert.assertNull(exporter.getStatistics());
+    }
+}
@@ -0,0 +1,383 @@
+/*
+ * Copyright (c) 2009-2025 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.export.binary;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.export.InputCapsule;
+import com.jme3.export.JmeExporter;
+import com.jme3.export.JmeImporter;
+import com.jme3.export.OutputCapsule;
+import com.jme3.export.Savable;
+import com.jme3.light.LightProbe;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.Node;
+import com.jme3.scene.Spatial;
+import com.jme3.scene.VertexBuffer;
+import com.jme3.scene.shape.Box;
+import com.jme3.system.TestUtil;
+import com.jme3.util.BufferUtils;
+import com.jme3.util.IntMap;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Verifies that the lazy {@link BinaryInputCapsule} decodes every field type
+ * the same way from a heap copy and from a memory-mapped file, and that the
+ * block and name index layout supports loading single objects.
+ */
+public class BinaryImporterTest {
+
+    public static class Fields implements Savable {
+
+        int i = -7;
+        int bigInt = Integer.MIN_VALUE + 3;
+        long l = 0x123456789AL;
+        long negLong = -5L;
+        float f = 1.5f;
+        double d = -2.25;
+        short s = -300;
+        boolean b = true;
+        byte by = -12;
+        String str = "héllo";
+        String nullStr = null;
+        int[] ints = {0, 1, -1, 300, 70000};
+        long[] longs = {1L, -1L, Long.MAX_VALUE};
+        float[] floats = {0.5f, -3f};
+        double[] doubles = {1e100, -1e-100};
+        short[] shorts = {1, -2, 3};
+        boolean[] bools = {true, false, true};
+        byte[] bytes = {1, 2, 3, -4};
+        float[][] floats2D = {{1f}, null, {2f, 3f}};
+        String[][] strings2D = {{"a", null}, {"bc"}};
+        BitSet bits = new BitSet();
+        FloatBuffer floatBuffer = BufferUtils.createFloatBuffer(1f, -2f, 3.5f);
+        ShortBuffer shortBuffer = BufferUtils.createShortBuffer(new short[]{5, -6});
+        IntBuffer intBuffer = BufferUtils.createIntBuffer(9, -10, 11);
+        ByteBuffer byteBuffer = BufferUtils.createByteBuffer(new byte[]{7, 8, 9});
+        ArrayList<FloatBuffer> bufferList = new ArrayList<>();
+        Fields child;
+        ArrayList<Savable> children = new ArrayList<>();
+        Map<String, Savable> named = new HashMap<>();
+        IntMap<Savable> numbered;
+
+        public Fields() {
+        }
+
+        @Override
+        public void write(JmeExporter ex) throws IOException {
+            OutputCapsule oc = ex.getCapsule(this);
+            oc.write(i, "i", 0);
+            oc.write(bigInt, "bigInt", 0);
+            oc.write(l, "l", 0L);
+            oc.write(negLong, "negLong", 0L);
+            oc.write(f, "f", 0f);
+            oc.write(d, "d", 0.0);
+            oc.write(s, "s", (short) 0);
+            oc.write(b, "b", false);
+            oc.write(by, "by", (byte) 0);
+            oc.write(str, "str", null);
+            oc.write(nullStr, "nullStr", "unused");
+            oc.write(ints, "ints", null);
+            oc.write(longs, "longs", null);
+            oc.write(floats, "floats", null);
+            oc.write(doubles, "doubles", null);
+            oc.write(shorts, "shorts", null);
+            oc.write(bools, "bools", null);
+            oc.write(bytes, "bytes", null);
+            oc.write(floats2D, "floats2D", null);
+            oc.write(strings2D, "strings2D", null);
+            oc.write(bits, "bits", null);
+            oc.write(floatBuffer, "floatBuffer", null);
+            oc.write(shortBuffer, "shortBuffer", null);
+            oc.write(intBuffer, "intBuffer", null);
+            oc.write(byteBuffer, "byteBuffer", null);
+            oc.writeFloatBufferArrayList(bufferList, "bufferList", null);
+            oc.write(child, "child", null);
+            oc.writeSavableArrayList(children, "children", null);
+            oc.writeStringSavableMap(named, "named", null);
+            oc.writeIntSavableMap(numbered, "numbered", null);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void read(JmeImporter im) throws IOException {
+            InputCapsule ic = im.getCapsule(this);
+            // deliberately out of write order
+            numbered = (IntMap<Savable>) ic.readIntSavableMap("numbered", null);
+            byteBuffer = ic.readByteBuffer("byteBuffer", null);
+            i = ic.readInt("i", 0);
+            bigInt = ic.readInt("bigInt", 0);
+            l = ic.readLong("l", 0L);
+            negLong = ic.readLong("negLong", 0L);
+            f = ic.readFloat("f", 0f);
+            d = ic.readDouble("d", 0.0);
+            s = ic.readShort("s", (short) 0);
+            b = ic.readBoolean("b", false);
+            by = ic.readByte("by", (byte) 0);
+            str = ic.readString("str", null);
+            nullStr = ic.readString("nullStr", "unused");
+            ints = ic.readIntArray("ints", null);
+            longs = ic.readLongArray("longs", null);
+            floats = ic.readFloatArray("floats", null);
+            doubles = ic.readDoubleArray("doubles", null);
+            shorts = ic.readShortArray("shorts", null);
+            bools = ic.readBooleanArray("bools", null);
+            bytes = ic.readByteArray("bytes", null);
+            floats2D = ic.readFloatArray2D("floats2D", null);
+            strings2D = ic.readStringArray2D("strings2D", null);
+            bits = ic.readBitSet("bits", null);
+            floatBuffer = ic.readFloatBuffer("floatBuffer", null);
+            shortBuffer = ic.readShortBuffer("shortBuffer", null);
+            intBuffer = ic.readIntBuffer("intBuffer", null);
+            bufferList = ic.readFloatBufferArrayList("bufferList", null);
+            child = (Fields) ic.readSavable("child", null);
+            children = ic.readSavableArrayList("children", null);
+            named = (Map<String, Savable>) ic.readStringSavableMap("named", null);
+        }
+    }
+
+    private static Fields createFields() {
+        Fields root = new Fields();
+        root.bits.set(1);
+        root.bits.set(4);
+        root.bufferList.add(BufferUtils.createFloatBuffer(4f, 5f));
+        root.child = new Fields();
+        root.child.i = 42;
+        root.children.add(root.child);
+        root.children.add(new Fields());
+        root.named.put("first", root.child);
+        root.numbered = new IntMap<>();
+        root.numbered.put(3, root.children.get(1));
+        return root;
+    }
+
+    private static void assertFields(Fields expected, Fields actual) {
+        Assert.assertEquals(expected.i, actual.i);
+        Assert.assertEquals(expected.bigInt, actual.bigInt);
+        Assert.assertEquals(expected.l, actual.l);
+        Assert.assertEquals(expected.negLong, actual.negLong);
+        Assert.assertEquals(expected.f, actual.f, 0f);
+        Assert.assertEquals(expected.d, actual.d, 0.0);
+        Assert.assertEquals(expected.s, actual.s);
+        Assert.assertEquals(expected.b, actual.b);
+        Assert.assertEquals(expected.by, actual.by);
+        Assert.assertEquals(expected.str, actual.str);
+        Assert.assertNull(actual.nullStr);
+        Assert.assertArrayEquals(expected.ints, actual.ints);
+        Assert.assertArrayEquals(expected.longs, actual.longs);
+        Assert.assertArrayEquals(expected.floats, actual.floats, 0f);
+        Assert.assertArrayEquals(expected.doubles, actual.doubles, 0.0);
+        Assert.assertArrayEquals(expected.shorts, actual.shorts);
+        Assert.assertArrayEquals(expected.bytes, actual.bytes);
+        Assert.assertEquals(expected.bools.length, actual.bools.length);
+        for (int x = 0; x < expected.bools.length; x++) {
+            Assert.assertEquals(expected.bools[x], actual.bools[x]);
+        }
+        Assert.assertEquals(expected.floats2D.length, actual.floats2D.length);
+        Assert.assertNull(actual.floats2D[1]);
+        Assert.assertArrayEquals(expected.floats2D[2], actual.floats2D[2], 0f);
+        Assert.assertArrayEquals(expected.strings2D[0], actual.strings2D[0]);
+        Assert.assertArrayEquals(expected.strings2D[1], actual.strings2D[1]);
+        Assert.assertEquals(expected.bits, actual.bits);
+        Assert.assertEquals(expected.floatBuffer.rewind(), actual.floatBuffer);
+        Assert.assertEquals(expected.shortBuffer.rewind(), actual.shortBuffer);
+        Assert.assertEquals(expected.intBuffer.rewind(), actual.intBuffer);
+        Assert.assertEquals(expected.byteBuffer.rewind(), actual.byteBuffer);
+        Assert.assertEquals(expected.bufferList.size(), actual.bufferList.size());
+        for (int x = 0; x < expected.bufferList.size(); x++) {
+            Assert.assertEquals(expected.bufferList.get(x).rewind(), actual.bufferList.get(x));
+        }
+    }
+
+    private static Fields loadFile(File file, long mapThreshold) throws IOException {
+        return (Fields) loadFile(file, mapThreshold, null);
+    }
+
+    private static Savable loadFile(File file, long mapThreshold,
+            AssetManager assetManager) throws IOException {
+        long oldThreshold = BinaryImporter.getMemoryMapThreshold();
+        BinaryImporter.setMemoryMapThreshold(mapThreshold);
+        try (InputStream in = new FileInputStream(file)) {
+            BinaryImporter importer = BinaryImporter.getInstance();
+            importer.setAssetManager(assetManager);
+            return importer.load(in);
+        } finally {
+            BinaryImporter.setMemoryMapThreshold(oldThreshold);
+        }
+    }
+
+    @Test
+    public void testStreamedAndMappedLoadsMatch() throws IOException {
+        Fields original = createFields();
+        File file = File.createTempFile("BinaryImporterTest", ".j3o");
+        try {
+            BinaryExporter.getInstance().save(original, file);
+
+            for (long threshold : new long[]{-1L, 0L}) {
+                Fields loaded = loadFile(file, threshold);
+                assertFields(original, loaded);
+
+                // shared references resolve to the same instance
+                Assert.assertEquals(42, loaded.child.i);
+                Assert.assertSame(loaded.child, loaded.children.get(0));
+                Assert.assertSame(loaded.child, loaded.named.get("first"));
+                Assert.assertSame(loaded.children.get(1), loaded.numbered.get(3));
+                assertFields(original.child, loaded.child);
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testDefaultValuesAreNotWritten() throws IOException {
+        Fields original = new Fields();
+        original.i = 0;
+        original.str = null;
+        original.ints = null;
+        original.floatBuffer = null;
+
+        Fields loaded = BinaryExporter.saveAndLoad(null, original);
+        Assert.assertEquals(0, loaded.i);
+        Assert.assertNull(loaded.str);
+        Assert.assertNull(loaded.ints);
+        Assert.assertNull(loaded.floatBuffer);
+        Assert.assertNull(loaded.child);
+        Assert.assertEquals(original.l, loaded.l);
+        Assert.assertEquals(original.intBuffer.rewind(), loaded.intBuffer);
+    }
+
+    @Test
+    public void testCompressedBlocks() throws IOException {
+        Fields original = createFields();
+        File file = File.createTempFile("BinaryImporterTest", ".j3o");
+        try {
+            BinaryExporter exporter = BinaryExporter.getInstance();
+            exporter.setCompressed(true);
+            // force every capsule into its own block
+            exporter.setBlockSize(1);
+            exporter.save(original, file);
+
+            for (long threshold : new long[]{-1L, 0L}) {
+                Fields loaded = loadFile(file, threshold);
+                assertFields(original, loaded);
+                assertFields(original.child, loaded.child);
+                Assert.assertSame(loaded.child, loaded.named.get("first"));
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static Node createScene() {
+        Node root = new Node("root");
+        Node props = new Node("props");
+        root.attachChild(props);
+        for (int i = 0; i < 3; i++) {
+            Geometry geom = new Geometry("prop" + i, new Box(1 + i, 1, 1));
+            geom.setLocalTranslation(i, 0, 0);
+            props.attachChild(geom);
+        }
+        return root;
+    }
+
+    @Test
+    public void testLoadNamed() throws IOException {
+        Node original = createScene();
+        File file = File.createTempFile("BinaryImporterTest", ".j3o");
+        try {
+            BinaryExporter exporter = BinaryExporter.getInstance();
+            exporter.setCompressed(true);
+            exporter.setBlockSize(256);
+            exporter.save(original, file);
+
+            Spatial prop = BinaryImporter.getInstance().loadNamed(file, "prop2");
+            Assert.assertTrue(prop instanceof Geometry);
+            Assert.assertNull(prop.getParent());
+            Assert.assertEquals(2f, prop.getLocalTranslation().x, 0f);
+            Mesh expected = ((Geometry) original.getChild("prop2")).getMesh();
+            Mesh mesh = ((Geometry) prop).getMesh();
+            Assert.assertEquals(expected.getVertexCount(), mesh.getVertexCount());
+            Assert.assertEquals(expected.getFloatBuffer(VertexBuffer.Type.Position).rewind(),
+                    mesh.getFloatBuffer(VertexBuffer.Type.Position));
+
+            Spatial props = BinaryImporter.getInstance().loadNamed(file, "props");
+            Assert.assertEquals(3, ((Node) props).getQuantity());
+
+            Assert.assertNull(BinaryImporter.getInstance().loadNamed(file, "missing"));
+
+            // the root savable is written first
+            Savable root = BinaryImporter.getInstance().loadObject(file, 1);
+            Assert.assertEquals("root", ((Spatial) root).getName());
+            Assert.assertNull(BinaryImporter.getInstance().loadObject(file, 1000));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testLegacyFileRoundTrip() throws IOException {
+        // defaultProbe.j3o predates format version 4
+        AssetManager assetManager = TestUtil.createAssetManager();
+        Node scene = (Node) assetManager.loadModel("Scenes/defaultProbe.j3o");
+        LightProbe probe = (LightProbe) scene.getLocalLightList().get(0);
+        Assert.assertNotNull(probe.getShCoeffs());
+
+        File file = File.createTempFile("BinaryImporterTest", ".j3o");
+        try {
+            BinaryExporter exporter = BinaryExporter.getInstance();
+            exporter.setCompressed(true);
+            exporter.save(scene, file);
+
+            Node copy = (Node) loadFile(file, 0L, assetManager);
+            LightProbe probeCopy = (LightProbe) copy.getLocalLightList().get(0);
+            Assert.assertArrayEquals(probe.getShCoeffs(), probeCopy.getShCoeffs());
+            Assert.assertEquals(probe.getPrefilteredEnvMap().getImage().getData(0),
+                    probeCopy.getPrefilteredEnvMap().getImage().getData(0));
+        } finally {
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2009-2025 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.material;
+
+import com.jme3.renderer.Camera;
+import com.jme3.renderer.RenderManager;
+import com.jme3.renderer.queue.RenderQueue;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.VertexBuffer;
+import com.jme3.scene.shape.Box;
+import com.jme3.shader.Shader;
+import com.jme3.system.NullRenderer;
+import com.jme3.system.TestUtil;
+import java.util.function.Predicate;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Verifies that geometries whose shader is still compiling are skipped or
+ * drawn with the fallback technique when asynchronous compilation is on.
+ */
+public class AsyncShaderCompileTest {
+
+    private CompilingRenderer renderer;
+    private RenderManager renderManager;
+    private Geometry geometry;
+
+    @Before
+    public void setUp() {
+        renderer = new CompilingRenderer();
+        renderManager = TestUtil.createRenderManager(renderer);
+        Material material = new Material(TestUtil.createAssetManager(), "Common/MatDefs/Misc/Unshaded.j3md");
+        geometry = new Geometry("box", new Box(1, 1, 1));
+        geometry.setMaterial(material);
+        geometry.updateGeometricState();
+    }
+
+    private static Predicate<Shader> fragmentShader(String name) {
+        return shader -> shader.getSources().stream()
+                .anyMatch(s -> s.getType() == Shader.ShaderType.Fragment && s.getName().endsWith(name));
+    }
+
+    @Test
+    public void testSynchronousByDefault() {
+        renderManager.renderGeometry(geometry);
+
+        Assert.assertEquals(1, renderer.drawCount);
+        Assert.assertEquals(0, renderer.asyncCalls);
+    }
+
+    @Test
+    public void testGeometryIsSkippedWhileCompiling() {
+        renderManager.setAsyncShaderCompile(true);
+
+        renderManager.renderGeometry(geometry);
+        Assert.assertEquals(0, renderer.drawCount);
+
+        renderer.ready = shader -> true;
+        renderManager.renderGeometry(geometry);
+        Assert.assertEquals(1, renderer.drawCount);
+    }
+
+    @Test
+    public void testFallbackTechnique() {
+        renderManager.setAsyncShaderCompile(true);
+        renderManager.setShaderCompileFallbackTechnique("Glow");
+        renderer.ready = fragmentShader("Glow.frag");
+
+        renderManager.renderGeometry(geometry);
+        Assert.assertEquals(1, renderer.drawCount);
+        Assert.assertTrue(fragmentShader("Glow.frag").test(renderer.lastShader));
+        // the material keeps its own technique
+        Assert.assertEquals(TechniqueDef.DEFAULT_TECHNIQUE_NAME,
+                geometry.getMaterial().getActiveTechnique().getDef().getName());
+
+        renderer.ready = shader -> true;
+        renderManager.renderGeometry(geometry);
+        Assert.assertTrue(fragmentShader("Unshaded.frag").test(renderer.lastShader));
+    }
+
+    @Test
+    public void testFallbackIsNotUsedForForcedTechniques() {
+        renderManager.setAsyncShaderCompile(true);
+        renderManager.setShaderCompileFallbackTechnique("Glow");
+        renderManager.setForcedTechnique("PreShadow");
+        renderer.ready = fragmentShader("Glow.frag");
+
+        renderManager.renderGeometry(geometry);
+        Assert.assertEquals(0, renderer.drawCount);
+    }
+
+    @Test
+    public void testQueuedGeometryIsSkippedWhileCompiling() {
+        renderManager.setAsyncShaderCompile(true);
+        Camera cam = new Camera(640, 480);
+        RenderQueue queue = new RenderQueue();
+
+        queue.addToQueue(geometry, RenderQueue.Bucket.Opaque);
+        queue.renderQueue(RenderQueue.Bucket.Opaque, renderManager, cam);
+        Assert.assertEquals(0, renderer.drawCount);
+
+        renderer.ready = shader -> true;
+        queue.addToQueue(geometry, RenderQueue.Bucket.Opaque);
+        queue.renderQueue(RenderQueue.Bucket.Opaque, renderManager, cam);
+        Assert.assertEquals(1, renderer.drawCount);
+    }
+
+    private static class CompilingRenderer extends NullRenderer {
+        private Predicate<Shader> ready = shader -> false;
+        private Shader lastShader;
+        private int drawCount;
+        private int asyncCalls;
+
+        @Override
+        public boolean compileShaderAsync(Shader shader) {
+            asyncCalls++;
+            return ready.test(shader);
+        }
+
+        @Override
+        public void setShader(Shader shader) {
+            lastShader = shader;
+        }
+
+        @Override
+        public void renderMesh(Mesh mesh, int lod, int count, VertexBuffer[] instanceData) {
+            drawCount++;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2009-2025 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.renderer;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.material.Material;
+import com.jme3.material.TechniqueDef;
+import com.jme3.math.FastMath;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.queue.GeometryComparator;
+import com.jme3.renderer.queue.GeometryList;
+import com.jme3.renderer.queue.GuiComparator;
+import com.jme3.renderer.queue.OpaqueComparator;
+import com.jme3.renderer.queue.TransparentComparator;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.shape.Box;
+import com.jme3.system.TestUtil;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Verifies that sorting a {@link GeometryList} by packed keys gives the same
+ * order as sorting it with the comparator.
+ */
+public class GeometryListRadixSortTest {
+
+    private final Mesh mesh = new Box(1, 1, 1);
+    private final Camera cam = new Camera(1, 1);
+    private Material[] materials;
+
+    @Before
+    public void setUp() {
+        AssetManager assetManager = TestUtil.createAssetManager();
+        RenderManager renderManager = TestUtil.createRenderManager();
+        String[] defs = {
+            "Common/MatDefs/Misc/Unshaded.j3md",
+            "Common/MatDefs/Misc/ShowNormals.j3md",
+            "Common/MatDefs/Light/Lighting.j3md"
+        };
+        materials = new Material[defs.length];
+        for (int i = 0; i < defs.length; i++) {
+            materials[i] = new Material(assetManager, defs[i]);
+            materials[i].selectTechnique(TechniqueDef.DEFAULT_TECHNIQUE_NAME, renderManager);
+        }
+        cam.setLocation(new Vector3f(0, 0, 50));
+        cam.lookAt(Vector3f.ZERO, Vector3f.UNIT_Y);
+    }
+
+    private void testSameOrder(GeometryComparator comparator, int count) {
+        GeometryList expected = new GeometryList(comparator);
+        GeometryList actual = new GeometryList(comparator);
+        actual.setRadixSortEnabled(true);
+
+        Random random = new Random(count);
+        for (int i = 0; i < count; i++) {
+            Geometry geom = new Geometry("geom" + i, mesh);
+            geom.setMaterial(materials[random.nextInt(materials.length)]);
+            // quantize positions so that some distances are equal
+            geom.setLocalTranslation(random.nextInt(20) - 10, random.nextInt(20) - 10,
+                    (random.nextInt(40) - 20) * FastMath.ONE_THIRD);
+            geom.updateGeometricState();
+            expected.add(geom);
+            actual.add(geom);
+        }
+
+        expected.setCamera(cam);
+        expected.sort();
+        actual.setCamera(cam);
+        actual.sort();
+        for (int i = 0; i < count; i++) {
+            Assert.assertSame(expected.get(i), actual.get(i));
+        }
+    }
+
+    @Test
+    public void testOpaque() {
+        testSameOrder(new OpaqueComparator(), 10);
+        testSameOrder(new OpaqueComparator(), 1000);
+    }
+
+    @Test
+    public void testTransparent() {
+        testSameOrder(new TransparentComparator(), 10);
+        testSameOrder(new TransparentComparator(), 1000);
+    }
+
+    @Test
+    public void testGui() {
+        testSameOrder(new GuiComparator(), 10);
+        testSameOrder(new GuiComparator(), 1000);
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2009-2025 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.renderer;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.material.Material;
+import com.jme3.renderer.queue.RenderQueue;
+import com.jme3.renderer.queue.RenderQueue.Bucket;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.Node;
+import com.jme3.scene.VertexBuffer;
+import com.jme3.scene.shape.Box;
+import com.jme3.scene.shape.Quad;
+import com.jme3.shader.bufferobject.BufferObject;
+import com.jme3.system.NullRenderer;
+import com.jme3.system.TestUtil;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Verifies how {@link MultiDrawBatcher} groups the opaque bucket into
+ * multi-draw indirect calls, and that it falls back to individual draws.
+ */
+public class MultiDrawBatcherTest {
+
+    private RecordingRenderer renderer;
+    private RenderManager renderManager;
+    private AssetManager assetManager;
+    private Material material;
+    private Camera cam;
+    private RenderQueue queue;
+    private Node root;
+
+    @Before
+    public void setUp() {
+        assetManager = TestUtil.createAssetManager();
+        renderer = new RecordingRenderer();
+        renderManager = TestUtil.createRenderManager(renderer);
+        renderManager.setMultiDrawBatcher(new MultiDrawBatcher());
+        material = new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md");
+        cam = new Camera(640, 480);
+        queue = new RenderQueue();
+        root = new Node("root");
+    }
+
+    private Geometry add(Mesh mesh, Material mat, float x) {
+        Geometry geom = new Geometry("geom", mesh);
+        geom.setMaterial(mat);
+        geom.setLocalTranslation(0, 0, -x);
+        root.attachChild(geom);
+        return geom;
+    }
+
+    private void render() {
+        root.updateLogicalState(0);
+        root.updateGeometricState();
+        for (int i = 0; i < root.getQuantity(); i++) {
+            queue.addToQueue((Geometry) root.getChild(i), Bucket.Opaque);
+        }
+        queue.renderQueue(Bucket.Opaque, renderManager, cam);
+    }
+
+    @Test
+    public void testSharedMaterialIsOneCall() {
+        Box box = new Box(1, 1, 1);
+        for (int i = 0; i < 6; i++) {
+            add(box, material, i);
+        }
+        render();
+
+        Assert.assertEquals(0, renderer.meshDraws);
+        Assert.assertEquals(1, renderer.indirectDraws.size());
+        int[][] commands = renderer.indirectDraws.get(0);
+        Assert.assertEquals(6, commands.length);
+        for (int i = 0; i < commands.length; i++) {
+            // one instance per command, addressed by the base instance
+            Assert.assertEquals(box.getTriangleCount() * 3, commands[i][0]);
+            Assert.assertEquals(1, commands[i][1]);
+            Assert.assertEquals(0, commands[i][2]);
+            Assert.assertEquals(0, commands[i][3]);
+            Assert.assertEquals(i, commands[i][4]);
+        }
+    }
+
+    @Test
+    public void testMeshesWithSameFormatShareArena() {
+        Box box = new Box(1, 1, 1);
+        Box other = new Box(2, 1, 1);
+        for (int i = 0; i < 4; i++) {
+            add(i % 2 == 0 ? box : other, material, i);
+        }
+        render();
+
+        Assert.assertEquals(1, renderer.indirectDraws.size());
+        int[][] commands = renderer.indirectDraws.get(0);
+        Assert.assertEquals(4, commands.length);
+
+        // each mesh is packed once, the second one after the first
+        int boxVertex = commands[0][3];
+        int otherVertex = commands[1][3];
+        Assert.assertNotEquals(boxVertex, otherVertex);
+        Assert.assertEquals(boxVertex, commands[2][3]);
+        Assert.assertEquals(otherVertex, commands[3][3]);
+        Assert.assertEquals(box.getVertexCount(), Math.abs(otherVertex - boxVertex));
+    }
+
+    @Test
+    public void testDifferentFormatsAreNotMixed() {
+        Box box = new Box(1, 1, 1);
+        Quad quad = new Quad(1, 1);
+        quad.clearBuffer(VertexBuffer.Type.Normal);
+        for (int i = 0; i < 4; i++) {
+            add(box, material, i);
+            add(quad, material, 10 + i);
+        }
+        render();
+
+        int drawn = renderer.meshDraws;
+        for (int[][] commands : renderer.indirectDraws) {
+            drawn += commands.length;
+        }
+        Assert.assertEquals(8, drawn);
+        Assert.assertEquals(0, renderer.meshDraws);
+        Assert.assertEquals(2, renderer.indirectDraws.size());
+    }
+
+    @Test
+    public void testDistinctMaterialsAreDrawnIndividually() {
+        Box box = new Box(1, 1, 1);
+        for (int i = 0; i < 6; i++) {
+            Material mat = new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md");
+            add(box, mat, i);
+        }
+        render();
+
+        Assert.assertEquals(6, renderer.meshDraws);
+        Assert.assertTrue(renderer.indirectDraws.isEmpty());
+    }
+
+    @Test
+    public void testShortRunsAreDrawnIndividually() {
+        Box box = new Box(1, 1, 1);
+        for (int i = 0; i < 3; i++) {
+            add(box, material, i);
+        }
+        render();
+
+        Assert.assertEquals(3, renderer.meshDraws);
+        Assert.assertTrue(renderer.indirectDraws.isEmpty());
+    }
+
+    @Test
+    public void testFallbackWithoutCaps() {
+        renderer.getCaps().remove(Caps.MultiDrawIndirect);
+        Box box = new Box(1, 1, 1);
+        for (int i = 0; i < 6; i++) {
+            add(box, material, i);
+        }
+        render();
+
+        Assert.assertEquals(6, renderer.meshDraws);
+        Assert.assertTrue(renderer.indirectDraws.isEmpty());
+    }
+
+    private static class RecordingRenderer extends NullRenderer {
+
+        private int meshDraws;
+        private final List<int[][]> indirectDraws = new ArrayList<>();
+
+        @Override
+        public void renderMesh(Mesh mesh, int lod, int count, VertexBuffer[] instanceData) {
+            meshDraws++;
+        }
+
+        @Override
+        public void renderMeshIndirect(Mesh mesh, BufferObject commands, int drawCount,
+                VertexBuffer[] instanceData) {
+            ByteBuffer data = commands.getData();
+            int[][] copy = new int[drawCount][5];
+            for (int i = 0; i < drawCount; i++) {
+                for (int j = 0; j < 5; j++) {
+                    copy[i][j] = data.getInt(i * 20 + j * 4);
+                }
+            }
+            indirectDraws.add(copy);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2009-2025 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.renderer;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.material.Material;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.queue.GeometryList;
+import com.jme3.renderer.queue.RenderQueue.Bucket;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Node;
+import com.jme3.scene.shape.Box;
+import com.jme3.system.TestUtil;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Verifies that {@link ParallelSceneCuller} builds the same render queue as
+ * the serial scene walk in {@link RenderManager}.
+ */
+public class ParallelSceneCullerTest {
+
+    private static ForkJoinPool pool;
+
+    private RenderManager renderManager;
+    private Material material;
+    private Node scene;
+
+    @BeforeClass
+    public static void createPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterClass
+    public static void shutdownPool() {
+        pool.shutdown();
+    }
+
+    @Before
+    public void setUp() {
+        AssetManager assetManager = TestUtil.createAssetManager();
+        renderManager = TestUtil.createRenderManager();
+        material = new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md");
+        scene = createScene();
+    }
+
+    /**
+     * Builds a grid of boxes in front of the camera, with a few large nodes
+     * so that the culler actually splits work, some geometries in other
+     * buckets, and some boxes behind the camera.
+     */
+    private Node createScene() {
+        Node root = new Node("root");
+        Box box = new Box(0.4f, 0.4f, 0.4f);
+        for (int x = -10; x < 10; x++) {
+            Node row = new Node("row" + x);
+            for (int y = -10; y < 10; y++) {
+                Geometry geom = new Geometry("box" + x + "," + y, box);
+                geom.setMaterial(material);
+                geom.setLocalTranslation(x, y, (x + y) % 2 == 0 ? -20f : 20f);
+                if (y == 0) {
+                    geom.setQueueBucket(Bucket.Transparent);
+                }
+                row.attachChild(geom);
+            }
+            root.attachChild(row);
+        }
+        root.updateGeometricState();
+        return root;
+    }
+
+    private ViewPort createViewPort() {
+        Camera cam = new Camera(640, 480);
+        cam.setFrustumPerspective(60f, 640f / 480f, 1f, 1000f);
+        cam.setLocation(new Vector3f(0f, 0f, 10f));
+        cam.lookAt(new Vector3f(0f, 0f, -20f), Vector3f.UNIT_Y);
+        cam.update();
+        return new ViewPort("test", cam);
+    }
+
+    private static List<Geometry> toList(GeometryList list) {
+        List<Geometry> result = new ArrayList<>();
+        for (int i = 0; i < list.size(); i++) {
+            result.add(list.get(i));
+        }
+        return result;
+    }
+
+    private void assertSameQueue(ViewPort expected, ViewPort actual, boolean ordered) {
+        for (Bucket bucket : new Bucket[]{Bucket.Opaque, Bucket.Transparent}) {
+            List<Geometry> e = toList(expected.getQueue().getList(bucket));
+            List<Geometry> a = toList(actual.getQueue().getList(bucket));
+            if (ordered) {
+                Assert.assertEquals(e, a);
+            } else {
+                Assert.assertEquals(e.size(), a.size());
+                Assert.assertEquals(new HashSet<>(e), new HashSet<>(a));
+            }
+        }
+    }
+
+    @Test
+    public void testDeterministicMatchesSerial() {
+        ViewPort serial = createViewPort();
+        renderManager.renderScene(scene, serial);
+
+        ParallelSceneCuller culler = new ParallelSceneCuller(pool);
+        culler.setSplitThreshold(4);
+        renderManager.setParallelCuller(culler);
+        ViewPort parallel = createViewPort();
+        // run several passes to exercise segment reuse
+        for (int i = 0; i < 3; i++) {
+            parallel.getQueue().clear();
+            renderManager.renderScene(scene, parallel);
+            assertSameQueue(serial, parallel, true);
+        }
+
+        Set<Geometry> visible = new HashSet<>(toList(serial.getQueue().getList(Bucket.Opaque)));
+        Assert.assertFalse(visible.isEmpty());
+        Assert.assertTrue(visible.size() < 400);
+    }
+
+    @Test
+    public void testNonDeterministicMatchesSerial() {
+        ViewPort serial = createViewPort();
+        renderManager.renderScene(scene, serial);
+
+        ParallelSceneCuller culler = new ParallelSceneCuller(pool);
+        culler.setSplitThreshold(4);
+        culler.setDeterministic(false);
+        renderManager.setParallelCuller(culler);
+        ViewPort parallel = createViewPort();
+        for (int i = 0; i < 3; i++) {
+            parallel.getQueue().clear();
+            renderManager.renderScene(scene, parallel);
+            assertSameQueue(serial, parallel, false);
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testMissingMaterial() {
+        Geometry geom = new Geometry("noMaterial", new Box(1f, 1f, 1f));
+        geom.setLocalTranslation(0f, 0f, -5f);
+        ((Node) scene.getChild("row0")).attachChild(geom);
+        scene.updateGeometricState();
+
+        ParallelSceneCuller culler = new ParallelSceneCuller(pool);
+        culler.setSplitThreshold(4);
+        renderManager.setParallelCuller(culler);
+        renderManager.renderScene(scene, createViewPort());
+    }
+}
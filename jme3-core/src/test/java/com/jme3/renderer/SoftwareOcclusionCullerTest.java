@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) 2009-2025 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.renderer;
+
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.queue.GeometryList;
+import com.jme3.renderer.queue.RenderQueue;
+import com.jme3.renderer.queue.RenderQueue.Bucket;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Node;
+import com.jme3.scene.shape.Box;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Verifies that {@link SoftwareOcclusionCuller} removes the occludees hidden
+ * behind occluders from the render queue, and only those.
+ */
+public class SoftwareOcclusionCullerTest {
+
+    private Camera cam;
+    private Node scene;
+    private RenderQueue queue;
+    private Statistics stats;
+    private SoftwareOcclusionCuller culler;
+
+    @Before
+    public void setUp() {
+        cam = new Camera(640, 480);
+        cam.setFrustumPerspective(45f, 640f / 480f, 1f, 100f);
+        cam.setLocation(new Vector3f(0f, 0f, 10f));
+        cam.lookAt(Vector3f.ZERO, Vector3f.UNIT_Y);
+        cam.update();
+
+        scene = new Node("scene");
+        queue = new RenderQueue();
+        stats = new Statistics();
+        stats.setEnabled(true);
+        culler = new SoftwareOcclusionCuller();
+    }
+
+    private Geometry addBox(String name, float x, float y, float z, float extent, float depth) {
+        Geometry g = new Geometry(name, new Box(extent, extent, depth));
+        g.setLocalTranslation(x, y, z);
+        scene.attachChild(g);
+        return g;
+    }
+
+    private Geometry addWall() {
+        Geometry wall = addBox("wall", 0f, 0f, 0f, 5f, 0.1f);
+        wall.setOccluder(true);
+        return wall;
+    }
+
+    private void queueScene(Bucket bucket) {
+        scene.updateGeometricState();
+        for (int i = 0; i < scene.getQuantity(); i++) {
+            queue.addToQueue((Geometry) scene.getChild(i), bucket);
+        }
+    }
+
+    private static boolean contains(GeometryList list, Geometry g) {
+        for (Geometry item : list) {
+            if (item == g) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Test
+    public void testHiddenOccludeeIsCulled() {
+        Geometry wall = addWall();
+        Geometry hidden = addBox("hidden", 0f, 0f, -5f, 1f, 1f);
+        hidden.setOccludee(true);
+        queueScene(Bucket.Opaque);
+
+        Assert.assertEquals(1, culler.cull(cam, queue, stats));
+        GeometryList opaque = queue.getList(Bucket.Opaque);
+        Assert.assertEquals(1, opaque.size());
+        Assert.assertTrue(contains(opaque, wall));
+        Assert.assertFalse(contains(opaque, hidden));
+    }
+
+    @Test
+    public void testVisibleOccludeesAreKept() {
+        addWall();
+        Geometry front = addBox("front", 0f, 0f, 5f, 1f, 1f);
+        front.setOccludee(true);
+        // behind the wall, but reaching past its silhouette
+        Geometry side = addBox("side", 8f, 0f, -5f, 1f, 1f);
+        side.setOccludee(true);
+        // in front of the near plane
+        Geometry near = addBox("near", 0f, 0f, 9.5f, 1f, 1f);
+        near.setOccludee(true);
+        queueScene(Bucket.Opaque);
+
+        Assert.assertEquals(0, culler.cull(cam, queue, stats));
+        Assert.assertEquals(4, queue.getList(Bucket.Opaque).size());
+    }
+
+    @Test
+    public void testOccludeeSeenThroughSubTexelGap() {
+        // two walls leaving a gap of about half a texel around the center of
+        // the screen, which falls on the border between two texels
+        float gap = 0.02f;
+        for (float side : new float[]{-1f, 1f}) {
+            Geometry wall = new Geometry("wall", new Box(2.5f, 5f, 0.1f));
+            wall.setLocalTranslation(side * (2.5f + gap / 2f), 0f, 0f);
+            wall.setOccluder(true);
+            scene.attachChild(wall);
+        }
+        Geometry behindGap = addBox("behindGap", 0f, 0f, -5f, 1f, 1f);
+        behindGap.setOccludee(true);
+        Geometry behindWall = addBox("behindWall", -2.5f, 0f, -5f, 1f, 1f);
+        behindWall.setOccludee(true);
+        queueScene(Bucket.Opaque);
+
+        Assert.assertEquals(1, culler.cull(cam, queue, stats));
+        GeometryList opaque = queue.getList(Bucket.Opaque);
+        Assert.assertTrue(contains(opaque, behindGap));
+        Assert.assertFalse(contains(opaque, behindWall));
+        int w = culler.getWidth();
+        int h = culler.getHeight();
+        Assert.assertEquals(1f, culler.getDepth(w / 2 - 1, h / 2), 0f);
+        Assert.assertEquals(1f, culler.getDepth(w / 2, h / 2), 0f);
+    }
+
+    @Test
+    public void testOnlyOccludeesAreCulled() {
+        addWall();
+        addBox("hidden", 0f, 0f, -5f, 1f, 1f);
+        Geometry alsoOccluder = addBox("occluder", 0f, 0f, -10f, 1f, 1f);
+        alsoOccluder.setOccluder(true);
+        alsoOccluder.setOccludee(true);
+        queueScene(Bucket.Opaque);
+
+        Assert.assertEquals(0, culler.cull(cam, queue, stats));
+        Assert.assertEquals(3, queue.getList(Bucket.Opaque).size());
+    }
+
+    @Test
+    public void testTransparentOccludeeIsCulled() {
+        Geometry wall = addWall();
+        scene.updateGeometricState();
+        queue.addToQueue(wall, Bucket.Opaque);
+        scene.detachChild(wall);
+        Geometry hidden = addBox("hidden", 0f, 0f, -5f, 1f, 1f);
+        hidden.setOccludee(true);
+        queueScene(Bucket.Transparent);
+
+        Assert.assertEquals(1, culler.cull(cam, queue, stats));
+        Assert.assertEquals(0, queue.getList(Bucket.Transparent).size());
+    }
+
+    @Test
+    public void testTransparentOccluderIsIgnored() {
+        addWall();
+        Geometry hidden = addBox("hidden", 0f, 0f, -5f, 1f, 1f);
+        hidden.setOccludee(true);
+        queueScene(Bucket.Transparent);
+
+        Assert.assertEquals(0, culler.cull(cam, queue, stats));
+        Assert.assertEquals(2, queue.getList(Bucket.Transparent).size());
+    }
+
+    @Test
+    public void testMaxOccluderTriangles() {
+        addWall();
+        addBox("hidden", 0f, 0f, -5f, 1f, 1f).setOccludee(true);
+        queueScene(Bucket.Opaque);
+
+        culler.setMaxOccluderTriangles(11);
+        Assert.assertEquals(0, culler.cull(cam, queue, stats));
+        culler.setMaxOccluderTriangles(12);
+        Assert.assertEquals(1, culler.cull(cam, queue, stats));
+    }
+
+    @Test
+    public void testDepthBuffer() {
+        addWall();
+        queueScene(Bucket.Opaque);
+        culler.cull(cam, queue, stats);
+
+        int w = culler.getWidth();
+        int h = culler.getHeight();
+        Assert.assertTrue(culler.getDepth(w / 2, h / 2) < 1f);
+        Assert.assertEquals(1f, culler.getDepth(0, 0), 0f);
+    }
+
+    @Test
+    public void testStatistics() {
+        addWall();
+        addBox("hidden", 0f, 0f, -5f, 1f, 1f).setOccludee(true);
+        addBox("front", 0f, 0f, 5f, 1f, 1f).setOccludee(true);
+        queueScene(Bucket.Opaque);
+        culler.cull(cam, queue, stats);
+
+        String[] labels = stats.getLabels();
+        int[] data = new int[labels.length];
+        stats.getData(data);
+        int triangles = -1, tests = -1, occluded = -1;
+        for (int i = 0; i < labels.length; i++) {
+            if (labels[i].equals("Occluder Triangles")) {
+                triangles = data[i];
+            } else if (labels[i].equals("Occlusion Tests")) {
+                tests = data[i];
+            } else if (labels[i].equals("Occluded")) {
+                occluded = data[i];
+            }
+        }
+        Assert.assertEquals(12, triangles);
+        Assert.assertEquals(2, tests);
+        Assert.assertEquals(1, occluded);
+
+        stats.clearFrame();
+        stats.getData(data);
+        for (int i = 13; i < data.length; i++) {
+            Assert.assertEquals(0, data[i]);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2009-2025 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.scene;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.bounding.BoundingBox;
+import com.jme3.material.Material;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.mesh.IndexBuffer;
+import com.jme3.scene.shape.Box;
+import com.jme3.system.TestUtil;
+import java.nio.FloatBuffer;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Verifies that geometries are added to and removed from a {@link BatchNode}
+ * without rebuilding its batches.
+ */
+public class BatchNodeTest {
+
+    private Material material;
+    private BatchNode node;
+
+    @Before
+    public void setUp() {
+        AssetManager assetManager = TestUtil.createAssetManager();
+        material = new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md");
+        node = new BatchNode("batch");
+    }
+
+    private Geometry addBox(float x) {
+        Geometry geom = new Geometry("box", new Box(1, 1, 1));
+        geom.setMaterial(material);
+        geom.setLocalTranslation(x, 0, 0);
+        node.attachChild(geom);
+        return geom;
+    }
+
+    private Geometry getBatchGeometry() {
+        Assert.assertEquals(1, node.batches.size());
+        return node.batches.get(0).getGeometry();
+    }
+
+    @Test
+    public void testAddedGeometryReusesBatch() {
+        addBox(0);
+        addBox(3);
+        node.batch();
+        node.updateGeometricState();
+        Geometry batchGeom = getBatchGeometry();
+
+        Geometry added = addBox(6);
+        node.batch();
+        node.updateGeometricState();
+
+        Assert.assertSame(batchGeom, getBatchGeometry());
+        Assert.assertEquals(48, added.startIndex);
+        FloatBuffer pos = batchGeom.getMesh().getFloatBuffer(VertexBuffer.Type.Position);
+        Assert.assertEquals(5f, pos.get(48 * 3), 0f);
+        BoundingBox bound = (BoundingBox) batchGeom.getModelBound();
+        Assert.assertEquals(7f, bound.getMax(null).x, 0f);
+        Assert.assertEquals(-1f, bound.getMin(null).x, 0f);
+    }
+
+    @Test
+    public void testRemovedGeometryIsDegenerateAndReused() {
+        addBox(0);
+        Geometry removed = addBox(3);
+        addBox(-3);
+        node.batch();
+        node.updateGeometricState();
+        Geometry batchGeom = getBatchGeometry();
+        int start = removed.startIndex;
+
+        removed.removeFromParent();
+        Assert.assertSame(batchGeom, getBatchGeometry());
+        IndexBuffer indices = batchGeom.getMesh().getIndexBuffer();
+        int first = indices.get(start / 24 * 36);
+        for (int i = 0; i < 36; i++) {
+            Assert.assertEquals(first, indices.get(start / 24 * 36 + i));
+        }
+        node.updateGeometricState();
+        BoundingBox bound = (BoundingBox) batchGeom.getModelBound();
+        Assert.assertEquals(new Vector3f(1, 1, 1), bound.getMax(null));
+
+        Geometry added = addBox(10);
+        node.batch();
+        node.updateGeometricState();
+        Assert.assertSame(batchGeom, getBatchGeometry());
+        Assert.assertEquals(start, added.startIndex);
+        Assert.assertEquals(72, batchGeom.getVertexCount());
+    }
+
+    @Test
+    public void testMovedGeometryUpdatesItsRange() {
+        addBox(0);
+        Geometry moved = addBox(3);
+        node.batch();
+        node.updateGeometricState();
+        VertexBuffer pos = getBatchGeometry().getMesh().getBuffer(VertexBuffer.Type.Position);
+        pos.clearUpdateNeeded();
+
+        moved.move(0, 2, 0);
+        node.updateGeometricState();
+
+        Assert.assertEquals(moved.startIndex, pos.getUpdateRangeStart());
+        Assert.assertEquals(moved.startIndex + 24, pos.getUpdateRangeEnd());
+    }
+
+    @Test
+    public void testEmptyBatchIsDropped() {
+        Geometry geom = addBox(0);
+        node.batch();
+        Geometry batchGeom = getBatchGeometry();
+
+        geom.removeFromParent();
+        Assert.assertEquals(Spatial.CullHint.Always, batchGeom.getCullHint());
+
+        node.batch();
+        Assert.assertEquals(0, node.batches.size());
+        Assert.assertNull(batchGeom.getParent());
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2009-2025 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.scene;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.bounding.BoundingBox;
+import com.jme3.bounding.BoundingSphere;
+import com.jme3.collision.Collidable;
+import com.jme3.collision.CollisionResults;
+import com.jme3.material.Material;
+import com.jme3.math.Ray;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.Camera;
+import com.jme3.renderer.RenderManager;
+import com.jme3.renderer.ViewPort;
+import com.jme3.renderer.queue.GeometryList;
+import com.jme3.renderer.queue.RenderQueue.Bucket;
+import com.jme3.scene.shape.Box;
+import com.jme3.scene.shape.Sphere;
+import com.jme3.system.TestUtil;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Verifies that a {@link Node} with a broadphase finds the same collisions
+ * and queues the same geometries as the plain walk over its children, and
+ * that the hierarchy follows moved, attached and detached children.
+ */
+public class SceneBVHTest {
+
+    private RenderManager renderManager;
+    private Material material;
+    private Node root;
+    private Node level;
+
+    @Before
+    public void setUp() {
+        AssetManager assetManager = TestUtil.createAssetManager();
+        renderManager = TestUtil.createRenderManager();
+        material = new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md");
+
+        root = new Node("root");
+        level = new Node("level");
+        Random random = new Random(5);
+        Box box = new Box(0.5f, 0.5f, 0.5f);
+        Sphere sphere = new Sphere(8, 8, 0.6f);
+        for (int i = 0; i < 300; i++) {
+            Geometry geom = new Geometry("object" + i, i % 3 == 0 ? sphere : box);
+            geom.setMaterial(material);
+            geom.setLocalTranslation(random.nextFloat() * 80f - 40f,
+                    random.nextFloat() * 80f - 40f, random.nextFloat() * 80f - 40f);
+            level.attachChild(geom);
+        }
+        root.attachChild(level);
+        root.updateGeometricState();
+    }
+
+    private int collide(Collidable other, boolean broadphase) {
+        level.setBroadphase(broadphase);
+        CollisionResults results = new CollisionResults();
+        root.collideWith(other, results);
+        return results.size();
+    }
+
+    private void assertSameCollisions(long seed) {
+        Random random = new Random(seed);
+        for (int i = 0; i < 100; i++) {
+            Vector3f origin = new Vector3f(random.nextFloat() - 0.5f, random.nextFloat() - 0.5f,
+                    random.nextFloat() - 0.5f).normalizeLocal().multLocal(100f);
+            Vector3f target = new Vector3f(random.nextFloat() * 60f - 30f,
+                    random.nextFloat() * 60f - 30f, random.nextFloat() * 60f - 30f);
+            Ray ray = new Ray(origin, target.subtractLocal(origin).normalizeLocal());
+            Assert.assertEquals(collide(ray, false), collide(ray, true));
+
+            Vector3f center = new Vector3f(random.nextFloat() * 80f - 40f,
+                    random.nextFloat() * 80f - 40f, random.nextFloat() * 80f - 40f);
+            BoundingBox box = new BoundingBox(center, 4f, 3f, 5f);
+            Assert.assertEquals(collide(box, false), collide(box, true));
+            BoundingSphere sphere = new BoundingSphere(4f, center);
+            Assert.assertEquals(collide(sphere, false), collide(sphere, true));
+        }
+    }
+
+    private Set<Geometry> render(boolean broadphase) {
+        level.setBroadphase(broadphase);
+        root.updateGeometricState();
+        Camera cam = new Camera(640, 480);
+        cam.setFrustumPerspective(45f, 640f / 480f, 1f, 1000f);
+        cam.setLocation(new Vector3f(0f, 0f, 60f));
+        cam.lookAt(new Vector3f(10f, 5f, 0f), Vector3f.UNIT_Y);
+        cam.update();
+        ViewPort vp = new ViewPort("test", cam);
+        renderManager.renderScene(root, vp);
+        Set<Geometry> result = new HashSet<>();
+        GeometryList list = vp.getQueue().getList(Bucket.Opaque);
+        for (int i = 0; i < list.size(); i++) {
+            result.add(list.get(i));
+        }
+        return result;
+    }
+
+    @Test
+    public void testCollisions() {
+        assertSameCollisions(17);
+        level.setBroadphase(true);
+        root.updateGeometricState();
+        SceneBVH bvh = level.getBroadphase();
+        Assert.assertEquals(300, bvh.getLeafCount());
+        // a balanced tree over 300 leaves
+        Assert.assertTrue(bvh.getHeight() < 20);
+
+        // a single ray only reaches a few of the children
+        List<Spatial> candidates = new ArrayList<>();
+        bvh.query(new Ray(new Vector3f(-100f, 0f, 0f), Vector3f.UNIT_X), candidates);
+        Assert.assertTrue(candidates.size() < 30);
+    }
+
+    @Test
+    public void testRayLimit() {
+        level.setBroadphase(true);
+        Ray ray = new Ray(new Vector3f(-100f, 0f, 0f), Vector3f.UNIT_X);
+        ray.setLimit(10f);
+        CollisionResults results = new CollisionResults();
+        root.collideWith(ray, results);
+        Assert.assertEquals(0, results.size());
+    }
+
+    @Test
+    public void testFollowsChanges() {
+        level.setBroadphase(true);
+        root.updateGeometricState();
+
+        Random random = new Random(23);
+        for (int i = 0; i < 100; i++) {
+            Spatial child = level.getChild(random.nextInt(level.getQuantity()));
+            child.move(random.nextFloat() * 20f - 10f, random.nextFloat() * 20f - 10f, 0f);
+        }
+        for (int i = 0; i < 50; i++) {
+            level.detachChildAt(random.nextInt(level.getQuantity()));
+        }
+        for (int i = 0; i < 20; i++) {
+            Geometry geom = new Geometry("added" + i, new Box(1f, 1f, 1f));
+            geom.setMaterial(material);
+            geom.setLocalTranslation(random.nextFloat() * 40f - 20f, 0f, random.nextFloat() * 40f - 20f);
+            level.attachChild(geom);
+        }
+        // queries must see the changes without an explicit update
+        assertSameCollisions(29);
+        Assert.assertEquals(270, level.getBroadphase().getLeafCount());
+    }
+
+    @Test
+    public void testCulling() {
+        Set<Geometry> expected = render(false);
+        Assert.assertFalse(expected.isEmpty());
+        Assert.assertTrue(expected.size() < 300);
+        Assert.assertEquals(expected, render(true));
+
+        // a child that must never be culled
+        Geometry behind = (Geometry) level.getChild(0);
+        behind.setLocalTranslation(0f, 0f, 500f);
+        behind.setCullHint(Spatial.CullHint.Never);
+        expected = render(false);
+        Assert.assertTrue(expected.contains(behind));
+        Assert.assertEquals(expected, render(true));
+
+        behind.setCullHint(Spatial.CullHint.Inherit);
+        expected = render(false);
+        Assert.assertFalse(expected.contains(behind));
+        Assert.assertEquals(expected, render(true));
+    }
+}
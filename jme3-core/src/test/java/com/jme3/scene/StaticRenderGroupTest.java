@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2009-2025 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.scene;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.material.Material;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.Camera;
+import com.jme3.renderer.RenderManager;
+import com.jme3.renderer.ViewPort;
+import com.jme3.renderer.queue.GeometryList;
+import com.jme3.renderer.queue.RenderQueue.Bucket;
+import com.jme3.scene.shape.Box;
+import com.jme3.system.TestUtil;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Verifies that a {@link Node} marked as a static render group queues the
+ * same geometries as the recursive scene walk, and that its cache follows
+ * changes to the subtree.
+ */
+public class StaticRenderGroupTest {
+
+    private RenderManager renderManager;
+    private Material material;
+    private Node root;
+    private Node group;
+
+    @Before
+    public void setUp() {
+        AssetManager assetManager = TestUtil.createAssetManager();
+        renderManager = TestUtil.createRenderManager();
+        material = new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md");
+
+        root = new Node("root");
+        group = new Node("group");
+        Box box = new Box(0.4f, 0.4f, 0.4f);
+        for (int x = -5; x < 5; x++) {
+            Node row = new Node("row" + x);
+            for (int y = -5; y < 5; y++) {
+                Geometry geom = new Geometry("box" + x + "," + y, box);
+                geom.setMaterial(material);
+                geom.setLocalTranslation(x * 2f, y * 2f, (x + y) % 2 == 0 ? -20f : 20f);
+                row.attachChild(geom);
+            }
+            group.attachChild(row);
+        }
+        root.attachChild(group);
+    }
+
+    private ViewPort createViewPort() {
+        Camera cam = new Camera(640, 480);
+        cam.setFrustumPerspective(45f, 640f / 480f, 1f, 1000f);
+        cam.setLocation(new Vector3f(0f, 0f, 10f));
+        cam.lookAt(new Vector3f(0f, 0f, -20f), Vector3f.UNIT_Y);
+        cam.update();
+        return new ViewPort("test", cam);
+    }
+
+    private Set<Geometry> render(Bucket bucket) {
+        root.updateGeometricState();
+        ViewPort vp = createViewPort();
+        renderManager.renderScene(root, vp);
+        Set<Geometry> result = new HashSet<>();
+        GeometryList list = vp.getQueue().getList(bucket);
+        for (int i = 0; i < list.size(); i++) {
+            result.add(list.get(i));
+        }
+        return result;
+    }
+
+    private void assertMatchesRecursiveWalk() {
+        group.setStaticRenderGroup(false);
+        Set<Geometry> expectedOpaque = render(Bucket.Opaque);
+        Set<Geometry> expectedTransparent = render(Bucket.Transparent);
+        group.setStaticRenderGroup(true);
+        Assert.assertEquals(expectedOpaque, render(Bucket.Opaque));
+        Assert.assertEquals(expectedTransparent, render(Bucket.Transparent));
+    }
+
+    @Test
+    public void testMatchesRecursiveWalk() {
+        assertMatchesRecursiveWalk();
+        Set<Geometry> visible = render(Bucket.Opaque);
+        Assert.assertFalse(visible.isEmpty());
+        Assert.assertTrue(visible.size() < 100);
+        Assert.assertEquals(100, group.getStaticRenderGroup().getGeometryCount());
+    }
+
+    @Test
+    public void testTransformChange() {
+        group.setStaticRenderGroup(true);
+        Geometry geom = (Geometry) group.getChild("box0,0");
+        Assert.assertTrue(render(Bucket.Opaque).contains(geom));
+
+        // move the box behind the camera
+        geom.setLocalTranslation(0f, 0f, 20f);
+        Assert.assertFalse(render(Bucket.Opaque).contains(geom));
+        Assert.assertTrue(group.getStaticRenderGroup().isValid());
+        assertMatchesRecursiveWalk();
+    }
+
+    @Test
+    public void testChildrenChange() {
+        group.setStaticRenderGroup(true);
+        render(Bucket.Opaque);
+
+        Geometry extra = new Geometry("extra", new Box(1f, 1f, 1f));
+        extra.setMaterial(material);
+        extra.setLocalTranslation(0f, 0f, -5f);
+        ((Node) group.getChild("row0")).attachChild(extra);
+        Assert.assertTrue(render(Bucket.Opaque).contains(extra));
+        Assert.assertEquals(101, group.getStaticRenderGroup().getGeometryCount());
+
+        extra.removeFromParent();
+        Assert.assertFalse(render(Bucket.Opaque).contains(extra));
+        Assert.assertEquals(100, group.getStaticRenderGroup().getGeometryCount());
+    }
+
+    @Test
+    public void testCullHintAndBucketChange() {
+        group.setStaticRenderGroup(true);
+        Spatial row = group.getChild("row0");
+        Geometry geom = (Geometry) group.getChild("box0,0");
+        Assert.assertTrue(render(Bucket.Opaque).contains(geom));
+
+        row.setCullHint(Spatial.CullHint.Always);
+        Assert.assertFalse(render(Bucket.Opaque).contains(geom));
+        assertMatchesRecursiveWalk();
+
+        row.setCullHint(Spatial.CullHint.Inherit);
+        geom.setQueueBucket(Bucket.Transparent);
+        Assert.assertFalse(render(Bucket.Opaque).contains(geom));
+        Assert.assertTrue(render(Bucket.Transparent).contains(geom));
+        assertMatchesRecursiveWalk();
+
+        // hints set above the group are resolved live
+        root.setCullHint(Spatial.CullHint.Never);
+        Assert.assertEquals(100, render(Bucket.Opaque).size() + render(Bucket.Transparent).size());
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2009-2025 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.scene.instancing;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.material.Material;
+import com.jme3.renderer.Camera;
+import com.jme3.renderer.RenderManager;
+import com.jme3.renderer.ViewPort;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.Spatial;
+import com.jme3.scene.VertexBuffer;
+import com.jme3.scene.shape.Box;
+import com.jme3.system.NullRenderer;
+import com.jme3.system.TestUtil;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Verifies the resident instance data path of {@link InstancedGeometry}.
+ */
+public class ResidentInstancingTest {
+
+    private Material material;
+    private Camera cam;
+    private Box box;
+
+    @Before
+    public void setUp() {
+        AssetManager assetManager = TestUtil.createAssetManager();
+        material = new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md");
+        material.setBoolean("UseInstancing", true);
+        cam = new Camera(640, 480);
+        cam.setFrustumPerspective(45f, 640f / 480f, 1f, 1000f);
+        box = new Box(1, 1, 1);
+    }
+
+    private InstancedGeometry createInstances(int count) {
+        InstancedGeometry ig = new InstancedGeometry("instances");
+        ig.setMesh(box);
+        ig.setMaterial(material);
+        for (int i = 0; i < count; i++) {
+            ig.addInstance(createGeometry(i * 3f - count, 20));
+        }
+        return ig;
+    }
+
+    private Geometry createGeometry(float x, float z) {
+        Geometry geom = new Geometry("geom", box);
+        geom.setMaterial(material);
+        geom.setLocalTranslation(x, 0, z);
+        geom.updateGeometricState();
+        return geom;
+    }
+
+    private static int command(InstancedGeometry ig, int draw, int field) {
+        ByteBuffer data = ig.getCommands().getData();
+        return data.getInt(draw * 20 + field * 4);
+    }
+
+    @Test
+    public void testAllVisibleIsOneCommand() {
+        InstancedGeometry ig = createInstances(4);
+        ig.setResidentInstances(true);
+        ig.updateInstances(cam);
+
+        Assert.assertTrue(ig.isDrawnIndirect());
+        Assert.assertEquals(4, ig.getNumVisibleInstances());
+        Assert.assertEquals(1, ig.getDrawCount());
+        Assert.assertEquals(box.getBuffer(VertexBuffer.Type.Index).getNumElements(), command(ig, 0, 0));
+        Assert.assertEquals(4, command(ig, 0, 1));
+        Assert.assertEquals(0, command(ig, 0, 4));
+    }
+
+    @Test
+    public void testOnlyMovedInstancesAreUpdated() {
+        InstancedGeometry ig = createInstances(4);
+        ig.setResidentInstances(true);
+        ig.updateInstances(cam);
+        VertexBuffer transforms = ig.getTransformUserInstanceData();
+        transforms.clearUpdateNeeded();
+
+        ig.updateInstances(cam);
+        Assert.assertFalse(transforms.isUpdateNeeded());
+
+        Geometry moved = ig.getGeometries()[2];
+        moved.move(0, 1, 0);
+        moved.updateGeometricState();
+        ig.updateInstances(cam);
+
+        Assert.assertTrue(transforms.isUpdateNeeded());
+        Assert.assertEquals(2, transforms.getUpdateRangeStart());
+        Assert.assertEquals(3, transforms.getUpdateRangeEnd());
+        Assert.assertEquals(moved.getWorldTranslation().y, ((FloatBuffer) transforms.getData()).get(2 * 16 + 13), 0f);
+    }
+
+    @Test
+    public void testCulledInstancesSplitCommands() {
+        InstancedGeometry ig = createInstances(3);
+        Geometry culled = ig.getGeometries()[1];
+        culled.setLocalTranslation(0, 0, -50);
+        culled.updateGeometricState();
+
+        ig.setResidentInstances(true);
+        ig.updateInstances(cam);
+
+        Assert.assertEquals(2, ig.getNumVisibleInstances());
+        Assert.assertEquals(2, ig.getDrawCount());
+        Assert.assertEquals(1, command(ig, 0, 1));
+        Assert.assertEquals(0, command(ig, 0, 4));
+        Assert.assertEquals(1, command(ig, 1, 1));
+        Assert.assertEquals(2, command(ig, 1, 4));
+    }
+
+    @Test
+    public void testDeletedInstanceSlotIsRefilled() {
+        InstancedGeometry ig = createInstances(3);
+        ig.setResidentInstances(true);
+        ig.updateInstances(cam);
+        VertexBuffer transforms = ig.getTransformUserInstanceData();
+        transforms.clearUpdateNeeded();
+
+        Geometry last = ig.getGeometries()[2];
+        ig.deleteInstance(ig.getGeometries()[0]);
+        ig.updateInstances(cam);
+
+        Assert.assertSame(last, ig.getGeometries()[0]);
+        Assert.assertEquals(0, transforms.getUpdateRangeStart());
+        Assert.assertEquals(1, transforms.getUpdateRangeEnd());
+        Assert.assertEquals(1, ig.getDrawCount());
+        Assert.assertEquals(2, command(ig, 0, 1));
+    }
+
+    @Test
+    public void testNonIndexedMeshUsesRegularPath() {
+        Mesh mesh = new Mesh();
+        mesh.setBuffer(VertexBuffer.Type.Position, 3, new float[]{0, 0, 0, 1, 0, 0, 0, 1, 0});
+        mesh.updateBound();
+        InstancedGeometry ig = createInstances(2);
+        ig.setMesh(mesh);
+        ig.setResidentInstances(true);
+        ig.updateInstances(cam);
+
+        Assert.assertFalse(ig.isDrawnIndirect());
+        Assert.assertEquals(2, ig.getNumVisibleInstances());
+    }
+
+    @Test
+    public void testNodeEnablesResidentInstances() {
+        InstancedNode node = new InstancedNode("node");
+        node.setResidentInstances(true);
+        node.attachChild(createGeometry(0, 20));
+        node.attachChild(createGeometry(3, 20));
+        node.instance();
+        node.updateGeometricState();
+
+        RenderManager rm = TestUtil.createRenderManager(new NullRenderer());
+        ViewPort vp = rm.createMainView("main", cam);
+        node.runControlRender(rm, vp);
+
+        InstancedGeometry ig = null;
+        for (Spatial child : node.getChildren()) {
+            if (child instanceof InstancedGeometry) {
+                ig = (InstancedGeometry) child;
+            }
+        }
+        Assert.assertNotNull(ig);
+        Assert.assertTrue(ig.isDrawnIndirect());
+        Assert.assertEquals(2, ig.getNumVisibleInstances());
+    }
+
+    @Test
+    public void testVertexBufferRangesAreMerged() {
+        VertexBuffer vb = box.getBuffer(VertexBuffer.Type.Position);
+        vb.clearUpdateNeeded();
+        vb.updateDataRange(5, 2);
+        vb.updateDataRange(1, 1);
+        Assert.assertEquals(1, vb.getUpdateRangeStart());
+        Assert.assertEquals(7, vb.getUpdateRangeEnd());
+
+        vb.updateData(vb.getData());
+        vb.updateDataRange(1, 1);
+        Assert.assertEquals(-1, vb.getUpdateRangeStart());
+
+        vb.clearUpdateNeeded();
+        vb.updateDataRange(2, 1);
+        vb.setUpdateNeeded();
+        Assert.assertEquals(-1, vb.getUpdateRangeStart());
+        Assert.assertEquals(-1, vb.getUpdateRangeEnd());
+    }
+}
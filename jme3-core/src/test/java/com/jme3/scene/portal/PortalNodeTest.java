@@ -0,0 +1,260 @@
+/*
+ * Copyright (c) 2009-2025 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.scene.portal;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.bounding.BoundingBox;
+import com.jme3.material.Material;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.Camera;
+import com.jme3.renderer.RenderManager;
+import com.jme3.renderer.ViewPort;
+import com.jme3.renderer.queue.GeometryList;
+import com.jme3.renderer.queue.RenderQueue.Bucket;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Node;
+import com.jme3.scene.Spatial;
+import com.jme3.scene.shape.Box;
+import com.jme3.system.TestUtil;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Verifies the cell visibility computed by {@link PortalNode} and its use
+ * by the <code>RenderManager</code>.
+ */
+public class PortalNodeTest {
+
+    private Camera cam;
+    private Node root;
+    private PortalNode portalNode;
+    private Cell cellA, cellB, cellC, cellD;
+    private Portal doorAB, doorBC, doorAD;
+    private Node outside;
+
+    /*
+     * The camera looks down -Z from cell A. Cell B is behind a small door in
+     * front of it, cell C is behind a door of B that is off to the side, and
+     * cell D is next to A, behind the camera's shoulder.
+     */
+    @Before
+    public void setUp() {
+        cam = new Camera(640, 480);
+        cam.setFrustumPerspective(45f, 640f / 480f, 0.5f, 100f);
+        cam.setLocation(new Vector3f(0f, 0f, 5f));
+        cam.lookAt(new Vector3f(0f, 0f, -10f), Vector3f.UNIT_Y);
+        cam.update();
+
+        root = new Node("root");
+        portalNode = new PortalNode("portals");
+        root.attachChild(portalNode);
+        cellA = addCell("A", 0f, 0f, 5f);
+        cellB = addCell("B", 0f, 0f, -5f);
+        cellC = addCell("C", 0f, 0f, -15f);
+        cellD = addCell("D", 10f, 0f, 5f);
+        outside = new Node("outside");
+        portalNode.attachChild(outside);
+
+        doorAB = new Portal(cellA, cellB, quadZ(0f, -1f, 1f));
+        doorBC = new Portal(cellB, cellC, quadZ(-10f, 4f, 6f));
+        doorAD = new Portal(cellA, cellD, new Vector3f(5f, -1f, 4f),
+                new Vector3f(5f, 1f, 4f), new Vector3f(5f, 1f, 6f), new Vector3f(5f, -1f, 6f));
+        portalNode.addPortal(doorAB);
+        portalNode.addPortal(doorBC);
+        portalNode.addPortal(doorAD);
+        root.updateGeometricState();
+    }
+
+    private Cell addCell(String name, float x, float y, float z) {
+        Cell cell = new Cell(name, new BoundingBox(new Vector3f(x, y, z), 5f, 5f, 5f));
+        portalNode.attachChild(cell);
+        return cell;
+    }
+
+    private static Vector3f[] quadZ(float z, float minX, float maxX) {
+        return new Vector3f[]{
+            new Vector3f(minX, -1f, z), new Vector3f(maxX, -1f, z),
+            new Vector3f(maxX, 1f, z), new Vector3f(minX, 1f, z)
+        };
+    }
+
+    @Test
+    public void testVisibleCells() {
+        List<Spatial> children = portalNode.cull(cam);
+
+        Assert.assertSame(cellA, portalNode.getCameraCell());
+        Assert.assertTrue(children.contains(cellA));
+        Assert.assertTrue(children.contains(cellB));
+        Assert.assertFalse(children.contains(cellC));
+        Assert.assertFalse(children.contains(cellD));
+        Assert.assertTrue(children.contains(outside));
+        Assert.assertTrue(portalNode.isCellVisible(cellB));
+        Assert.assertFalse(portalNode.isCellVisible(cellC));
+    }
+
+    @Test
+    public void testClosedPortal() {
+        doorAB.setOpen(false);
+        List<Spatial> children = portalNode.cull(cam);
+
+        Assert.assertTrue(children.contains(cellA));
+        Assert.assertFalse(children.contains(cellB));
+    }
+
+    @Test
+    public void testCellCameras() {
+        portalNode.cull(cam);
+
+        Assert.assertNull(portalNode.getCellCamera(cellA));
+        Assert.assertNull(portalNode.getCellCamera(outside));
+        Camera clipped = portalNode.getCellCamera(cellB);
+        Assert.assertNotNull(clipped);
+        Assert.assertTrue(clipped.getFrustumRight() < cam.getFrustumRight());
+        Assert.assertTrue(clipped.getFrustumLeft() > cam.getFrustumLeft());
+        Assert.assertTrue(clipped.getFrustumTop() < cam.getFrustumTop());
+    }
+
+    @Test
+    public void testAlignedPortalsChain() {
+        portalNode.removePortal(doorBC);
+        portalNode.addPortal(new Portal(cellB, cellC, quadZ(-10f, -0.5f, 0.5f)));
+        List<Spatial> children = portalNode.cull(cam);
+
+        Assert.assertTrue(children.contains(cellC));
+        Camera clippedB = portalNode.getCellCamera(cellB);
+        Camera clippedC = portalNode.getCellCamera(cellC);
+        Assert.assertTrue(clippedC.getFrustumRight() < clippedB.getFrustumRight());
+
+        portalNode.setMaxPortalDepth(1);
+        Assert.assertFalse(portalNode.cull(cam).contains(cellC));
+    }
+
+    @Test
+    public void testCameraInDoorway() {
+        cam.setLocation(new Vector3f(0f, 0f, 0.2f));
+        cam.update();
+        portalNode.cull(cam);
+
+        Assert.assertSame(cellA, portalNode.getCameraCell());
+        Assert.assertTrue(portalNode.isCellVisible(cellB));
+        // the door fills the screen
+        Assert.assertNull(portalNode.getCellCamera(cellB));
+    }
+
+    @Test
+    public void testCameraOutsideCells() {
+        cam.setLocation(new Vector3f(0f, 0f, 50f));
+        cam.update();
+        List<Spatial> children = portalNode.cull(cam);
+
+        Assert.assertNull(portalNode.getCameraCell());
+        Assert.assertEquals(portalNode.getQuantity(), children.size());
+        Assert.assertNull(portalNode.getCellCamera(cellB));
+    }
+
+    @Test
+    public void testShadowChildren() {
+        Assert.assertSame(portalNode.getChildren(), portalNode.getShadowChildren());
+        portalNode.cull(cam);
+        Assert.assertSame(portalNode.getChildren(), portalNode.getShadowChildren());
+
+        portalNode.setShadowCasterDepth(0);
+        portalNode.cull(cam);
+        List<Spatial> casters = portalNode.getShadowChildren();
+        Assert.assertEquals(3, casters.size());
+        Assert.assertTrue(casters.contains(cellA));
+        Assert.assertTrue(casters.contains(cellB));
+        Assert.assertTrue(casters.contains(outside));
+
+        portalNode.setShadowCasterDepth(1);
+        portalNode.cull(cam);
+        Assert.assertEquals(5, portalNode.getShadowChildren().size());
+
+        doorAD.setOpen(false);
+        portalNode.cull(cam);
+        Assert.assertFalse(portalNode.getShadowChildren().contains(cellD));
+    }
+
+    @Test
+    public void testRenderSceneSkipsHiddenCells() {
+        AssetManager assetManager = TestUtil.createAssetManager();
+        RenderManager renderManager = TestUtil.createRenderManager();
+        Material material = new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md");
+
+        Geometry inA = addBox(cellA, 0f, 0f, -2f, material);
+        Geometry throughDoor = addBox(cellB, 0f, 0f, -8f, material);
+        // inside the full frustum, but not seen through the door
+        Geometry besideDoor = addBox(cellB, -4.5f, 0f, -9f, material);
+        Geometry inC = addBox(cellC, 5f, 0f, -15f, material);
+        root.updateGeometricState();
+
+        ViewPort vp = new ViewPort("test", cam);
+        vp.attachScene(root);
+        renderManager.renderScene(root, vp);
+        GeometryList opaque = vp.getQueue().getList(Bucket.Opaque);
+
+        Assert.assertTrue(contains(opaque, inA));
+        Assert.assertTrue(contains(opaque, throughDoor));
+        Assert.assertFalse(contains(opaque, besideDoor));
+        Assert.assertFalse(contains(opaque, inC));
+        Assert.assertEquals(2, opaque.size());
+    }
+
+    @Test
+    public void testClone() {
+        PortalNode copy = (PortalNode) portalNode.clone();
+        Assert.assertEquals(3, copy.getPortals().size());
+        Portal portal = copy.getPortals().get(0);
+        Assert.assertSame(copy, portal.getCellA().getParent());
+        Assert.assertSame(copy, portal.getCellB().getParent());
+        Assert.assertNotSame(doorAB, portal);
+    }
+
+    private static Geometry addBox(Node parent, float x, float y, float z, Material material) {
+        Geometry g = new Geometry("box", new Box(0.25f, 0.25f, 0.25f));
+        g.setMaterial(material);
+        g.setLocalTranslation(x, y, z);
+        parent.attachChild(g);
+        return g;
+    }
+
+    private static boolean contains(GeometryList list, Geometry g) {
+        for (Geometry item : list) {
+            if (item == g) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
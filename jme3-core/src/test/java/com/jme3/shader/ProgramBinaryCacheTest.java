@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2009-2025 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.shader;
+
+import com.jme3.shader.Shader.ShaderType;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Verifies keys, storage and invalidation of {@link ProgramBinaryCache}.
+ */
+public class ProgramBinaryCacheTest {
+
+    private File directory;
+    private ProgramBinaryCache cache;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("programs").toFile();
+        cache = new ProgramBinaryCache(new File(directory, "cache"));
+    }
+
+    @After
+    public void tearDown() {
+        cache.clear();
+        new File(directory, "cache").delete();
+        directory.delete();
+    }
+
+    private static Shader createShader(String defines) {
+        Shader shader = new Shader();
+        shader.addSource(ShaderType.Vertex, "Test.vert", "void main() {}", defines, "GLSL150");
+        shader.addSource(ShaderType.Fragment, "Test.frag", "void main() {}", defines, "GLSL150");
+        return shader;
+    }
+
+    @Test
+    public void testKeyDependsOnDefinesAndDriver() {
+        String key = cache.getKey(createShader("#define A 1\n"), "driver 1.0");
+
+        Assert.assertEquals(key, cache.getKey(createShader("#define A 1\n"), "driver 1.0"));
+        Assert.assertNotEquals(key, cache.getKey(createShader("#define A 2\n"), "driver 1.0"));
+        Assert.assertNotEquals(key, cache.getKey(createShader("#define A 1\n"), "driver 1.1"));
+    }
+
+    @Test
+    public void testStoreAndLoad() {
+        String key = cache.getKey(createShader(""), "driver");
+        Assert.assertNull(cache.load(key));
+        Assert.assertEquals(1, cache.getMissCount());
+
+        ByteBuffer data = ByteBuffer.wrap(new byte[] {1, 2, 3, 4, 5});
+        cache.store(key, 42, data);
+        Assert.assertEquals(0, data.position());
+
+        ProgramBinaryCache.Binary binary = cache.load(key);
+        Assert.assertNotNull(binary);
+        Assert.assertEquals(42, binary.getFormat());
+        Assert.assertEquals(5, binary.getData().remaining());
+        Assert.assertEquals(3, binary.getData().get(2));
+        Assert.assertEquals(1, cache.getHitCount());
+
+        cache.remove(key);
+        Assert.assertNull(cache.load(key));
+        Assert.assertEquals(1, cache.getRejectedCount());
+    }
+
+    @Test
+    public void testCorruptedBinaryIsDropped() throws IOException {
+        String key = cache.getKey(createShader(""), "driver");
+        cache.store(key, 1, ByteBuffer.wrap(new byte[64]));
+
+        File file = new File(cache.getDirectory(), key + ".bin");
+        Assert.assertTrue(file.isFile());
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[] {0, 1, 2});
+        }
+
+        Assert.assertNull(cache.load(key));
+        Assert.assertFalse(file.exists());
+    }
+}
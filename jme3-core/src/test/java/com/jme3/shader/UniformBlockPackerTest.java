@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2009-2025 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.shader;
+
+import com.jme3.material.Material;
+import com.jme3.math.ColorRGBA;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.Camera;
+import com.jme3.renderer.RenderManager;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.shape.Box;
+import com.jme3.shader.Shader.ShaderType;
+import com.jme3.shader.bufferobject.BufferObject;
+import com.jme3.shader.bufferobject.BufferRegion;
+import com.jme3.system.NullRenderer;
+import com.jme3.system.TestUtil;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Verifies the std140 layouts and the source rewriting done by
+ * {@link UniformBlockPacker}, and how materials fill the packed block.
+ */
+public class UniformBlockPackerTest {
+
+    @Test
+    public void testStd140Offsets() {
+        UniformBlockLayout layout = new UniformBlockLayout("m_Block",
+                Arrays.asList("m_A", "m_B", "m_C", "m_D", "m_E"),
+                Arrays.asList(VarType.Float, VarType.Vector3, VarType.Vector2, VarType.Matrix3, VarType.Int));
+
+        Assert.assertEquals(0, layout.getFieldOffset(0));
+        Assert.assertEquals(16, layout.getFieldOffset(1));
+        // a vec2 only needs 8 byte alignment
+        Assert.assertEquals(32, layout.getFieldOffset(2));
+        Assert.assertEquals(48, layout.getFieldOffset(3));
+        Assert.assertEquals(96, layout.getFieldOffset(4));
+        Assert.assertEquals(112, layout.getSize());
+        Assert.assertEquals(1, layout.indexOf("m_B"));
+        Assert.assertEquals(-1, layout.indexOf("m_F"));
+        Assert.assertEquals("B", layout.getParameterName(1));
+    }
+
+    @Test
+    public void testPackRewritesDeclarations() {
+        Map<ShaderType, String> sources = new EnumMap<>(ShaderType.class);
+        sources.put(ShaderType.Vertex, "#version 150\n"
+                + "uniform mat4 g_WorldViewProjectionMatrix;\n"
+                + "uniform mat4 g_ViewMatrix;\n"
+                + "uniform float m_Scale;\n"
+                + "void main() {}\n");
+        sources.put(ShaderType.Fragment, "#version 150\n"
+                + "#ifdef FOO\n"
+                + "#extension GL_ARB_foo : enable\n"
+                + "#endif\n"
+                + "uniform vec4 m_Color;\n"
+                + "uniform highp vec2 m_Offset; // comment\n"
+                + "uniform sampler2D m_ColorMap;\n"
+                + "uniform float m_A, m_B;\n"
+                + "uniform vec4 m_Color2[2];\n"
+                + "void main() {}\n");
+
+        UniformBlockPacker packer = new UniformBlockPacker();
+        packer.pack(sources);
+
+        UniformBlockLayout layout = packer.getMaterialLayout();
+        Assert.assertNotNull(layout);
+        Assert.assertTrue(packer.hasFrameBlock());
+        // ordered by alignment
+        Assert.assertEquals(3, layout.getFieldCount());
+        Assert.assertEquals("m_Color", layout.getFieldName(0));
+        Assert.assertEquals("m_Offset", layout.getFieldName(1));
+        Assert.assertEquals("m_Scale", layout.getFieldName(2));
+
+        String vert = sources.get(ShaderType.Vertex);
+        String frag = sources.get(ShaderType.Fragment);
+        Assert.assertTrue(vert.contains("uniform mat4 g_WorldViewProjectionMatrix;"));
+        Assert.assertFalse(vert.contains("uniform mat4 g_ViewMatrix;"));
+        Assert.assertFalse(vert.contains("uniform float m_Scale;"));
+        Assert.assertTrue(vert.startsWith("#version 150\nlayout(std140) uniform "
+                + UniformBlockPacker.FRAME_BLOCK));
+        Assert.assertTrue(vert.contains("uniform " + UniformBlockPacker.MATERIAL_BLOCK));
+
+        // declared after the conditional extension, not inside it
+        Assert.assertTrue(frag.indexOf("#endif") < frag.indexOf(UniformBlockPacker.MATERIAL_BLOCK));
+        Assert.assertFalse(frag.contains(UniformBlockPacker.FRAME_BLOCK));
+        Assert.assertFalse(frag.contains("uniform vec4 m_Color;"));
+        Assert.assertTrue(frag.contains("uniform sampler2D m_ColorMap;"));
+        Assert.assertTrue(frag.contains("uniform float m_A, m_B;"));
+        Assert.assertTrue(frag.contains("uniform vec4 m_Color2[2];"));
+    }
+
+    @Test
+    public void testConflictingTypesAreNotPacked() {
+        Map<ShaderType, String> sources = new EnumMap<>(ShaderType.class);
+        sources.put(ShaderType.Vertex, "uniform float m_Value;\nvoid main() {}\n");
+        sources.put(ShaderType.Fragment, "uniform int m_Value;\nvoid main() {}\n");
+        String vert = sources.get(ShaderType.Vertex);
+
+        UniformBlockPacker packer = new UniformBlockPacker();
+        packer.pack(sources);
+
+        Assert.assertNull(packer.getMaterialLayout());
+        Assert.assertFalse(packer.hasFrameBlock());
+        Assert.assertSame(vert, sources.get(ShaderType.Vertex));
+    }
+
+    @Test
+    public void testSetFieldTracksChanges() {
+        UniformBlockLayout layout = new UniformBlockLayout("m_Block",
+                Arrays.asList("m_Color", "m_Scale"), Arrays.asList(VarType.Vector4, VarType.Float));
+        BufferObject bo = layout.createBufferObject();
+        BufferRegion scale = bo.getRegion(1);
+        scale.clearDirty();
+
+        Assert.assertFalse(layout.setField(bo, 1, 0f));
+        Assert.assertFalse(scale.isDirty());
+        Assert.assertTrue(layout.setField(bo, 1, 2f));
+        Assert.assertTrue(scale.isDirty());
+        Assert.assertEquals(2f, bo.getData().getFloat(16), 0f);
+
+        scale.clearDirty();
+        Assert.assertFalse(layout.setField(bo, 1, 2f));
+        Assert.assertFalse(scale.isDirty());
+        Assert.assertTrue(layout.setField(bo, 1, null));
+        Assert.assertEquals(0f, bo.getData().getFloat(16), 0f);
+    }
+
+    @Test
+    public void testMaterialFillsParameterBlock() {
+        ShaderRecorder renderer = new ShaderRecorder();
+        RenderManager renderManager = TestUtil.createRenderManager(renderer);
+        renderManager.setUniformBlocksEnabled(true);
+        Camera cam = new Camera(640, 480);
+        cam.setLocation(new Vector3f(1, 2, 3));
+        renderManager.setCamera(cam, false);
+
+        Material mat = new Material(TestUtil.createAssetManager(), "Common/MatDefs/Misc/Unshaded.j3md");
+        mat.setColor("Color", new ColorRGBA(0.25f, 0.5f, 0.75f, 1f));
+        Geometry geom = new Geometry("box", new Box(1, 1, 1));
+        geom.setMaterial(mat);
+        geom.updateGeometricState();
+        renderManager.renderGeometry(geom);
+
+        Shader shader = renderer.shader;
+        UniformBlockLayout layout = shader.getMaterialBlockLayout();
+        Assert.assertNotNull(layout);
+        Assert.assertTrue(shader.hasFrameBlock());
+        Assert.assertFalse(shader.getUniformMap().containsKey("m_Color"));
+
+        BufferObject block = shader.getBufferBlock(UniformBlockPacker.MATERIAL_BLOCK).getBufferObject();
+        ByteBuffer data = block.getData();
+        int offset = layout.getFieldOffset(layout.indexOf("m_Color"));
+        Assert.assertEquals(0.5f, data.getFloat(offset + 4), 0f);
+
+        BufferObject frame = shader.getBufferBlock(UniformBlockPacker.FRAME_BLOCK).getBufferObject();
+        UniformBlockLayout frameLayout = UniformBlockPacker.newFrameLayout();
+        offset = frameLayout.getFieldOffset(frameLayout.indexOf("g_CameraPosition"));
+        Assert.assertEquals(2f, frame.getData().getFloat(offset + 4), 0f);
+    }
+
+    private static class ShaderRecorder extends NullRenderer {
+        private Shader shader;
+
+        @Override
+        public void setShader(Shader shader) {
+            this.shader = shader;
+        }
+    }
+}
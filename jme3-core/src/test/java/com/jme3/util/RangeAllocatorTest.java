@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2009-2025 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Verifies the first-fit allocation and merging of {@link RangeAllocator}.
+ */
+public class RangeAllocatorTest {
+
+    @Test
+    public void testReleasedRangesAreMerged() {
+        RangeAllocator ranges = new RangeAllocator(10);
+        Assert.assertEquals(-1, ranges.allocate(1));
+
+        ranges.release(2, 2);
+        ranges.release(6, 2);
+        ranges.release(4, 2);
+        Assert.assertEquals(2, ranges.allocate(6));
+        Assert.assertEquals(-1, ranges.allocate(1));
+    }
+
+    @Test
+    public void testGrowAddsFreeTail() {
+        RangeAllocator ranges = new RangeAllocator(10);
+        ranges.release(8, 2);
+        ranges.grow(12);
+
+        Assert.assertEquals(12, ranges.getCapacity());
+        Assert.assertEquals(8, ranges.allocate(4));
+        Assert.assertEquals(-1, ranges.allocate(1));
+    }
+
+    @Test
+    public void testFirstFit() {
+        RangeAllocator ranges = new RangeAllocator(0);
+        ranges.grow(16);
+        Assert.assertEquals(0, ranges.allocate(4));
+        Assert.assertEquals(4, ranges.allocate(4));
+        Assert.assertEquals(8, ranges.allocate(4));
+        ranges.release(0, 4);
+        Assert.assertEquals(0, ranges.allocate(2));
+        Assert.assertEquals(12, ranges.allocate(4));
+        Assert.assertEquals(2, ranges.allocate(2));
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2009-2025 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jme3test.renderer;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.material.Material;
+import com.jme3.material.TechniqueDef;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.Camera;
+import com.jme3.renderer.RenderManager;
+import com.jme3.renderer.queue.GeometryComparator;
+import com.jme3.renderer.queue.GeometryList;
+import com.jme3.renderer.queue.OpaqueComparator;
+import com.jme3.renderer.queue.TransparentComparator;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.shape.Box;
+import com.jme3.system.JmeSystem;
+import com.jme3.system.NullRenderer;
+import java.util.Random;
+
+/**
+ * Compares the time it takes to sort a {@link GeometryList} with its
+ * comparator and by radix sorting packed keys, for 1k, 10k and 100k
+ * geometries. Runs without a display.
+ */
+public class TestGeometryListSort {
+
+    private static final int[] SIZES = {1000, 10000, 100000};
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int ROUNDS = 50;
+
+    public static void main(String[] args) {
+        AssetManager assetManager = JmeSystem.newAssetManager(
+                TestGeometryListSort.class.getResource("/com/jme3/asset/Desktop.cfg"));
+        RenderManager renderManager = new RenderManager(new NullRenderer());
+        String[] defs = {
+            "Common/MatDefs/Misc/Unshaded.j3md",
+            "Common/MatDefs/Misc/ShowNormals.j3md",
+            "Common/MatDefs/Light/Lighting.j3md",
+            "Common/MatDefs/Light/PBRLighting.j3md"
+        };
+        Material[] materials = new Material[defs.length];
+        for (int i = 0; i < defs.length; i++) {
+            materials[i] = new Material(assetManager, defs[i]);
+            materials[i].selectTechnique(TechniqueDef.DEFAULT_TECHNIQUE_NAME, renderManager);
+        }
+
+        Camera cam = new Camera(640, 480);
+        cam.setLocation(new Vector3f(0, 0, 200));
+        cam.lookAt(Vector3f.ZERO, Vector3f.UNIT_Y);
+
+        for (int size : SIZES) {
+            Geometry[] geometries = createGeometries(size, materials);
+            for (String bucket : new String[]{"Opaque", "Transparent"}) {
+                float listSort = benchmark(geometries, cam, bucket, false);
+                float radixSort = benchmark(geometries, cam, bucket, true);
+                System.out.printf("%-12s %7d geometries: ListSort %8.3f ms, RadixSort %8.3f ms%n",
+                        bucket, size, listSort, radixSort);
+            }
+        }
+    }
+
+    private static Geometry[] createGeometries(int size, Material[] materials) {
+        Box box = new Box(0.5f, 0.5f, 0.5f);
+        Random random = new Random(size);
+        Geometry[] geometries = new Geometry[size];
+        for (int i = 0; i < size; i++) {
+            Geometry geom = new Geometry("geom" + i, box);
+            geom.setMaterial(materials[random.nextInt(materials.length)]);
+            geom.setLocalTranslation(random.nextFloat() * 200f - 100f,
+                    random.nextFloat() * 200f - 100f, random.nextFloat() * 200f - 100f);
+            geom.updateGeometricState();
+            geometries[i] = geom;
+        }
+        return geometries;
+    }
+
+    /**
+     * Returns the average time in milliseconds to fill and sort a list.
+     */
+    private static float benchmark(Geometry[] geometries, Camera cam, String bucket, boolean radix) {
+        GeometryComparator comparator = bucket.equals("Opaque")
+                ? new OpaqueComparator() : new TransparentComparator();
+        GeometryList list = new GeometryList(comparator);
+        list.setRadixSortEnabled(radix);
+        list.setCamera(cam);
+
+        long total = 0;
+        for (int round = 0; round < WARMUP_ROUNDS + ROUNDS; round++) {
+            list.clear();
+            for (Geometry geom : geometries) {
+                // like RenderQueue, forget the distance cached by the last sort
+                geom.queueDistance = Float.NEGATIVE_INFINITY;
+                list.add(geom);
+            }
+            long start = System.nanoTime();
+            list.sort();
+            if (round >= WARMUP_ROUNDS) {
+                total += System.nanoTime() - start;
+            }
+        }
+        return total / (ROUNDS * 1000000f);
+    }
+}
@@ -67,6 +67,30 @@ public final class LwjglGL implements GL, GL2, GL3, GL4 {
         GL42.glBindImageTexture(unit, texture, level, layered, layer, access, format);
     }
     
+    @Override
+    public void glMultiDrawElementsIndirect(final int mode, final int type, final long indirect,
+                                            final int drawCount, final int stride) {
+        GL43.glMultiDrawElementsIndirect(mode, type, indirect, drawCount, stride);
+    }
+
+    @Override
+    public void glProgramParameteri(final int program, final int pname, final int value) {
+        GL41.glProgramParameteri(program, pname, value);
+    }
+
+    @Override
+    public void glGetProgramBinary(final int program, final IntBuffer length, final IntBuffer binaryFormat,
+                                   final ByteBuffer binary) {
+        checkLimit(length);
+        checkLimit(binaryFormat);
+        GL41.glGetProgramBinary(program, length, binaryFormat, binary);
+    }
+
+    @Override
+    public void glProgramBinary(final int program, final int binaryFormat, final ByteBuffer binary) {
+        GL41.glProgramBinary(program, binaryFormat, binary);
+    }
+    
     @Override
     public void glBlendEquationSeparate(int colorMode, int alphaMode){
         GL20.glBlendEquationSeparate(colorMode,alphaMode);